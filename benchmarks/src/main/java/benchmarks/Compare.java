@@ -0,0 +1,150 @@
+package benchmarks;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * 对比两次 JMH 运行的 CSV 结果 (-rf csv -rff base.csv 或者 {@link Sweep} 的输出).
+ * <pre>
+ * java -cp benchmarks.jar benchmarks.Compare base.csv new.csv [阈值百分比, 默认 5]
+ * </pre>
+ * 按 基准名 + 模式 + 线程数 + 参数 配对. 两次的 score ± error 区间不重叠并且变化超过阈值才算变快或变慢,
+ * 吞吐量模式越大越好, 其他模式越小越好. 有变慢的结果时退出码是 1, 可以直接放进 CI.
+ *
+ * @date 2026/10/18 18:25
+ */
+public class Compare {
+
+    public static void main(String[] args) throws IOException {
+        if (args.length < 2) {
+            System.err.println("usage: Compare base.csv new.csv [thresholdPercent]");
+            System.exit(2);
+        }
+        Map<String, Row> base = read(args[0]);
+        Map<String, Row> next = read(args[1]);
+        double threshold = args.length > 2 ? Double.parseDouble(args[2]) : 5.0;
+
+        int width = "Benchmark".length();
+        for (String key : base.keySet())
+            width = Math.max(width, key.length());
+        for (String key : next.keySet())
+            width = Math.max(width, key.length());
+        String format = "%-" + width + "s  %22s  %22s  %8s  %s%n";
+        System.out.printf(format, "Benchmark", "Base", "New", "Change", "");
+
+        int regressions = 0;
+        for (Map.Entry<String, Row> e : base.entrySet()) {
+            Row b = e.getValue(), n = next.get(e.getKey());
+            if (n == null) {
+                System.out.printf(format, e.getKey(), b, "-", "", "missing");
+                continue;
+            }
+            double change = (n.score - b.score) / b.score * 100;
+            String verdict = "";
+            boolean overlap = b.score - b.error <= n.score + n.error && n.score - n.error <= b.score + b.error;
+            if (!overlap && Math.abs(change) >= threshold) {
+                boolean better = b.higherIsBetter() ? change > 0 : change < 0;
+                verdict = better ? "faster" : "SLOWER";
+                if (!better)
+                    regressions++;
+            }
+            System.out.printf(format, e.getKey(), b, n, String.format("%+.1f%%", change), verdict);
+        }
+        for (Map.Entry<String, Row> e : next.entrySet()) {
+            if (!base.containsKey(e.getKey()))
+                System.out.printf(format, e.getKey(), "-", e.getValue(), "", "new");
+        }
+        if (regressions > 0) {
+            System.out.println(regressions + " regression(s)");
+            System.exit(1);
+        }
+    }
+
+    static final class Row {
+        final String mode;
+        final double score;
+        final double error;
+        final String unit;
+
+        Row(String mode, double score, double error, String unit) {
+            this.mode = mode;
+            this.score = score;
+            this.error = Double.isNaN(error) ? 0 : error;
+            this.unit = unit;
+        }
+
+        boolean higherIsBetter() {
+            return "thrpt".equals(mode);
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.3f ± %.3f %s", score, error, unit);
+        }
+    }
+
+    /**
+     * 读 JMH 的 CSV, key 是 "基准名 (模式, 线程数) 参数=值...".
+     */
+    static Map<String, Row> read(String file) throws IOException {
+        List<String> lines = Files.readAllLines(Paths.get(file), StandardCharsets.UTF_8);
+        List<String> header = split(lines.get(0));
+        int benchmark = header.indexOf("Benchmark"), mode = header.indexOf("Mode"),
+                threads = header.indexOf("Threads"), score = header.indexOf("Score"),
+                error = header.indexOf("Score Error (99.9%)"), unit = header.indexOf("Unit");
+        Map<String, Row> rows = new LinkedHashMap<>();
+        for (String line : lines.subList(1, lines.size())) {
+            if (line.isEmpty())
+                continue;
+            List<String> cells = split(line);
+            String name = cells.get(benchmark);
+            // 去掉包名, 只留 类名.方法名 (以及 @Group 的 :方法名)
+            int dot = name.lastIndexOf('.', name.lastIndexOf('.') - 1);
+            StringBuilder key = new StringBuilder(name.substring(dot + 1))
+                    .append(" (").append(cells.get(mode)).append(", ").append(cells.get(threads)).append(')');
+            for (int i = 0; i < header.size(); i++) {
+                String h = header.get(i);
+                if (h.startsWith("Param: ") && i < cells.size() && !cells.get(i).isEmpty())
+                    key.append(' ').append(h.substring("Param: ".length())).append('=').append(cells.get(i));
+            }
+            rows.put(key.toString(), new Row(cells.get(mode), parse(cells.get(score)),
+                    parse(cells.get(error)), cells.get(unit)));
+        }
+        return rows;
+    }
+
+    static double parse(String s) {
+        return s.isEmpty() || "NaN".equals(s) ? Double.NaN : Double.parseDouble(s);
+    }
+
+    /** 按逗号切分一行, 支持双引号包起来的字段. */
+    static List<String> split(String line) {
+        List<String> cells = new ArrayList<>();
+        StringBuilder cell = new StringBuilder();
+        boolean quoted = false;
+        for (int i = 0; i < line.length(); i++) {
+            char c = line.charAt(i);
+            if (c == '"') {
+                if (quoted && i + 1 < line.length() && line.charAt(i + 1) == '"') {
+                    cell.append('"');
+                    i++;
+                } else {
+                    quoted = !quoted;
+                }
+            } else if (c == ',' && !quoted) {
+                cells.add(cell.toString());
+                cell.setLength(0);
+            } else {
+                cell.append(c);
+            }
+        }
+        cells.add(cell.toString());
+        return cells;
+    }
+}
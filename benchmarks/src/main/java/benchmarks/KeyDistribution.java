@@ -0,0 +1,101 @@
+package benchmarks;
+
+import java.util.Random;
+
+/**
+ * 基准测试用的 key 分布.
+ * <ul>
+ *     <li>SEQUENTIAL: 连续的 Integer, hash 均匀且互不冲突</li>
+ *     <li>RANDOM: 随机的 Integer</li>
+ *     <li>COLLIDING: hashCode 全部相同且不可比较, HashMap 树化后只能靠 tieBreakOrder 排序, 查找要遍历整棵树</li>
+ *     <li>COLLIDING_COMPARABLE: hashCode 全部相同但实现了 Comparable, 树化后查找是 O(log n)</li>
+ * </ul>
+ * 两种冲突分布都会让单个桶超过 TREEIFY_THRESHOLD, 在 table 扩到 64 以后触发 treeifyBin.
+ *
+ * @date 2026/10/18 17:20
+ */
+public enum KeyDistribution {
+    SEQUENTIAL {
+        Object key(int i, Random random) {
+            return i;
+        }
+    },
+    RANDOM {
+        Object key(int i, Random random) {
+            return random.nextInt();
+        }
+    },
+    COLLIDING {
+        Object key(int i, Random random) {
+            return new CollidingKey(i);
+        }
+    },
+    COLLIDING_COMPARABLE {
+        Object key(int i, Random random) {
+            return new ComparableCollidingKey(i);
+        }
+    };
+
+    abstract Object key(int i, Random random);
+
+    /**
+     * 生成 n 个互不相等的 key, 同样的种子生成同样的序列.
+     */
+    public Object[] keys(int n, long seed) {
+        Random random = new Random(seed);
+        java.util.Set<Object> seen = new java.util.HashSet<>();
+        Object[] keys = new Object[n];
+        for (int i = 0; i < n; ) {
+            Object k = key(i, random);
+            if (seen.add(k))
+                keys[i++] = k;
+        }
+        return keys;
+    }
+
+    /**
+     * 把 key 打乱, 用作查找顺序, 避免按插入顺序访问带来的缓存友好.
+     */
+    public static Object[] shuffle(Object[] keys, long seed) {
+        Object[] copy = keys.clone();
+        Random random = new Random(seed);
+        for (int i = copy.length - 1; i > 0; i--) {
+            int j = random.nextInt(i + 1);
+            Object t = copy[i];
+            copy[i] = copy[j];
+            copy[j] = t;
+        }
+        return copy;
+    }
+
+    static class CollidingKey {
+        final int id;
+
+        CollidingKey(int id) {
+            this.id = id;
+        }
+
+        @Override
+        public int hashCode() {
+            return 0x5f3759df;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof CollidingKey && ((CollidingKey) o).id == id;
+        }
+    }
+
+    static final class ComparableCollidingKey extends CollidingKey
+            implements Comparable<ComparableCollidingKey> {
+
+        ComparableCollidingKey(int id) {
+            super(id);
+        }
+
+        @Override
+        public int compareTo(ComparableCollidingKey o) {
+            return Integer.compare(id, o.id);
+        }
+    }
+}
@@ -0,0 +1,69 @@
+package benchmarks;
+
+import org.openjdk.jmh.results.RunResult;
+import org.openjdk.jmh.results.format.ResultFormatFactory;
+import org.openjdk.jmh.results.format.ResultFormatType;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.options.CommandLineOptions;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * 线程数扫描: 同一组基准依次用 1, 2, 4 ... 个线程跑, 所有结果写进同一个 CSV, 方便用 {@link Compare} 对比.
+ * <pre>
+ * java -cp benchmarks.jar benchmarks.Sweep [-threads 1,2,4,8] [-group] [-out sweep.csv] [JMH 参数...]
+ * </pre>
+ * 默认线程数是 2 的幂, 直到 CPU 数 (最后一档就是 CPU 数).
+ * -group 用于 @Group 基准, 每一档是 n 个生产者 + n 个消费者 (-tg n,n).
+ * 其余参数原样交给 JMH, 例如基准的正则, -p, -f, -jvmArgsPrepend. 不要再传 -rff, 每一档都会覆盖它.
+ *
+ * @date 2026/10/18 18:15
+ */
+public class Sweep {
+
+    public static void main(String[] args) throws Exception {
+        int[] threads = defaultThreads(Runtime.getRuntime().availableProcessors());
+        boolean group = false;
+        String out = "sweep.csv";
+        List<String> rest = new ArrayList<>();
+        for (int i = 0; i < args.length; i++) {
+            switch (args[i]) {
+                case "-threads":
+                    threads = Arrays.stream(args[++i].split(",")).mapToInt(Integer::parseInt).toArray();
+                    break;
+                case "-group":
+                    group = true;
+                    break;
+                case "-out":
+                    out = args[++i];
+                    break;
+                default:
+                    rest.add(args[i]);
+            }
+        }
+        CommandLineOptions cmd = new CommandLineOptions(rest.toArray(new String[0]));
+        List<RunResult> results = new ArrayList<>();
+        for (int t : threads) {
+            OptionsBuilder options = new OptionsBuilder();
+            options.parent(cmd);
+            if (group)
+                options.threadGroups(t, t);
+            else
+                options.threads(t);
+            results.addAll(new Runner(options.build()).run());
+        }
+        ResultFormatFactory.getInstance(ResultFormatType.CSV, out).writeOut(results);
+        System.out.println("Results written to " + out);
+    }
+
+    static int[] defaultThreads(int cpus) {
+        List<Integer> list = new ArrayList<>();
+        for (int t = 1; t < cpus; t <<= 1)
+            list.add(t);
+        list.add(cpus);
+        return list.stream().mapToInt(Integer::intValue).toArray();
+    }
+}
@@ -0,0 +1,78 @@
+package benchmarks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ArrayList 的 add (含 grow 的数组拷贝) / get / 迭代.
+ *
+ * @date 2026/10/18 17:40
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ArrayListBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    int size;
+
+    Integer[] values;
+    ArrayList<Integer> list;
+
+    @Setup
+    public void setUp() {
+        values = new Integer[size];
+        for (int i = 0; i < size; i++)
+            values[i] = i;
+        list = new ArrayList<>();
+        for (Integer v : values)
+            list.add(v);
+    }
+
+    /** 从默认容量开始 add, 每次 grow 扩大 1.5 倍并拷贝. */
+    @Benchmark
+    public ArrayList<Integer> addWithGrow() {
+        ArrayList<Integer> l = new ArrayList<>();
+        for (Integer v : values)
+            l.add(v);
+        return l;
+    }
+
+    /** 预先给足容量, 和 addWithGrow 的差就是 grow 的开销. */
+    @Benchmark
+    public ArrayList<Integer> addPresized() {
+        ArrayList<Integer> l = new ArrayList<>(size);
+        for (Integer v : values)
+            l.add(v);
+        return l;
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) {
+        ArrayList<Integer> l = list;
+        for (int i = 0, n = l.size(); i < n; i++)
+            bh.consume(l.get(i));
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (Integer v : list)
+            bh.consume(v);
+    }
+}
@@ -0,0 +1,108 @@
+package benchmarks.util;
+
+import benchmarks.KeyDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * HashMap 的 get / putVal / resize / 迭代.
+ * 每次调用操作 size 个 key, 结果是整批的耗时.
+ * COLLIDING 分布下所有 key 落在同一个桶, 会走 treeifyBin 和 TreeNode.putTreeVal / find.
+ *
+ * @date 2026/10/18 17:30
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class HashMapBenchmark {
+
+    @Param({"16", "1024", "16384"})
+    int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "COLLIDING", "COLLIDING_COMPARABLE"})
+    KeyDistribution distribution;
+
+    Object[] keys;
+    Object[] lookups;
+    Object[] misses;
+    HashMap<Object, Object> map;
+
+    @Setup
+    public void setUp() {
+        // 前一半放进表里, 后一半是同分布但不在表里的 key
+        Object[] all = distribution.keys(size * 2, 42);
+        keys = Arrays.copyOfRange(all, 0, size);
+        misses = Arrays.copyOfRange(all, size, size * 2);
+        lookups = KeyDistribution.shuffle(keys, 7);
+        map = new HashMap<>();
+        for (Object k : keys)
+            map.put(k, k);
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) {
+        HashMap<Object, Object> m = map;
+        for (Object k : lookups)
+            bh.consume(m.get(k));
+    }
+
+    @Benchmark
+    public void getMiss(Blackhole bh) {
+        // 对冲突分布来说就是把整个桶查一遍
+        HashMap<Object, Object> m = map;
+        for (Object k : misses)
+            bh.consume(m.get(k));
+    }
+
+    /** 从默认容量开始插入, 包含每一次 resize. */
+    @Benchmark
+    public HashMap<Object, Object> putWithResize() {
+        HashMap<Object, Object> m = new HashMap<>();
+        for (Object k : keys)
+            m.put(k, k);
+        return m;
+    }
+
+    /** 预先给足容量, 和 putWithResize 的差就是 resize 的开销. */
+    @Benchmark
+    public HashMap<Object, Object> putPresized() {
+        HashMap<Object, Object> m = new HashMap<>((int) (size / 0.75f) + 1);
+        for (Object k : keys)
+            m.put(k, k);
+        return m;
+    }
+
+    /** 覆盖已有 key, 只走 putVal 的查找和替换, 不扩容. */
+    @Benchmark
+    public void putExisting(Blackhole bh) {
+        HashMap<Object, Object> m = map;
+        for (Object k : lookups)
+            bh.consume(m.put(k, k));
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (Map.Entry<Object, Object> e : map.entrySet()) {
+            bh.consume(e.getKey());
+            bh.consume(e.getValue());
+        }
+    }
+}
@@ -0,0 +1,90 @@
+package benchmarks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.LinkedHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Spliterator;
+import java.util.Spliterators;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.StreamSupport;
+
+/**
+ * 链式结构上的 parallel().map().collect(): LinkedHashMap.keySet() / LinkedList 自带的 spliterator,
+ * 对比 Spliterators.spliterator(collection, ...) 包装迭代器的 IteratorSpliterator (每次切分的批次只加 1024).
+ * 用标准 API 编译; 运行在 JDK 8 + -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes 时测的是仓库里按倍增批次切分的实现.
+ * map 里做一点计算, 否则并行的收益盖不过拆分和合并的开销.
+ *
+ * @date 2026/10/18 21:40
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class LinkedSpliteratorBenchmark {
+
+    @Param({"10000", "1000000"})
+    int size;
+
+    LinkedHashMap<Integer, Integer> map;
+    LinkedList<Integer> list;
+
+    @Setup
+    public void setUp() {
+        map = new LinkedHashMap<>();
+        list = new LinkedList<>();
+        for (int i = 0; i < size; i++) {
+            map.put(i, i);
+            list.add(i);
+        }
+    }
+
+    private static long work(Integer k) {
+        long h = k;
+        for (int i = 0; i < 16; i++)
+            h = h * 0x9E3779B97F4A7C15L + i;
+        return h;
+    }
+
+    @Benchmark
+    public List<Long> mapKeysSequential() {
+        return map.keySet().stream().map(LinkedSpliteratorBenchmark::work).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Long> mapKeysParallel() {
+        return map.keySet().parallelStream().map(LinkedSpliteratorBenchmark::work).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Long> mapKeysParallelIterator() {
+        Spliterator<Integer> s = Spliterators.spliterator(map.keySet(),
+                Spliterator.SIZED | Spliterator.ORDERED | Spliterator.DISTINCT);
+        return StreamSupport.stream(s, true).map(LinkedSpliteratorBenchmark::work).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Long> listParallel() {
+        return list.parallelStream().map(LinkedSpliteratorBenchmark::work).collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<Long> listParallelIterator() {
+        Spliterator<Integer> s = Spliterators.spliterator(list, Spliterator.ORDERED);
+        return StreamSupport.stream(s, true).map(LinkedSpliteratorBenchmark::work).collect(Collectors.toList());
+    }
+}
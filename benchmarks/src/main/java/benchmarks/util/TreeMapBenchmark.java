@@ -0,0 +1,74 @@
+package benchmarks.util;
+
+import benchmarks.KeyDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * TreeMap 的 put (fixAfterInsertion 的旋转和变色) / get / 迭代.
+ * SEQUENTIAL 按升序插入, 每次都插在最右边, 旋转最频繁; RANDOM 是随机顺序.
+ *
+ * @date 2026/10/18 17:45
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class TreeMapBenchmark {
+
+    @Param({"16", "1024", "65536"})
+    int size;
+
+    @Param({"SEQUENTIAL", "RANDOM"})
+    KeyDistribution distribution;
+
+    Object[] keys;
+    Object[] lookups;
+    TreeMap<Object, Object> map;
+
+    @Setup
+    public void setUp() {
+        keys = distribution.keys(size, 42);
+        lookups = KeyDistribution.shuffle(keys, 7);
+        map = new TreeMap<>();
+        for (Object k : keys)
+            map.put(k, k);
+    }
+
+    @Benchmark
+    public TreeMap<Object, Object> put() {
+        TreeMap<Object, Object> m = new TreeMap<>();
+        for (Object k : keys)
+            m.put(k, k);
+        return m;
+    }
+
+    @Benchmark
+    public void get(Blackhole bh) {
+        TreeMap<Object, Object> m = map;
+        for (Object k : lookups)
+            bh.consume(m.get(k));
+    }
+
+    @Benchmark
+    public void iterate(Blackhole bh) {
+        for (Map.Entry<Object, Object> e : map.entrySet())
+            bh.consume(e.getValue());
+    }
+}
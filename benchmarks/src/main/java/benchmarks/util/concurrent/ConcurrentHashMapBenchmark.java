@@ -0,0 +1,85 @@
+package benchmarks.util.concurrent;
+
+import benchmarks.KeyDistribution;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 多线程共享一个 ConcurrentHashMap: get / putVal / merge 和读写混合.
+ * 线程数用 -t 指定, 或者用 benchmarks.Sweep 从 1 扫到 CPU 数.
+ * COLLIDING 分布下所有线程争同一个桶的 synchronized 和 TreeBin 的读写锁.
+ *
+ * @date 2026/10/18 17:55
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ConcurrentHashMapBenchmark {
+
+    @Param({"1024", "65536"})
+    int size;
+
+    @Param({"SEQUENTIAL", "RANDOM", "COLLIDING_COMPARABLE"})
+    KeyDistribution distribution;
+
+    /** 读操作所占的百分比, 只影响 mixed. */
+    @Param({"90"})
+    int readPercent;
+
+    Object[] keys;
+    ConcurrentHashMap<Object, Object> map;
+
+    @Setup
+    public void setUp() {
+        keys = distribution.keys(size, 42);
+        map = new ConcurrentHashMap<>();
+        for (Object k : keys)
+            map.put(k, 0L);
+    }
+
+    Object randomKey() {
+        Object[] ks = keys;
+        return ks[ThreadLocalRandom.current().nextInt(ks.length)];
+    }
+
+    @Benchmark
+    public Object get() {
+        return map.get(randomKey());
+    }
+
+    /** 覆盖已有的 key, 走 putVal 里对桶头加锁的路径. */
+    @Benchmark
+    public Object put() {
+        Object k = randomKey();
+        return map.put(k, k);
+    }
+
+    /** 计数器式的更新. */
+    @Benchmark
+    public Object merge() {
+        return map.merge(randomKey(), 1L, (a, b) -> (Long) a + (Long) b);
+    }
+
+    @Benchmark
+    public Object mixed() {
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        Object k = keys[random.nextInt(keys.length)];
+        return random.nextInt(100) < readPercent ? map.get(k) : map.put(k, k);
+    }
+}
@@ -0,0 +1,60 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * LinkedBlockingQueue 的生产者 / 消费者吞吐, 生产和消费各用一把锁.
+ * 线程数用 -tg 生产者数,消费者数 指定, 或者用 benchmarks.Sweep -group 扫描.
+ * 用带超时的 offer / poll, 迭代结束时另一边的线程已经停了也不会一直阻塞.
+ *
+ * @date 2026/10/18 18:05
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class LinkedBlockingQueueBenchmark {
+
+    @Param({"16", "1024"})
+    int capacity;
+
+    LinkedBlockingQueue<Integer> queue;
+
+    static final Integer ELEMENT = 1;
+
+    @Setup
+    public void setUp() {
+        queue = new LinkedBlockingQueue<>(capacity);
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(1)
+    public boolean offer() throws InterruptedException {
+        return queue.offer(ELEMENT, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(1)
+    public Integer poll() throws InterruptedException {
+        return queue.poll(1, TimeUnit.MILLISECONDS);
+    }
+}
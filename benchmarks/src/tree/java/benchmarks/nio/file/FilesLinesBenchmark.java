@@ -0,0 +1,91 @@
+package benchmarks.nio.file;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.BufferedReader;
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+
+/**
+ * 扫描日志文件, 数出含 "ERROR" 的行: 顺序的 Files.lines, 原来的并行 (BufferedReader.lines().parallel(), 迭代器按批切分)
+ * 和映射文件按行切分的并行 Files.lines(path).parallel() 对比. 吞吐量 = sizeMb / 每次操作的时间.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes; 不加就是原版 JDK 的 Files.lines.
+ * 几个 GB 的文件用 -p sizeMb=4096 (临时目录要有足够的空间); 多核机器上可以用 -jvmArgsAppend -XX:ActiveProcessorCount=N 对比不同的核数.
+ *
+ * @date 2026/10/19 06:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class FilesLinesBenchmark {
+
+    @Param({"64"})
+    int sizeMb;
+
+    Path path;
+
+    @Setup
+    public void setUp() throws IOException {
+        path = Files.createTempFile("lines", ".log");
+        Random random = new Random(42);
+        String[] levels = {"INFO", "INFO", "INFO", "DEBUG", "WARN"};
+        long size = (long) sizeMb << 20, written = 0;
+        try (BufferedWriter w = Files.newBufferedWriter(path)) {
+            for (long i = 0; written < size; i++) {
+                String level = random.nextInt(100) == 0 ? "ERROR" : levels[random.nextInt(levels.length)];
+                String line = "2026-10-19 12:" + (10 + random.nextInt(50)) + ":" + (10 + random.nextInt(50))
+                        + " " + level + " worker-" + random.nextInt(64) + " request " + i
+                        + " took " + random.nextInt(1000) + "ms";
+                w.write(line);
+                w.newLine();
+                written += line.length() + 1;
+            }
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws IOException {
+        Files.delete(path);
+    }
+
+    @Benchmark
+    public long sequential() throws IOException {
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.filter(s -> s.contains("ERROR")).count();
+        }
+    }
+
+    @Benchmark
+    public long readerParallel() throws IOException {
+        try (BufferedReader reader = Files.newBufferedReader(path, StandardCharsets.UTF_8)) {
+            return reader.lines().parallel().filter(s -> s.contains("ERROR")).count();
+        }
+    }
+
+    @Benchmark
+    public long mappedParallel() throws IOException {
+        try (Stream<String> lines = Files.lines(path)) {
+            return lines.parallel().filter(s -> s.contains("ERROR")).count();
+        }
+    }
+}
@@ -0,0 +1,99 @@
+package benchmarks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 小 map 的 get(): HashMap, Collections.unmodifiableMap(HashMap) 和 Collections.mapCopyOf.
+ * 每个基准方法只用一种实现, 调用点保持单态, 比的是实现本身而不是虚调用.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/18 18:35
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class ImmutableMapBenchmark {
+
+    @Param({"1", "2", "8", "64"})
+    int size;
+
+    String[] keys;
+    String[] misses;
+    HashMap<String, Integer> hashMap;
+    Map<String, Integer> unmodifiable;
+    Map<String, Integer> compact;
+
+    @Setup
+    public void setUp() {
+        keys = new String[size];
+        misses = new String[size];
+        hashMap = new HashMap<>();
+        for (int i = 0; i < size; i++) {
+            keys[i] = "config.key." + i;
+            misses[i] = "config.other." + i;
+            hashMap.put(keys[i], i);
+        }
+        unmodifiable = Collections.unmodifiableMap(new HashMap<>(hashMap));
+        compact = Collections.mapCopyOf(hashMap);
+    }
+
+    @Benchmark
+    public void hashMapGet(Blackhole bh) {
+        for (String k : keys)
+            bh.consume(hashMap.get(k));
+    }
+
+    @Benchmark
+    public void unmodifiableGet(Blackhole bh) {
+        for (String k : keys)
+            bh.consume(unmodifiable.get(k));
+    }
+
+    @Benchmark
+    public void compactGet(Blackhole bh) {
+        for (String k : keys)
+            bh.consume(compact.get(k));
+    }
+
+    @Benchmark
+    public void hashMapMiss(Blackhole bh) {
+        for (String k : misses)
+            bh.consume(hashMap.get(k));
+    }
+
+    @Benchmark
+    public void compactMiss(Blackhole bh) {
+        for (String k : misses)
+            bh.consume(compact.get(k));
+    }
+
+    /** 创建的开销: 配置 map 是大量创建的. */
+    @Benchmark
+    public Map<String, Integer> unmodifiableCopy() {
+        return Collections.unmodifiableMap(new HashMap<>(hashMap));
+    }
+
+    @Benchmark
+    public Map<String, Integer> compactCopy() {
+        return Collections.mapCopyOf(hashMap);
+    }
+}
@@ -0,0 +1,99 @@
+package benchmarks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 从有序数据建 TreeMap / ConcurrentSkipListMap: 逐个 put 和 putAllSorted 批量导入,
+ * 以及两个有序 map 的 mergeAllSorted 和逐个 merge.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/18 19:10
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class SortedBulkLoadBenchmark {
+
+    @Param({"100000", "1000000"})
+    int size;
+
+    List<Map.Entry<Long, Long>> entries;
+    TreeMap<Long, Long> half;
+
+    @Setup
+    public void setUp() {
+        entries = new ArrayList<>(size);
+        half = new TreeMap<>();
+        for (long i = 0; i < size; i++) {
+            entries.add(new AbstractMap.SimpleImmutableEntry<>(i * 2, i));
+            if ((i & 1) == 0)
+                half.put(i, i);
+        }
+    }
+
+    @Benchmark
+    public TreeMap<Long, Long> treeMapPut() {
+        TreeMap<Long, Long> map = new TreeMap<>();
+        for (Map.Entry<Long, Long> e : entries)
+            map.put(e.getKey(), e.getValue());
+        return map;
+    }
+
+    @Benchmark
+    public TreeMap<Long, Long> treeMapBulkLoad() {
+        TreeMap<Long, Long> map = new TreeMap<>();
+        map.putAllSorted(entries.spliterator());
+        return map;
+    }
+
+    @Benchmark
+    public ConcurrentSkipListMap<Long, Long> skipListPut() {
+        ConcurrentSkipListMap<Long, Long> map = new ConcurrentSkipListMap<>();
+        for (Map.Entry<Long, Long> e : entries)
+            map.put(e.getKey(), e.getValue());
+        return map;
+    }
+
+    @Benchmark
+    public ConcurrentSkipListMap<Long, Long> skipListBulkLoad() {
+        ConcurrentSkipListMap<Long, Long> map = new ConcurrentSkipListMap<>();
+        map.putAllSorted(entries.spliterator());
+        return map;
+    }
+
+    @Benchmark
+    public TreeMap<Long, Long> treeMapMerge() {
+        TreeMap<Long, Long> map = new TreeMap<>(half);
+        for (Map.Entry<Long, Long> e : entries)
+            map.merge(e.getKey(), e.getValue(), Long::sum);
+        return map;
+    }
+
+    @Benchmark
+    public TreeMap<Long, Long> treeMapBulkMerge() {
+        TreeMap<Long, Long> map = new TreeMap<>(half);
+        map.mergeAllSorted(entries.spliterator(), Long::sum);
+        return map;
+    }
+}
@@ -0,0 +1,111 @@
+package benchmarks.util;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 哈希碰撞攻击下 get() 的延迟分布: "Aa" 和 "BB" 的 hashCode 相同, 拼出 2^bits 个全部碰撞的 key,
+ * 默认模式下它们落在同一个树化的桶里, 每次查找要沿着红黑树做多次 compareTo;
+ * -Djdk.map.keyedHashing=true 时每个 map 用自己的种子做 SipHash, 这些 key 又均匀分散开.
+ * SampleTime 模式下 JMH 会输出每次调用耗时的 p0.99, 对比两种模式的尾延迟.
+ * 普通 key 的 get 也各测一次, 看带种子哈希本身的开销.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes, 否则两种模式没有区别.
+ *
+ * @date 2026/10/18 20:50
+ */
+@BenchmarkMode(Mode.SampleTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class StringCollisionBenchmark {
+
+    @Param({"HashMap", "ConcurrentHashMap"})
+    String map;
+
+    @Param({"14"})
+    int bits;
+
+    Map<String, Integer> attacked;
+    Map<String, Integer> normal;
+    String[] attackKeys;
+    String[] normalKeys;
+    int next;
+
+    @Setup
+    public void setUp() {
+        List<String> colliding = new ArrayList<>();
+        colliding.add("");
+        for (int b = 0; b < bits; b++) {
+            List<String> longer = new ArrayList<>(colliding.size() * 2);
+            for (String s : colliding) {
+                longer.add(s + "Aa");
+                longer.add(s + "BB");
+            }
+            colliding = longer;
+        }
+        Random random = new Random(42);
+        Collections.shuffle(colliding, random);
+        attackKeys = colliding.toArray(new String[0]);
+        normalKeys = new String[attackKeys.length];
+        for (int i = 0; i < normalKeys.length; i++)
+            normalKeys[i] = "user-" + Long.toHexString(random.nextLong());
+        attacked = newMap();
+        normal = newMap();
+        for (int i = 0; i < attackKeys.length; i++) {
+            attacked.put(attackKeys[i], i);
+            normal.put(normalKeys[i], i);
+        }
+    }
+
+    private Map<String, Integer> newMap() {
+        return "HashMap".equals(map) ? new HashMap<>() : new ConcurrentHashMap<>();
+    }
+
+    private int nextIndex() {
+        int i = next;
+        next = (i + 1) & (attackKeys.length - 1);
+        return i;
+    }
+
+    @Benchmark
+    public Integer attackedGet() {
+        return attacked.get(attackKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Djdk.map.keyedHashing=true")
+    public Integer attackedGetKeyed() {
+        return attacked.get(attackKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    public Integer normalGet() {
+        return normal.get(normalKeys[nextIndex()]);
+    }
+
+    @Benchmark
+    @Fork(value = 1, jvmArgsAppend = "-Djdk.map.keyedHashing=true")
+    public Integer normalGetKeyed() {
+        return normal.get(normalKeys[nextIndex()]);
+    }
+}
@@ -0,0 +1,84 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 自适应自旋 (先自旋再 park) 对比直接 park: 持锁 holdTokens 个 consumeCPU 单位, 锁外做 thinkTokens 个.
+ * 线程数用 -t 指定, 例如 -t 2, -t 8, -t 64 各跑一次; 持有时间短时自旋省掉 park/unpark, 持有时间长时自旋时长会降到探测长度.
+ * 每个 trial 结束时打印学到的自旋时长. 单核机器上从不自旋, 两种配置结果一样.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/19 03:50
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class AdaptiveSpinBenchmark {
+
+    @Param({"false", "true"})
+    boolean spin;
+
+    @Param({"10", "100", "1000"})
+    int holdTokens;
+
+    @Param({"100"})
+    int thinkTokens;
+
+    ReentrantLock lock;
+    StampedLock stampedLock;
+
+    @Setup
+    public void setUp() {
+        lock = new ReentrantLock();
+        lock.setAdaptiveSpinning(spin);
+        stampedLock = new StampedLock();
+        stampedLock.setAdaptiveSpinning(spin);
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("spin duration: ReentrantLock = " + lock.getSpinDuration()
+                + ", StampedLock = " + stampedLock.getSpinDuration());
+    }
+
+    @Benchmark
+    public void reentrantLock() {
+        lock.lock();
+        try {
+            Blackhole.consumeCPU(holdTokens);
+        } finally {
+            lock.unlock();
+        }
+        Blackhole.consumeCPU(thinkTokens);
+    }
+
+    @Benchmark
+    public void stampedLock() {
+        long stamp = stampedLock.writeLock();
+        try {
+            Blackhole.consumeCPU(holdTokens);
+        } finally {
+            stampedLock.unlockWrite(stamp);
+        }
+        Blackhole.consumeCPU(thinkTokens);
+    }
+}
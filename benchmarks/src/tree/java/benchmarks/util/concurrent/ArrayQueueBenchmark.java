@@ -0,0 +1,154 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.AuxCounters;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Group;
+import org.openjdk.jmh.annotations.GroupThreads;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.LinkedTransferQueue;
+import java.util.concurrent.MpmcArrayQueue;
+import java.util.concurrent.MpscArrayQueue;
+import java.util.concurrent.SpscArrayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.WaitStrategy;
+
+/**
+ * 有界无锁数组队列 (SpscArrayQueue / MpscArrayQueue / MpmcArrayQueue) 对比
+ * ArrayBlockingQueue (一把锁两个条件), LinkedBlockingQueue (每个元素一个 Node) 和 LinkedTransferQueue (无界).
+ * transfer: 带超时的 offer / poll, 和 LinkedBlockingQueueBenchmark 一样;
+ * batch: 新队列用 fill / drain 一次最多 64 个, 其它队列逐个 offer / poll, 按搬运的元素数计吞吐 (elements).
+ * 线程数用 -tg 生产者数,消费者数 指定, 或者用 benchmarks.Sweep -group 扫描;
+ * SpscArrayQueue 只能 -tg 1,1, MpscArrayQueue 只能有一个消费者, 其它组合的结果没有意义.
+ * 新队列的等待策略用 -p waitStrategy=SPIN,YIELD,PARK 指定, SPIN 需要每个线程一个 CPU.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/19 01:10
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Group)
+public class ArrayQueueBenchmark {
+
+    static final int BATCH = 64;
+
+    static final Integer ELEMENT = 1;
+
+    @Param({"ArrayBlockingQueue", "LinkedBlockingQueue", "LinkedTransferQueue",
+            "SpscArrayQueue", "MpscArrayQueue", "MpmcArrayQueue"})
+    String queue;
+
+    @Param({"1024"})
+    int capacity;
+
+    @Param({"YIELD"})
+    WaitStrategy waitStrategy;
+
+    BlockingQueue<Integer> q;
+    SpscArrayQueue<Integer> spsc;
+    MpscArrayQueue<Integer> mpsc;
+    MpmcArrayQueue<Integer> mpmc;
+
+    @Setup
+    public void setUp() {
+        switch (queue) {
+            case "ArrayBlockingQueue":
+                q = new ArrayBlockingQueue<>(capacity);
+                break;
+            case "LinkedBlockingQueue":
+                q = new LinkedBlockingQueue<>(capacity);
+                break;
+            case "LinkedTransferQueue":
+                q = new LinkedTransferQueue<>();
+                break;
+            case "SpscArrayQueue":
+                q = spsc = new SpscArrayQueue<>(capacity, waitStrategy);
+                break;
+            case "MpscArrayQueue":
+                q = mpsc = new MpscArrayQueue<>(capacity, waitStrategy);
+                break;
+            default:
+                q = mpmc = new MpmcArrayQueue<>(capacity, waitStrategy);
+        }
+    }
+
+    /**
+     * 每个线程搬运的元素数
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Moved {
+        public long elements;
+
+        @Setup(Level.Iteration)
+        public void reset() {
+            elements = 0;
+        }
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(1)
+    public boolean offer() throws InterruptedException {
+        return q.offer(ELEMENT, 1, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("transfer")
+    @GroupThreads(1)
+    public Integer poll() throws InterruptedException {
+        return q.poll(1, TimeUnit.MILLISECONDS);
+    }
+
+    @Benchmark
+    @Group("batch")
+    @GroupThreads(1)
+    public void fill(Moved moved) {
+        int n;
+        if (spsc != null)
+            n = spsc.fill(() -> ELEMENT, BATCH);
+        else if (mpsc != null)
+            n = mpsc.fill(() -> ELEMENT, BATCH);
+        else if (mpmc != null)
+            n = mpmc.fill(() -> ELEMENT, BATCH);
+        else
+            for (n = 0; n < BATCH && q.offer(ELEMENT); n++) ;
+        moved.elements += n;
+    }
+
+    @Benchmark
+    @Group("batch")
+    @GroupThreads(1)
+    public void drain(Moved moved, Blackhole bh) {
+        int n;
+        if (spsc != null)
+            n = spsc.drain(bh::consume, BATCH);
+        else if (mpsc != null)
+            n = mpsc.drain(bh::consume, BATCH);
+        else if (mpmc != null)
+            n = mpmc.drain(bh::consume, BATCH);
+        else {
+            Integer e;
+            for (n = 0; n < BATCH && (e = q.poll()) != null; n++)
+                bh.consume(e);
+        }
+        moved.elements += n;
+    }
+}
@@ -0,0 +1,106 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Function;
+
+/**
+ * CompletableFuture 的分配量: 扇出 fanOut 个未完成的 future 再逐个完成,
+ * allOf (BiRelay 树, 每层一个中间 future 和 CoCompletion) 加上逐个 join 取结果, 对比 allOfList (每个源一个 Arrival, 共用一个计数器);
+ * 长度为 stages 的同步 thenApply 链 (每级一个 UniApply 和一个 future) 对比 fuse() 合成的一级.
+ * 看分配量要加 -prof gc, 比较 gc.alloc.rate.norm (每次调用分配的字节数), 扇出的那部分包含源 future 本身.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/19 02:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Thread)
+public class CompletableFutureAllocationBenchmark {
+
+    @Param({"10000"})
+    int fanOut;
+
+    @Param({"4"})
+    int stages;
+
+    static final Function<Integer, Integer> INCREMENT = i -> i + 1;
+
+    Integer value;
+
+    @Setup
+    public void setUp() {
+        value = 1;
+    }
+
+    private List<CompletableFuture<Integer>> sources() {
+        List<CompletableFuture<Integer>> cfs = new ArrayList<>(fanOut);
+        for (int i = 0; i < fanOut; i++)
+            cfs.add(new CompletableFuture<>());
+        return cfs;
+    }
+
+    @Benchmark
+    public void allOf(Blackhole bh) {
+        List<CompletableFuture<Integer>> cfs = sources();
+        CompletableFuture<List<Integer>> all = CompletableFuture
+                .allOf(cfs.toArray(new CompletableFuture<?>[0]))
+                .thenApply(v -> {
+                    List<Integer> results = new ArrayList<>(cfs.size());
+                    for (CompletableFuture<Integer> cf : cfs)
+                        results.add(cf.join());
+                    return results;
+                });
+        for (CompletableFuture<Integer> cf : cfs)
+            cf.complete(value);
+        bh.consume(all.join());
+    }
+
+    @Benchmark
+    public void allOfList(Blackhole bh) {
+        List<CompletableFuture<Integer>> cfs = sources();
+        CompletableFuture<List<Integer>> all = CompletableFuture.allOfList(cfs);
+        for (CompletableFuture<Integer> cf : cfs)
+            cf.complete(value);
+        bh.consume(all.join());
+    }
+
+    @Benchmark
+    public Integer thenApplyChain() {
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+        CompletableFuture<Integer> cf = source;
+        for (int i = 0; i < stages; i++)
+            cf = cf.thenApply(INCREMENT);
+        source.complete(value);
+        return cf.join();
+    }
+
+    @Benchmark
+    public Integer fusedChain() {
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+        CompletableFuture.FusedStage<Integer> fused = source.fuse();
+        for (int i = 0; i < stages; i++)
+            fused = fused.thenApply(INCREMENT);
+        CompletableFuture<Integer> cf = fused.toCompletableFuture();
+        source.complete(value);
+        return cf.join();
+    }
+}
@@ -0,0 +1,107 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Arrays;
+import java.util.Random;
+import java.util.concurrent.CpuTopology;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 按 CPU 拓扑分组的 ForkJoinPool 对比普通的池: 在池里跑 Arrays.parallelSort 和并行流.
+ * topology: none 是普通的池; system 是 /sys/devices/system/node 读到的 NUMA 节点 (单路机器上只有一个节点, 和 none 一样);
+ * split 把工作线程分成两个逻辑节点 (不绑核), 只看先偷本节点的调度本身的开销.
+ * 每个 trial 结束时打印偷取次数和其中跨节点的次数.
+ * parallelSort 在公共池并行度为 1 时退化成串行, 单核机器上要加 -jvmArgsAppend -Djava.util.concurrent.ForkJoinPool.common.parallelism=N.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/19 03:20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class ForkJoinTopologyBenchmark {
+
+    @Param({"none", "system", "split"})
+    String topology;
+
+    /**
+     * 0 表示 availableProcessors
+     */
+    @Param({"0"})
+    int parallelism;
+
+    @Param({"1000000"})
+    int size;
+
+    ForkJoinPool pool;
+    long[] data;
+    long[] work;
+
+    @Setup
+    public void setUp() {
+        int p = parallelism > 0 ? parallelism : Runtime.getRuntime().availableProcessors();
+        switch (topology) {
+            case "none":
+                pool = new ForkJoinPool(p);
+                break;
+            case "system":
+                pool = new ForkJoinPool(p, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+                        CpuTopology.system());
+                break;
+            default:
+                int h = Math.max(1, p / 2);
+                int[] first = new int[h], second = new int[Math.max(1, p - h)];
+                for (int i = 0; i < first.length; i++)
+                    first[i] = i;
+                for (int i = 0; i < second.length; i++)
+                    second[i] = h + i;
+                pool = new ForkJoinPool(p, ForkJoinPool.defaultForkJoinWorkerThreadFactory, null, false,
+                        CpuTopology.of(first, second));
+        }
+        data = new Random(42).longs(size).toArray();
+        work = new long[size];
+    }
+
+    @TearDown
+    public void tearDown() {
+        System.out.println("steals = " + pool.getStealCount() + ", remote = " + pool.getRemoteStealCount());
+        pool.shutdown();
+    }
+
+    @Setup(Level.Invocation)
+    public void copy() {
+        System.arraycopy(data, 0, work, 0, size);
+    }
+
+    @Benchmark
+    public long[] parallelSort() {
+        return pool.submit(() -> {
+            Arrays.parallelSort(work);
+            return work;
+        }).join();
+    }
+
+    @Benchmark
+    public long parallelStream() {
+        return pool.submit(() -> LongStream.of(work).parallel().map(x -> x >>> 40).filter(x -> (x & 1) == 0).sum())
+                .join();
+    }
+}
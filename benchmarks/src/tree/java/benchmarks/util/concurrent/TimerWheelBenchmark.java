@@ -0,0 +1,104 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Timer;
+import java.util.TimerTask;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimingWheelScheduledExecutor;
+
+/**
+ * 请求超时的典型用法: 每个请求 schedule 一个 30~60 秒后的超时任务, 请求完成后马上 cancel.
+ * 事先放进 pending 个一两个小时后才到期的任务, 对比
+ * TimingWheelScheduledExecutor (桶里 CAS 插入, cancel 只打标记),
+ * ScheduledThreadPoolExecutor (一把锁下的二叉堆, removeOnCancel 时 cancel 也要 O(log n) 删除)
+ * 和 java.util.Timer (同样是堆, 取消的任务留在堆里, 这里每 65536 次 purge 一次).
+ * Throughput 看吞吐, SampleTime 看单次 schedule + cancel 的延迟分布; 多线程争用用 -t 指定线程数.
+ * pending=10000000 时堆要 2G 以上, fork 的 JVM 给了 -Xmx3g.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/18 23:10
+ */
+@BenchmarkMode({Mode.Throughput, Mode.SampleTime})
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(value = 1, jvmArgsAppend = "-Xmx3g")
+@State(Scope.Benchmark)
+public class TimerWheelBenchmark {
+
+    private static final Runnable NOOP = () -> { };
+
+    @Param({"TimingWheel", "ScheduledThreadPoolExecutor", "Timer"})
+    String scheduler;
+
+    @Param({"10000", "100000", "1000000", "10000000"})
+    int pending;
+
+    ScheduledExecutorService executor;
+    Timer timer;
+    int ops;
+
+    @Setup
+    public void setUp() {
+        if ("Timer".equals(scheduler)) {
+            timer = new Timer(true);
+        } else if ("TimingWheel".equals(scheduler)) {
+            executor = new TimingWheelScheduledExecutor(2);
+        } else {
+            ScheduledThreadPoolExecutor stpe = new ScheduledThreadPoolExecutor(2);
+            stpe.setRemoveOnCancelPolicy(true);
+            executor = stpe;
+        }
+        ThreadLocalRandom random = ThreadLocalRandom.current();
+        for (int i = 0; i < pending; i++) {
+            long delay = random.nextLong(TimeUnit.HOURS.toMillis(1), TimeUnit.HOURS.toMillis(2));
+            if (timer != null)
+                timer.schedule(new Noop(), delay);
+            else
+                executor.schedule(NOOP, delay, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    @TearDown
+    public void tearDown() {
+        if (timer != null)
+            timer.cancel();
+        else
+            executor.shutdownNow();
+    }
+
+    static final class Noop extends TimerTask {
+        public void run() {
+        }
+    }
+
+    @Benchmark
+    public boolean scheduleAndCancel() {
+        long delay = ThreadLocalRandom.current().nextLong(30_000, 60_000);
+        if (timer != null) {
+            TimerTask task = new Noop();
+            timer.schedule(task, delay);
+            boolean cancelled = task.cancel();
+            // 多线程时计数不精确, 只是大致每 65536 次 purge 一次
+            if ((++ops & 0xFFFF) == 0)
+                timer.purge();
+            return cancelled;
+        }
+        return executor.schedule(NOOP, delay, TimeUnit.MILLISECONDS).cancel(false);
+    }
+}
@@ -0,0 +1,100 @@
+package benchmarks.util.concurrent;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.WorkStealingThreadPoolExecutor;
+
+/**
+ * 短任务的吞吐: ThreadPoolExecutor + LinkedBlockingQueue (所有提交和取任务都经过 putLock / takeLock)
+ * 对比 WorkStealingThreadPoolExecutor (多个提交队列 + 每个工作线程一个队列, 空闲时互相偷).
+ * 每次调用提交 BATCH 个任务并等它们全部完成, 结果是每微秒完成的任务数.
+ * external: 基准线程直接提交; fanOut: 提交一个任务, 由工作线程提交 BATCH 个子任务,
+ * 开了 submitter affinity 的执行器把子任务放进工作线程自己的队列.
+ * 任务大小用 tokens (Blackhole.consumeCPU) 扫描, 线程池大小用 poolSize 扫描,
+ * 提交线程数用 -t 指定, 或者用 benchmarks.Sweep 扫描.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes.
+ *
+ * @date 2026/10/19 00:20
+ */
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class WorkStealingExecutorBenchmark {
+
+    static final int BATCH = 256;
+
+    @Param({"ThreadPoolExecutor", "WorkStealing", "WorkStealingAffinity"})
+    String executor;
+
+    @Param({"1", "4", "16", "64"})
+    int poolSize;
+
+    @Param({"0", "100", "1000"})
+    int tokens;
+
+    ThreadPoolExecutor pool;
+
+    @Setup
+    public void setUp() {
+        if ("ThreadPoolExecutor".equals(executor))
+            pool = new ThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    new LinkedBlockingQueue<>());
+        else
+            pool = new WorkStealingThreadPoolExecutor(poolSize, poolSize, 0L, TimeUnit.MILLISECONDS,
+                    Integer.MAX_VALUE, "WorkStealingAffinity".equals(executor),
+                    Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        pool.prestartAllCoreThreads();
+    }
+
+    @TearDown
+    public void tearDown() throws InterruptedException {
+        pool.shutdown();
+        pool.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    private void submitBatch(CountDownLatch done) {
+        int t = tokens;
+        for (int i = 0; i < BATCH; i++)
+            pool.execute(() -> {
+                Blackhole.consumeCPU(t);
+                done.countDown();
+            });
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void external() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        submitBatch(done);
+        done.await();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BATCH)
+    public void fanOut() throws InterruptedException {
+        CountDownLatch done = new CountDownLatch(BATCH);
+        pool.execute(() -> submitBatch(done));
+        done.await();
+    }
+}
@@ -0,0 +1,94 @@
+package benchmarks.util.stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.IntHashMap;
+import java.util.IntIntHashMap;
+import java.util.List;
+import java.util.LongLongHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+
+/**
+ * 按 int key 聚合: groupingBy(k, counting()) / groupingBy(k, summingLong) 对比 countingByInt / summingLongByLong / groupingByInt,
+ * 以及 map(...).collect(toList()) 之后拆箱成 int[] 对比 toIntArray. key 的取值范围 (keys) 大于 Integer 缓存, 原版每个元素都要装箱 key.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes; 加 -prof gc 看每次操作的分配.
+ *
+ * @date 2026/10/19 06:20
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class PrimitiveCollectorsBenchmark {
+
+    @Param({"100000"})
+    int size;
+
+    @Param({"1000"})
+    int keys;
+
+    List<Integer> list;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            list.add(i);
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupingByCounting() {
+        int n = keys;
+        return list.stream().collect(Collectors.groupingBy(i -> 1000 + i % n, Collectors.counting()));
+    }
+
+    @Benchmark
+    public IntIntHashMap countingByInt() {
+        int n = keys;
+        return list.stream().collect(Collectors.countingByInt(i -> 1000 + i % n));
+    }
+
+    @Benchmark
+    public Map<Integer, Long> groupingBySumming() {
+        int n = keys;
+        return list.stream().collect(Collectors.groupingBy(i -> 1000 + i % n, Collectors.summingLong(i -> i)));
+    }
+
+    @Benchmark
+    public IntHashMap<Long> groupingByIntSumming() {
+        int n = keys;
+        return list.stream().collect(Collectors.groupingByInt(i -> 1000 + i % n, Collectors.summingLong(i -> i)));
+    }
+
+    @Benchmark
+    public LongLongHashMap summingLongByLong() {
+        int n = keys;
+        return list.stream().collect(Collectors.summingLongByLong(i -> 1000 + i % n, i -> i));
+    }
+
+    @Benchmark
+    public int[] toListThenUnbox() {
+        return list.stream().map(i -> i * 2).collect(Collectors.toList())
+                .stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    @Benchmark
+    public int[] toIntArray() {
+        return list.stream().collect(Collectors.toIntArray(i -> i * 2));
+    }
+}
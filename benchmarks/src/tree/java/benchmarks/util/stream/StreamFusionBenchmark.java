@@ -0,0 +1,108 @@
+package benchmarks.util.stream;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * 流水线算子融合: filter / map / filter / map 四个无状态操作的流对比手写循环, 小 N 和大 N 各一组.
+ * ReferencePipeline 的连续 map / filter / peek 融合成一个阶段, IntPipeline 没有融合, 作为对照.
+ * 需要 -Ptree 编译, 运行时 -jvmArgsPrepend -Xbootclasspath/p:target/tree-classes;
+ * 不加 -Xbootclasspath/p 就是原版 JDK 的流水线, 两次结果对比就是融合的收益. 加 -prof gc 看每次操作的分配.
+ *
+ * @date 2026/10/19 04:50
+ */
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+@State(Scope.Benchmark)
+public class StreamFusionBenchmark {
+
+    @Param({"10", "100000"})
+    int size;
+
+    List<Integer> list;
+    int[] array;
+
+    @Setup
+    public void setUp() {
+        list = new ArrayList<>(size);
+        array = new int[size];
+        for (int i = 0; i < size; i++) {
+            list.add(i);
+            array[i] = i;
+        }
+    }
+
+    @Benchmark
+    public List<String> referenceStream() {
+        return list.stream()
+                .filter(i -> (i & 1) == 0)
+                .map(i -> i * 3)
+                .filter(i -> i % 5 != 0)
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+    }
+
+    @Benchmark
+    public List<String> referenceLoop() {
+        List<String> out = new ArrayList<>();
+        for (Integer i : list) {
+            if ((i & 1) == 0) {
+                int t = i * 3;
+                if (t % 5 != 0)
+                    out.add(String.valueOf(t));
+            }
+        }
+        return out;
+    }
+
+    @Benchmark
+    public void referenceForEach(Blackhole bh) {
+        list.stream()
+                .filter(i -> (i & 1) == 0)
+                .map(i -> i * 3)
+                .filter(i -> i % 5 != 0)
+                .forEach(bh::consume);
+    }
+
+    @Benchmark
+    public long intStream() {
+        return IntStream.of(array)
+                .filter(i -> (i & 1) == 0)
+                .map(i -> i * 3)
+                .filter(i -> i % 5 != 0)
+                .asLongStream()
+                .sum();
+    }
+
+    @Benchmark
+    public long intLoop() {
+        long sum = 0;
+        for (int i : array) {
+            if ((i & 1) == 0) {
+                int t = i * 3;
+                if (t % 5 != 0)
+                    sum += t;
+            }
+        }
+        return sum;
+    }
+}
@@ -0,0 +1,253 @@
+package java.lang.management;
+
+import javax.management.openmbean.CompositeData;
+
+/**
+ * Contention statistics of a lock, as gathered by the {@link
+ * java.util.concurrent.locks.ContentionProfiler ContentionProfiler}
+ * and returned by {@link LockContentionMXBean#getLockContentionInfo}.
+ * If several locks have the same name, their counts and totals are
+ * summed and their maxima combined.
+ *
+ * <p>A <em>contended acquisition</em> is one that found the lock
+ * unavailable and queued until it was granted.  Its wait time runs from
+ * its queueing to its grant, and the wait time histogram counts the
+ * contended acquisitions by powers of two of their wait times in
+ * microseconds: bucket {@code i} counts the waits of at least
+ * 2<sup>i</sup> and less than 2<sup>i+1</sup> microseconds, except that
+ * the first bucket also counts the waits under one microsecond and the
+ * last one all longer waits.  Hold times are recorded for exclusive
+ * ownership only, from the first acquisition by a thread to its final
+ * release.  All times are in nanoseconds.
+ *
+ * @since 1.8
+ */
+public class LockContentionInfo {
+
+    private final String name;
+    private final int lockCount;
+    private final long contendedCount;
+    private final long failedCount;
+    private final long totalWaitTime;
+    private final long maxWaitTime;
+    private final long[] waitTimeHistogram;
+    private final int queueLength;
+    private final int maxQueueLength;
+    private final long holdCount;
+    private final long totalHoldTime;
+    private final long maxHoldTime;
+
+    /**
+     * Constructs a {@code LockContentionInfo} object.
+     *
+     * @param name the name of the lock
+     * @param lockCount the number of locks of that name
+     * @param contendedCount the number of contended acquisitions
+     * @param failedCount the number of queued acquisitions that timed
+     *        out or were interrupted
+     * @param totalWaitTime the total wait time of the contended
+     *        acquisitions
+     * @param maxWaitTime the longest wait time of a contended
+     *        acquisition
+     * @param waitTimeHistogram the histogram of the wait times
+     * @param queueLength the number of threads queued now
+     * @param maxQueueLength the most threads queued at once
+     * @param holdCount the number of timed exclusive holds
+     * @param totalHoldTime the total time of the exclusive holds
+     * @param maxHoldTime the longest exclusive hold
+     * @throws NullPointerException if {@code name} or
+     *         {@code waitTimeHistogram} is {@code null}
+     */
+    public LockContentionInfo(String name, int lockCount,
+                              long contendedCount, long failedCount,
+                              long totalWaitTime, long maxWaitTime,
+                              long[] waitTimeHistogram,
+                              int queueLength, int maxQueueLength,
+                              long holdCount, long totalHoldTime,
+                              long maxHoldTime) {
+        if (name == null || waitTimeHistogram == null)
+            throw new NullPointerException();
+        this.name = name;
+        this.lockCount = lockCount;
+        this.contendedCount = contendedCount;
+        this.failedCount = failedCount;
+        this.totalWaitTime = totalWaitTime;
+        this.maxWaitTime = maxWaitTime;
+        this.waitTimeHistogram = waitTimeHistogram.clone();
+        this.queueLength = queueLength;
+        this.maxQueueLength = maxQueueLength;
+        this.holdCount = holdCount;
+        this.totalHoldTime = totalHoldTime;
+        this.maxHoldTime = maxHoldTime;
+    }
+
+    /**
+     * Returns the name of the lock.
+     *
+     * @return the name of the lock.
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the number of live locks of this name.
+     *
+     * @return the number of locks.
+     */
+    public int getLockCount() {
+        return lockCount;
+    }
+
+    /**
+     * Returns the number of contended acquisitions.
+     *
+     * @return the number of contended acquisitions.
+     */
+    public long getContendedCount() {
+        return contendedCount;
+    }
+
+    /**
+     * Returns the number of queued acquisitions that timed out or were
+     * interrupted.
+     *
+     * @return the number of failed acquisitions.
+     */
+    public long getFailedCount() {
+        return failedCount;
+    }
+
+    /**
+     * Returns the total wait time of the contended acquisitions.
+     *
+     * @return the total wait time in nanoseconds.
+     */
+    public long getTotalWaitTime() {
+        return totalWaitTime;
+    }
+
+    /**
+     * Returns the longest wait time of a contended acquisition.
+     *
+     * @return the longest wait time in nanoseconds.
+     */
+    public long getMaxWaitTime() {
+        return maxWaitTime;
+    }
+
+    /**
+     * Returns the histogram of the wait times of the contended
+     * acquisitions, by powers of two of microseconds.
+     *
+     * @return a new array of the counts of each bucket.
+     */
+    public long[] getWaitTimeHistogram() {
+        return waitTimeHistogram.clone();
+    }
+
+    /**
+     * Returns the number of threads queued for the lock when the
+     * statistics were taken.
+     *
+     * @return the number of queued threads.
+     */
+    public int getQueueLength() {
+        return queueLength;
+    }
+
+    /**
+     * Returns the most threads queued for the lock at once.
+     *
+     * @return the high-water mark of the queue length.
+     */
+    public int getMaxQueueLength() {
+        return maxQueueLength;
+    }
+
+    /**
+     * Returns the number of timed exclusive holds.
+     *
+     * @return the number of holds.
+     */
+    public long getHoldCount() {
+        return holdCount;
+    }
+
+    /**
+     * Returns the total time the lock was held exclusively.
+     *
+     * @return the total hold time in nanoseconds.
+     */
+    public long getTotalHoldTime() {
+        return totalHoldTime;
+    }
+
+    /**
+     * Returns the longest exclusive hold of the lock.
+     *
+     * @return the longest hold time in nanoseconds.
+     */
+    public long getMaxHoldTime() {
+        return maxHoldTime;
+    }
+
+    /**
+     * Returns a {@code LockContentionInfo} object represented by the
+     * given {@code CompositeData}, which must contain the attributes of
+     * the getters of this class, of the same names and types, as mapped
+     * for an MXBean.
+     *
+     * @param cd {@code CompositeData} representing a
+     *        {@code LockContentionInfo}
+     *
+     * @throws IllegalArgumentException if {@code cd} does not represent
+     *         a {@code LockContentionInfo} with the attributes described
+     *         above.
+     *
+     * @return a {@code LockContentionInfo} object represented by
+     *         {@code cd} if {@code cd} is not {@code null};
+     *         {@code null} otherwise.
+     */
+    public static LockContentionInfo from(CompositeData cd) {
+        if (cd == null) {
+            return null;
+        }
+        try {
+            return new LockContentionInfo(
+                (String) cd.get("name"),
+                (Integer) cd.get("lockCount"),
+                (Long) cd.get("contendedCount"),
+                (Long) cd.get("failedCount"),
+                (Long) cd.get("totalWaitTime"),
+                (Long) cd.get("maxWaitTime"),
+                (long[]) cd.get("waitTimeHistogram"),
+                (Integer) cd.get("queueLength"),
+                (Integer) cd.get("maxQueueLength"),
+                (Long) cd.get("holdCount"),
+                (Long) cd.get("totalHoldTime"),
+                (Long) cd.get("maxHoldTime"));
+        } catch (RuntimeException e) {
+            throw new IllegalArgumentException(
+                "Unexpected composite data for LockContentionInfo", e);
+        }
+    }
+
+    /**
+     * Returns a string representation of these statistics.
+     *
+     * @return a string representation of these statistics.
+     */
+    public String toString() {
+        return name + " [locks=" + lockCount +
+            ", contended=" + contendedCount +
+            ", failed=" + failedCount +
+            ", totalWait=" + totalWaitTime + "ns" +
+            ", maxWait=" + maxWaitTime + "ns" +
+            ", queueLength=" + queueLength +
+            ", maxQueueLength=" + maxQueueLength +
+            ", holds=" + holdCount +
+            ", totalHold=" + totalHoldTime + "ns" +
+            ", maxHold=" + maxHoldTime + "ns]";
+    }
+}
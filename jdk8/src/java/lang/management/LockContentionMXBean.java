@@ -0,0 +1,90 @@
+package java.lang.management;
+
+/**
+ * The management interface for the contention profiling of the
+ * {@linkplain java.util.concurrent.locks.AbstractQueuedSynchronizer
+ * synchronizer} based locks of {@code java.util.concurrent}.
+ *
+ * <p>There is a single global instance of the {@code LockContentionMXBean}.
+ * The {@link java.lang.management.ManagementFactory#getPlatformMXBean(Class)
+ * ManagementFactory.getPlatformMXBean} method can be used to obtain
+ * the {@code LockContentionMXBean} object as follows:
+ * <pre>
+ *     LockContentionMXBean locks = ManagementFactory.getPlatformMXBean(LockContentionMXBean.class);
+ * </pre>
+ * The {@code LockContentionMXBean} object is also registered with the
+ * platform {@linkplain java.lang.management.ManagementFactory#getPlatformMBeanServer
+ * MBeanServer}.
+ * The {@link javax.management.ObjectName ObjectName} for uniquely
+ * identifying the {@code LockContentionMXBean} within an MBeanServer is:
+ * <pre>
+ *      {@link #OBJECT_NAME java.util.concurrent.locks:type=LockContention}
+ * </pre>
+ *
+ * <p>Profiling is disabled by default, and is enabled by the system
+ * property {@code java.util.concurrent.locks.contentionProfiling} or
+ * {@link #setContentionProfilingEnabled}.  Locks are reported under the
+ * names given by {@link
+ * java.util.concurrent.locks.ContentionProfiler#name
+ * ContentionProfiler.name}, or default names.
+ *
+ * @see java.util.concurrent.locks.ContentionProfiler
+ * @since 1.8
+ */
+public interface LockContentionMXBean extends PlatformManagedObject {
+
+    /**
+     * String representation of the {@code ObjectName} for the
+     * {@code LockContentionMXBean}.
+     */
+    String OBJECT_NAME = "java.util.concurrent.locks:type=LockContention";
+
+    /**
+     * Tests if lock contention profiling is enabled.
+     *
+     * @return {@code true} if lock contention profiling is enabled;
+     *         {@code false} otherwise.
+     */
+    boolean isContentionProfilingEnabled();
+
+    /**
+     * Enables or disables lock contention profiling.  The statistics
+     * gathered so far are kept.
+     *
+     * @param enable {@code true} to enable; {@code false} to disable.
+     *
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have ManagementPermission("control").
+     */
+    void setContentionProfilingEnabled(boolean enable);
+
+    /**
+     * Returns the names of the live locks that have statistics, that
+     * is, which have been contended while profiling was enabled or have
+     * been named.
+     *
+     * @return the sorted names of the profiled locks.
+     */
+    String[] getLockNames();
+
+    /**
+     * Returns the contention statistics of the locks of the given name,
+     * combined if there are several.
+     *
+     * @param name the name of the lock.
+     *
+     * @return a {@code LockContentionInfo} object; or {@code null} if
+     *         no live lock of that name has statistics.
+     *
+     * @throws NullPointerException if {@code name} is {@code null}.
+     */
+    LockContentionInfo getLockContentionInfo(String name);
+
+    /**
+     * Clears the statistics of all locks, keeping their names.
+     *
+     * @throws SecurityException if a security manager exists and the
+     *         caller does not have ManagementPermission("control").
+     */
+    void resetContentionStatistics();
+}
@@ -171,6 +171,11 @@ import sun.management.ExtendedPlatformComponent;
  * <td> {@link java.util.logging.LogManager#LOGGING_MXBEAN_NAME
  *             java.util.logging:type=Logging}</td>
  * </tr>
+ * <tr>
+ * <td> {@link LockContentionMXBean} </td>
+ * <td> {@link LockContentionMXBean#OBJECT_NAME
+ *             java.util.concurrent.locks:type=LockContention}</td>
+ * </tr>
  * </table>
  * </blockquote>
  *
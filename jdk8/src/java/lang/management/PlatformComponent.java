@@ -216,6 +216,20 @@ enum PlatformComponent {
             }
         }),
 
+    /**
+     * Contention profiling of the locks of java.util.concurrent.
+     */
+    LOCK_CONTENTION(
+        "java.lang.management.LockContentionMXBean",
+        "java.util.concurrent.locks", "LockContention", defaultKeyProperties(),
+        true, // singleton
+        new MXBeanFetcher<LockContentionMXBean>() {
+            public List<LockContentionMXBean> getMXBeans() {
+                return Collections.singletonList(
+                    java.util.concurrent.locks.ContentionProfiler.getMXBean());
+            }
+        }),
+
 
     // Sun Platform Extension
 
@@ -0,0 +1,385 @@
+package java.nio.file;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.ClosedChannelException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.CharacterCodingException;
+import java.nio.charset.Charset;
+import java.nio.charset.CharsetDecoder;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.Objects;
+import java.util.Set;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+
+import sun.misc.Cleaner;
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A spliterator over the lines of a file, as read by {@link
+ * java.io.BufferedReader#readLine()}, that memory-maps the file and splits
+ * it into byte ranges ending at line terminators.
+ *
+ * <p>The charset must encode {@code '\n'} and {@code '\r'} as single bytes
+ * that do not occur within the encoding of any other character, which is
+ * the case for UTF-8, ISO-8859-1 and US-ASCII, so that line terminators
+ * can be found without decoding.  A split takes the first line terminator
+ * at or after the middle of the remaining range, reading a few bytes with
+ * positional reads, so that the two halves hold whole lines.  Traversal
+ * maps the range of the spliterator in windows of at most {@link
+ * #MAP_LIMIT} bytes, supporting files larger than a {@code ByteBuffer}
+ * can index, and decodes each line as it is reached: lines of ASCII
+ * bytes, and all lines in ISO-8859-1, are decoded by widening the bytes,
+ * other lines with a decoder reporting malformed input.
+ *
+ * <p>A window is unmapped as soon as traversal moves past it, and the
+ * windows still mapped by a spliterator and those split from it are
+ * unmapped by {@link #unmap}, which the stream calls when it is closed,
+ * rather than when they are collected; the file can then be deleted or
+ * truncated.  As the stream may be closed while other threads still
+ * traverse it, for instance when a parallel terminal operation throws, a
+ * window being read by a traversal is unmapped by that traversal when it
+ * returns instead, and traversing a spliterator once {@code unmap} has
+ * been called throws {@code UncheckedIOException}.
+ *
+ * <p>The spliterator is not {@code SIZED}: it estimates its size by its
+ * number of bytes.  The size of the file is read when the spliterator is
+ * created; if the file is truncated while it is mapped, accessing the
+ * mapped bytes may fail with an unspecified error.
+ *
+ * @since 1.8
+ */
+final class FileChannelLinesSpliterator implements Spliterator<String> {
+
+    /** The names of the charsets supported. */
+    static final Set<String> SUPPORTED_CHARSET_NAMES;
+    static {
+        SUPPORTED_CHARSET_NAMES = Collections.unmodifiableSet(new HashSet<>(Arrays.asList(
+            StandardCharsets.UTF_8.name(),
+            StandardCharsets.ISO_8859_1.name(),
+            StandardCharsets.US_ASCII.name())));
+    }
+
+    /** Maximum number of bytes mapped at a time, and length of a line. */
+    static final int MAP_LIMIT = 1 << 30;
+
+    /** Number of bytes read at a time when looking for a split point. */
+    private static final int SCAN_SIZE = 1 << 13;
+
+    private final FileChannel fc;
+    private final Charset cs;
+    private final Windows windows;  // shared with the split spliterators
+    private final boolean latin1;   // whether bytes are chars
+    private long index;             // position of the next line
+    private final long fence;       // end of the range, after a terminator
+
+    // Traversal state, created on first use
+    private MappedByteBuffer buffer;    // mapped window of the range
+    private long bufferStart;           // position of the window in the file
+    private byte[] bytes;               // bytes of the current line
+    private CharsetDecoder decoder;
+
+    FileChannelLinesSpliterator(FileChannel fc, Charset cs, long index, long fence) {
+        this(fc, cs, new Windows(), index, fence);
+    }
+
+    private FileChannelLinesSpliterator(FileChannel fc, Charset cs, Windows windows,
+                                        long index, long fence) {
+        this.fc = fc;
+        this.cs = cs;
+        this.windows = windows;
+        this.latin1 = cs.equals(StandardCharsets.ISO_8859_1);
+        this.index = index;
+        this.fence = fence;
+    }
+
+    @Override
+    public boolean tryAdvance(Consumer<? super String> action) {
+        Objects.requireNonNull(action);
+        String line;
+        enter();
+        try {
+            line = readLine();
+        } finally {
+            exit();
+        }
+        if (line == null)
+            return false;
+        action.accept(line);
+        return true;
+    }
+
+    @Override
+    public void forEachRemaining(Consumer<? super String> action) {
+        Objects.requireNonNull(action);
+        enter();
+        try {
+            String line;
+            while ((line = readLine()) != null)
+                action.accept(line);
+        } finally {
+            exit();
+        }
+    }
+
+    /**
+     * Starts a traversal, taking the current window, if any, out of those
+     * that {@link #unmap} unmaps.
+     */
+    private void enter() {
+        try {
+            windows.use(buffer);
+        } catch (ClosedChannelException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Ends a traversal, unmapping the current window if {@link #unmap} was
+     * called in the meantime.
+     */
+    private void exit() {
+        MappedByteBuffer b = buffer;
+        if (b != null && !windows.idle(b))
+            buffer = null;
+    }
+
+    /**
+     * Maps the window of the range starting at the given position,
+     * unmapping the current one.
+     */
+    private void map(long position) {
+        release();
+        try {
+            buffer = windows.map(fc, position, Math.min(fence - position, MAP_LIMIT));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        bufferStart = position;
+    }
+
+    /** Unmaps the current window, if any. */
+    private void release() {
+        MappedByteBuffer b = buffer;
+        if (b != null) {
+            buffer = null;
+            windows.unmap(b);
+        }
+    }
+
+    /**
+     * Unmaps the windows still mapped by this spliterator and those split
+     * from it that are not being read, and prevents further traversal.
+     * Called when the stream is closed.
+     */
+    void unmap() {
+        windows.close();
+    }
+
+    /**
+     * Returns the next line, or null at the end of the range.  A line is
+     * terminated by {@code '\n'}, {@code '\r'} or {@code "\r\n"}, or by the
+     * end of the range.
+     */
+    private String readLine() {
+        if (index >= fence)
+            return null;
+        if (buffer == null)
+            map(index);
+        for (;;) {
+            MappedByteBuffer b = buffer;
+            int start = (int) (index - bufferStart), limit = b.limit(), i = start;
+            int bits = 0;
+            byte c = 0;
+            while (i < limit && (c = b.get(i)) != '\n' && c != '\r') {
+                bits |= c;
+                ++i;
+            }
+            // Remap if the line, or a "\r\n" terminator, crosses the window
+            if ((i == limit || (c == '\r' && i + 1 == limit)) &&
+                bufferStart + limit < fence) {
+                if (start == 0)
+                    throw new UncheckedIOException(new IOException("Line too long"));
+                map(index);
+                continue;
+            }
+            String line = decode(b, start, i - start, bits < 0);
+            if (i < limit && c == '\r' && i + 1 < limit && b.get(i + 1) == '\n')
+                ++i;
+            index = bufferStart + Math.min(i + 1, limit);
+            if (index >= fence)
+                release();
+            return line;
+        }
+    }
+
+    /** Decodes n bytes of the buffer from the given offset. */
+    @SuppressWarnings("deprecation")
+    private String decode(ByteBuffer b, int offset, int n, boolean nonAscii) {
+        byte[] bs = bytes;
+        if (bs == null || bs.length < n)
+            bytes = bs = new byte[Math.max(n, bs == null ? 128 : bs.length << 1)];
+        b.position(offset);
+        b.get(bs, 0, n);
+        if (!nonAscii || latin1) {
+            // Each byte is the char of the same value
+            return new String(bs, 0, 0, n);
+        }
+        CharsetDecoder d = decoder;
+        if (d == null)
+            decoder = d = cs.newDecoder();
+        try {
+            CharBuffer chars = d.decode(ByteBuffer.wrap(bs, 0, n));
+            return chars.toString();
+        } catch (CharacterCodingException e) {
+            throw new UncheckedIOException(e);
+        }
+    }
+
+    /**
+     * Returns the position following the first line terminator at or after
+     * the given position, or -1 if there is none before the fence.
+     */
+    private long nextLineStart(long position) {
+        ByteBuffer b = ByteBuffer.allocate(SCAN_SIZE);
+        boolean cr = false;
+        long p = position;
+        try {
+            while (p < fence) {
+                b.clear();
+                int n = fc.read(b, p);
+                if (n <= 0)
+                    return -1L;
+                n = (int) Math.min(n, fence - p);
+                for (int i = 0; i < n; i++) {
+                    byte c = b.get(i);
+                    if (cr)
+                        return (c == '\n') ? p + i + 1 : p + i;
+                    if (c == '\n')
+                        return p + i + 1;
+                    cr = (c == '\r');
+                }
+                p += n;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return cr ? fence : -1L;
+    }
+
+    @Override
+    public Spliterator<String> trySplit() {
+        // Do not split once traversal has started
+        if (buffer != null)
+            return null;
+        long lo = index, mid = (lo + fence) >>> 1;
+        if (mid <= lo)
+            return null;
+        long split = nextLineStart(mid);
+        if (split < 0L || split >= fence)
+            return null;
+        index = split;
+        return new FileChannelLinesSpliterator(fc, cs, windows, lo, split);
+    }
+
+    @Override
+    public long estimateSize() {
+        // Use the number of bytes as an estimate, as there are at most as
+        // many lines
+        return fence - index;
+    }
+
+    @Override
+    public int characteristics() {
+        return Spliterator.ORDERED | Spliterator.NONNULL;
+    }
+
+    /**
+     * The windows mapped by a spliterator and those split from it.  A window
+     * is in use while the spliterator owning it is being traversed, and is
+     * then only accessed, and unmapped, by the traversing thread; the idle
+     * windows, at most one per spliterator whose traversal was abandoned,
+     * are kept in a list, so that {@link #close} can unmap them.  Buffers
+     * are compared by identity, as their {@code equals} compares their
+     * contents.
+     */
+    static final class Windows {
+        private final ArrayList<MappedByteBuffer> idle = new ArrayList<>();
+        private boolean closed;
+
+        /**
+         * Maps a window, in use by the caller.
+         */
+        synchronized MappedByteBuffer map(FileChannel fc, long position, long size)
+            throws IOException
+        {
+            if (closed)
+                throw new ClosedChannelException();
+            return fc.map(FileChannel.MapMode.READ_ONLY, position, size);
+        }
+
+        /**
+         * Unmaps a window in use by the caller.
+         */
+        void unmap(MappedByteBuffer b) {
+            clean(b);
+        }
+
+        /**
+         * Marks a window, if not null, as in use by the caller, failing if
+         * the windows are closed, in which case it was unmapped.
+         */
+        synchronized void use(MappedByteBuffer b) throws ClosedChannelException {
+            if (closed)
+                throw new ClosedChannelException();
+            if (b != null) {
+                for (int i = idle.size() - 1; i >= 0; i--) {
+                    if (idle.get(i) == b) {
+                        idle.remove(i);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Marks a window in use by the caller as idle, or unmaps it if the
+         * windows were closed while it was in use.
+         *
+         * @return false if the window was unmapped
+         */
+        synchronized boolean idle(MappedByteBuffer b) {
+            if (closed) {
+                clean(b);
+                return false;
+            }
+            idle.add(b);
+            return true;
+        }
+
+        /**
+         * Unmaps the idle windows, and prevents further use and mapping; the
+         * windows in use are unmapped when they become idle.
+         */
+        synchronized void close() {
+            closed = true;
+            for (MappedByteBuffer b : idle)
+                clean(b);
+            idle.clear();
+        }
+
+        private static void clean(MappedByteBuffer b) {
+            Cleaner cl = ((DirectBuffer) b).cleaner();
+            if (cl != null)
+                cl.clean();
+        }
+    }
+}
@@ -3720,6 +3720,23 @@ public final class Files {
      * {@link Stream#close close} method is invoked after the stream operations
      * are completed.
      *
+     * @implNote
+     * This implementation supports good parallel stream performance for the
+     * standard charsets {@link StandardCharsets#UTF_8 UTF-8},
+     * {@link StandardCharsets#US_ASCII US-ASCII} and
+     * {@link StandardCharsets#ISO_8859_1 ISO-8859-1}.  Such
+     * <em>line-optimal</em> charsets have the property that the encoded bytes
+     * of a line feed ('\n') or a carriage return ('\r') are efficiently
+     * identifiable from other encoded characters when randomly accessing the
+     * bytes of the file.  For a non-empty regular file of the default file
+     * system read with one of these charsets, the returned stream encapsulates
+     * a {@link FileChannel} instead of a {@code Reader}: the file is
+     * memory-mapped, split into byte ranges at line terminators near their
+     * middle, and each line is decoded as it is consumed.  The size of the
+     * file is read when this method is invoked, and the stream does not see
+     * bytes appended later.  Closing the stream unmaps the file along with
+     * closing the channel, except for the parts being read by other threads
+     * at that time, which are unmapped as soon as those threads stop reading.
      *
      * @param   path
      *          the path to the file
@@ -3741,6 +3758,17 @@ public final class Files {
      * @since   1.8
      */
     public static Stream<String> lines(Path path, Charset cs) throws IOException {
+        // Map the file and split it at line terminators if the path is
+        // associated with the default file system and the charset is
+        // line-optimal
+        if (path.getFileSystem() == FileSystems.getDefault() &&
+            FileChannelLinesSpliterator.SUPPORTED_CHARSET_NAMES.contains(cs.name())) {
+            FileChannel fc = FileChannel.open(path, StandardOpenOption.READ);
+            Stream<String> lines = createFileChannelLinesStream(fc, cs);
+            if (lines != null)
+                return lines;
+            fc.close();
+        }
         BufferedReader br = Files.newBufferedReader(path, cs);
         try {
             return br.lines().onClose(asUncheckedRunnable(br));
@@ -3784,4 +3812,35 @@ public final class Files {
     public static Stream<String> lines(Path path) throws IOException {
         return lines(path, StandardCharsets.UTF_8);
     }
+
+    /**
+     * Returns a stream of the lines of a file read through a mapping of the
+     * file channel, or null if the file is empty or not a regular file, as
+     * then its size cannot be relied on.
+     */
+    private static Stream<String> createFileChannelLinesStream(FileChannel fc, Charset cs)
+        throws IOException
+    {
+        try {
+            // FileChannel.size() may return zero for a non-empty file that
+            // is not a regular file, such as one of the proc file system
+            long length = fc.size();
+            if (length > 0) {
+                FileChannelLinesSpliterator s = new FileChannelLinesSpliterator(fc, cs, 0, length);
+                return StreamSupport.stream(s, false)
+                                    .onClose(s::unmap)
+                                    .onClose(asUncheckedRunnable(fc));
+            }
+        } catch (Error|RuntimeException|IOException e) {
+            try {
+                fc.close();
+            } catch (IOException ex) {
+                try {
+                    e.addSuppressed(ex);
+                } catch (Throwable ignore) {}
+            }
+            throw e;
+        }
+        return null;
+    }
 }
@@ -4960,6 +4960,229 @@ public class Collections {
         }
     }
 
+    // Immutable collections
+
+    /**
+     * Returns an immutable list containing the given elements, in order.
+     * <a name="immutable"></a>
+     *
+     * <p>The lists, sets and maps returned by this and the other
+     * <tt>listOf</tt>, <tt>setOf</tt> and <tt>mapOf</tt> factories, and by
+     * the <tt>copyOf</tt> factories, are immutable rather than
+     * unmodifiable views: they share no state with their arguments, and
+     * every mutator throws <tt>UnsupportedOperationException</tt>.  They
+     * disallow <tt>null</tt> elements, keys and values; attempts to
+     * create them with nulls, or to query them for a null, result in
+     * <tt>NullPointerException</tt>.  They are sized for their contents,
+     * with no wrapper and no per-element entry objects, and so are much
+     * smaller than an <tt>unmodifiableMap(new HashMap&lt;&gt;(...))</tt>
+     * holding the same mappings.  The iteration order of sets and maps
+     * is unspecified and may differ from one run of the JVM to the next.
+     * The returned collections are serializable.
+     *
+     * @param  <E> the class of the elements
+     * @param  elements the elements to be contained in the list
+     * @return an immutable list containing the specified elements
+     * @throws NullPointerException if the array or any element is null
+     * @since 1.8
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <E> List<E> listOf(E... elements) {
+        return ImmutableCollections.listFromArray(elements);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable list</a> containing the
+     * elements of the given collection, in its iteration order.
+     *
+     * @param  <E> the class of the elements
+     * @param  coll the collection from which elements are drawn
+     * @return an immutable list containing the elements of the collection
+     * @throws NullPointerException if coll is null, or if it contains
+     *         any nulls
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> List<E> listCopyOf(Collection<? extends E> coll) {
+        if (coll instanceof ImmutableCollections.AbstractImmutableList)
+            return (List<E>) coll;
+        return (List<E>) ImmutableCollections.listFromArray(coll.toArray());
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable set</a> containing the
+     * given elements.
+     *
+     * @param  <E> the class of the elements
+     * @param  elements the elements to be contained in the set
+     * @return an immutable set containing the specified elements
+     * @throws IllegalArgumentException if there are any duplicate elements
+     * @throws NullPointerException if the array or any element is null
+     * @since 1.8
+     */
+    @SafeVarargs
+    @SuppressWarnings("varargs")
+    public static <E> Set<E> setOf(E... elements) {
+        return ImmutableCollections.setFromArray(elements);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable set</a> containing the
+     * elements of the given collection.  Unlike {@link #setOf}, duplicate
+     * elements are allowed; one of each is kept.
+     *
+     * @param  <E> the class of the elements
+     * @param  coll the collection from which elements are drawn
+     * @return an immutable set containing the elements of the collection
+     * @throws NullPointerException if coll is null, or if it contains
+     *         any nulls
+     * @since 1.8
+     */
+    @SuppressWarnings("unchecked")
+    public static <E> Set<E> setCopyOf(Collection<? extends E> coll) {
+        if (coll instanceof ImmutableCollections.AbstractImmutableSet)
+            return (Set<E>) coll;
+        return (Set<E>) ImmutableCollections.setFromArray(new HashSet<>(coll).toArray());
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing no
+     * mappings.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @return an empty immutable map
+     * @since 1.8
+     */
+    public static <K,V> Map<K,V> mapOf() {
+        return ImmutableCollections.emptyMap();
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing a
+     * single mapping.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @param  k1 the mapping's key
+     * @param  v1 the mapping's value
+     * @return an immutable map containing the specified mapping
+     * @throws NullPointerException if the key or the value is null
+     * @since 1.8
+     */
+    public static <K,V> Map<K,V> mapOf(K k1, V v1) {
+        return new ImmutableCollections.Map1<>(k1, v1);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing two
+     * mappings.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @param  k1 the first mapping's key
+     * @param  v1 the first mapping's value
+     * @param  k2 the second mapping's key
+     * @param  v2 the second mapping's value
+     * @return an immutable map containing the specified mappings
+     * @throws IllegalArgumentException if the keys are duplicates
+     * @throws NullPointerException if any key or value is null
+     * @since 1.8
+     */
+    public static <K,V> Map<K,V> mapOf(K k1, V v1, K k2, V v2) {
+        return new ImmutableCollections.Map2<>(k1, v1, k2, v2);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing three
+     * mappings.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @param  k1 the first mapping's key
+     * @param  v1 the first mapping's value
+     * @param  k2 the second mapping's key
+     * @param  v2 the second mapping's value
+     * @param  k3 the third mapping's key
+     * @param  v3 the third mapping's value
+     * @return an immutable map containing the specified mappings
+     * @throws IllegalArgumentException if there are any duplicate keys
+     * @throws NullPointerException if any key or value is null
+     * @since 1.8
+     */
+    public static <K,V> Map<K,V> mapOf(K k1, V v1, K k2, V v2, K k3, V v3) {
+        return new ImmutableCollections.MapN<>(k1, v1, k2, v2, k3, v3);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing four
+     * mappings.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @param  k1 the first mapping's key
+     * @param  v1 the first mapping's value
+     * @param  k2 the second mapping's key
+     * @param  v2 the second mapping's value
+     * @param  k3 the third mapping's key
+     * @param  v3 the third mapping's value
+     * @param  k4 the fourth mapping's key
+     * @param  v4 the fourth mapping's value
+     * @return an immutable map containing the specified mappings
+     * @throws IllegalArgumentException if there are any duplicate keys
+     * @throws NullPointerException if any key or value is null
+     * @since 1.8
+     */
+    public static <K,V> Map<K,V> mapOf(K k1, V v1, K k2, V v2, K k3, V v3, K k4, V v4) {
+        return new ImmutableCollections.MapN<>(k1, v1, k2, v2, k3, v3, k4, v4);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing keys
+     * and values taken from the given entries.  The entries themselves
+     * are not stored in the map.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @param  entries the entries containing the keys and values
+     * @return an immutable map containing the specified mappings
+     * @throws IllegalArgumentException if there are any duplicate keys
+     * @throws NullPointerException if any entry, key or value is null,
+     *         or if the array is null
+     * @since 1.8
+     */
+    @SafeVarargs
+    public static <K,V> Map<K,V> mapOfEntries(Map.Entry<? extends K, ? extends V>... entries) {
+        Object[] kvs = new Object[entries.length << 1];
+        int a = 0;
+        for (Map.Entry<? extends K, ? extends V> entry : entries) {
+            kvs[a++] = entry.getKey();
+            kvs[a++] = entry.getValue();
+        }
+        return ImmutableCollections.mapFromArray(kvs);
+    }
+
+    /**
+     * Returns an <a href="#immutable">immutable map</a> containing the
+     * mappings of the given map.  This is the compact replacement for
+     * <tt>unmodifiableMap(new HashMap&lt;&gt;(map))</tt>.
+     *
+     * @param  <K> the class of the map keys
+     * @param  <V> the class of the map values
+     * @param  map the map from which mappings are drawn
+     * @return an immutable map containing the mappings of the given map
+     * @throws NullPointerException if map is null, or if it contains any
+     *         null keys or values
+     * @since 1.8
+     */
+    @SuppressWarnings({"rawtypes","unchecked"})
+    public static <K,V> Map<K,V> mapCopyOf(Map<? extends K, ? extends V> map) {
+        if (map instanceof ImmutableCollections.AbstractImmutableMap)
+            return (Map<K,V>) map;
+        return mapOfEntries(map.entrySet().toArray(new Map.Entry[0]));
+    }
+
     // Miscellaneous
 
     /**
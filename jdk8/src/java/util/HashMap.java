@@ -343,9 +343,16 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
      * cheapest possible way to reduce systematic lossage, as well as
      * to incorporate impact of the highest bits that would otherwise
      * never be used in index calculations because of table bounds.
+     *
+     * If this map has a non-zero hashSeed, String keys are instead
+     * hashed by a SipHash keyed with the seed (see sun.misc.Hashing),
+     * so that sets of colliding keys cannot be precomputed from
+     * String.hashCode.
      */
-    static final int hash(Object key) {
-        int h;
+    final int hash(Object key) {
+        int h, seed;
+        if ((seed = hashSeed) != 0 && key instanceof String)
+            return sun.misc.Hashing.stringHash32((String) key, seed);
         // hashcode 再和其高16位异或,再次将 hash 值随机化
         return (key == null) ? 0 : (h = key.hashCode()) ^ (h >>> 16);
     }
@@ -404,6 +411,29 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
         return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
     }
 
+    /**
+     * Spreads an int key for the open-addressed primitive maps
+     * ({@link IntHashMap}, {@link IntIntHashMap}). Linear probing is
+     * far more sensitive to clustered hashes than chained bins, and
+     * there is no treeification to fall back on, so the key is first
+     * scrambled by the golden-ratio multiplier and then spread the
+     * same way as {@link #hash(Object)}.
+     */
+    static final int hash(int key) {
+        int h = key * 0x9E3779B9;
+        return h ^ (h >>> 16);
+    }
+
+    /**
+     * Spreads a long key for {@link LongHashMap} and
+     * {@link LongLongHashMap}; see {@link #hash(int)}.
+     */
+    static final int hash(long key) {
+        long h = key * 0x9E3779B97F4A7C15L;
+        int x = (int) (h ^ (h >>> 32));
+        return x ^ (x >>> 16);
+    }
+
     /* ---------------- Fields -------------- */
 
     /**
@@ -452,6 +482,14 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
      */
     final float loadFactor;
 
+    /**
+     * A randomizing value associated with this instance that keys the
+     * hash of String keys, making collisions harder to find.  If 0
+     * then String keys use String.hashCode.  Non-zero only when
+     * enabled by the system property jdk.map.keyedHashing.
+     */
+    transient int hashSeed = sun.misc.Hashing.newHashSeed();
+
     /* ---------------- Public operations -------------- */
 
     /**
@@ -1877,6 +1915,7 @@ public class HashMap<K, V> extends AbstractMap<K, V> implements Map<K, V>, Clone
         modCount = 0;
         threshold = 0;
         size = 0;
+        hashSeed = sun.misc.Hashing.newHashSeed();
     }
 
     // Callbacks to allow LinkedHashMap post-actions
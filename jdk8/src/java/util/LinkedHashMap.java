@@ -546,9 +546,7 @@ public class LinkedHashMap<K,V>
             return removeNode(hash(key), key, null, false, true) != null;
         }
         public final Spliterator<K> spliterator()  {
-            return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED |
-                                            Spliterator.DISTINCT);
+            return new LinkedKeySpliterator<>(LinkedHashMap.this, -1, 0);
         }
         public final void forEach(Consumer<? super K> action) {
             if (action == null)
@@ -596,8 +594,7 @@ public class LinkedHashMap<K,V>
         }
         public final boolean contains(Object o) { return containsValue(o); }
         public final Spliterator<V> spliterator() {
-            return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED);
+            return new LinkedValueSpliterator<>(LinkedHashMap.this, -1, 0);
         }
         public final void forEach(Consumer<? super V> action) {
             if (action == null)
@@ -658,9 +655,7 @@ public class LinkedHashMap<K,V>
             return false;
         }
         public final Spliterator<Map.Entry<K,V>> spliterator() {
-            return Spliterators.spliterator(this, Spliterator.SIZED |
-                                            Spliterator.ORDERED |
-                                            Spliterator.DISTINCT);
+            return new LinkedEntrySpliterator<>(LinkedHashMap.this, -1, 0);
         }
         public final void forEach(Consumer<? super Map.Entry<K,V>> action) {
             if (action == null)
@@ -751,5 +746,247 @@ public class LinkedHashMap<K,V>
         public final Map.Entry<K,V> next() { return nextNode(); }
     }
 
+    // Spliterators
+
+    /**
+     * Base of the view spliterators, which traverse the entries in
+     * their linked order.  Unlike those of HashMap they cannot split a
+     * table range, so trySplit copies a prefix of the remaining entries
+     * into an array instead, as LinkedList's spliterator does.  The
+     * first batch is small so that parallel work can start early, and
+     * each batch doubles the previous one, but never exceeds half of
+     * what remains, so a large map splits into pieces of balanced
+     * sizes after logarithmically many walks.  Small maps are copied
+     * whole, leaving the array spliterator to split them evenly.  As
+     * the number of remaining entries is known exactly, both the
+     * copied prefix and the remainder report SIZED.
+     */
+    static class LinkedHashMapSpliterator<K,V> {
+        static final int BATCH_UNIT = 1 << 10;  // first batch array size
+        static final int MAX_BATCH = 1 << 25;  // max batch array size;
+        final LinkedHashMap<K,V> map;
+        LinkedHashMap.Entry<K,V> current; // current entry; null until initialized
+        int est;              // size estimate; -1 until first needed
+        int expectedModCount; // initialized when est set
+        int batch;            // size of the last batch
+
+        LinkedHashMapSpliterator(LinkedHashMap<K,V> map, int est,
+                                 int expectedModCount) {
+            this.map = map;
+            this.est = est;
+            this.expectedModCount = expectedModCount;
+        }
+
+        final int getEst() {
+            int s; // force initialization
+            if ((s = est) < 0) {
+                LinkedHashMap<K,V> m = map;
+                expectedModCount = m.modCount;
+                current = m.head;
+                s = est = m.size;
+            }
+            return s;
+        }
+
+        public final long estimateSize() { return (long) getEst(); }
+
+        /**
+         * Returns the number of entries to copy for a split, given the
+         * number remaining, which is greater than one.
+         */
+        final int batchSize(int s) {
+            if (s <= BATCH_UNIT << 1)
+                return s;
+            int n = (batch == 0) ? BATCH_UNIT : batch << 1;
+            if (n > s >>> 1)
+                n = s >>> 1;
+            return (n > MAX_BATCH) ? MAX_BATCH : n;
+        }
+    }
+
+    static final class LinkedKeySpliterator<K,V>
+        extends LinkedHashMapSpliterator<K,V>
+        implements Spliterator<K> {
+        LinkedKeySpliterator(LinkedHashMap<K,V> m, int est,
+                             int expectedModCount) {
+            super(m, est, expectedModCount);
+        }
+
+        public Spliterator<K> trySplit() {
+            LinkedHashMap.Entry<K,V> p;
+            int s = getEst();
+            if (s > 1 && (p = current) != null) {
+                int n = batchSize(s);
+                Object[] a = new Object[n];
+                int j = 0;
+                do { a[j++] = p.key; } while ((p = p.after) != null && j < n);
+                current = p;
+                batch = j;
+                est = s - j;
+                return Spliterators.spliterator(a, 0, j, Spliterator.ORDERED |
+                                                Spliterator.DISTINCT);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(Consumer<? super K> action) {
+            LinkedHashMap.Entry<K,V> p; int n;
+            if (action == null) throw new NullPointerException();
+            if ((n = getEst()) > 0 && (p = current) != null) {
+                current = null;
+                est = 0;
+                do {
+                    K k = p.key;
+                    p = p.after;
+                    action.accept(k);
+                } while (p != null && --n > 0);
+            }
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super K> action) {
+            LinkedHashMap.Entry<K,V> p;
+            if (action == null) throw new NullPointerException();
+            if (getEst() > 0 && (p = current) != null) {
+                --est;
+                K k = p.key;
+                current = p.after;
+                action.accept(k);
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED |
+                Spliterator.SUBSIZED | Spliterator.DISTINCT;
+        }
+    }
+
+    static final class LinkedValueSpliterator<K,V>
+        extends LinkedHashMapSpliterator<K,V>
+        implements Spliterator<V> {
+        LinkedValueSpliterator(LinkedHashMap<K,V> m, int est,
+                               int expectedModCount) {
+            super(m, est, expectedModCount);
+        }
+
+        public Spliterator<V> trySplit() {
+            LinkedHashMap.Entry<K,V> p;
+            int s = getEst();
+            if (s > 1 && (p = current) != null) {
+                int n = batchSize(s);
+                Object[] a = new Object[n];
+                int j = 0;
+                do { a[j++] = p.value; } while ((p = p.after) != null && j < n);
+                current = p;
+                batch = j;
+                est = s - j;
+                return Spliterators.spliterator(a, 0, j, Spliterator.ORDERED);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(Consumer<? super V> action) {
+            LinkedHashMap.Entry<K,V> p; int n;
+            if (action == null) throw new NullPointerException();
+            if ((n = getEst()) > 0 && (p = current) != null) {
+                current = null;
+                est = 0;
+                do {
+                    V v = p.value;
+                    p = p.after;
+                    action.accept(v);
+                } while (p != null && --n > 0);
+            }
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super V> action) {
+            LinkedHashMap.Entry<K,V> p;
+            if (action == null) throw new NullPointerException();
+            if (getEst() > 0 && (p = current) != null) {
+                --est;
+                V v = p.value;
+                current = p.after;
+                action.accept(v);
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED |
+                Spliterator.SUBSIZED;
+        }
+    }
+
+    static final class LinkedEntrySpliterator<K,V>
+        extends LinkedHashMapSpliterator<K,V>
+        implements Spliterator<Map.Entry<K,V>> {
+        LinkedEntrySpliterator(LinkedHashMap<K,V> m, int est,
+                               int expectedModCount) {
+            super(m, est, expectedModCount);
+        }
+
+        public Spliterator<Map.Entry<K,V>> trySplit() {
+            LinkedHashMap.Entry<K,V> p;
+            int s = getEst();
+            if (s > 1 && (p = current) != null) {
+                int n = batchSize(s);
+                Object[] a = new Object[n];
+                int j = 0;
+                do { a[j++] = p; } while ((p = p.after) != null && j < n);
+                current = p;
+                batch = j;
+                est = s - j;
+                return Spliterators.spliterator(a, 0, j, Spliterator.ORDERED |
+                                                Spliterator.DISTINCT);
+            }
+            return null;
+        }
+
+        public void forEachRemaining(Consumer<? super Map.Entry<K,V>> action) {
+            LinkedHashMap.Entry<K,V> p; int n;
+            if (action == null) throw new NullPointerException();
+            if ((n = getEst()) > 0 && (p = current) != null) {
+                current = null;
+                est = 0;
+                do {
+                    LinkedHashMap.Entry<K,V> e = p;
+                    p = p.after;
+                    action.accept(e);
+                } while (p != null && --n > 0);
+            }
+            if (map.modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+        }
+
+        public boolean tryAdvance(Consumer<? super Map.Entry<K,V>> action) {
+            LinkedHashMap.Entry<K,V> p;
+            if (action == null) throw new NullPointerException();
+            if (getEst() > 0 && (p = current) != null) {
+                --est;
+                current = p.after;
+                action.accept(p);
+                if (map.modCount != expectedModCount)
+                    throw new ConcurrentModificationException();
+                return true;
+            }
+            return false;
+        }
+
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.SIZED |
+                Spliterator.SUBSIZED | Spliterator.DISTINCT;
+        }
+    }
+
 
 }
@@ -178,18 +178,17 @@ public class LinkedHashSet<E>
      * should document the reporting of additional characteristic values.
      *
      * @implNote
-     * The implementation creates a
-     * <em><a href="Spliterator.html#binding">late-binding</a></em> spliterator
-     * from the set's {@code Iterator}.  The spliterator inherits the
-     * <em>fail-fast</em> properties of the set's iterator.
-     * The created {@code Spliterator} additionally reports
-     * {@link Spliterator#SUBSIZED}.
+     * The implementation follows the links of the backing
+     * {@code LinkedHashMap}, splitting off array-backed batches of
+     * geometrically growing size.  The created {@code Spliterator}
+     * additionally reports {@link Spliterator#SUBSIZED}.
      *
      * @return a {@code Spliterator} over the elements in this set
      * @since 1.8
      */
     @Override
     public Spliterator<E> spliterator() {
-        return Spliterators.spliterator(this, Spliterator.DISTINCT | Spliterator.ORDERED);
+        return new LinkedHashMap.LinkedKeySpliterator<E,Object>(
+            (LinkedHashMap<E,Object>) map, -1, 0);
     }
 }
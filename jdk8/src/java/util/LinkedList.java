@@ -1172,7 +1172,7 @@ public class LinkedList<E>
 
     /** A customized variant of Spliterators.IteratorSpliterator */
     static final class LLSpliterator<E> implements Spliterator<E> {
-        static final int BATCH_UNIT = 1 << 10;  // batch array size increment
+        static final int BATCH_UNIT = 1 << 10;  // first batch array size
         static final int MAX_BATCH = 1 << 25;  // max batch array size;
         final LinkedList<E> list; // null OK unless traversed
         Node<E> current;      // current node; null until initialized
@@ -1203,15 +1203,30 @@ public class LinkedList<E>
 
         public long estimateSize() { return (long) getEst(); }
 
+        /**
+         * Returns the number of elements to copy for a split, given the
+         * number remaining, which is greater than one.  Small lists are
+         * copied whole, leaving the array spliterator to split them
+         * evenly.  Otherwise the first batch is small so that parallel
+         * work can start early, and each batch doubles the previous
+         * one, but never exceeds half of what remains, so a large list
+         * splits into pieces of balanced sizes after logarithmically
+         * many walks.
+         */
+        final int batchSize(int s) {
+            if (s <= BATCH_UNIT << 1)
+                return s;
+            int n = (batch == 0) ? BATCH_UNIT : batch << 1;
+            if (n > s >>> 1)
+                n = s >>> 1;
+            return (n > MAX_BATCH) ? MAX_BATCH : n;
+        }
+
         public Spliterator<E> trySplit() {
             Node<E> p;
             int s = getEst();
             if (s > 1 && (p = current) != null) {
-                int n = batch + BATCH_UNIT;
-                if (n > s)
-                    n = s;
-                if (n > MAX_BATCH)
-                    n = MAX_BATCH;
+                int n = batchSize(s);
                 Object[] a = new Object[n];
                 int j = 0;
                 do { a[j++] = p.item; } while ((p = p.next) != null && j < n);
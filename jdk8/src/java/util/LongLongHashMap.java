@@ -0,0 +1,706 @@
+package java.util;
+
+import java.util.function.BiConsumer;
+import java.util.function.LongLongConsumer;
+
+/**
+ * Open-addressed hash table mapping primitive {@code long} keys to
+ * primitive {@code long} values.  Unlike a {@code HashMap<Long, Long>},
+ * this class neither boxes its keys or values nor allocates a node per
+ * mapping: keys and values are held in two parallel {@code long} arrays,
+ * so a map of <i>n</i> entries costs roughly {@code 16 * n / loadFactor}
+ * bytes.  Lookups of absent keys return 0 unless a default is given;
+ * use {@link #containsKey(long)} to tell an absent key from a zero value.
+ *
+ * <p>Collisions are resolved by linear probing, and removal uses
+ * backward-shift deletion so the table never accumulates tombstones.
+ * Keys are spread with {@link HashMap#hash(int)} and tables are sized
+ * with {@link HashMap#tableSizeFor(int)}, so capacities are always a
+ * power of two.  Because probe sequences grow quickly as a linearly
+ * probed table fills up, the default load factor is .5 rather than the
+ * .75 used by {@code HashMap}.
+ *
+ * <p>{@link #forEach(LongLongConsumer)} visits the mappings without
+ * allocating.  {@link #asMap()} exposes the table as a
+ * {@code Map<Long, Long>} for interoperation with code expecting the
+ * collections interfaces; that view boxes keys and creates entries on
+ * demand, and its iterators are <i>fail-fast</i> in the same way as
+ * those of {@code HashMap}.  The order in which mappings are visited is
+ * unspecified.
+ *
+ * <p><strong>Note that this implementation is not synchronized.</strong>
+ *
+ * @see HashMap
+ * @see LongHashMap
+ * @see IntIntHashMap
+ * @since 1.8
+ */
+public class LongLongHashMap {
+
+    /**
+     * The default initial capacity, in mappings.
+     */
+    static final int DEFAULT_INITIAL_CAPACITY = 16;
+
+    /**
+     * The maximum table length; the zero-key slot lives past it.
+     */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The load factor used when none specified in constructor.
+     */
+    static final float DEFAULT_LOAD_FACTOR = 0.5f;
+
+    /**
+     * The keys, with 0 marking a free slot.  The array has one slot
+     * more than the table length; that last slot stands for the key 0,
+     * which cannot be stored in the table proper.
+     */
+    transient long[] keys;
+
+    /**
+     * The values, parallel to {@link #keys}.
+     */
+    transient long[] vals;
+
+    /**
+     * Table length minus one.
+     */
+    transient int mask;
+
+    /**
+     * Whether the key 0 is present; its value is {@code vals[mask + 1]}.
+     */
+    transient boolean containsZeroKey;
+
+    /**
+     * The number of key-value mappings contained in this map.
+     */
+    transient int size;
+
+    /**
+     * The number of times this map has been structurally modified.
+     */
+    transient int modCount;
+
+    /**
+     * The size above which the table is doubled.
+     */
+    int threshold;
+
+    /**
+     * The load factor for the hash table.
+     */
+    final float loadFactor;
+
+    /**
+     * Cached {@code Map} view.
+     */
+    transient Map<Long, Long> mapView;
+
+    /**
+     * Constructs an empty map with the default initial capacity (16)
+     * and the default load factor (0.5).
+     */
+    public LongLongHashMap() {
+        this(DEFAULT_INITIAL_CAPACITY, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map able to hold the given number of mappings
+     * without rehashing, with the default load factor (0.5).
+     *
+     * @param initialCapacity the expected number of mappings
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public LongLongHashMap(int initialCapacity) {
+        this(initialCapacity, DEFAULT_LOAD_FACTOR);
+    }
+
+    /**
+     * Constructs an empty map able to hold the given number of mappings
+     * without rehashing, with the given load factor.
+     *
+     * @param initialCapacity the expected number of mappings
+     * @param loadFactor the load factor, strictly between 0 and 1
+     * @throws IllegalArgumentException if the initial capacity is negative
+     *         or the load factor is not strictly between 0 and 1
+     */
+    public LongLongHashMap(int initialCapacity, float loadFactor) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException("Illegal initial capacity: " +
+                                               initialCapacity);
+        if (!(loadFactor > 0.0f && loadFactor < 1.0f))
+            throw new IllegalArgumentException("Illegal load factor: " +
+                                               loadFactor);
+        this.loadFactor = loadFactor;
+        allocate(tableSizeFor(initialCapacity, loadFactor));
+    }
+
+    /**
+     * Returns the table length needed to hold {@code expected} mappings
+     * at the given load factor.
+     */
+    static int tableSizeFor(int expected, float loadFactor) {
+        long n = (long) Math.ceil(expected / (double) loadFactor);
+        return HashMap.tableSizeFor((int) Math.max(2L, Math.min(n, MAXIMUM_CAPACITY)));
+    }
+
+    /**
+     * Installs empty arrays for a table of length n.
+     */
+    private void allocate(int n) {
+        keys = new long[n + 1];
+        vals = new long[n + 1];
+        mask = n - 1;
+        threshold = Math.min((int) (n * loadFactor), n - 1);
+    }
+
+    /* ---------------- Probing -------------- */
+
+    /**
+     * Returns the slot holding key, or -1 if absent.
+     */
+    final int find(long key) {
+        if (key == 0)
+            return containsZeroKey ? mask + 1 : -1;
+        long[] ks = keys;
+        int m = mask, i = HashMap.hash(key) & m;
+        long k;
+        while ((k = ks[i]) != 0) {
+            if (k == key)
+                return i;
+            i = (i + 1) & m;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the slot holding key if present, else the bitwise
+     * complement of the slot at which it would be inserted.
+     */
+    private int probe(long key) {
+        if (key == 0)
+            return containsZeroKey ? mask + 1 : ~(mask + 1);
+        long[] ks = keys;
+        int m = mask, i = HashMap.hash(key) & m;
+        long k;
+        while ((k = ks[i]) != 0) {
+            if (k == key)
+                return i;
+            i = (i + 1) & m;
+        }
+        return ~i;
+    }
+
+    /**
+     * Adds a mapping for a key known to be absent, probing for a free
+     * slot again only if the table had to grow first.
+     */
+    private void insert(int slot, long key, long value) {
+        if (size >= threshold) {
+            resize();
+            slot = ~probe(key);
+        }
+        if (key == 0)
+            containsZeroKey = true;
+        else
+            keys[slot] = key;
+        vals[slot] = value;
+        ++size;
+        ++modCount;
+    }
+
+    /**
+     * Doubles the table length and reinserts every key.
+     */
+    final void resize() {
+        int oldCap = mask + 1;
+        if (oldCap >= MAXIMUM_CAPACITY)
+            throw new IllegalStateException("LongLongHashMap capacity exceeded");
+        long[] oldKeys = keys;
+        long[] oldVals = vals;
+        allocate(oldCap << 1);
+        long[] ks = keys;
+        long[] vs = vals;
+        int m = mask;
+        for (int j = 0; j < oldCap; ++j) {
+            long k = oldKeys[j];
+            if (k != 0) {
+                int i = HashMap.hash(k) & m;
+                while (ks[i] != 0)
+                    i = (i + 1) & m;
+                ks[i] = k;
+                vs[i] = oldVals[j];
+            }
+        }
+        vs[m + 1] = oldVals[oldCap];
+    }
+
+    /**
+     * Removes the mapping in the given slot.
+     */
+    final void removeAt(int slot) {
+        if (slot == mask + 1) {
+            containsZeroKey = false;
+            vals[slot] = 0;
+        } else {
+            shiftKeys(slot);
+        }
+        --size;
+        ++modCount;
+    }
+
+    /**
+     * Backward-shift deletion: empties the slot at pos, then moves every
+     * later key of the same probe run whose home slot does not lie
+     * cyclically in (hole, key position] into the hole.
+     */
+    private void shiftKeys(int pos) {
+        long[] ks = keys;
+        long[] vs = vals;
+        int m = mask;
+        long k;
+        for (int last, slot;;) {
+            pos = ((last = pos) + 1) & m;
+            for (;;) {
+                if ((k = ks[pos]) == 0) {
+                    ks[last] = 0;
+                    vs[last] = 0;
+                    return;
+                }
+                slot = HashMap.hash(k) & m;
+                if (last <= pos ? last >= slot || slot > pos
+                                : last >= slot && slot > pos)
+                    break;
+                pos = (pos + 1) & m;
+            }
+            ks[last] = k;
+            vs[last] = vs[pos];
+        }
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Returns the number of key-value mappings in this map.
+     *
+     * @return the number of key-value mappings in this map
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains no key-value mappings.
+     *
+     * @return <tt>true</tt> if this map contains no key-value mappings
+     */
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or 0 if
+     * this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @return the mapped value, or 0
+     */
+    public long get(long key) {
+        if (key == 0)
+            return containsZeroKey ? vals[mask + 1] : 0;
+        long[] ks = keys;
+        int m = mask, i = HashMap.hash(key) & m;
+        long k;
+        while ((k = ks[i]) != 0) {
+            if (k == key)
+                return vals[i];
+            i = (i + 1) & m;
+        }
+        return 0;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code defaultValue} if this map contains no mapping for the key.
+     *
+     * @param key the key whose associated value is to be returned
+     * @param defaultValue the default mapping of the key
+     * @return the mapped value, or {@code defaultValue}
+     */
+    public long getOrDefault(long key, long defaultValue) {
+        int i = find(key);
+        return (i < 0) ? defaultValue : vals[i];
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map contains a mapping for the
+     * specified key.
+     *
+     * @param key the key whose presence is to be tested
+     * @return <tt>true</tt> if this map contains a mapping for the key
+     */
+    public boolean containsKey(long key) {
+        return find(key) >= 0;
+    }
+
+    /**
+     * Returns <tt>true</tt> if this map maps one or more keys to the
+     * specified value.  This scans the whole table.
+     *
+     * @param value value whose presence is to be tested
+     * @return <tt>true</tt> if this map maps one or more keys to the value
+     */
+    public boolean containsValue(long value) {
+        long[] ks = keys;
+        long[] vs = vals;
+        int n = mask + 1;
+        if (containsZeroKey && vs[n] == value)
+            return true;
+        for (int i = 0; i < n; ++i) {
+            if (ks[i] != 0 && vs[i] == value)
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Associates the specified value with the specified key in this map.
+     * If the map previously contained a mapping for the key, the old
+     * value is replaced.
+     *
+     * @param key key with which the specified value is to be associated
+     * @param value value to be associated with the specified key
+     * @return the previous value associated with <tt>key</tt>, or 0 if
+     *         there was no mapping for <tt>key</tt>
+     */
+    public long put(long key, long value) {
+        int i = probe(key);
+        if (i >= 0) {
+            long oldValue = vals[i];
+            vals[i] = value;
+            return oldValue;
+        }
+        insert(~i, key, value);
+        return 0;
+    }
+
+    /**
+     * Adds {@code delta} to the value mapped to {@code key}, treating an
+     * absent key as mapped to 0.  This is the allocation-free form of
+     * {@code merge(key, delta, Long::sum)} used for counting.
+     *
+     * @param key key whose value is to be adjusted
+     * @param delta the amount to add
+     * @return the new value associated with <tt>key</tt>
+     */
+    public long addTo(long key, long delta) {
+        int i = probe(key);
+        if (i >= 0)
+            return vals[i] += delta;
+        insert(~i, key, delta);
+        return delta;
+    }
+
+    /**
+     * Removes the mapping for the specified key from this map if present.
+     *
+     * @param key key whose mapping is to be removed from the map
+     * @return the previous value associated with <tt>key</tt>, or 0 if
+     *         there was no mapping for <tt>key</tt>
+     */
+    public long remove(long key) {
+        int i = find(key);
+        if (i < 0)
+            return 0;
+        long oldValue = vals[i];
+        removeAt(i);
+        return oldValue;
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The table keeps its
+     * current length.
+     */
+    public void clear() {
+        if (size > 0) {
+            Arrays.fill(keys, 0);
+            Arrays.fill(vals, 0);
+            containsZeroKey = false;
+            size = 0;
+            ++modCount;
+        }
+    }
+
+    /**
+     * Performs the given action for each mapping in this map until all
+     * mappings have been processed or the action throws an exception.
+     * No objects are allocated.
+     *
+     * @param action the action to be performed for each mapping
+     * @throws NullPointerException if the specified action is null
+     * @throws ConcurrentModificationException if the action structurally
+     *         modifies this map
+     */
+    public void forEach(LongLongConsumer action) {
+        if (action == null)
+            throw new NullPointerException();
+        long[] ks = keys;
+        long[] vs = vals;
+        int n = mask + 1, mc = modCount;
+        if (containsZeroKey)
+            action.accept(0, vs[n]);
+        for (int i = 0; i < n && modCount == mc; ++i) {
+            long k;
+            if ((k = ks[i]) != 0)
+                action.accept(k, vs[i]);
+        }
+        if (modCount != mc)
+            throw new ConcurrentModificationException();
+    }
+
+    /**
+     * Returns a {@link Map} view of this map.  Changes to either are
+     * reflected in the other.  The view does not permit {@code null}
+     * keys or values.
+     *
+     * @return a map view of this map
+     */
+    public Map<Long, Long> asMap() {
+        Map<Long, Long> m;
+        return (m = mapView) == null ? (mapView = new MapView()) : m;
+    }
+
+    /**
+     * Returns a string representation of this map in the format of
+     * {@link AbstractMap#toString()}.
+     */
+    public String toString() {
+        return asMap().toString();
+    }
+
+    /* ---------------- Views -------------- */
+
+    final class MapView extends AbstractMap<Long, Long> {
+        transient Set<Map.Entry<Long, Long>> entrySet;
+
+        public int size()                 { return size; }
+        public void clear()               { LongLongHashMap.this.clear(); }
+        public boolean containsValue(Object value) {
+            return (value instanceof Long) &&
+                LongLongHashMap.this.containsValue(((Long) value).longValue());
+        }
+        public boolean containsKey(Object key) {
+            return (key instanceof Long) &&
+                LongLongHashMap.this.containsKey(((Long) key).longValue());
+        }
+        public Long get(Object key) {
+            int i;
+            return (key instanceof Long) &&
+                (i = find(((Long) key).longValue())) >= 0 ? vals[i] : null;
+        }
+        public Long put(Long key, Long value) {
+            long k = key.longValue(), v = value.longValue();
+            int i = probe(k);
+            if (i >= 0) {
+                long oldValue = vals[i];
+                vals[i] = v;
+                return oldValue;
+            }
+            insert(~i, k, v);
+            return null;
+        }
+        public Long remove(Object key) {
+            int i;
+            if ((key instanceof Long) &&
+                (i = find(((Long) key).longValue())) >= 0) {
+                long oldValue = vals[i];
+                removeAt(i);
+                return oldValue;
+            }
+            return null;
+        }
+        public void forEach(BiConsumer<? super Long, ? super Long> action) {
+            if (action == null)
+                throw new NullPointerException();
+            LongLongHashMap.this.forEach((k, v) -> action.accept(k, v));
+        }
+        public Set<Map.Entry<Long, Long>> entrySet() {
+            Set<Map.Entry<Long, Long>> es;
+            return (es = entrySet) == null ? (entrySet = new EntrySet()) : es;
+        }
+    }
+
+    final class EntrySet extends AbstractSet<Map.Entry<Long, Long>> {
+        public int size()                 { return size; }
+        public void clear()               { LongLongHashMap.this.clear(); }
+        public Iterator<Map.Entry<Long, Long>> iterator() {
+            return new EntryIterator();
+        }
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey(), value = e.getValue();
+            int i;
+            return (key instanceof Long) && (value instanceof Long) &&
+                (i = find(((Long) key).longValue())) >= 0 &&
+                vals[i] == ((Long) value).longValue();
+        }
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object key = e.getKey(), value = e.getValue();
+            int i;
+            if ((key instanceof Long) && (value instanceof Long) &&
+                (i = find(((Long) key).longValue())) >= 0 &&
+                vals[i] == ((Long) value).longValue()) {
+                removeAt(i);
+                return true;
+            }
+            return false;
+        }
+    }
+
+    /**
+     * A snapshot of one mapping; {@code setValue} writes through.
+     */
+    final class Entry implements Map.Entry<Long, Long> {
+        final long key;
+        long value;
+
+        Entry(long key, long value) {
+            this.key = key;
+            this.value = value;
+        }
+
+        public Long getKey()           { return key; }
+        public Long getValue()         { return value; }
+        public Long setValue(Long newValue) {
+            long oldValue = value;
+            LongLongHashMap.this.put(key, newValue.longValue());
+            value = newValue.longValue();
+            return oldValue;
+        }
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            return Long.valueOf(key).equals(e.getKey()) &&
+                Long.valueOf(value).equals(e.getValue());
+        }
+        public int hashCode() {
+            return Long.hashCode(key) ^ Long.hashCode(value);
+        }
+        public String toString() {
+            return key + "=" + value;
+        }
+    }
+
+    /**
+     * Walks the table from the zero-key slot downwards.  A removal
+     * through the iterator may shift a not-yet-visited key from the
+     * start of the table around into the already visited end; such keys
+     * are remembered in {@code wrapped} and returned after the table
+     * has been exhausted.
+     */
+    final class EntryIterator implements Iterator<Map.Entry<Long, Long>> {
+        int pos = mask + 1;      // next slot to examine is pos - 1
+        int last = -1;           // slot of the last returned entry
+        int remaining = size;
+        boolean mustReturnZeroKey = containsZeroKey;
+        long[] wrapped;           // keys moved behind the cursor
+        int wrappedCount;
+        int expectedModCount = modCount;
+
+        public boolean hasNext() {
+            return remaining != 0;
+        }
+
+        public Map.Entry<Long, Long> next() {
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (remaining == 0)
+                throw new NoSuchElementException();
+            --remaining;
+            if (mustReturnZeroKey) {
+                mustReturnZeroKey = false;
+                last = mask + 1;
+                return new Entry(0, vals[last]);
+            }
+            long[] ks = keys;
+            for (;;) {
+                if (--pos < 0) {
+                    long k = wrapped[-pos - 1];
+                    int m = mask, i = HashMap.hash(k) & m;
+                    while (ks[i] != k)
+                        i = (i + 1) & m;
+                    last = i;
+                    return new Entry(k, vals[i]);
+                }
+                if (ks[pos] != 0) {
+                    last = pos;
+                    return new Entry(ks[pos], vals[pos]);
+                }
+            }
+        }
+
+        public void remove() {
+            if (last < 0)
+                throw new IllegalStateException();
+            if (modCount != expectedModCount)
+                throw new ConcurrentModificationException();
+            if (last == mask + 1) {
+                containsZeroKey = false;
+                vals[last] = 0;
+            } else if (pos >= 0) {
+                shiftKeys(last);
+            } else {
+                // Past the table every remaining key is in wrapped, so an
+                // ordinary shift cannot move anything still to be returned.
+                LongLongHashMap.this.shiftKeys(last);
+            }
+            --size;
+            expectedModCount = ++modCount;
+            last = -1;
+        }
+
+        /**
+         * Like {@link LongLongHashMap#shiftKeys}, but records keys that wrap
+         * from unvisited low slots into visited high slots.
+         */
+        private void shiftKeys(int pos) {
+            long[] ks = keys;
+            long[] vs = vals;
+            int m = mask;
+            long k;
+            for (int last, slot;;) {
+                pos = ((last = pos) + 1) & m;
+                for (;;) {
+                    if ((k = ks[pos]) == 0) {
+                        ks[last] = 0;
+                        vs[last] = 0;
+                        return;
+                    }
+                    slot = HashMap.hash(k) & m;
+                    if (last <= pos ? last >= slot || slot > pos
+                                    : last >= slot && slot > pos)
+                        break;
+                    pos = (pos + 1) & m;
+                }
+                if (pos < last) {
+                    if (wrapped == null)
+                        wrapped = new long[2];
+                    else if (wrappedCount == wrapped.length)
+                        wrapped = Arrays.copyOf(wrapped, wrappedCount << 1);
+                    wrapped[wrappedCount++] = k;
+                }
+                ks[last] = k;
+                vs[last] = vs[pos];
+            }
+        }
+    }
+}
@@ -327,6 +327,185 @@ public class TreeMap<K,V>
         super.putAll(map);
     }
 
+    /**
+     * Copies the mappings supplied by the given spliterator into this
+     * map.  The spliterator must supply its mappings in strictly
+     * ascending key order according to this map's ordering; mappings it
+     * supplies replace any this map already has for the same keys.
+     *
+     * <p>Unlike {@link #putAll}, this does not rebalance the tree once
+     * per mapping.  If this map is empty, the tree is built in linear
+     * time, as by {@link #TreeMap(SortedMap)}.  Otherwise the existing
+     * and new mappings are merged in one linear pass and the tree is
+     * rebuilt, unless there are so few new mappings that inserting them
+     * one at a time is cheaper.
+     *
+     * @param  entries supplies the mappings, in ascending key order
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *         ascending order; this map is then left unchanged
+     * @throws ClassCastException if a key cannot be compared with the
+     *         keys currently in the map
+     * @throws NullPointerException if the spliterator is null, or it
+     *         supplies a null key and this map uses natural ordering,
+     *         or its comparator does not permit null keys
+     * @since 1.8
+     */
+    public void putAllSorted(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        bulkMerge(entries, null);
+    }
+
+    /**
+     * Merges the mappings supplied by the given spliterator into this
+     * map.  For each key that this map does not already map to a
+     * non-null value, the supplied value is stored; otherwise the
+     * stored value becomes the result of the remapping function applied
+     * to the old and supplied values, or the mapping is removed if that
+     * result is {@code null}, as for {@link #merge} but in bulk.  To
+     * merge two sorted maps with the same ordering, pass the other
+     * map's {@code entrySet().spliterator()}.
+     *
+     * <p>The spliterator must supply its mappings in strictly ascending
+     * key order according to this map's ordering, and the merge takes
+     * time linear in the sizes of both, as described for
+     * {@link #putAllSorted}.
+     *
+     * @param  entries supplies the mappings, in ascending key order
+     * @param  remappingFunction the function to recompute a value if
+     *         the key is already present
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *         ascending order; this map is then left unchanged
+     * @throws ClassCastException if a key cannot be compared with the
+     *         keys currently in the map
+     * @throws NullPointerException if the spliterator or the remapping
+     *         function is null, or a supplied value is null, or a
+     *         supplied key is null and this map uses natural ordering,
+     *         or its comparator does not permit null keys
+     * @since 1.8
+     */
+    public void mergeAllSorted(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+                               BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        bulkMerge(entries, remappingFunction);
+    }
+
+    /**
+     * Implementation for putAllSorted and mergeAllSorted.  The supplied
+     * mappings are first copied into an array of alternating keys and
+     * values, checking their order, so that a bad spliterator leaves
+     * the map unchanged.  A null remapping function means replace.
+     */
+    @SuppressWarnings("unchecked")
+    private void bulkMerge(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+                           BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Object[] kvs = drainSorted(entries, remappingFunction != null);
+        int m = kvs.length >>> 1;
+        if (m == 0)
+            return;
+        int n = size;
+        if (n == 0) {
+            ++modCount;
+            this.size = m;
+            root = buildFromArray(0, 0, m - 1, computeRedLevel(m), kvs);
+            return;
+        }
+        // Inserting one at a time costs about m*lg(n) comparisons and
+        // rotations; rebuilding costs n+m allocations.
+        if ((long) m * (32 - Integer.numberOfLeadingZeros(n)) < n) {
+            for (int i = 0; i < kvs.length; i += 2) {
+                K key = (K) kvs[i];
+                V value = (V) kvs[i + 1];
+                Entry<K,V> p;
+                V old;
+                if (remappingFunction == null || (p = getEntry(key)) == null ||
+                    (old = p.value) == null)
+                    put(key, value);
+                else {
+                    V v = remappingFunction.apply(old, value);
+                    if (v == null)
+                        deleteEntry(p);
+                    else
+                        p.value = v;
+                }
+            }
+            return;
+        }
+        Object[] merged = new Object[(n + m) << 1];
+        int j = 0, i = 0;
+        Entry<K,V> e = getFirstEntry();
+        while (e != null || i < kvs.length) {
+            int c = (e == null) ? 1 : (i == kvs.length) ? -1 :
+                compare(e.key, kvs[i]);
+            Object k, v;
+            if (c < 0) {
+                k = e.key;
+                v = e.value;
+                e = successor(e);
+            } else {
+                k = kvs[i];
+                v = kvs[i + 1];
+                i += 2;
+                if (c == 0) {
+                    V old = e.value;
+                    e = successor(e);
+                    if (remappingFunction != null && old != null &&
+                        (v = remappingFunction.apply(old, (V) v)) == null)
+                        continue; // mapping removed
+                }
+            }
+            merged[j++] = k;
+            merged[j++] = v;
+        }
+        ++modCount;
+        int size = j >>> 1;
+        this.size = size;
+        root = buildFromArray(0, 0, size - 1, computeRedLevel(size), merged);
+    }
+
+    /**
+     * Copies the mappings of a spliterator into a new array of
+     * alternating keys and values, checking that the keys are in
+     * strictly ascending order.  The first key is compared with itself,
+     * as in {@link #put}, for type (and possibly null) checking.
+     */
+    private Object[] drainSorted(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+                                 boolean valuesNonNull) {
+        long exact = entries.getExactSizeIfKnown();
+        Object[] kvs = new Object[(exact >= 0 && exact < MAX_ARRAY_SIZE >>> 1) ?
+                                  (int) exact << 1 : 32];
+        int i = 0;
+        for (Iterator<? extends Map.Entry<? extends K, ? extends V>> it =
+                 Spliterators.iterator(entries); it.hasNext(); ) {
+            Map.Entry<? extends K, ? extends V> entry = it.next();
+            K key = entry.getKey();
+            V value = entry.getValue();
+            if (valuesNonNull && value == null)
+                throw new NullPointerException();
+            if (i == 0)
+                compare(key, key); // type (and possibly null) check
+            else if (compare(kvs[i - 2], key) >= 0)
+                throw new IllegalArgumentException("key out of order: " + key);
+            if (i == kvs.length) {
+                if (i == MAX_ARRAY_SIZE)
+                    throw new OutOfMemoryError("Required array size too large");
+                kvs = Arrays.copyOf(kvs, (int) Math.min(MAX_ARRAY_SIZE, (long) i << 1));
+            }
+            kvs[i] = key;
+            kvs[i + 1] = value;
+            i += 2;
+        }
+        return (i == kvs.length) ? kvs : Arrays.copyOf(kvs, i);
+    }
+
+    /**
+     * The maximum size of array to allocate, rounded down to hold whole
+     * key-value pairs.
+     * Some VMs reserve some header words in an array.
+     * Attempts to allocate larger arrays may result in
+     * OutOfMemoryError: Requested array size exceeds VM limit
+     */
+    private static final int MAX_ARRAY_SIZE = (Integer.MAX_VALUE - 8) & ~1;
+
     /**
      * Returns this map's entry for the given key, or {@code null} if the map
      * does not contain an entry for the key.
@@ -2589,6 +2768,45 @@ public class TreeMap<K,V>
         return middle;
     }
 
+    /**
+     * Linear time tree building from an array of alternating keys and
+     * values, in sorted order.  Mirrors the iterator-based
+     * buildFromSorted, but with random access the subtrees need not be
+     * built in order.
+     *
+     * @param level the current level of tree. Initial call should be 0.
+     * @param lo the first element index of this subtree. Initial should be 0.
+     * @param hi the last element index of this subtree.  Initial should be
+     *        size-1.
+     * @param redLevel the level at which nodes should be red.
+     *        Must be equal to computeRedLevel for tree of this size.
+     * @param kvs the keys and values, interleaved
+     */
+    @SuppressWarnings("unchecked")
+    private static <K,V> Entry<K,V> buildFromArray(int level, int lo, int hi,
+                                                   int redLevel, Object[] kvs) {
+        if (hi < lo) return null;
+
+        int mid = (lo + hi) >>> 1;
+        Entry<K,V> middle = new Entry<>((K) kvs[mid << 1], (V) kvs[(mid << 1) + 1], null);
+
+        // color nodes in non-full bottommost level red
+        if (level == redLevel)
+            middle.color = RED;
+
+        if (lo < mid) {
+            Entry<K,V> left = buildFromArray(level+1, lo, mid - 1, redLevel, kvs);
+            middle.left = left;
+            left.parent = middle;
+        }
+        if (mid < hi) {
+            Entry<K,V> right = buildFromArray(level+1, mid+1, hi, redLevel, kvs);
+            middle.right = right;
+            right.parent = middle;
+        }
+        return middle;
+    }
+
     /**
      * Find the level down to which to assign all nodes BLACK.  This is the
      * last `full' level of the complete binary tree produced by
@@ -0,0 +1,259 @@
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * Skeletal implementation of the bounded lock-free array queues.  The
+ * elements are held in a circular array whose length is a power of
+ * two, indexed by the free-running {@code head} (next element to take)
+ * and {@code tail} (next element to put) counters.  Subclasses define
+ * how producers and consumers claim slots; this class provides the
+ * blocking methods on top of the non-blocking {@code offer} and {@code
+ * poll}, waiting according to a {@link WaitStrategy}.
+ *
+ * <p>The head and tail counters are padded via @sun.misc.Contended,
+ * so that consumers updating one do not invalidate the cache line of
+ * producers reading or updating the other.
+ *
+ * @param <E> the type of elements held in this queue
+ */
+abstract class AbstractArrayQueue<E> extends AbstractQueue<E>
+        implements BlockingQueue<E> {
+
+    /** The largest capacity; the array length must stay an int */
+    static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /** The elements, of a power of two length */
+    final Object[] buffer;
+
+    /** buffer.length - 1 */
+    final int mask;
+
+    /** How threads wait in the blocking methods */
+    final WaitStrategy waitStrategy;
+
+    /** Index of the next element to take */
+    @sun.misc.Contended("head") volatile long head;
+
+    /** Index of the next element to put */
+    @sun.misc.Contended("tail") volatile long tail;
+
+    AbstractArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        if (capacity <= 0 || capacity > MAXIMUM_CAPACITY)
+            throw new IllegalArgumentException();
+        if (waitStrategy == null)
+            throw new NullPointerException();
+        int n = (capacity == 1) ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        this.buffer = new Object[n];
+        this.mask = n - 1;
+        this.waitStrategy = waitStrategy;
+    }
+
+    /**
+     * Returns the address of the slot of the given index.
+     */
+    final long slotOffset(long index) {
+        return ((index & mask) << ASHIFT) + ABASE;
+    }
+
+    /**
+     * Takes up to {@code limit} elements that are available now, passing
+     * each to the given consumer in order, without waiting.  If the
+     * consumer throws an exception, the elements taken before, and the
+     * one passed to it, are removed from this queue.
+     *
+     * @param c the consumer of the elements
+     * @param limit the maximum number of elements to take
+     * @return the number of elements taken
+     * @throws NullPointerException if the consumer is null
+     */
+    public abstract int drain(Consumer<? super E> c, int limit);
+
+    /**
+     * Puts up to {@code limit} elements obtained from the given supplier,
+     * as many as there is room for now.  The supplier is called only
+     * while there is room for its element, and each element is obtained
+     * before its slot is claimed, so that a null element or an exception
+     * from the supplier never leaves a claimed slot empty.  If the
+     * supplier returns null or throws an exception, the elements obtained
+     * before are put, and the exception is thrown.  In the queues with
+     * several producers, another producer may take the room after an
+     * element is obtained, in which case the element is put once there
+     * is room again, waiting according to the wait strategy.
+     *
+     * @param s the supplier of the elements
+     * @param limit the maximum number of elements to put
+     * @return the number of elements put
+     * @throws NullPointerException if the supplier is null, or returns
+     *         null
+     */
+    public abstract int fill(Supplier<? extends E> s, int limit);
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * according to the wait strategy for room to become available.
+     *
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void put(E e) throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        for (int count = 0; !offer(e); ++count) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            waitStrategy.idle(count);
+        }
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue, waiting
+     * up to the specified wait time for room to become available.
+     *
+     * @return {@code true} if successful, or {@code false} if
+     *         the specified waiting time elapses before space is available
+     * @throws InterruptedException {@inheritDoc}
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public boolean offer(E e, long timeout, TimeUnit unit)
+        throws InterruptedException {
+        if (e == null) throw new NullPointerException();
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int count = 0; !offer(e); ++count) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (deadline - System.nanoTime() <= 0L)
+                return false;
+            waitStrategy.idle(count);
+        }
+        return true;
+    }
+
+    public E take() throws InterruptedException {
+        E e;
+        for (int count = 0; (e = poll()) == null; ++count) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            waitStrategy.idle(count);
+        }
+        return e;
+    }
+
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e;
+        final long deadline = System.nanoTime() + unit.toNanos(timeout);
+        for (int count = 0; (e = poll()) == null; ++count) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            if (deadline - System.nanoTime() <= 0L)
+                return null;
+            waitStrategy.idle(count);
+        }
+        return e;
+    }
+
+    /**
+     * Returns the capacity of this queue, which is the requested
+     * capacity rounded up to a power of two.
+     *
+     * @return the capacity of this queue
+     */
+    public int capacity() {
+        return buffer.length;
+    }
+
+    /**
+     * Returns the number of elements in this queue, as seen by a
+     * consistent read of the head and tail counters.
+     *
+     * @return the number of elements in this queue
+     */
+    public int size() {
+        for (;;) {
+            long before = head;
+            long t = tail;
+            long after = head;
+            if (before == after) {
+                long n = t - after;
+                return (n <= 0L) ? 0 : (n >= buffer.length) ? buffer.length : (int)n;
+            }
+        }
+    }
+
+    public boolean isEmpty() {
+        long h = head;
+        return tail - h <= 0L;
+    }
+
+    public int remainingCapacity() {
+        return buffer.length - size();
+    }
+
+    public int drainTo(Collection<? super E> c) {
+        return drainTo(c, Integer.MAX_VALUE);
+    }
+
+    public int drainTo(Collection<? super E> c, int maxElements) {
+        if (c == null)
+            throw new NullPointerException();
+        if (c == this)
+            throw new IllegalArgumentException();
+        int n = 0;
+        for (E e; n < maxElements && (e = poll()) != null; ++n)
+            c.add(e);
+        return n;
+    }
+
+    /**
+     * Returns an iterator over a snapshot of the elements in this queue,
+     * in proper sequence, for monitoring purposes.  Elements taken or
+     * put while the snapshot is made may or may not be included.  The
+     * iterator does not support {@code remove}.
+     *
+     * @return an iterator over the elements in this queue
+     */
+    @SuppressWarnings("unchecked")
+    public Iterator<E> iterator() {
+        ArrayList<E> list = new ArrayList<E>();
+        final Object[] buffer = this.buffer;
+        long h = head, t = tail;
+        for (long i = h; i - t < 0L && i - h < buffer.length; ++i) {
+            Object e = U.getObjectVolatile(buffer, slotOffset(i));
+            if (e != null)
+                list.add((E)e);
+        }
+        final Iterator<E> it = list.iterator();
+        return new Iterator<E>() {
+            public boolean hasNext() { return it.hasNext(); }
+            public E next() { return it.next(); }
+        };
+    }
+
+    // Unsafe mechanics
+    static final sun.misc.Unsafe U;
+    static final long HEAD;
+    static final long TAIL;
+    static final long ABASE;
+    static final int ASHIFT;
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = AbstractArrayQueue.class;
+            HEAD = U.objectFieldOffset
+                (k.getDeclaredField("head"));
+            TAIL = U.objectFieldOffset
+                (k.getDeclaredField("tail"));
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
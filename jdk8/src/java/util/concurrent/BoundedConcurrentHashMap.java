@@ -0,0 +1,1131 @@
+package java.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.ToIntBiFunction;
+
+/**
+ * A concurrent map that bounds its size or weight, and optionally the
+ * age of its entries, by evicting entries as a cache would.  Mappings
+ * live in a {@link ConcurrentHashMap}, so lookups and updates are as
+ * concurrent as there; the eviction policy is maintained separately,
+ * under a single lock that no lookup ever waits for.
+ *
+ * <p>Instead of reordering a shared list on every access, as an
+ * access-ordered {@link java.util.LinkedHashMap} does, a read records
+ * the entry it found in one of several small ring buffers, picked by
+ * the thread's probe much as {@link LongAdder} picks a cell.  A full
+ * buffer drops further records until it is drained, so reads never
+ * block.  Writes are queued without loss.  Whichever thread finds work
+ * pending and the policy lock free then replays the buffered events
+ * against the policy in a batch.
+ *
+ * <p>The policy is Window TinyLFU: new entries enter a small LRU
+ * window (1% of the maximum) and, when they fall out of it, must have
+ * been used more often than the least recently used entry of the main
+ * space to displace it.  Use frequencies are estimated by a count-min
+ * sketch of four-bit counters that is periodically halved, so the
+ * history adapts to changing workloads.  The main space is a segmented
+ * LRU whose protected segment holds 80% of it.
+ *
+ * <p>Entries can also expire a fixed time after they were written or
+ * last read.  Expired entries are invisible to lookups at once, and are
+ * removed during the next maintenance batch.  Because of this and
+ * because maintenance is batched, {@link #size} may briefly exceed the
+ * bound or count expired entries.
+ *
+ * <p>Instances are created through a {@link Builder}:
+ * <pre> {@code
+ * BoundedConcurrentHashMap<Long, Account> accounts =
+ *     BoundedConcurrentHashMap.<Long, Account>builder()
+ *         .maximumSize(100_000)
+ *         .expireAfterWrite(10, TimeUnit.MINUTES)
+ *         .build();}</pre>
+ *
+ * <p>Like {@code ConcurrentHashMap}, this class does not allow
+ * {@code null} to be used as a key or value.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see ConcurrentHashMap
+ * @since 1.8
+ */
+public class BoundedConcurrentHashMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V> {
+
+    /**
+     * Builds {@code BoundedConcurrentHashMap} instances.  At least one
+     * of a maximum size, a maximum weight or an expiration must be set.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     */
+    public static final class Builder<K,V> {
+        int initialCapacity = 16;
+        long maximum = UNBOUNDED;
+        ToIntBiFunction<? super K, ? super V> weigher;
+        long expireAfterWriteNanos = UNBOUNDED;
+        long expireAfterAccessNanos = UNBOUNDED;
+
+        Builder() {}
+
+        /**
+         * Sets the initial capacity of the underlying hash table.
+         *
+         * @param initialCapacity the expected number of mappings
+         * @return this builder
+         * @throws IllegalArgumentException if initialCapacity is negative
+         */
+        public Builder<K,V> initialCapacity(int initialCapacity) {
+            if (initialCapacity < 0)
+                throw new IllegalArgumentException();
+            this.initialCapacity = initialCapacity;
+            return this;
+        }
+
+        /**
+         * Bounds the number of entries.
+         *
+         * @param maximumSize the largest number of entries to retain
+         * @return this builder
+         * @throws IllegalArgumentException if maximumSize is negative
+         * @throws IllegalStateException if a bound has already been set
+         */
+        public Builder<K,V> maximumSize(long maximumSize) {
+            return maximumWeight(maximumSize, (k, v) -> 1);
+        }
+
+        /**
+         * Bounds the total weight of the entries, as computed by the
+         * given weigher when an entry is written.
+         *
+         * @param maximumWeight the largest total weight to retain
+         * @param weigher computes a non-negative weight for a mapping
+         * @return this builder
+         * @throws IllegalArgumentException if maximumWeight is negative
+         * @throws IllegalStateException if a bound has already been set
+         * @throws NullPointerException if weigher is null
+         */
+        public Builder<K,V> maximumWeight(long maximumWeight,
+                                          ToIntBiFunction<? super K, ? super V> weigher) {
+            if (weigher == null)
+                throw new NullPointerException();
+            if (maximumWeight < 0L)
+                throw new IllegalArgumentException();
+            if (this.weigher != null)
+                throw new IllegalStateException("bound already set");
+            this.maximum = maximumWeight;
+            this.weigher = weigher;
+            return this;
+        }
+
+        /**
+         * Expires each entry the given time after it was last written.
+         *
+         * @param duration the time to retain an entry after writing it
+         * @param unit the unit of duration
+         * @return this builder
+         * @throws IllegalArgumentException if duration is negative
+         */
+        public Builder<K,V> expireAfterWrite(long duration, TimeUnit unit) {
+            if (duration < 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterWriteNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Expires each entry the given time after it was last read or
+         * written.
+         *
+         * @param duration the time to retain an entry after using it
+         * @param unit the unit of duration
+         * @return this builder
+         * @throws IllegalArgumentException if duration is negative
+         */
+        public Builder<K,V> expireAfterAccess(long duration, TimeUnit unit) {
+            if (duration < 0L)
+                throw new IllegalArgumentException();
+            this.expireAfterAccessNanos = unit.toNanos(duration);
+            return this;
+        }
+
+        /**
+         * Returns a new, empty map with this builder's settings.
+         *
+         * @return a new map
+         * @throws IllegalStateException if no bound or expiration is set
+         */
+        public BoundedConcurrentHashMap<K,V> build() {
+            if (weigher == null && expireAfterWriteNanos == UNBOUNDED &&
+                expireAfterAccessNanos == UNBOUNDED)
+                throw new IllegalStateException("unbounded; use ConcurrentHashMap");
+            return new BoundedConcurrentHashMap<K,V>(this);
+        }
+    }
+
+    /**
+     * Returns a new builder.
+     *
+     * @param <K> the type of keys
+     * @param <V> the type of values
+     * @return a new builder
+     */
+    public static <K,V> Builder<K,V> builder() {
+        return new Builder<K,V>();
+    }
+
+    /* ---------------- Constants -------------- */
+
+    /** Marks an absent bound or expiration. */
+    static final long UNBOUNDED = Long.MAX_VALUE;
+
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** The number of read buffer stripes; a power of two. */
+    static final int READ_BUFFER_STRIPES = ReadBuffer.ceilingPowerOfTwo(NCPU);
+
+    /** Drain status values. */
+    static final int IDLE = 0, REQUIRED = 1, PROCESSING = 2;
+
+    /** Node states; see {@link Node#state}. */
+    static final int ALIVE = 0, RETIRED = 1, DEAD = 2;
+
+    /** Queues of the policy. */
+    static final byte WINDOW = 0, PROBATION = 1, PROTECTED = 2;
+
+    /* ---------------- Nodes -------------- */
+
+    /**
+     * The value held in the hash table for each key.  Value, weight and
+     * times are written under the node's monitor; the policy fields are
+     * only touched under the eviction lock.
+     */
+    static final class Node<K,V> {
+        final K key;
+        volatile V value;
+        volatile int weight;
+        volatile long writeTime;
+        volatile long accessTime;
+        /**
+         * ALIVE while in the table; RETIRED once removed from the table
+         * (under the monitor) but possibly still linked in the policy;
+         * DEAD once the policy has let go of it too.
+         */
+        volatile int state;
+
+        // policy state, guarded by evictionLock
+        boolean inPolicy;
+        byte queueType;
+        int policyWeight;
+        Node<K,V> accessPrev, accessNext;
+        Node<K,V> writePrev, writeNext;
+
+        Node(K key, V value, int weight, long now) {
+            this.key = key;
+            this.value = value;
+            this.weight = weight;
+            this.writeTime = now;
+            this.accessTime = now;
+        }
+    }
+
+    /**
+     * An intrusive doubly-linked list of nodes, in access or write
+     * order, whose links live in the nodes themselves.
+     */
+    abstract static class LinkedDeque<K,V> {
+        Node<K,V> first, last;
+
+        abstract Node<K,V> prev(Node<K,V> n);
+        abstract Node<K,V> next(Node<K,V> n);
+        abstract void setPrev(Node<K,V> n, Node<K,V> p);
+        abstract void setNext(Node<K,V> n, Node<K,V> p);
+
+        final Node<K,V> peekFirst() { return first; }
+
+        final boolean contains(Node<K,V> n) {
+            return prev(n) != null || next(n) != null || first == n;
+        }
+
+        final void linkLast(Node<K,V> n) {
+            Node<K,V> l = last;
+            last = n;
+            if (l == null)
+                first = n;
+            else {
+                setNext(l, n);
+                setPrev(n, l);
+            }
+        }
+
+        final void unlink(Node<K,V> n) {
+            Node<K,V> p = prev(n), q = next(n);
+            if (p == null)
+                first = q;
+            else {
+                setNext(p, q);
+                setPrev(n, null);
+            }
+            if (q == null)
+                last = p;
+            else {
+                setPrev(q, p);
+                setNext(n, null);
+            }
+        }
+
+        final void moveToBack(Node<K,V> n) {
+            if (n != last) {
+                unlink(n);
+                linkLast(n);
+            }
+        }
+
+        final void clear() {
+            for (Node<K,V> n = first, q; n != null; n = q) {
+                q = next(n);
+                setPrev(n, null);
+                setNext(n, null);
+            }
+            first = last = null;
+        }
+    }
+
+    static final class AccessOrderDeque<K,V> extends LinkedDeque<K,V> {
+        Node<K,V> prev(Node<K,V> n)                { return n.accessPrev; }
+        Node<K,V> next(Node<K,V> n)                { return n.accessNext; }
+        void setPrev(Node<K,V> n, Node<K,V> p)     { n.accessPrev = p; }
+        void setNext(Node<K,V> n, Node<K,V> p)     { n.accessNext = p; }
+    }
+
+    static final class WriteOrderDeque<K,V> extends LinkedDeque<K,V> {
+        Node<K,V> prev(Node<K,V> n)                { return n.writePrev; }
+        Node<K,V> next(Node<K,V> n)                { return n.writeNext; }
+        void setPrev(Node<K,V> n, Node<K,V> p)     { n.writePrev = p; }
+        void setNext(Node<K,V> n, Node<K,V> p)     { n.writeNext = p; }
+    }
+
+    /**
+     * A bounded, lossy, multiple-producer single-consumer ring of nodes
+     * that were read.  Producers claim a slot by CAS on the tail and
+     * give up rather than wait when the ring is full or contended; the
+     * consumer runs under the eviction lock.  Padded, like
+     * ConcurrentHashMap's CounterCell, to keep stripes apart.
+     */
+    @sun.misc.Contended static final class ReadBuffer<K,V> {
+        static final int SIZE = 16, MASK = SIZE - 1;
+        static final int SUCCESS = 0, FAILED = 1, FULL = 2;
+
+        final AtomicReferenceArray<Node<K,V>> ring =
+            new AtomicReferenceArray<Node<K,V>>(SIZE);
+        final AtomicLong tail = new AtomicLong();
+        volatile long head;
+
+        static int ceilingPowerOfTwo(int n) {
+            return (n <= 1) ? 1 : Integer.highestOneBit(n - 1) << 1;
+        }
+
+        int offer(Node<K,V> n) {
+            long h = head, t = tail.get();
+            if (t - h >= SIZE)
+                return FULL;
+            if (!tail.compareAndSet(t, t + 1))
+                return FAILED;
+            ring.lazySet((int) t & MASK, n);
+            return SUCCESS;
+        }
+
+        void drainTo(BoundedConcurrentHashMap<K,V> map) {
+            long h = head, t = tail.get();
+            for (; h != t; ++h) {
+                int i = (int) h & MASK;
+                Node<K,V> n = ring.get(i);
+                if (n == null)
+                    break; // slot claimed but not yet filled
+                ring.lazySet(i, null);
+                map.onAccess(n);
+            }
+            head = h;
+        }
+    }
+
+    /**
+     * A count-min sketch of four-bit counters, four per key, packed
+     * sixteen to a long.  After ten increments per table slot every
+     * counter is halved, so frequencies decay.  Guarded by the
+     * eviction lock.
+     */
+    static final class FrequencySketch {
+        static final long[] SEED = {
+            0xc3a5c85c97cb3127L, 0xb492b66fbe98f273L,
+            0x9ae16a3b2f90404fL, 0xcbf29ce484222325L };
+        static final long RESET_MASK = 0x7777777777777777L;
+        static final long ONE_MASK = 0x1111111111111111L;
+
+        final long[] table;
+        final int tableMask;
+        final int sampleSize;
+        int size;
+
+        FrequencySketch(long maximum) {
+            int max = (int) Math.min(Math.max(maximum, 16L), 1L << 24);
+            table = new long[ReadBuffer.ceilingPowerOfTwo(max)];
+            tableMask = table.length - 1;
+            sampleSize = 10 * max;
+        }
+
+        static int rehash(int x) {
+            x *= 0x31848bab;
+            x ^= x >>> 14;
+            return x;
+        }
+
+        int indexOf(int item, int i) {
+            long hash = (item + SEED[i]) * SEED[i];
+            hash += hash >>> 32;
+            return ((int) hash) & tableMask;
+        }
+
+        int frequency(Object e) {
+            int hash = rehash(e.hashCode());
+            int start = (hash & 3) << 2;
+            int frequency = 15;
+            for (int i = 0; i < 4; ++i) {
+                int index = indexOf(hash, i);
+                int count = (int) ((table[index] >>> ((start + i) << 2)) & 0xfL);
+                frequency = Math.min(frequency, count);
+            }
+            return frequency;
+        }
+
+        void increment(Object e) {
+            int hash = rehash(e.hashCode());
+            int start = (hash & 3) << 2;
+            boolean added = false;
+            for (int i = 0; i < 4; ++i) {
+                int index = indexOf(hash, i);
+                int offset = (start + i) << 2;
+                long mask = 0xfL << offset;
+                if ((table[index] & mask) != mask) {
+                    table[index] += 1L << offset;
+                    added = true;
+                }
+            }
+            if (added && ++size == sampleSize)
+                reset();
+        }
+
+        void reset() {
+            int count = 0;
+            for (int i = 0; i < table.length; ++i) {
+                count += Long.bitCount(table[i] & ONE_MASK);
+                table[i] = (table[i] >>> 1) & RESET_MASK;
+            }
+            size = (size >>> 1) - (count >>> 2);
+        }
+    }
+
+    /* ---------------- Fields -------------- */
+
+    final ConcurrentHashMap<K,Node<K,V>> data;
+    final ToIntBiFunction<? super K, ? super V> weigher;
+    final long maximum;
+    final long windowMaximum;
+    final long protectedMaximum;
+    final long expireAfterWriteNanos;
+    final long expireAfterAccessNanos;
+
+    final ReadBuffer<K,V>[] readBuffers;
+    final ConcurrentLinkedQueue<Runnable> writeBuffer =
+        new ConcurrentLinkedQueue<Runnable>();
+    final AtomicInteger drainStatus = new AtomicInteger(IDLE);
+    final ReentrantLock evictionLock = new ReentrantLock();
+
+    // policy, guarded by evictionLock
+    final AccessOrderDeque<K,V> window = new AccessOrderDeque<K,V>();
+    final AccessOrderDeque<K,V> probation = new AccessOrderDeque<K,V>();
+    final AccessOrderDeque<K,V> protectedQueue = new AccessOrderDeque<K,V>();
+    final WriteOrderDeque<K,V> writeOrder = new WriteOrderDeque<K,V>();
+    final FrequencySketch sketch;
+    volatile long weightedSize;
+    long windowWeightedSize;
+    long protectedWeightedSize;
+
+    final LongAdder hitCount = new LongAdder();
+    final LongAdder missCount = new LongAdder();
+    final LongAdder evictionCount = new LongAdder();
+
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    @SuppressWarnings("unchecked")
+    BoundedConcurrentHashMap(Builder<K,V> builder) {
+        this.data = new ConcurrentHashMap<K,Node<K,V>>(builder.initialCapacity);
+        this.weigher = (builder.weigher != null) ? builder.weigher : (k, v) -> 1;
+        this.maximum = builder.maximum;
+        this.windowMaximum = (maximum == UNBOUNDED) ? UNBOUNDED : maximum / 100;
+        this.protectedMaximum = (maximum == UNBOUNDED) ? UNBOUNDED :
+            (maximum - windowMaximum) / 5 * 4;
+        this.expireAfterWriteNanos = builder.expireAfterWriteNanos;
+        this.expireAfterAccessNanos = builder.expireAfterAccessNanos;
+        this.sketch = new FrequencySketch(evicts() ? maximum : 16L);
+        ReadBuffer<K,V>[] rbs = (ReadBuffer<K,V>[]) new ReadBuffer<?,?>[READ_BUFFER_STRIPES];
+        for (int i = 0; i < rbs.length; ++i)
+            rbs[i] = new ReadBuffer<K,V>();
+        this.readBuffers = rbs;
+    }
+
+    final boolean evicts()              { return maximum != UNBOUNDED; }
+    final boolean expiresAfterWrite()   { return expireAfterWriteNanos != UNBOUNDED; }
+    final boolean expiresAfterAccess()  { return expireAfterAccessNanos != UNBOUNDED; }
+    final boolean expires()             { return expiresAfterWrite() || expiresAfterAccess(); }
+
+    final long now() {
+        return expires() ? System.nanoTime() : 0L;
+    }
+
+    final boolean hasExpired(Node<K,V> n, long now) {
+        return (expiresAfterWrite() && now - n.writeTime >= expireAfterWriteNanos) ||
+            (expiresAfterAccess() && now - n.accessTime >= expireAfterAccessNanos);
+    }
+
+    final int weigh(K key, V value) {
+        int w = weigher.applyAsInt(key, value);
+        if (w < 0)
+            throw new IllegalArgumentException("negative weight");
+        return w;
+    }
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>This counts entries that have expired but not yet been removed.
+     */
+    public int size() {
+        return data.size();
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty() {
+        return data.isEmpty();
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped, or
+     * {@code null} if this map contains no unexpired mapping for the key.
+     * The read is recorded as a hit or a miss, and a hit is buffered for
+     * the eviction policy.
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public V get(Object key) {
+        Node<K,V> node = data.get(key);
+        if (node == null) {
+            missCount.increment();
+            return null;
+        }
+        long now = now();
+        if (hasExpired(node, now)) {
+            missCount.increment();
+            scheduleDrain();
+            return null;
+        }
+        if (expiresAfterAccess())
+            node.accessTime = now;
+        V v = node.value;
+        afterRead(node);
+        hitCount.increment();
+        return v;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * <p>Unlike {@link #get}, this does not count as a use of the entry.
+     */
+    public boolean containsKey(Object key) {
+        Node<K,V> node = data.get(key);
+        return node != null && !hasExpired(node, now());
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public V remove(Object key) {
+        Node<K,V> node = data.remove(key);
+        if (node == null)
+            return null;
+        V oldValue;
+        boolean expired;
+        synchronized (node) {
+            oldValue = node.value;
+            expired = hasExpired(node, now());
+            node.state = RETIRED;
+        }
+        afterWrite(() -> onRemove(node));
+        return expired ? null : oldValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean remove(Object key, Object value) {
+        Node<K,V> node = data.get(key);
+        if (node == null || value == null)
+            return false;
+        synchronized (node) {
+            if (node.state != ALIVE || hasExpired(node, now()) ||
+                !value.equals(node.value) || !data.remove(key, node))
+                return false;
+            node.state = RETIRED;
+        }
+        afterWrite(() -> onRemove(node));
+        return true;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        Node<K,V> node = data.get(key);
+        if (node == null)
+            return null;
+        int weight = weigh(key, value);
+        long now = now();
+        V oldValue;
+        synchronized (node) {
+            if (node.state != ALIVE || hasExpired(node, now))
+                return null;
+            oldValue = node.value;
+            update(node, value, weight, now);
+        }
+        afterWrite(() -> onUpdate(node));
+        return oldValue;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        Node<K,V> node = data.get(key);
+        if (node == null)
+            return false;
+        int weight = weigh(key, newValue);
+        long now = now();
+        synchronized (node) {
+            if (node.state != ALIVE || hasExpired(node, now) ||
+                !oldValue.equals(node.value))
+                return false;
+            update(node, newValue, weight, now);
+        }
+        afterWrite(() -> onUpdate(node));
+        return true;
+    }
+
+    /**
+     * Removes all of the mappings from this map.
+     */
+    public void clear() {
+        evictionLock.lock();
+        try {
+            maintenance();
+            for (Node<K,V> node : data.values()) {
+                if (retire(node))
+                    data.remove(node.key, node);
+                unlinkFromPolicy(node);
+            }
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns a {@link Set} view of the unexpired mappings contained in
+     * this map.  Its iterators are weakly consistent, like those of
+     * {@link ConcurrentHashMap}, and iterating does not count as using
+     * the entries.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySetView());
+    }
+
+    /**
+     * Performs any pending maintenance: replays buffered reads and
+     * writes against the eviction policy, removes expired entries and
+     * evicts down to the bound.
+     */
+    public void cleanUp() {
+        evictionLock.lock();
+        try {
+            maintenance();
+        } finally {
+            evictionLock.unlock();
+        }
+    }
+
+    /**
+     * Returns the total weight of the entries known to the eviction
+     * policy, or their number if no weigher was given.
+     *
+     * @return the weighted size
+     */
+    public long weightedSize() {
+        return weightedSize;
+    }
+
+    /**
+     * Returns the number of lookups that found an unexpired value.
+     *
+     * @return the hit count
+     */
+    public long hitCount() {
+        return hitCount.sum();
+    }
+
+    /**
+     * Returns the number of lookups that found no value or an expired
+     * one.
+     *
+     * @return the miss count
+     */
+    public long missCount() {
+        return missCount.sum();
+    }
+
+    /**
+     * Returns the number of entries removed by the policy, whether to
+     * respect the bound or because they expired.
+     *
+     * @return the eviction count
+     */
+    public long evictionCount() {
+        return evictionCount.sum();
+    }
+
+    /* ---------------- Implementations -------------- */
+
+    /** Implementation for put and putIfAbsent */
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        int weight = weigh(key, value);
+        long now = now();
+        Node<K,V> node = null;
+        for (;;) {
+            Node<K,V> prior = data.get(key);
+            if (prior == null) {
+                if (node == null)
+                    node = new Node<K,V>(key, value, weight, now);
+                if ((prior = data.putIfAbsent(key, node)) == null) {
+                    Node<K,V> added = node;
+                    afterWrite(() -> onAdd(added));
+                    return null;
+                }
+            }
+            V oldValue;
+            boolean expired;
+            synchronized (prior) {
+                if (prior.state != ALIVE)
+                    continue; // being removed; retry against the table
+                oldValue = prior.value;
+                expired = hasExpired(prior, now);
+                if (onlyIfAbsent && !expired) {
+                    if (expiresAfterAccess())
+                        prior.accessTime = now;
+                }
+                else
+                    update(prior, value, weight, now);
+            }
+            if (onlyIfAbsent && !expired) {
+                afterRead(prior);
+                return oldValue;
+            }
+            Node<K,V> updated = prior;
+            afterWrite(() -> onUpdate(updated));
+            return expired ? null : oldValue;
+        }
+    }
+
+    /** Sets a node's value; caller holds the node's monitor. */
+    final void update(Node<K,V> node, V value, int weight, long now) {
+        node.value = value;
+        node.weight = weight;
+        node.writeTime = now;
+        node.accessTime = now;
+    }
+
+    /**
+     * Marks a node as removed from the table, unless it already was.
+     * Returns true if this call retired it.
+     */
+    final boolean retire(Node<K,V> node) {
+        synchronized (node) {
+            if (node.state != ALIVE)
+                return false;
+            node.state = RETIRED;
+            return true;
+        }
+    }
+
+    /**
+     * Buffers a read of the node, using the thread's probe to pick a
+     * stripe and moving to another stripe after contention.
+     */
+    final void afterRead(Node<K,V> node) {
+        int h;
+        if ((h = ThreadLocalRandom.getProbe()) == 0) {
+            ThreadLocalRandom.localInit();
+            h = ThreadLocalRandom.getProbe();
+        }
+        ReadBuffer<K,V>[] rbs = readBuffers;
+        int result = rbs[h & (rbs.length - 1)].offer(node);
+        if (result == ReadBuffer.FAILED)
+            ThreadLocalRandom.advanceProbe(h);
+        else if (result == ReadBuffer.FULL)
+            scheduleDrain();
+        else if (drainStatus.get() == REQUIRED)
+            tryToDrain();
+    }
+
+    /**
+     * Queues a policy update and triggers maintenance.
+     */
+    final void afterWrite(Runnable task) {
+        writeBuffer.add(task);
+        scheduleDrain();
+    }
+
+    final void scheduleDrain() {
+        drainStatus.set(REQUIRED);
+        tryToDrain();
+    }
+
+    /**
+     * Runs maintenance if it is required and nobody else is running it.
+     * A thread that finds the lock held leaves the work to the holder,
+     * which rechecks the status after unlocking.
+     */
+    final void tryToDrain() {
+        while (drainStatus.get() == REQUIRED && evictionLock.tryLock()) {
+            try {
+                drainStatus.set(PROCESSING);
+                maintenance();
+            } finally {
+                drainStatus.compareAndSet(PROCESSING, IDLE);
+                evictionLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Replays buffered events and enforces the bounds.  Caller holds
+     * the eviction lock.
+     */
+    final void maintenance() {
+        for (ReadBuffer<K,V> rb : readBuffers)
+            rb.drainTo(this);
+        for (Runnable task; (task = writeBuffer.poll()) != null; )
+            task.run();
+        if (expires())
+            expireEntries();
+        if (evicts())
+            evictEntries();
+    }
+
+    final void onAdd(Node<K,V> node) {
+        if (node.state != ALIVE || node.inPolicy)
+            return;
+        int w = node.weight;
+        node.policyWeight = w;
+        node.inPolicy = true;
+        node.queueType = WINDOW;
+        window.linkLast(node);
+        windowWeightedSize += w;
+        weightedSize += w;
+        if (expiresAfterWrite())
+            writeOrder.linkLast(node);
+        if (evicts())
+            sketch.increment(node.key);
+    }
+
+    final void onUpdate(Node<K,V> node) {
+        if (!node.inPolicy)
+            return;
+        int w = node.weight, delta = w - node.policyWeight;
+        node.policyWeight = w;
+        weightedSize += delta;
+        if (node.queueType == WINDOW)
+            windowWeightedSize += delta;
+        else if (node.queueType == PROTECTED)
+            protectedWeightedSize += delta;
+        if (expiresAfterWrite())
+            writeOrder.moveToBack(node);
+        onAccess(node);
+    }
+
+    final void onRemove(Node<K,V> node) {
+        unlinkFromPolicy(node);
+    }
+
+    /**
+     * Applies a use of the node: LRU reordering within its queue, and
+     * promotion from probation to the protected segment, demoting the
+     * protected segment's LRU entries if it grows too heavy.
+     */
+    final void onAccess(Node<K,V> node) {
+        if (!node.inPolicy)
+            return;
+        if (evicts())
+            sketch.increment(node.key);
+        switch (node.queueType) {
+        case WINDOW:
+            window.moveToBack(node);
+            break;
+        case PROBATION:
+            probation.unlink(node);
+            node.queueType = PROTECTED;
+            protectedQueue.linkLast(node);
+            protectedWeightedSize += node.policyWeight;
+            while (protectedWeightedSize > protectedMaximum) {
+                Node<K,V> demoted = protectedQueue.peekFirst();
+                protectedQueue.unlink(demoted);
+                protectedWeightedSize -= demoted.policyWeight;
+                demoted.queueType = PROBATION;
+                probation.linkLast(demoted);
+            }
+            break;
+        default:
+            protectedQueue.moveToBack(node);
+        }
+    }
+
+    final AccessOrderDeque<K,V> queueOf(Node<K,V> node) {
+        return (node.queueType == WINDOW) ? window :
+            (node.queueType == PROBATION) ? probation : protectedQueue;
+    }
+
+    /**
+     * Takes a node out of every policy structure and marks it dead.
+     */
+    final void unlinkFromPolicy(Node<K,V> node) {
+        if (node.inPolicy) {
+            queueOf(node).unlink(node);
+            int w = node.policyWeight;
+            weightedSize -= w;
+            if (node.queueType == WINDOW)
+                windowWeightedSize -= w;
+            else if (node.queueType == PROTECTED)
+                protectedWeightedSize -= w;
+            if (expiresAfterWrite())
+                writeOrder.unlink(node);
+            node.inPolicy = false;
+        }
+        node.state = DEAD;
+    }
+
+    /**
+     * Removes a node chosen by the policy from the table and the policy.
+     */
+    final void evict(Node<K,V> node) {
+        if (retire(node)) {
+            data.remove(node.key, node);
+            evictionCount.increment();
+        }
+        unlinkFromPolicy(node);
+    }
+
+    final void expireEntries() {
+        long now = System.nanoTime();
+        if (expiresAfterAccess()) {
+            expireAccessOrder(window, now);
+            expireAccessOrder(probation, now);
+            expireAccessOrder(protectedQueue, now);
+        }
+        if (expiresAfterWrite()) {
+            for (Node<K,V> n; (n = writeOrder.peekFirst()) != null &&
+                     now - n.writeTime >= expireAfterWriteNanos; )
+                evict(n);
+        }
+    }
+
+    /**
+     * Evicts expired nodes from the LRU end of a queue.  Reads reach the
+     * policy late and lossily, so queue order only approximates access
+     * order; stragglers are caught by later passes or by lookups.
+     */
+    final void expireAccessOrder(AccessOrderDeque<K,V> queue, long now) {
+        for (Node<K,V> n; (n = queue.peekFirst()) != null &&
+                 now - n.accessTime >= expireAfterAccessNanos; )
+            evict(n);
+    }
+
+    /**
+     * Moves entries that overflowed the window into probation, admitting
+     * each through TinyLFU, then evicts in LRU order whatever still
+     * exceeds the bound.
+     */
+    final void evictEntries() {
+        while (windowWeightedSize > windowMaximum) {
+            Node<K,V> candidate = window.peekFirst();
+            window.unlink(candidate);
+            windowWeightedSize -= candidate.policyWeight;
+            candidate.queueType = PROBATION;
+            probation.linkLast(candidate);
+            admit(candidate);
+        }
+        while (weightedSize > maximum) {
+            Node<K,V> victim;
+            if ((victim = probation.peekFirst()) == null &&
+                (victim = protectedQueue.peekFirst()) == null &&
+                (victim = window.peekFirst()) == null)
+                break;
+            evict(victim);
+        }
+    }
+
+    /**
+     * While over the bound, the candidate and the main space's LRU
+     * victim compete on estimated frequency; the loser is evicted.
+     */
+    final void admit(Node<K,V> candidate) {
+        while (weightedSize > maximum && candidate.inPolicy) {
+            Node<K,V> victim = probation.peekFirst();
+            if (victim == candidate)
+                victim = protectedQueue.peekFirst();
+            if (victim == null ||
+                sketch.frequency(candidate.key) <= sketch.frequency(victim.key))
+                evict(candidate);
+            else
+                evict(victim);
+        }
+    }
+
+    /* ---------------- Views -------------- */
+
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        final Iterator<Node<K,V>> it = data.values().iterator();
+        Node<K,V> next;
+        K lastKey;
+
+        EntryIterator() { advance(); }
+
+        void advance() {
+            long now = now();
+            while (it.hasNext()) {
+                Node<K,V> n = it.next();
+                if (!hasExpired(n, now)) {
+                    next = n;
+                    return;
+                }
+            }
+            next = null;
+        }
+
+        public boolean hasNext() {
+            return next != null;
+        }
+
+        public Map.Entry<K,V> next() {
+            Node<K,V> n;
+            if ((n = next) == null)
+                throw new java.util.NoSuchElementException();
+            lastKey = n.key;
+            Map.Entry<K,V> e = new MapEntry(n.key, n.value);
+            advance();
+            return e;
+        }
+
+        public void remove() {
+            K k;
+            if ((k = lastKey) == null)
+                throw new IllegalStateException();
+            lastKey = null;
+            BoundedConcurrentHashMap.this.remove(k);
+        }
+    }
+
+    /**
+     * Exported Entry for EntryIterator; {@code setValue} writes through
+     * with {@code put}.
+     */
+    final class MapEntry extends AbstractMap.SimpleEntry<K,V> {
+        private static final long serialVersionUID = 1L;
+        MapEntry(K key, V value) { super(key, value); }
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            put(getKey(), value);
+            return super.setValue(value);
+        }
+    }
+
+    final class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() { return new EntryIterator(); }
+        public int size()                           { return BoundedConcurrentHashMap.this.size(); }
+        public void clear()                         { BoundedConcurrentHashMap.this.clear(); }
+
+        public boolean contains(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Node<K,V> n;
+            Object k = e.getKey();
+            return k != null && (n = data.get(k)) != null &&
+                !hasExpired(n, now()) && Objects.equals(n.value, e.getValue());
+        }
+
+        public boolean remove(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?,?> e = (Map.Entry<?,?>) o;
+            Object k = e.getKey();
+            return k != null && BoundedConcurrentHashMap.this.remove(k, e.getValue());
+        }
+    }
+}
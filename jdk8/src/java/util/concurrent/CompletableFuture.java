@@ -39,6 +39,10 @@ import java.util.function.Consumer;
 import java.util.function.BiConsumer;
 import java.util.function.Function;
 import java.util.function.BiFunction;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
 import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.ForkJoinPool;
@@ -998,6 +1002,85 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /** Step kinds of a FusedStage. */
+    static final byte APPLY = 0, ACCEPT = 1, RUN = 2;
+
+    @SuppressWarnings("serial")
+    static final class UniFused<T,V> extends UniCompletion<T,V> {
+        Object[] fns; byte[] kinds; int n;
+        UniFused(Executor executor, CompletableFuture<V> dep,
+                 CompletableFuture<T> src,
+                 Object[] fns, byte[] kinds, int n) {
+            super(executor, dep, src);
+            this.fns = fns; this.kinds = kinds; this.n = n;
+        }
+        final CompletableFuture<V> tryFire(int mode) {
+            CompletableFuture<V> d; CompletableFuture<T> a;
+            if ((d = dep) == null ||
+                !d.uniFused(a = src, fns, kinds, n, mode > 0 ? null : this))
+                return null;
+            dep = null; src = null; fns = null; kinds = null;
+            return d.postFire(a, mode);
+        }
+    }
+
+    /**
+     * Runs the first n steps on the result of a in order, each on the
+     * value of the previous one, as a chain of uniApply, uniAccept and
+     * uniRun calls would, but completing only this.
+     */
+    @SuppressWarnings("unchecked")
+    final <S> boolean uniFused(CompletableFuture<S> a,
+                               Object[] fns, byte[] kinds, int n,
+                               UniFused<S,T> c) {
+        Object r; Throwable x;
+        if (a == null || (r = a.result) == null || fns == null)
+            return false;
+        tryComplete: if (result == null) {
+            if (r instanceof AltResult) {
+                if ((x = ((AltResult)r).ex) != null) {
+                    completeThrowable(x, r);
+                    break tryComplete;
+                }
+                r = null;
+            }
+            try {
+                if (c != null && !c.claim())
+                    return false;
+                for (int i = 0; i < n; ++i) {
+                    Object f = fns[i];
+                    switch (kinds[i]) {
+                    case APPLY:
+                        r = ((Function<Object,Object>)f).apply(r);
+                        break;
+                    case ACCEPT:
+                        ((Consumer<Object>)f).accept(r);
+                        r = null;
+                        break;
+                    default:
+                        ((Runnable)f).run();
+                        r = null;
+                    }
+                }
+                completeValue((T) r);
+            } catch (Throwable ex) {
+                completeThrowable(ex);
+            }
+        }
+        return true;
+    }
+
+    private <V> CompletableFuture<V> uniFusedStage(
+        Object[] fns, byte[] kinds, int n) {
+        CompletableFuture<V> d =  new CompletableFuture<V>();
+        if (!d.uniFused(this, fns, kinds, n, null)) {
+            UniFused<T,V> c = new UniFused<T,V>(null, d, this, fns, kinds, n);
+            push(c);
+            c.tryFire(SYNC);
+        }
+        return d;
+    }
+
     /* ------------- Two-input Completions -------------- */
 
     /** A Completion for an action with two sources */
@@ -1567,6 +1650,144 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return d;
     }
 
+    /* ------------- Counted multiple-input Completions -------------- */
+
+    /**
+     * The shared state of the Arrivals of allOfList, anyOfN and
+     * collect. Instead of a tree of BiRelays and intermediate futures,
+     * each source gets one small Arrival, and all of them count down
+     * a single word: the low half holds the normal completions still
+     * needed, and the high half the exceptional ones still tolerated.
+     * The Arrival that takes the low half to zero gathers the results
+     * by scanning the sources in order; the one that takes the high
+     * half below zero relays its exception.
+     */
+    static final class Gather<T,A,R> {
+        final CompletableFuture<R> dep;
+        final Collector<? super T,A,R> collector;
+        final int needed;                 // normal results to gather
+        CompletableFuture<?>[] srcs;      // nulled out when done
+        volatile long count;              // spare << 32 | needed left
+
+        Gather(CompletableFuture<R> dep, CompletableFuture<?>[] srcs,
+               int needed, Collector<? super T,A,R> collector) {
+            this.dep = dep; this.srcs = srcs; this.needed = needed;
+            this.collector = collector;
+            this.count = ((long)(srcs.length - needed) << 32) | needed;
+        }
+
+        /**
+         * Counts the (non-null) result r of a source, returning true
+         * if it completed dep.
+         */
+        final boolean arrive(Object r) {
+            Throwable x;
+            if (dep.result != null)
+                return false;
+            if (r instanceof AltResult && (x = ((AltResult)r).ex) != null) {
+                long c = UNSAFE.getAndAddLong(this, COUNT, -(1L << 32));
+                return (int)(c >> 32) == 0 && dep.completeThrowable(x, r);
+            }
+            long c = UNSAFE.getAndAddLong(this, COUNT, -1L);
+            return (int)c == 1 && gather();
+        }
+
+        final boolean gather() {
+            CompletableFuture<?>[] as = srcs;
+            srcs = null;
+            try {
+                Collector<? super T,A,R> col = collector;
+                A container = col.supplier().get();
+                BiConsumer<A,? super T> acc =
+                    col.accumulator();
+                for (int i = 0, k = needed; k > 0; ++i) {
+                    Object r = as[i].result;
+                    if (r instanceof AltResult) {
+                        if (((AltResult)r).ex != null)
+                            continue;
+                        r = null;
+                    }
+                    else if (r == null)
+                        continue;
+                    @SuppressWarnings("unchecked") T t = (T) r;
+                    acc.accept(container, t);
+                    --k;
+                }
+                return dep.completeValue(col.finisher().apply(container));
+            } catch (Throwable ex) {
+                return dep.completeThrowable(ex);
+            }
+        }
+
+        private static final long COUNT;
+        static {
+            try {
+                COUNT = UNSAFE.objectFieldOffset
+                    (Gather.class.getDeclaredField("count"));
+            } catch (Exception x) {
+                throw new Error(x);
+            }
+        }
+    }
+
+    @SuppressWarnings("serial")
+    static final class Arrival extends Completion {
+        Gather<?,?,?> gather;
+        CompletableFuture<?> src;
+        Arrival(Gather<?,?,?> gather, CompletableFuture<?> src) {
+            this.gather = gather; this.src = src;
+        }
+        final CompletableFuture<?> tryFire(int mode) {
+            Gather<?,?,?> g; CompletableFuture<?> a; Object r;
+            if ((g = gather) == null || (a = src) == null ||
+                (r = a.result) == null ||
+                !compareAndSetForkJoinTaskTag((short)0, (short)1))
+                return null;
+            gather = null; src = null;
+            return g.arrive(r) ? g.dep.postFire(null, mode) : null;
+        }
+        final boolean isLive() {
+            Gather<?,?,?> g;
+            return (g = gather) != null && g.dep.result == null;
+        }
+    }
+
+    /**
+     * Returns a future completed by the given collector from the
+     * results of the first (in list order) needed sources that
+     * complete normally, once that many have.
+     */
+    static <T,A,R> CompletableFuture<R> gather(
+        List<? extends CompletableFuture<? extends T>> cfs, int needed,
+        Collector<? super T,A,R> collector) {
+        CompletableFuture<?>[] as = cfs.toArray(new CompletableFuture<?>[0]);
+        if (collector == null) throw new NullPointerException();
+        for (CompletableFuture<?> a : as)
+            if (a == null) throw new NullPointerException();
+        if (needed < 0 || needed > as.length)
+            throw new IllegalArgumentException();
+        CompletableFuture<R> d = new CompletableFuture<R>();
+        Gather<T,A,R> g = new Gather<T,A,R>(d, as, needed, collector);
+        if (needed == 0)
+            g.gather();
+        for (int i = 0; i < as.length && d.result == null; ++i) {
+            CompletableFuture<?> a = as[i];
+            Object r;
+            if ((r = a.result) == null) {
+                Arrival c = new Arrival(g, a);
+                while ((r = a.result) == null && !a.tryPushStack(c))
+                    lazySetNext(c, null); // clear on failure
+                if (r == null) {
+                    if (a.result != null) // completed while pushing
+                        c.tryFire(SYNC);
+                    continue;
+                }
+            }
+            g.arrive(r);
+        }
+        return d;
+    }
+
     /* ------------- Zero-input Async forms -------------- */
 
     @SuppressWarnings("serial")
@@ -2174,6 +2395,132 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return this;
     }
 
+    /**
+     * Returns a new {@link FusedStage} for building a chain of
+     * synchronous stages dependent on this CompletableFuture that
+     * runs as a single stage.  The chain {@code
+     * f.fuse().thenApply(g).thenAccept(h).toCompletableFuture()}
+     * performs the same actions as {@code
+     * f.thenApply(g).thenAccept(h)}, but allocates one dependent
+     * action and one CompletableFuture for the whole chain instead of
+     * one of each per stage, and does not make the intermediate
+     * results available to other dependents.
+     *
+     * @return a new FusedStage with no actions
+     * @since 1.8
+     */
+    public FusedStage<T> fuse() {
+        return new FusedStage<T>(this);
+    }
+
+    /**
+     * A builder of a chain of synchronous actions dependent on a
+     * CompletableFuture, obtained by {@link CompletableFuture#fuse},
+     * that are performed one after another by a single dependent
+     * action, each with the result of the previous one.  If an action
+     * throws an exception, the remaining ones are not performed and
+     * the resulting CompletableFuture completes exceptionally with a
+     * CompletionException holding the exception as its cause, as it
+     * would at the end of an unfused chain; likewise if the source
+     * completes exceptionally, no action is performed.
+     *
+     * <p>The actions are recorded in this builder, so that each
+     * method returns this builder, typed by the result of the action
+     * just added.  A FusedStage is not thread-safe, and may be used
+     * for a single chain only: once {@link #toCompletableFuture} has
+     * been invoked, adding actions throws {@link
+     * IllegalStateException}.
+     *
+     * @param <T> the result type of the last action
+     * @since 1.8
+     */
+    public static final class FusedStage<T> {
+        private final CompletableFuture<?> source;
+        private Object[] fns = new Object[4];
+        private byte[] kinds = new byte[4];
+        private int n;
+        private boolean built;
+        private CompletableFuture<T> result;
+
+        FusedStage(CompletableFuture<?> source) {
+            this.source = source;
+        }
+
+        private void add(Object fn, byte kind) {
+            if (fn == null) throw new NullPointerException();
+            if (built) throw new IllegalStateException();
+            if (n == fns.length) {
+                fns = Arrays.copyOf(fns, n << 1);
+                kinds = Arrays.copyOf(kinds, n << 1);
+            }
+            fns[n] = fn;
+            kinds[n++] = kind;
+        }
+
+        /**
+         * Adds an action applying the given function to the result
+         * of the previous one, as by {@link CompletableFuture#thenApply}.
+         *
+         * @param fn the function to use to compute the next result
+         * @param <U> the function's return type
+         * @return this builder
+         * @throws NullPointerException if the function is null
+         * @throws IllegalStateException if the chain is already built
+         */
+        @SuppressWarnings("unchecked")
+        public <U> FusedStage<U> thenApply(Function<? super T,? extends U> fn) {
+            add(fn, APPLY);
+            return (FusedStage<U>) this;
+        }
+
+        /**
+         * Adds an action passing the result of the previous one to
+         * the given consumer, as by {@link CompletableFuture#thenAccept}.
+         *
+         * @param action the action to perform
+         * @return this builder
+         * @throws NullPointerException if the action is null
+         * @throws IllegalStateException if the chain is already built
+         */
+        @SuppressWarnings("unchecked")
+        public FusedStage<Void> thenAccept(Consumer<? super T> action) {
+            add(action, ACCEPT);
+            return (FusedStage<Void>) this;
+        }
+
+        /**
+         * Adds an action running the given action, as by {@link
+         * CompletableFuture#thenRun}.
+         *
+         * @param action the action to perform
+         * @return this builder
+         * @throws NullPointerException if the action is null
+         * @throws IllegalStateException if the chain is already built
+         */
+        @SuppressWarnings("unchecked")
+        public FusedStage<Void> thenRun(Runnable action) {
+            add(action, RUN);
+            return (FusedStage<Void>) this;
+        }
+
+        /**
+         * Returns a new CompletableFuture that is completed with the
+         * result of the last action, or with the source's result if
+         * there are none, once the source completes.  Invoking this
+         * method again returns the same CompletableFuture.
+         *
+         * @return the CompletableFuture of the chain
+         */
+        public CompletableFuture<T> toCompletableFuture() {
+            if (!built) {
+                built = true;
+                result = source.uniFusedStage(fns, kinds, n);
+                fns = null; kinds = null;
+            }
+            return result;
+        }
+    }
+
     // not in interface CompletionStage
 
     /**
@@ -2244,6 +2591,92 @@ public class CompletableFuture<T> implements Future<T>, CompletionStage<T> {
         return orTree(cfs, 0, cfs.length - 1);
     }
 
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete normally, with the list
+     * of their results in the order of the given list.  If any of the
+     * given CompletableFutures completes exceptionally, then the
+     * returned CompletableFuture also does so as soon as it does,
+     * without waiting for the others, with a CompletionException
+     * holding this exception as its cause.  If no CompletableFutures
+     * are provided, returns a CompletableFuture completed with an
+     * empty list.
+     *
+     * <p>Unlike {@link #allOf}, which combines the given
+     * CompletableFutures pairwise through a tree of intermediate
+     * CompletableFutures, this method counts the completions of all
+     * of them in a single counter, adding one small dependent action
+     * to each given CompletableFuture that is not yet complete.
+     *
+     * @param cfs the CompletableFutures
+     * @param <T> the type of the results
+     * @return a new CompletableFuture that is completed with the
+     * results of the given CompletableFutures
+     * @throws NullPointerException if the list or any of its elements
+     * are {@code null}
+     * @since 1.8
+     */
+    public static <T> CompletableFuture<List<T>> allOfList(
+        List<? extends CompletableFuture<? extends T>> cfs) {
+        return gather(cfs, cfs.size(), Collectors.<T>toList());
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed when {@code k}
+     * of the given CompletableFutures have completed normally, with
+     * the list of the results of {@code k} of the CompletableFutures
+     * that have by then completed normally, taken in the order of the
+     * given list.  If so many of the given CompletableFutures complete
+     * exceptionally that fewer than {@code k} can complete normally,
+     * the returned CompletableFuture completes exceptionally, with a
+     * CompletionException holding the last of these exceptions as its
+     * cause.  With {@code k} equal to one, this is a form of {@link
+     * #anyOf} that ignores exceptional completions as long as one
+     * CompletableFuture may still complete normally.
+     *
+     * @param k the number of results needed
+     * @param cfs the CompletableFutures
+     * @param <T> the type of the results
+     * @return a new CompletableFuture that is completed with {@code k}
+     * results of the given CompletableFutures
+     * @throws IllegalArgumentException if {@code k} is negative or
+     * greater than the number of CompletableFutures
+     * @throws NullPointerException if the list or any of its elements
+     * are {@code null}
+     * @since 1.8
+     */
+    public static <T> CompletableFuture<List<T>> anyOfN(
+        int k, List<? extends CompletableFuture<? extends T>> cfs) {
+        return gather(cfs, k, Collectors.<T>toList());
+    }
+
+    /**
+     * Returns a new CompletableFuture that is completed when all of
+     * the given CompletableFutures complete normally, with the result
+     * of the given collector on their results, accumulated in the
+     * order of the given list by the thread that completes the last
+     * of them.  If any of the given CompletableFutures completes
+     * exceptionally, or the collector throws an exception, then the
+     * returned CompletableFuture also does so, as described for
+     * {@link #allOfList}.
+     *
+     * @param cfs the CompletableFutures
+     * @param collector the collector to reduce the results with
+     * @param <T> the type of the results
+     * @param <A> the mutable accumulation type of the collector
+     * @param <R> the result type of the collector
+     * @return a new CompletableFuture that is completed with the
+     * collected results of the given CompletableFutures
+     * @throws NullPointerException if the list, any of its elements,
+     * or the collector are {@code null}
+     * @since 1.8
+     */
+    public static <T,A,R> CompletableFuture<R> collect(
+        List<? extends CompletableFuture<? extends T>> cfs,
+        Collector<? super T,A,R> collector) {
+        return gather(cfs, cfs.size(), collector);
+    }
+
     /* ------------- Control and status methods -------------- */
 
     /**
@@ -0,0 +1,605 @@
+package java.util.concurrent;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.PriorityQueue;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * A concurrent multiset that counts occurrences of keys: a frequency
+ * map, or histogram, holding a {@code long} count per key.  It serves
+ * the purpose of a {@code ConcurrentHashMap<K, LongAdder>} in a
+ * fraction of the space.  Each key costs one slot of a key array and
+ * one {@code long} of a parallel count array, rather than a map node,
+ * an adder and eventually its cells.
+ *
+ * <p>Keys are spread over a fixed number of segments, each an open
+ * addressing table with linear probing.  Adding to a key that is
+ * already present only reads the key array and CASes the count, so it
+ * takes no lock.  Inserting a key that is not yet present, growing a
+ * table, and {@link #decay} lock one segment.  A count whose CAS keeps
+ * failing under contention is inflated to a {@link LongAdder}, which
+ * stripes further updates of that key over cells as usual.  Only the
+ * few hot keys of a skewed distribution pay for an adder.
+ *
+ * <p>Counts are never negative and saturate at {@link Long#MAX_VALUE},
+ * except for inflated keys, which count as a {@code LongAdder} does.
+ * Keys are never removed individually.  Instead, {@link #decay} halves
+ * all counts and drops the keys whose count reaches zero, so that a
+ * long-running counter favors recent history, and {@link #clear}
+ * removes all keys.
+ *
+ * <p>Like {@code ConcurrentHashMap}, this class does not allow
+ * {@code null} keys.  Methods that read more than one key, such as
+ * {@link #snapshot} and {@link #topK}, are weakly consistent: they
+ * reflect some but not necessarily all concurrent updates.
+ *
+ * @param <K> the type of keys counted
+ * @see LongAdder
+ * @since 1.8
+ */
+public class ConcurrentFrequencyCounter<K> {
+
+    /*
+     * Each segment publishes its current Table through a volatile
+     * field.  A key slot goes from null to its key exactly once per
+     * table, under the segment lock, after its count slot was
+     * initialized, so a volatile read of the key makes the count
+     * visible.  Count slots hold the count itself, or one of two
+     * negative sentinels:
+     *
+     * MOVED: the table is being replaced, under the segment lock, by
+     * a resize, decay or clear.  Each count is swapped for MOVED as it
+     * is copied, so an update that loses the race sees MOVED, waits
+     * for the lock and retries against the new table; no update is
+     * lost.
+     *
+     * HOT: the count was moved into a LongAdder held by the hot map.
+     * Inflation happens under the segment lock.  The adder is put in
+     * the hot map, already holding the count, before the count slot is
+     * CASed to HOT, and until then no other thread looks for it.  A
+     * HOT slot stays HOT as long as its key is counted, since threads
+     * may still be adding to the adder; clear swaps it for MOVED before
+     * removing the adder, so threads that then miss the adder retry.
+     */
+
+    /** Sentinel count of a slot whose table is being replaced */
+    static final long MOVED = -1L;
+
+    /** Sentinel count of a slot whose count lives in the hot map */
+    static final long HOT = -2L;
+
+    /** Failed CASes on one count, within one add, before inflating */
+    static final int INFLATE_THRESHOLD = 2;
+
+    /** Smallest table capacity; a power of two */
+    static final int MIN_CAPACITY = 16;
+
+    /** Largest table capacity; a power of two */
+    static final int MAX_CAPACITY = 1 << 30;
+
+    /** Number of segments: a power of two, at least four per CPU */
+    static final int SEGMENTS = Math.max(16, Integer.highestOneBit(
+        Runtime.getRuntime().availableProcessors() * 8 - 1));
+
+    /** Shift that maps the product of a hash and GOLDEN to a segment */
+    static final int SEGMENT_SHIFT = Integer.numberOfLeadingZeros(SEGMENTS) + 1;
+
+    /** Multiplier decorrelating segment selection from slot selection */
+    static final int GOLDEN = 0x9e3779b9;
+
+    /** Parallel key and count arrays of one segment */
+    static final class Table {
+        final Object[] keys;
+        final long[] counts;
+        Table(int capacity) {
+            keys = new Object[capacity];
+            counts = new long[capacity];
+        }
+    }
+
+    /** A segment; also serves as the lock for its table */
+    static final class Segment {
+        volatile Table table;
+        /** Number of keys in table; written under lock */
+        volatile int size;
+        Segment(int capacity) {
+            table = new Table(capacity);
+        }
+    }
+
+    final Segment[] segments;
+
+    /** Adders of inflated keys; created on first use */
+    volatile ConcurrentHashMap<Object, LongAdder> hot;
+
+    /**
+     * Creates a new, empty counter with a default initial capacity.
+     */
+    public ConcurrentFrequencyCounter() {
+        this(SEGMENTS * MIN_CAPACITY / 2);
+    }
+
+    /**
+     * Creates a new, empty counter able to count the given number of
+     * distinct keys without growing, if they are spread evenly.
+     *
+     * @param initialCapacity the number of distinct keys to expect
+     * @throws IllegalArgumentException if the initial capacity is negative
+     */
+    public ConcurrentFrequencyCounter(int initialCapacity) {
+        if (initialCapacity < 0)
+            throw new IllegalArgumentException();
+        int perSegment = tableSizeFor(
+            (long) initialCapacity / SEGMENTS * 4 / 3 + 1);
+        Segment[] segs = new Segment[SEGMENTS];
+        for (int i = 0; i < segs.length; ++i)
+            segs[i] = new Segment(perSegment);
+        this.segments = segs;
+    }
+
+    /**
+     * Returns a table capacity, a power of two, for the given number
+     * of slots.
+     */
+    static int tableSizeFor(long c) {
+        if (c >= MAX_CAPACITY)
+            return MAX_CAPACITY;
+        return Math.max(MIN_CAPACITY, Integer.highestOneBit((int) c - 1) << 1);
+    }
+
+    /** The number of keys a table of the given capacity may hold */
+    static int threshold(int capacity) {
+        return capacity - (capacity >>> 2);
+    }
+
+    Segment segmentFor(int h) {
+        return segments[(h * GOLDEN) >>> SEGMENT_SHIFT];
+    }
+
+    /* ---------------- Updates -------------- */
+
+    /**
+     * Adds one to the count of the given key.
+     *
+     * @param key the key
+     * @throws NullPointerException if the key is null
+     */
+    public void increment(K key) {
+        add(key, 1L);
+    }
+
+    /**
+     * Adds the given amount to the count of the given key, inserting
+     * the key with that count if it is absent.
+     *
+     * @param key the key
+     * @param x the amount to add
+     * @throws NullPointerException if the key is null
+     * @throws IllegalArgumentException if {@code x} is negative
+     */
+    public void add(K key, long x) {
+        if (key == null)
+            throw new NullPointerException();
+        if (x < 0L)
+            throw new IllegalArgumentException();
+        int h = ConcurrentHashMap.spread(key.hashCode());
+        Segment seg = segmentFor(h);
+        outer: for (;;) {
+            Table t = seg.table;
+            Object[] ks = t.keys;
+            long[] cs = t.counts;
+            int mask = ks.length - 1;
+            for (int i = h & mask;; i = (i + 1) & mask) {
+                Object k = keyAt(ks, i);
+                if (k == null) {
+                    if (insert(seg, t, key, h, x))
+                        return;
+                    continue outer;
+                }
+                if (k == key || k.equals(key)) {
+                    for (int failures = 0;;) {
+                        long c = countAt(cs, i);
+                        if (c == MOVED) {
+                            awaitMove(seg);
+                            continue outer;
+                        }
+                        if (c == HOT) {
+                            ConcurrentHashMap<Object, LongAdder> m = hot;
+                            LongAdder a;
+                            if (m == null || (a = m.get(k)) == null)
+                                continue outer;     // cleared meanwhile
+                            a.add(x);
+                            return;
+                        }
+                        long r = c + x;
+                        if (casCount(cs, i, c, r < 0L ? Long.MAX_VALUE : r))
+                            return;
+                        if (++failures >= INFLATE_THRESHOLD) {
+                            inflate(seg, k, h);
+                            continue outer;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Inserts an absent key with the given count.  Returns false, for
+     * the caller to retry, if the table was replaced or the key was
+     * inserted by another thread since the caller looked.
+     */
+    private boolean insert(Segment seg, Table t, Object key, int h, long x) {
+        synchronized (seg) {
+            if (seg.table != t)
+                return false;
+            Object[] ks = t.keys;
+            int mask = ks.length - 1;
+            int i = h & mask;
+            for (Object k; (k = ks[i]) != null; i = (i + 1) & mask) {
+                if (k == key || k.equals(key))
+                    return false;
+            }
+            t.counts[i] = x;
+            setKeyAt(ks, i, key);
+            int n = seg.size + 1;
+            seg.size = n;
+            if (n > threshold(ks.length) && ks.length < MAX_CAPACITY)
+                rebuild(seg, ks.length << 1, false);
+            else if (n == ks.length - 1)
+                throw new IllegalStateException("Counter full");
+            return true;
+        }
+    }
+
+    /**
+     * Moves the count of the given key into the hot map.
+     */
+    private void inflate(Segment seg, Object key, int h) {
+        synchronized (seg) {
+            Table t = seg.table;
+            int i = indexOf(t, key, h);
+            if (i < 0)
+                return;
+            ConcurrentHashMap<Object, LongAdder> m = hot;
+            if (m == null)
+                hot = m = new ConcurrentHashMap<Object, LongAdder>();
+            long[] cs = t.counts;
+            for (long c; (c = countAt(cs, i)) != HOT; ) {
+                LongAdder a = new LongAdder();
+                a.add(c);
+                m.put(key, a);
+                if (casCount(cs, i, c, HOT))
+                    break;
+            }
+        }
+    }
+
+    /**
+     * Waits for the thread replacing the segment's table to finish.
+     */
+    private static void awaitMove(Segment seg) {
+        synchronized (seg) { }
+    }
+
+    /**
+     * Replaces the segment's table by one of the given capacity,
+     * halving all counts and dropping those that become zero if
+     * decaying.  Called with the segment locked.
+     */
+    private void rebuild(Segment seg, int capacity, boolean decaying) {
+        Table t = seg.table;
+        Object[] ks = t.keys;
+        long[] cs = t.counts;
+        ConcurrentHashMap<Object, LongAdder> m = hot;
+        Table nt = new Table(capacity);
+        int n = 0;
+        for (int i = 0; i < ks.length; ++i) {
+            Object k = ks[i];
+            if (k != null) {
+                long c = U.getAndSetLong(cs, countOffset(i), MOVED);
+                if (c == HOT) {
+                    if (decaying) {
+                        LongAdder a = m.get(k);
+                        a.add(-(a.sum() >>> 1));
+                    }
+                }
+                else if (decaying && (c >>>= 1) == 0L)
+                    continue;
+                if (n >= threshold(nt.keys.length) &&
+                    nt.keys.length < MAX_CAPACITY)
+                    nt = grow(nt);
+                place(nt, k, c);
+                ++n;
+            }
+        }
+        seg.size = n;
+        seg.table = nt;
+    }
+
+    /**
+     * Returns a copy of an unpublished table with twice the capacity.
+     */
+    private static Table grow(Table t) {
+        Table nt = new Table(t.keys.length << 1);
+        Object[] ks = t.keys;
+        for (int i = 0; i < ks.length; ++i) {
+            if (ks[i] != null)
+                place(nt, ks[i], t.counts[i]);
+        }
+        return nt;
+    }
+
+    /**
+     * Puts a key that is known to be absent into an unpublished table.
+     */
+    private static void place(Table t, Object k, long c) {
+        Object[] ks = t.keys;
+        int mask = ks.length - 1;
+        int i = ConcurrentHashMap.spread(k.hashCode()) & mask;
+        while (ks[i] != null)
+            i = (i + 1) & mask;
+        ks[i] = k;
+        t.counts[i] = c;
+    }
+
+    /**
+     * Halves the count of every key, dropping keys whose count becomes
+     * zero, so that old occurrences weigh less than recent ones.  Each
+     * segment is rebuilt in turn, shrinking its table if many keys
+     * were dropped; updates racing with the rebuild of a segment apply
+     * to it afterwards.
+     */
+    public void decay() {
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                Table t = seg.table;
+                long[] cs = t.counts;
+                int survivors = 0;
+                for (int i = 0; i < cs.length; ++i) {
+                    long c = cs[i];
+                    if (c > 1L || c == HOT)
+                        ++survivors;
+                }
+                rebuild(seg, tableSizeFor((long) survivors * 2), true);
+            }
+        }
+    }
+
+    /**
+     * Removes all keys.  Updates racing with the clearing of a segment
+     * may apply to it before or after.
+     */
+    public void clear() {
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                Table t = seg.table;
+                Object[] ks = t.keys;
+                long[] cs = t.counts;
+                for (int i = 0; i < ks.length; ++i) {
+                    Object k = ks[i];
+                    if (k != null &&
+                        U.getAndSetLong(cs, countOffset(i), MOVED) == HOT)
+                        hot.remove(k);
+                }
+                seg.size = 0;
+                seg.table = new Table(MIN_CAPACITY);
+            }
+        }
+    }
+
+    /* ---------------- Queries -------------- */
+
+    /**
+     * Returns the slot of the given key in a table, or -1 if absent.
+     */
+    private static int indexOf(Table t, Object key, int h) {
+        Object[] ks = t.keys;
+        int mask = ks.length - 1;
+        for (int i = h & mask;; i = (i + 1) & mask) {
+            Object k = keyAt(ks, i);
+            if (k == null)
+                return -1;
+            if (k == key || k.equals(key))
+                return i;
+        }
+    }
+
+    /**
+     * Returns the count of the given key, or zero if it is absent.
+     *
+     * @param key the key
+     * @return the count of the key
+     * @throws NullPointerException if the key is null
+     */
+    public long count(Object key) {
+        int h = ConcurrentHashMap.spread(key.hashCode());
+        Segment seg = segmentFor(h);
+        for (;;) {
+            Table t = seg.table;
+            int i = indexOf(t, key, h);
+            if (i < 0)
+                return 0L;
+            long c = countAt(t.counts, i);
+            if (c >= 0L)
+                return c;
+            if (c == HOT) {
+                ConcurrentHashMap<Object, LongAdder> m = hot;
+                LongAdder a;
+                if (m != null && (a = m.get(key)) != null)
+                    return a.sum();
+            }
+            else
+                awaitMove(seg);
+        }
+    }
+
+    /**
+     * Returns the number of distinct keys counted.
+     *
+     * @return the number of keys
+     */
+    public int size() {
+        long n = 0L;
+        for (Segment seg : segments)
+            n += seg.size;
+        return (n > Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) n;
+    }
+
+    /**
+     * Returns {@code true} if no key has been counted.
+     *
+     * @return {@code true} if no key has been counted
+     */
+    public boolean isEmpty() {
+        for (Segment seg : segments) {
+            if (seg.size != 0)
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Performs the given action for each key and its count.  Each
+     * segment is locked while it is traversed, which delays insertions
+     * of new keys into it but not updates of existing ones.
+     *
+     * @param action the action to perform for each key and count
+     * @throws NullPointerException if the action is null
+     */
+    @SuppressWarnings("unchecked")
+    public void forEach(ObjLongConsumer<? super K> action) {
+        if (action == null)
+            throw new NullPointerException();
+        for (Segment seg : segments) {
+            synchronized (seg) {
+                Table t = seg.table;
+                Object[] ks = t.keys;
+                long[] cs = t.counts;
+                for (int i = 0; i < ks.length; ++i) {
+                    Object k = ks[i];
+                    if (k != null) {
+                        long c = countAt(cs, i);
+                        action.accept((K) k, c == HOT ? hot.get(k).sum() : c);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Returns the sum of all counts.
+     *
+     * @return the sum of all counts
+     */
+    public long sum() {
+        long[] sum = new long[1];
+        forEach((k, c) -> sum[0] += c);
+        return sum[0];
+    }
+
+    /**
+     * Returns a map from each key to its count, independent of this
+     * counter.
+     *
+     * @return a snapshot of the counts
+     */
+    public Map<K, Long> snapshot() {
+        Map<K, Long> m = new HashMap<K, Long>((int) (size() / 0.75f) + 1);
+        forEach(m::put);
+        return m;
+    }
+
+    /**
+     * Returns the {@code n} keys with the highest counts, with their
+     * counts, in decreasing order of count.  Takes time linear in the
+     * number of keys and space linear in {@code n}.
+     *
+     * @param n the maximum number of keys to return
+     * @return at most {@code n} entries, highest count first
+     * @throws IllegalArgumentException if {@code n} is negative
+     */
+    public List<Map.Entry<K, Long>> topK(int n) {
+        if (n < 0)
+            throw new IllegalArgumentException();
+        if (n == 0)
+            return Collections.emptyList();
+        Comparator<Map.Entry<K, Long>> byCount = Map.Entry.comparingByValue();
+        PriorityQueue<Map.Entry<K, Long>> heap =
+            new PriorityQueue<Map.Entry<K, Long>>(Math.min(n, 1 << 16), byCount);
+        forEach((k, c) -> {
+            if (heap.size() < n)
+                heap.add(new AbstractMap.SimpleImmutableEntry<K, Long>(k, c));
+            else if (c > heap.peek().getValue()) {
+                heap.poll();
+                heap.add(new AbstractMap.SimpleImmutableEntry<K, Long>(k, c));
+            }
+        });
+        List<Map.Entry<K, Long>> top = new ArrayList<Map.Entry<K, Long>>(heap);
+        top.sort(byCount.reversed());
+        return top;
+    }
+
+    /**
+     * Returns a string representation of the counts.
+     *
+     * @return a string representation of the counts
+     */
+    public String toString() {
+        return snapshot().toString();
+    }
+
+    /* ---------------- Slot access -------------- */
+
+    static Object keyAt(Object[] ks, int i) {
+        return U.getObjectVolatile(ks, ((long) i << ASHIFT) + ABASE);
+    }
+
+    static void setKeyAt(Object[] ks, int i, Object k) {
+        U.putObjectVolatile(ks, ((long) i << ASHIFT) + ABASE, k);
+    }
+
+    static long countOffset(int i) {
+        return ((long) i << LSHIFT) + LBASE;
+    }
+
+    static long countAt(long[] cs, int i) {
+        return U.getLongVolatile(cs, countOffset(i));
+    }
+
+    static boolean casCount(long[] cs, int i, long c, long v) {
+        return U.compareAndSwapLong(cs, countOffset(i), c, v);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    private static final long LBASE;
+    private static final int LSHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            ABASE = U.arrayBaseOffset(Object[].class);
+            int scale = U.arrayIndexScale(Object[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            LBASE = U.arrayBaseOffset(long[].class);
+            scale = U.arrayIndexScale(long[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            LSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
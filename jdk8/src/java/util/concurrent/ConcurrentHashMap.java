@@ -689,6 +689,20 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
         return (h ^ (h >>> 16)) & HASH_BITS;
     }
 
+    /**
+     * Returns the hash of a non-null key as used in this map.  If this
+     * map has a non-zero hashSeed, String keys are hashed by a SipHash
+     * keyed with the seed (see sun.misc.Hashing), so that sets of
+     * colliding keys cannot be precomputed from String.hashCode; all
+     * other keys are spread(key.hashCode()).
+     */
+    final int hashOf(Object key) {
+        int seed = hashSeed;
+        if (seed != 0 && key instanceof String)
+            return sun.misc.Hashing.stringHash32((String) key, seed) & HASH_BITS;
+        return spread(key.hashCode());
+    }
+
     /**
      * Returns a power of two table size for the given desired capacity.
      * See Hackers Delight, sec 3.2
@@ -816,6 +830,13 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      */
     private transient volatile CounterCell[] counterCells;
 
+    /**
+     * A randomizing value associated with this instance that keys the
+     * hash of String keys, or 0 if they use String.hashCode.  Non-zero
+     * only when enabled by the system property jdk.map.keyedHashing.
+     */
+    private final transient int hashSeed = sun.misc.Hashing.newHashSeed();
+
     // views
     private transient KeySetView<K,V> keySet;
     private transient ValuesView<K,V> values;
@@ -942,7 +963,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      */
     public V get(Object key) {
         Node<K,V>[] tab; Node<K,V> e, p; int n, eh; K ek;
-        int h = spread(key.hashCode());
+        int h = hashOf(key);
         if ((tab = table) != null && (n = tab.length) > 0 &&
             (e = tabAt(tab, (n - 1) & h)) != null) {
             if ((eh = e.hash) == h) {
@@ -1018,7 +1039,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
     /** Implementation for put and putIfAbsent */
     final V putVal(K key, V value, boolean onlyIfAbsent) {
         if (key == null || value == null) throw new NullPointerException();
-        int hash = spread(key.hashCode());
+        int hash = hashOf(key);
         int binCount = 0;
         for (Node<K,V>[] tab = table;;) {
             Node<K,V> f; int n, i, fh;
@@ -1115,7 +1136,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
      * non-null.  If resulting value is null, delete.
      */
     final V replaceNode(Object key, V value, Object cv) {
-        int hash = spread(key.hashCode());
+        int hash = hashOf(key);
         for (Node<K,V>[] tab = table;;) {
             Node<K,V> f; int n, i, fh;
             if (tab == null || (n = tab.length) == 0 ||
@@ -1448,6 +1469,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
          */
         sizeCtl = -1; // force exclusion for table construction
         s.defaultReadObject();
+        U.putInt(this, HASHSEED, sun.misc.Hashing.newHashSeed());
         long size = 0L;
         Node<K,V> p = null;
         for (;;) {
@@ -1456,7 +1478,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
             @SuppressWarnings("unchecked")
             V v = (V) s.readObject();
             if (k != null && v != null) {
-                p = new Node<K,V>(spread(k.hashCode()), k, v, p);
+                p = new Node<K,V>(hashOf(k), k, v, p);
                 ++size;
             }
             else
@@ -1655,7 +1677,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
     public V computeIfAbsent(K key, Function<? super K, ? extends V> mappingFunction) {
         if (key == null || mappingFunction == null)
             throw new NullPointerException();
-        int h = spread(key.hashCode());
+        int h = hashOf(key);
         V val = null;
         int binCount = 0;
         for (Node<K,V>[] tab = table;;) {
@@ -1756,7 +1778,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
     public V computeIfPresent(K key, BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
         if (key == null || remappingFunction == null)
             throw new NullPointerException();
-        int h = spread(key.hashCode());
+        int h = hashOf(key);
         V val = null;
         int delta = 0;
         int binCount = 0;
@@ -1847,7 +1869,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
                      BiFunction<? super K, ? super V, ? extends V> remappingFunction) {
         if (key == null || remappingFunction == null)
             throw new NullPointerException();
-        int h = spread(key.hashCode());
+        int h = hashOf(key);
         V val = null;
         int delta = 0;
         int binCount = 0;
@@ -1972,7 +1994,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
     public V merge(K key, V value, BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
         if (key == null || value == null || remappingFunction == null)
             throw new NullPointerException();
-        int h = spread(key.hashCode());
+        int h = hashOf(key);
         V val = null;
         int delta = 0;
         int binCount = 0;
@@ -6289,6 +6311,7 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
     // Unsafe mechanics
     private static final sun.misc.Unsafe U;
     private static final long SIZECTL;
+    private static final long HASHSEED;
     private static final long TRANSFERINDEX;
     private static final long BASECOUNT;
     private static final long CELLSBUSY;
@@ -6302,6 +6325,8 @@ public class ConcurrentHashMap<K,V> extends AbstractMap<K,V>
             Class<?> k = ConcurrentHashMap.class;
             SIZECTL = U.objectFieldOffset
                 (k.getDeclaredField("sizeCtl"));
+            HASHSEED = U.objectFieldOffset
+                (k.getDeclaredField("hashSeed"));
             TRANSFERINDEX = U.objectFieldOffset
                 (k.getDeclaredField("transferIndex"));
             BASECOUNT = U.objectFieldOffset
@@ -39,6 +39,7 @@ import java.util.AbstractCollection;
 import java.util.AbstractMap;
 import java.util.AbstractSet;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
@@ -52,6 +53,7 @@ import java.util.Set;
 import java.util.SortedMap;
 import java.util.SortedSet;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.concurrent.ConcurrentMap;
 import java.util.concurrent.ConcurrentNavigableMap;
 import java.util.function.BiFunction;
@@ -455,6 +457,14 @@ public class ConcurrentSkipListMap<K,V> extends AbstractMap<K,V>
             return UNSAFE.compareAndSwapObject(this, nextOffset, cmp, val);
         }
 
+        /**
+         * Sets next field without a full fence, for nodes not yet
+         * reachable from the list
+         */
+        void lazySetNext(Node<K,V> val) {
+            UNSAFE.putOrderedObject(this, nextOffset, val);
+        }
+
         /**
          * Returns true if this node is a marker. This method isn't
          * actually called in any current code checking for markers
@@ -583,6 +593,14 @@ public class ConcurrentSkipListMap<K,V> extends AbstractMap<K,V>
             return UNSAFE.compareAndSwapObject(this, rightOffset, cmp, val);
         }
 
+        /**
+         * Sets right field without a full fence, for indices not yet
+         * reachable from the head
+         */
+        final void lazySetRight(Index<K,V> val) {
+            UNSAFE.putOrderedObject(this, rightOffset, val);
+        }
+
         /**
          * Returns true if the node this indexes has been deleted.
          * @return true if indexed node is known to be deleted
@@ -1809,6 +1827,223 @@ public class ConcurrentSkipListMap<K,V> extends AbstractMap<K,V>
         }
     }
 
+    /**
+     * Copies the mappings supplied by the given spliterator into this
+     * map.  The spliterator must supply its mappings in strictly
+     * ascending key order according to this map's ordering; mappings it
+     * supplies replace any this map already has for the same keys.
+     *
+     * <p>If this map is empty, the mappings are linked into a list in
+     * one pass and published all at once, with index levels built in
+     * parallel in the {@link ForkJoinPool#commonPool() common pool}, in
+     * time linear in their number rather than one search per mapping
+     * as for {@link #putAll}.  The index levels are evenly spaced rather
+     * than random.  If this map is not empty, or becomes non-empty
+     * concurrently, the mappings are instead put one at a time, so
+     * other threads may observe some but not all of them.
+     *
+     * @param entries supplies the mappings, in ascending key order
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *         ascending order; no mappings are then added
+     * @throws ClassCastException if a key cannot be compared with the
+     *         keys currently in the map
+     * @throws NullPointerException if the spliterator is null, or it
+     *         supplies a null key or value
+     * @since 1.8
+     */
+    public void putAllSorted(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        bulkLoad(entries, null);
+    }
+
+    /**
+     * Merges the mappings supplied by the given spliterator into this
+     * map, as if by {@link #merge} for each of them.  To merge two
+     * sorted maps with the same ordering, pass the other map's
+     * {@code entrySet().spliterator()}.  The spliterator must supply
+     * its mappings in strictly ascending key order according to this
+     * map's ordering.  When this map is empty the mappings are loaded
+     * in bulk, as described for {@link #putAllSorted}; otherwise they
+     * are merged one at a time.
+     *
+     * @param entries supplies the mappings, in ascending key order
+     * @param remappingFunction the function to recompute a value if
+     *        the key is already present
+     * @throws IllegalArgumentException if the keys are not in strictly
+     *         ascending order; no mappings are then merged
+     * @throws ClassCastException if a key cannot be compared with the
+     *         keys currently in the map
+     * @throws NullPointerException if the spliterator or the remapping
+     *         function is null, or it supplies a null key or value
+     * @since 1.8
+     */
+    public void mergeAllSorted(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+                               BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        if (remappingFunction == null)
+            throw new NullPointerException();
+        bulkLoad(entries, remappingFunction);
+    }
+
+    /**
+     * Implementation for putAllSorted and mergeAllSorted.  The supplied
+     * mappings are linked into a private list of nodes first, checking
+     * their order.  If the base level is still empty, one CAS of the
+     * header's next field publishes the whole list: a concurrent doPut
+     * either got there first, making the CAS fail, or fails its own CAS
+     * on the header and retries against the new list.  The index levels
+     * are then installed under a new head.  Indices are only hints, so
+     * any that concurrent insertions linked into the old head's levels
+     * in between may be lost without harm.  A null remapping function
+     * means replace.
+     */
+    private void bulkLoad(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries,
+                          BiFunction<? super V, ? super V, ? extends V> remappingFunction) {
+        Node<K,V>[] nodes = drainSorted(entries);
+        if (nodes.length == 0)
+            return;
+        Node<K,V> b = head.node;
+        if (b.next == null) {
+            Index<K,V>[][] levels = buildIndexLevels(nodes);
+            if (b.casNext(null, nodes[0])) {
+                int top = levels.length;
+                if (top > 0) {
+                    for (;;) {
+                        HeadIndex<K,V> h = head, nh = null;
+                        for (int i = 1; i <= top; ++i)
+                            nh = new HeadIndex<K,V>(h.node, nh, levels[i - 1][0], i);
+                        if (casHead(h, nh))
+                            break;
+                    }
+                }
+                return;
+            }
+        }
+        for (Node<K,V> z : nodes) {
+            @SuppressWarnings("unchecked") V v = (V) z.value;
+            if (remappingFunction == null)
+                doPut(z.key, v, false);
+            else
+                merge(z.key, v, remappingFunction);
+        }
+    }
+
+    /**
+     * Creates a node for each mapping supplied by the spliterator,
+     * linked in order, checking that keys are strictly ascending.
+     */
+    @SuppressWarnings("unchecked")
+    private Node<K,V>[] drainSorted(Spliterator<? extends Map.Entry<? extends K, ? extends V>> entries) {
+        long exact = entries.getExactSizeIfKnown();
+        Node<K,V>[] nodes = (Node<K,V>[]) new Node<?,?>[
+            (exact >= 0 && exact <= MAX_ARRAY_SIZE) ? (int) exact : 32];
+        Comparator<? super K> cmp = comparator;
+        Node<K,V> pred = null;
+        int n = 0;
+        for (Iterator<? extends Map.Entry<? extends K, ? extends V>> it =
+                 Spliterators.iterator(entries); it.hasNext(); ) {
+            Map.Entry<? extends K, ? extends V> e = it.next();
+            K k = e.getKey();
+            V v = e.getValue();
+            if (k == null || v == null)
+                throw new NullPointerException();
+            if (pred != null && cpr(cmp, pred.key, k) >= 0)
+                throw new IllegalArgumentException("key out of order: " + k);
+            Node<K,V> z = new Node<K,V>(k, v, null);
+            if (pred != null)
+                pred.lazySetNext(z);
+            pred = z;
+            if (n == nodes.length) {
+                if (n == MAX_ARRAY_SIZE)
+                    throw new OutOfMemoryError("Required array size too large");
+                nodes = Arrays.copyOf(nodes, (int) Math.min(MAX_ARRAY_SIZE, (long) n << 1));
+            }
+            nodes[n++] = z;
+        }
+        return (n == nodes.length) ? nodes : Arrays.copyOf(nodes, n);
+    }
+
+    /**
+     * The maximum size of array to allocate.
+     * Some VMs reserve some header words in an array.
+     * Attempts to allocate larger arrays may result in
+     * OutOfMemoryError: Requested array size exceeds VM limit
+     */
+    private static final int MAX_ARRAY_SIZE = Integer.MAX_VALUE - 8;
+
+    /**
+     * Builds index levels over a list of nodes, returning for each
+     * level (1 first) its indices in key order, linked rightwards.
+     * Instead of choosing a random level per node, the node at
+     * (1-based) position p is indexed up to level i if p is a multiple
+     * of 2^(i+1).  This is the expected shape of the randomized levels
+     * of doPut, a quarter of the nodes indexed with each further level
+     * half as dense, but without the variance.  Large lists are split
+     * across the common pool: one pass creates each node's tower of
+     * indices, then one pass per level links them.
+     */
+    @SuppressWarnings("unchecked")
+    static <K,V> Index<K,V>[][] buildIndexLevels(Node<K,V>[] nodes) {
+        int n = nodes.length;
+        int top = (n < 4) ? 0 : 30 - Integer.numberOfLeadingZeros(n);
+        Index<K,V>[][] levels = (Index<K,V>[][]) new Index<?,?>[top][];
+        for (int i = 1; i <= top; ++i)
+            levels[i - 1] = (Index<K,V>[]) new Index<?,?>[n >>> (i + 1)];
+        if (top > 0) {
+            new IndexBuilder<K,V>(nodes, levels, 0, 0, n).invoke();
+            for (int i = 1; i <= top; ++i)
+                new IndexBuilder<K,V>(nodes, levels, i, 0, levels[i - 1].length).invoke();
+        }
+        return levels;
+    }
+
+    /**
+     * Task for buildIndexLevels.  At level 0 it creates the index
+     * towers of nodes[lo, hi); at level i > 0 it links the indices
+     * levels[i-1][lo, hi) to their right neighbours.  Indices are not
+     * yet reachable by other threads, so ordered writes suffice; the
+     * CAS that later publishes them provides the fence.
+     */
+    static final class IndexBuilder<K,V> extends RecursiveAction {
+        private static final long serialVersionUID = 6245406562738497614L;
+        /** Ranges at most this long are not split further */
+        static final int THRESHOLD = 1 << 13;
+        final Node<K,V>[] nodes;
+        final Index<K,V>[][] levels;
+        final int level, lo, hi;
+
+        IndexBuilder(Node<K,V>[] nodes, Index<K,V>[][] levels,
+                     int level, int lo, int hi) {
+            this.nodes = nodes; this.levels = levels;
+            this.level = level; this.lo = lo; this.hi = hi;
+        }
+
+        protected void compute() {
+            int l = lo, h = hi;
+            if (h - l > THRESHOLD) {
+                int mid = (l + h) >>> 1;
+                invokeAll(new IndexBuilder<K,V>(nodes, levels, level, l, mid),
+                          new IndexBuilder<K,V>(nodes, levels, level, mid, h));
+            }
+            else if (level == 0) {
+                int top = levels.length;
+                // nodes at 1-based positions q that are multiples of 4
+                for (int q = ((l >>> 2) + 1) << 2; q <= h; q += 4) {
+                    Node<K,V> z = nodes[q - 1];
+                    int t = Math.min(Integer.numberOfTrailingZeros(q) - 1, top);
+                    Index<K,V> down = null;
+                    for (int i = 1; i <= t; ++i)
+                        levels[i - 1][(q >>> (i + 1)) - 1] = down =
+                            new Index<K,V>(z, down, null);
+                }
+            }
+            else {
+                Index<K,V>[] a = levels[level - 1];
+                int last = Math.min(h, a.length - 1);
+                for (int j = l; j < last; ++j)
+                    a[j].lazySetRight(a[j + 1]);
+            }
+        }
+    }
+
     /* ---------------- View methods -------------- */
 
     /*
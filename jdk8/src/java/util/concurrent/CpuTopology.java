@@ -0,0 +1,251 @@
+package java.util.concurrent;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * The grouping of the CPUs of a machine into nodes, such as the NUMA
+ * nodes of a multi-socket host, whose CPUs share memory and caches
+ * more cheaply with each other than with the CPUs of other nodes.  A
+ * {@link ForkJoinPool} constructed with a topology places its workers
+ * evenly on the nodes and has them steal from the queues of their own
+ * node before those of other nodes.
+ *
+ * <p>The {@linkplain #system system topology} is read on Linux from
+ * the {@code cpulist} files of {@code /sys/devices/system/node}.  Where
+ * these are not available, it has a single node holding the CPUs
+ * listed by {@code /sys/devices/system/cpu/online}, or the first
+ * {@link Runtime#availableProcessors} CPUs.  A topology may also be
+ * given explicitly with {@link #of}, for example to split a
+ * single-socket machine by its last level caches.
+ *
+ * <p>Topologies are immutable.  CPUs are identified by their numbers
+ * as known to the operating system.
+ *
+ * @since 1.8
+ */
+public final class CpuTopology {
+
+    /** Root of the Linux sysfs CPU and node descriptions. */
+    private static final String SYSFS = "/sys/devices/system";
+
+    /** The sorted CPUs of each node. */
+    private final int[][] nodes;
+
+    private CpuTopology(int[][] nodes) {
+        this.nodes = nodes;
+    }
+
+    /**
+     * Returns a topology of the given nodes.
+     *
+     * @param nodeCpus the CPUs of each node
+     * @return the topology
+     * @throws IllegalArgumentException if there are no nodes, a node
+     *         has no CPUs, or a CPU is negative or is in several nodes
+     * @throws NullPointerException if the array or any of its elements
+     *         is null
+     */
+    public static CpuTopology of(int[]... nodeCpus) {
+        int n = nodeCpus.length;
+        if (n == 0)
+            throw new IllegalArgumentException("no nodes");
+        int[][] nodes = new int[n][];
+        BitSet seen = new BitSet();
+        for (int i = 0; i < n; ++i) {
+            int[] cpus = nodeCpus[i].clone();
+            if (cpus.length == 0)
+                throw new IllegalArgumentException("node " + i + " has no CPUs");
+            Arrays.sort(cpus);
+            for (int cpu : cpus) {
+                if (cpu < 0 || seen.get(cpu))
+                    throw new IllegalArgumentException("CPU " + cpu);
+                seen.set(cpu);
+            }
+            nodes[i] = cpus;
+        }
+        return new CpuTopology(nodes);
+    }
+
+    /**
+     * Returns the topology of this machine, read once.
+     *
+     * @return the system topology
+     */
+    public static CpuTopology system() {
+        return SystemHolder.SYSTEM;
+    }
+
+    /** Holder of the lazily read system topology. */
+    static final class SystemHolder {
+        static final CpuTopology SYSTEM =
+            java.security.AccessController.doPrivileged(
+                new java.security.PrivilegedAction<CpuTopology>() {
+                    public CpuTopology run() { return read(new File(SYSFS)); }});
+    }
+
+    /**
+     * Reads the topology described under the given sysfs root, falling
+     * back to a single node if there is no readable node description.
+     */
+    static CpuTopology read(File root) {
+        String[] names = new File(root, "node").list();
+        if (names != null) {
+            int[] ids = new int[names.length];
+            int n = 0;
+            for (String name : names) {
+                if (name.matches("node[0-9]+"))
+                    ids[n++] = Integer.parseInt(name.substring(4));
+            }
+            Arrays.sort(ids, 0, n);
+            int[][] nodes = new int[n][];
+            int k = 0;
+            for (int i = 0; i < n; ++i) {
+                int[] cpus = parseCpuList
+                    (readLine(new File(root, "node/node" + ids[i] + "/cpulist")));
+                if (cpus != null && cpus.length > 0)  // skip memory-only nodes
+                    nodes[k++] = cpus;
+            }
+            if (k > 0) {
+                try {
+                    return of(Arrays.copyOf(nodes, k));
+                } catch (IllegalArgumentException ignore) {
+                }
+            }
+        }
+        int[] cpus = parseCpuList(readLine(new File(root, "cpu/online")));
+        if (cpus == null || cpus.length == 0) {
+            cpus = new int[Runtime.getRuntime().availableProcessors()];
+            for (int i = 0; i < cpus.length; ++i)
+                cpus[i] = i;
+        }
+        return new CpuTopology(new int[][] { cpus });
+    }
+
+    /** Returns the first line of the given file, or null if unreadable. */
+    private static String readLine(File file) {
+        try (BufferedReader r = new BufferedReader(new FileReader(file))) {
+            return r.readLine();
+        } catch (IOException | SecurityException e) {
+            return null;
+        }
+    }
+
+    /**
+     * Parses a list of CPUs in the Linux {@code cpulist} format, a
+     * comma-separated list of CPU numbers and inclusive ranges, as in
+     * {@code "0-3,8,10-11"}.
+     *
+     * @param list the CPU list, or null
+     * @return the sorted CPUs of the list, or null if {@code list} is
+     *         null or malformed
+     */
+    public static int[] parseCpuList(String list) {
+        if (list == null)
+            return null;
+        BitSet cpus = new BitSet();
+        list = list.trim();
+        if (!list.isEmpty()) {
+            try {
+                for (String part : list.split(",")) {
+                    int dash = part.indexOf('-');
+                    int lo, hi;
+                    if (dash < 0)
+                        lo = hi = Integer.parseInt(part.trim());
+                    else {
+                        lo = Integer.parseInt(part.substring(0, dash).trim());
+                        hi = Integer.parseInt(part.substring(dash + 1).trim());
+                    }
+                    if (lo < 0 || hi < lo)
+                        return null;
+                    cpus.set(lo, hi + 1);
+                }
+            } catch (NumberFormatException e) {
+                return null;
+            }
+        }
+        int[] a = new int[cpus.cardinality()];
+        for (int i = 0, cpu = cpus.nextSetBit(0); cpu >= 0;
+             cpu = cpus.nextSetBit(cpu + 1))
+            a[i++] = cpu;
+        return a;
+    }
+
+    /**
+     * Returns the number of nodes.
+     *
+     * @return the number of nodes, at least one
+     */
+    public int getNodeCount() {
+        return nodes.length;
+    }
+
+    /**
+     * Returns the CPUs of the given node.
+     *
+     * @param node the node index, from zero
+     * @return a new sorted array of the CPUs of the node
+     * @throws IndexOutOfBoundsException if there is no such node
+     */
+    public int[] getCpus(int node) {
+        return nodes[node].clone();
+    }
+
+    /**
+     * Returns the number of CPUs of all nodes.
+     *
+     * @return the number of CPUs
+     */
+    public int getCpuCount() {
+        int n = 0;
+        for (int[] cpus : nodes)
+            n += cpus.length;
+        return n;
+    }
+
+    /**
+     * Returns the node of the given CPU.
+     *
+     * @param cpu the CPU number
+     * @return the node index, or -1 if no node has the CPU
+     */
+    public int getNode(int cpu) {
+        for (int i = 0; i < nodes.length; ++i) {
+            if (Arrays.binarySearch(nodes[i], cpu) >= 0)
+                return i;
+        }
+        return -1;
+    }
+
+    /**
+     * Returns a string listing the CPUs of each node, in the {@code
+     * cpulist} format.
+     *
+     * @return a string representation of this topology
+     */
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CpuTopology[");
+        for (int i = 0; i < nodes.length; ++i) {
+            if (i > 0)
+                sb.append(", ");
+            sb.append("node").append(i).append('=');
+            int[] cpus = nodes[i];
+            for (int j = 0; j < cpus.length; ) {
+                int k = j;
+                while (k + 1 < cpus.length && cpus[k + 1] == cpus[k] + 1)
+                    ++k;
+                if (j > 0)
+                    sb.append(',');
+                sb.append(cpus[j]);
+                if (k > j)
+                    sb.append('-').append(cpus[k]);
+                j = k + 1;
+            }
+        }
+        return sb.append(']').toString();
+    }
+}
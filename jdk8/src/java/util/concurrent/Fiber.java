@@ -0,0 +1,289 @@
+package java.util.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A blocking-aware {@code ForkJoinPool} task: a task that may block,
+ * run by a pool of carrier threads that compensates for it while it is
+ * blocked.  Fibers let work written in the blocking style run in a
+ * {@code ForkJoinPool} without blocked tasks starving the runnable ones
+ * of workers, or deadlocking the pool.
+ *
+ * <p>A fiber is a {@link ForkJoinTask} run by a {@link ForkJoinPool}
+ * created with {@link #newCarrierPool}, whose worker threads are
+ * {@linkplain Carrier carriers}.  When a fiber blocks in {@link
+ * LockSupport#park LockSupport.park} or one of its variants, which
+ * includes all the synchronizers built on {@link
+ * java.util.concurrent.locks.AbstractQueuedSynchronizer}, the blocking
+ * queues, {@link FutureTask#get}, {@link #sleep} and the other waits in
+ * {@code java.util.concurrent}, the carrier tells its pool through
+ * {@link ForkJoinPool#managedBlock}.  The pool then wakes up an idle
+ * carrier, or starts a spare one, so that {@code parallelism} carriers
+ * keep running fibers.  When the fiber is unblocked, its carrier
+ * continues running it and then takes further fibers from the pool;
+ * spare carriers that find nothing to do time out and exit.  Other
+ * blocking operations, such as reads from a blocking
+ * {@link java.nio.channels.SocketChannel} or {@code Object.wait}, do not
+ * park through {@code LockSupport}; running them through
+ * {@link #blocking} has the same effect.
+ *
+ * <p>Fibers are not unmounted when they block: the platform provides no
+ * way to save the stack of a blocked fiber and resume it on another
+ * thread, so a blocked fiber keeps its carrier, and the pool starts a
+ * compensating carrier for it.  Fibers therefore do not reduce the
+ * number of threads: {@code n} blocked fibers still take {@code n}
+ * threads, in addition to the {@code parallelism} carriers running
+ * fibers.  What they provide is that the pool keeps running fibers
+ * while others block, without sizing it in advance for the peak
+ * number of blocked operations.
+ *
+ * <p>Fibers are joined, cancelled and inspected as any other
+ * {@code ForkJoinTask}.  A fiber that joins another fiber of the same
+ * pool may run it, as with {@code ForkJoinTask.join}.
+ *
+ * <p>Sample usage.  Here is a server loop that starts a fiber per
+ * connection:
+ *
+ *  <pre> {@code
+ * ForkJoinPool carriers = Fiber.newCarrierPool(4);
+ * for (;;) {
+ *   SocketChannel ch = server.accept();
+ *   Fiber.start(carriers, () -> {
+ *     ByteBuffer buf = ByteBuffer.allocate(8192);
+ *     while (Fiber.blocking(() -> ch.read(buf)) >= 0) {
+ *       Request r = parse(buf);
+ *       queue.put(r);            // compensated for while full
+ *       ...
+ *     }
+ *     return null;
+ *   });
+ * }}</pre>
+ *
+ * @param <V> the result type of the fiber
+ * @see ForkJoinPool.ManagedBlocker
+ * @since 1.8
+ */
+public class Fiber<V> extends ForkJoinTask<V> implements RunnableFuture<V> {
+
+    /** The body of the fiber */
+    final Callable<? extends V> callable;
+
+    /** The result of the fiber */
+    V result;
+
+    /**
+     * Creates a fiber that runs the given callable when it is started.
+     *
+     * @param callable the body of the fiber
+     * @throws NullPointerException if the callable is null
+     */
+    Fiber(Callable<? extends V> callable) {
+        if (callable == null) throw new NullPointerException();
+        this.callable = callable;
+    }
+
+    public final V getRawResult() { return result; }
+    public final void setRawResult(V v) { result = v; }
+
+    /**
+     * Runs the body of this fiber, recording it as the current fiber
+     * of the carrier while it runs.
+     */
+    protected final boolean exec() {
+        Thread t = Thread.currentThread();
+        Carrier c = (t instanceof Carrier) ? (Carrier)t : null;
+        Fiber<?> outer = null;
+        if (c != null) {
+            outer = c.fiber;
+            c.fiber = this;
+        }
+        try {
+            result = callable.call();
+            return true;
+        } catch (Error err) {
+            throw err;
+        } catch (RuntimeException rex) {
+            throw rex;
+        } catch (Exception ex) {
+            throw new RuntimeException(ex);
+        } finally {
+            if (c != null)
+                c.fiber = outer;
+        }
+    }
+
+    public final void run() { invoke(); }
+
+    /**
+     * A worker thread of a carrier pool.  Parking a carrier through
+     * {@link LockSupport} lets its pool compensate for the duration.
+     */
+    public static final class Carrier extends ForkJoinWorkerThread {
+        /** The fiber this carrier is running, or null */
+        Fiber<?> fiber;
+
+        Carrier(ForkJoinPool pool) {
+            super(pool);
+        }
+    }
+
+    /**
+     * Creates carrier threads.
+     */
+    static final class CarrierFactory
+        implements ForkJoinPool.ForkJoinWorkerThreadFactory {
+        public final ForkJoinWorkerThread newThread(ForkJoinPool pool) {
+            return new Carrier(pool);
+        }
+    }
+
+    /**
+     * Holds the default carrier pool, created on first use.
+     */
+    static final class DefaultCarriers {
+        static final ForkJoinPool POOL = newCarrierPool(
+            Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * Creates a pool of carrier threads that runs fibers in the order
+     * they are started, keeping {@code parallelism} carriers running
+     * while fibers block.
+     *
+     * @param parallelism the number of fibers to run at once
+     * @return the new pool
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     */
+    public static ForkJoinPool newCarrierPool(int parallelism) {
+        return new ForkJoinPool(parallelism, new CarrierFactory(),
+                                null, true);
+    }
+
+    /**
+     * Starts a fiber in the default carrier pool, whose parallelism is
+     * the number of available processors.
+     *
+     * @param callable the body of the fiber
+     * @param <V> the result type of the fiber
+     * @return the fiber
+     * @throws NullPointerException if the callable is null
+     */
+    public static <V> Fiber<V> start(Callable<? extends V> callable) {
+        return start(DefaultCarriers.POOL, callable);
+    }
+
+    /**
+     * Starts a fiber in the default carrier pool, whose parallelism is
+     * the number of available processors.
+     *
+     * @param runnable the body of the fiber
+     * @return the fiber, whose result is null
+     * @throws NullPointerException if the runnable is null
+     */
+    public static Fiber<Void> start(Runnable runnable) {
+        return start(DefaultCarriers.POOL, Executors.callable(runnable, (Void)null));
+    }
+
+    /**
+     * Starts a fiber in the given pool.  If the pool was not created
+     * by {@link #newCarrierPool}, the fiber is run as any other task of
+     * that pool and blocks its worker when it blocks.
+     *
+     * @param carriers the pool that runs the fiber
+     * @param callable the body of the fiber
+     * @param <V> the result type of the fiber
+     * @return the fiber
+     * @throws NullPointerException if the pool or callable is null
+     * @throws RejectedExecutionException if the pool is shut down
+     */
+    public static <V> Fiber<V> start(ForkJoinPool carriers,
+                                     Callable<? extends V> callable) {
+        Fiber<V> f = new Fiber<V>(callable);
+        carriers.execute((ForkJoinTask<V>)f);
+        return f;
+    }
+
+    /**
+     * Returns the fiber that the current thread is running, or
+     * {@code null} if the current thread is not a carrier, or is not
+     * running a fiber.
+     *
+     * @return the current fiber, or {@code null}
+     */
+    public static Fiber<?> current() {
+        Thread t = Thread.currentThread();
+        return (t instanceof Carrier) ? ((Carrier)t).fiber : null;
+    }
+
+    /**
+     * Causes the current fiber or thread to sleep for the given
+     * duration.  Unlike {@link Thread#sleep}, it lets the pool of a
+     * fiber compensate for its carrier while sleeping.
+     *
+     * @param duration the duration to sleep
+     * @param unit the time unit of the duration argument
+     * @throws InterruptedException if interrupted while sleeping
+     */
+    public static void sleep(long duration, TimeUnit unit)
+        throws InterruptedException {
+        final long deadline = System.nanoTime() + unit.toNanos(duration);
+        for (long nanos = unit.toNanos(duration); nanos > 0L;
+             nanos = deadline - System.nanoTime()) {
+            if (Thread.interrupted())
+                throw new InterruptedException();
+            LockSupport.parkNanos(nanos);
+        }
+        if (Thread.interrupted())
+            throw new InterruptedException();
+    }
+
+    /**
+     * Runs a blocking operation that does not park through {@link
+     * LockSupport}, such as a read from a blocking channel, within
+     * {@link ForkJoinPool#managedBlock}, so that the pool of a carrier
+     * compensates for it while the operation blocks.  In any other
+     * thread, simply runs the operation.
+     *
+     * @param operation the blocking operation
+     * @param <T> the result type of the operation
+     * @return the result of the operation
+     * @throws Exception if the operation throws an exception
+     */
+    public static <T> T blocking(Callable<T> operation) throws Exception {
+        BlockingCall<T> call = new BlockingCall<T>(operation);
+        ForkJoinPool.managedBlock(call);
+        if (call.exception != null)
+            throw call.exception;
+        return call.result;
+    }
+
+    /**
+     * Runs an operation once, as a ManagedBlocker.
+     */
+    static final class BlockingCall<T> implements ForkJoinPool.ManagedBlocker {
+        final Callable<T> operation;
+        T result;
+        Exception exception;
+        boolean done;
+        BlockingCall(Callable<T> operation) {
+            if (operation == null) throw new NullPointerException();
+            this.operation = operation;
+        }
+        public boolean block() {
+            try {
+                result = operation.call();
+            } catch (Exception ex) {
+                exception = ex;
+            } finally {
+                done = true;
+            }
+            return true;
+        }
+        public boolean isReleasable() {
+            return done;
+        }
+    }
+
+    private static final long serialVersionUID = -8286823420133928357L;
+}
@@ -134,7 +134,7 @@ import java.security.Permissions;
  * </table>
  *
  * <p>The common pool is by default constructed with default
- * parameters, but these may be controlled by setting three
+ * parameters, but these may be controlled by setting four
  * {@linkplain System#getProperty system properties}:
  * <ul>
  * <li>{@code java.util.concurrent.ForkJoinPool.common.parallelism}
@@ -143,6 +143,10 @@ import java.security.Permissions;
  * - the class name of a {@link ForkJoinWorkerThreadFactory}
  * <li>{@code java.util.concurrent.ForkJoinPool.common.exceptionHandler}
  * - the class name of a {@link UncaughtExceptionHandler}
+ * <li>{@code java.util.concurrent.ForkJoinPool.common.topology}
+ * - {@code system} to group workers by the {@linkplain
+ * CpuTopology#system system topology}, or the {@code cpulist} of each
+ * node separated by semicolons, as in {@code 0-3;4-7}
  * </ul>
  * If a {@link SecurityManager} is present and no factory is
  * specified, then the default pool uses a factory supplying
@@ -801,6 +805,8 @@ public class ForkJoinPool extends AbstractExecutorService {
         volatile int scanState;    // versioned, <0: inactive; odd:scanning
         int stackPred;             // pool stack (ctl) predecessor
         int nsteals;               // number of steals
+        int nremote;               // number of steals from other nodes
+        int node;                  // topology node; 0 if no topology
         int hint;                  // randomization and stealer index hint
         int config;                // pool index and mode
         volatile int qlock;        // 1: locked, < 0: terminate; else 0
@@ -1071,9 +1077,12 @@ public class ForkJoinPool extends AbstractExecutorService {
         final void transferStealCount(ForkJoinPool p) {
             AtomicLong sc;
             if (p != null && (sc = p.stealCounter) != null) {
-                int s = nsteals;
+                int s = nsteals, rs = nremote;
                 nsteals = 0;            // if negative, correct for overflow
+                nremote = 0;            // cannot overflow before nsteals
                 sc.getAndAdd((long)(s < 0 ? Integer.MAX_VALUE : s));
+                if (rs != 0 && (sc = p.remoteStealCounter) != null)
+                    sc.getAndAdd((long)rs);
             }
         }
 
@@ -1396,6 +1405,10 @@ public class ForkJoinPool extends AbstractExecutorService {
     final UncaughtExceptionHandler ueh;  // per-worker UEH
     final String workerNamePrefix;       // to create worker name string
     volatile AtomicLong stealCounter;    // also used as sync monitor
+    final CpuTopology topology;          // null if queues not grouped
+    final int nodes;                     // topology nodes; 1 if none
+    final int[] nodeWorkers;             // workers per node; guarded by lock
+    final AtomicLong remoteStealCounter; // non-null only if nodes > 1
 
     /**
      * Acquires the runState lock; returns current (locked) runState.
@@ -1542,8 +1555,26 @@ public class ForkJoinPool extends AbstractExecutorService {
             if ((ws = workQueues) != null && (n = ws.length) > 0) {
                 int s = indexSeed += SEED_INCREMENT;  // unlikely to collide
                 int m = n - 1;
-                i = ((s << 1) | 1) & m;               // odd-numbered indices
-                if (ws[i] != null) {                  // collision
+                if (nodes > 1) {                      // place on emptiest node
+                    int[] nw = nodeWorkers;
+                    int node = 0;
+                    for (int j = 1; j < nodes; ++j) {
+                        if (nw[j] < nw[node])
+                            node = j;
+                    }
+                    // the odd-numbered indices i with (i >>> 1) % nodes == node
+                    for (i = (node << 1) | 1; ; i += nodes << 1) {
+                        if (i > m) {                  // all taken; expand
+                            workQueues = ws = Arrays.copyOf(ws, n <<= 1);
+                            m = n - 1;
+                        }
+                        if (ws[i] == null)
+                            break;
+                    }
+                    ++nw[node];
+                    w.node = node;
+                }
+                else if (ws[i = ((s << 1) | 1) & m] != null) { // collision
                     int probes = 0;                   // step by approx half n
                     int step = (n <= 4) ? 2 : ((n >>> 1) & EVENMASK) + 2;
                     while (ws[i = (i + step) & m] != null) {
@@ -1581,8 +1612,11 @@ public class ForkJoinPool extends AbstractExecutorService {
             WorkQueue[] ws;                           // remove index from array
             int idx = w.config & SMASK;
             int rs = lockRunState();
-            if ((ws = workQueues) != null && ws.length > idx && ws[idx] == w)
+            if ((ws = workQueues) != null && ws.length > idx && ws[idx] == w) {
                 ws[idx] = null;
+                if (nodes > 1)
+                    --nodeWorkers[w.node];
+            }
             unlockRunState(rs, rs & ~RSLOCK);
         }
         long c;                                       // decrement counts
@@ -1716,6 +1750,11 @@ public class ForkJoinPool extends AbstractExecutorService {
         WorkQueue[] ws; int m;
         if ((ws = workQueues) != null && (m = ws.length - 1) > 0 && w != null) {
             int ss = w.scanState;                     // initially non-negative
+            if (nodes > 1 && ss >= 0) {               // try own node first
+                ForkJoinTask<?> t;
+                if ((t = scanNode(ws, m, w, r)) != null)
+                    return t;
+            }
             for (int origin = r & m, k = origin, oldSum = 0, checkSum = 0;;) {
                 WorkQueue q; ForkJoinTask<?>[] a; ForkJoinTask<?> t;
                 int b, n; long c;
@@ -1731,6 +1770,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                                     q.base = b + 1;
                                     if (n < -1)       // signal others
                                         signalWork(ws, q);
+                                    if (q.node != w.node)
+                                        ++w.nremote;
                                     return t;
                                 }
                             }
@@ -1769,6 +1810,52 @@ public class ForkJoinPool extends AbstractExecutorService {
         return null;
     }
 
+    /**
+     * Tries once to steal a top-level task from each queue of the
+     * node of w, for pools with a topology, starting at a random
+     * group of slots.  The slots of a node are the pairs of shared
+     * and worker queue indices i with {@code (i >>> 1) % nodes}
+     * equal to the node.  Unlike scan, this does not track
+     * checksums; returning null just falls back to a full scan.
+     *
+     * @param ws the workQueues array
+     * @param m its length minus one
+     * @param w the worker (via its WorkQueue)
+     * @param r a random seed
+     * @return a task, or null if none found
+     */
+    private ForkJoinTask<?> scanNode(WorkQueue[] ws, int m, WorkQueue w,
+                                     int r) {
+        int span = nodes << 1, first = w.node << 1;
+        if (first < m) {
+            int groups = (m - first) / span + 1;
+            for (int g = (r >>> 1) % groups, j = 0; j < groups; ++j) {
+                int k = first + g * span;
+                for (int e = 0; e < 2; ++e, ++k) {
+                    WorkQueue q; ForkJoinTask<?>[] a; ForkJoinTask<?> t;
+                    int b, n;
+                    if ((q = ws[k]) != null &&
+                        (n = (b = q.base) - q.top) < 0 &&
+                        (a = q.array) != null) {
+                        long i = (((a.length - 1) & b) << ASHIFT) + ABASE;
+                        if ((t = ((ForkJoinTask<?>)
+                                  U.getObjectVolatile(a, i))) != null &&
+                            q.base == b &&
+                            U.compareAndSwapObject(a, i, t, null)) {
+                            q.base = b + 1;
+                            if (n < -1)
+                                signalWork(ws, q);
+                            return t;
+                        }
+                    }
+                }
+                if (++g == groups)
+                    g = 0;
+            }
+        }
+        return null;
+    }
+
     /**
      * Possibly blocks worker w waiting for a task to steal, or
      * returns false if the worker should terminate.  If inactivating
@@ -2111,6 +2198,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 if ((b = q.base) - q.top < 0 && (t = q.pollAt(b)) != null) {
                     U.putOrderedObject(w, QCURRENTSTEAL, t);
                     t.doExec();
+                    if (q.node != w.node)
+                        ++w.nremote;
                     if (++w.nsteals < 0)
                         w.transferStealCount(this);
                 }
@@ -2337,6 +2426,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                                                new AtomicLong());
                         // create workQueues array with size a power of two
                         int p = config & SMASK; // ensure at least 2 slots
+                        if (p < nodes)          // and a pair per node
+                            p = nodes;
                         int n = (p > 1) ? p - 1 : 1;
                         n |= n >>> 1; n |= n >>> 2;  n |= n >>> 4;
                         n |= n >>> 8; n |= n >>> 16; n = (n + 1) << 1;
@@ -2373,6 +2464,7 @@ public class ForkJoinPool extends AbstractExecutorService {
             else if (((rs = runState) & RSLOCK) == 0) { // create new queue
                 q = new WorkQueue(this, null);
                 q.hint = r;
+                q.node = (k >>> 1) % nodes;
                 q.config = k | SHARED_QUEUE;
                 q.scanState = INACTIVE;
                 rs = lockRunState();           // publish index
@@ -2537,7 +2629,64 @@ public class ForkJoinPool extends AbstractExecutorService {
              checkFactory(factory),
              handler,
              asyncMode ? FIFO_QUEUE : LIFO_QUEUE,
-             "ForkJoinPool-" + nextPoolId() + "-worker-");
+             "ForkJoinPool-" + nextPoolId() + "-worker-",
+             null);
+        checkPermission();
+    }
+
+    /**
+     * Creates a {@code ForkJoinPool} with the given parameters, whose
+     * workers and queues are grouped by the nodes of the given CPU
+     * topology.  Workers are placed on the node with the fewest
+     * workers when they are created, and submission queues are
+     * assigned to nodes by their index.  A worker looking for a task
+     * tries the queues of its own node first, and those of other nodes
+     * only if its node has none, so that subtasks tend to stay on the
+     * node whose caches and memory hold their data.  Steals from the
+     * queues of other nodes are counted by {@link
+     * #getRemoteStealCount}.  With a single-node topology the pool
+     * behaves as one constructed without a topology.
+     *
+     * <p>Threads are not bound to the CPUs of their node by this
+     * class, since there is no portable way to do so.  A factory that
+     * can pin threads may return {@link ForkJoinWorkerThread}
+     * subclasses that do so in {@link ForkJoinWorkerThread#onStart},
+     * to the CPUs {@link CpuTopology#getCpus getCpus}{@code
+     * (}{@link ForkJoinWorkerThread#getNode getNode()}{@code )} of
+     * the pool's {@linkplain #getTopology topology}.
+     *
+     * @param parallelism the parallelism level. For default value,
+     * use {@link java.lang.Runtime#availableProcessors}.
+     * @param factory the factory for creating new threads. For default value,
+     * use {@link #defaultForkJoinWorkerThreadFactory}.
+     * @param handler the handler for internal worker threads that
+     * terminate due to unrecoverable errors encountered while executing
+     * tasks. For default value, use {@code null}.
+     * @param asyncMode if true,
+     * establishes local first-in-first-out scheduling mode for forked
+     * tasks that are never joined.
+     * @param topology the grouping of CPUs into nodes, such as {@link
+     * CpuTopology#system}
+     * @throws IllegalArgumentException if parallelism less than or
+     *         equal to zero, or greater than implementation limit
+     * @throws NullPointerException if the factory or topology is null
+     * @throws SecurityException if a security manager exists and
+     *         the caller is not permitted to modify threads
+     *         because it does not hold {@link
+     *         java.lang.RuntimePermission}{@code ("modifyThread")}
+     * @since 1.8
+     */
+    public ForkJoinPool(int parallelism,
+                        ForkJoinWorkerThreadFactory factory,
+                        UncaughtExceptionHandler handler,
+                        boolean asyncMode,
+                        CpuTopology topology) {
+        this(checkParallelism(parallelism),
+             checkFactory(factory),
+             handler,
+             asyncMode ? FIFO_QUEUE : LIFO_QUEUE,
+             "ForkJoinPool-" + nextPoolId() + "-worker-",
+             checkTopology(topology));
         checkPermission();
     }
 
@@ -2554,6 +2703,12 @@ public class ForkJoinPool extends AbstractExecutorService {
         return factory;
     }
 
+    private static CpuTopology checkTopology(CpuTopology topology) {
+        if (topology == null)
+            throw new NullPointerException();
+        return topology;
+    }
+
     /**
      * Creates a {@code ForkJoinPool} with the given parameters, without
      * any security checks or parameter validation.  Invoked directly by
@@ -2563,11 +2718,17 @@ public class ForkJoinPool extends AbstractExecutorService {
                          ForkJoinWorkerThreadFactory factory,
                          UncaughtExceptionHandler handler,
                          int mode,
-                         String workerNamePrefix) {
+                         String workerNamePrefix,
+                         CpuTopology topology) {
         this.workerNamePrefix = workerNamePrefix;
         this.factory = factory;
         this.ueh = handler;
         this.config = (parallelism & SMASK) | mode;
+        int nn = (topology == null) ? 1 : topology.getNodeCount();
+        this.topology = topology;
+        this.nodes = nn;
+        this.nodeWorkers = (nn > 1) ? new int[nn] : null;
+        this.remoteStealCounter = (nn > 1) ? new AtomicLong() : null;
         long np = (long)(-parallelism); // offset ctl counts
         this.ctl = ((np << AC_SHIFT) & AC_MASK) | ((np << TC_SHIFT) & TC_MASK);
     }
@@ -2864,6 +3025,57 @@ public class ForkJoinPool extends AbstractExecutorService {
         return count;
     }
 
+    /**
+     * Returns an estimate of the number of the tasks counted by {@link
+     * #getStealCount} that a worker took from a queue of another node
+     * of the pool's {@linkplain #getTopology topology}.  A high ratio
+     * of remote to {@linkplain #getLocalStealCount local} steals means
+     * that the workers of some nodes often run out of tasks, so that
+     * subtasks and their data move between nodes.
+     *
+     * @return the number of steals from other nodes, zero if the pool
+     *         has no topology of several nodes
+     * @since 1.8
+     */
+    public long getRemoteStealCount() {
+        AtomicLong sc = remoteStealCounter;
+        if (sc == null)
+            return 0L;
+        long count = sc.get();
+        WorkQueue[] ws; WorkQueue w;
+        if ((ws = workQueues) != null) {
+            for (int i = 1; i < ws.length; i += 2) {
+                if ((w = ws[i]) != null)
+                    count += w.nremote;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * Returns an estimate of the number of the tasks counted by {@link
+     * #getStealCount} that a worker took from a queue of its own node,
+     * which are all of them if the pool has no topology.
+     *
+     * @return the number of steals within nodes
+     * @since 1.8
+     */
+    public long getLocalStealCount() {
+        return Math.max(0L, getStealCount() - getRemoteStealCount());
+    }
+
+    /**
+     * Returns the CPU topology by which the workers and queues of this
+     * pool are grouped.
+     *
+     * @return the topology, or {@code null} if the pool was constructed
+     *         without one
+     * @since 1.8
+     */
+    public CpuTopology getTopology() {
+        return topology;
+    }
+
     /**
      * Returns an estimate of the total number of tasks currently held
      * in queues by worker threads (but not including tasks submitted
@@ -3408,6 +3620,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         int parallelism = -1;
         ForkJoinWorkerThreadFactory factory = null;
         UncaughtExceptionHandler handler = null;
+        CpuTopology topology = null;
         try {  // ignore exceptions in accessing/parsing properties
             String pp = System.getProperty
                 ("java.util.concurrent.ForkJoinPool.common.parallelism");
@@ -3415,6 +3628,8 @@ public class ForkJoinPool extends AbstractExecutorService {
                 ("java.util.concurrent.ForkJoinPool.common.threadFactory");
             String hp = System.getProperty
                 ("java.util.concurrent.ForkJoinPool.common.exceptionHandler");
+            String tp = System.getProperty
+                ("java.util.concurrent.ForkJoinPool.common.topology");
             if (pp != null)
                 parallelism = Integer.parseInt(pp);
             if (fp != null)
@@ -3423,6 +3638,15 @@ public class ForkJoinPool extends AbstractExecutorService {
             if (hp != null)
                 handler = ((UncaughtExceptionHandler)ClassLoader.
                            getSystemClassLoader().loadClass(hp).newInstance());
+            if ("system".equals(tp))
+                topology = CpuTopology.system();
+            else if (tp != null) {
+                String[] lists = tp.split(";");
+                int[][] nodeCpus = new int[lists.length][];
+                for (int i = 0; i < lists.length; ++i)
+                    nodeCpus[i] = CpuTopology.parseCpuList(lists[i]);
+                topology = CpuTopology.of(nodeCpus);
+            }
         } catch (Exception ignore) {
         }
         if (factory == null) {
@@ -3437,7 +3661,7 @@ public class ForkJoinPool extends AbstractExecutorService {
         if (parallelism > MAX_CAP)
             parallelism = MAX_CAP;
         return new ForkJoinPool(parallelism, factory, handler, LIFO_QUEUE,
-                                "ForkJoinPool.commonPool-worker-");
+                                "ForkJoinPool.commonPool-worker-", topology);
     }
 
     /**
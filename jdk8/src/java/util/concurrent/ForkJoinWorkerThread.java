@@ -121,6 +121,19 @@ public class ForkJoinWorkerThread extends Thread {
         return workQueue.getPoolIndex();
     }
 
+    /**
+     * Returns the index of the node of its pool's {@linkplain
+     * ForkJoinPool#getTopology topology} on which this thread was
+     * placed.  A thread factory that binds threads to CPUs may use it
+     * in {@link #onStart} to pin the thread to the CPUs of its node.
+     *
+     * @return the node index, zero if the pool has no topology
+     * @since 1.8
+     */
+    public int getNode() {
+        return workQueue.node;
+    }
+
     /**
      * Initializes internal state after construction but before
      * processing any tasks. If you override this method, you must
@@ -0,0 +1,219 @@
+package java.util.concurrent;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by an array, for any number of producer and consumer threads.
+ *
+ * <p>Each slot has a sequence number besides its element, as in the
+ * bounded queue of Dmitry Vyukov.  The sequence of the slot of index
+ * {@code i} is {@code i} while the slot is free for the producer of
+ * that index, and {@code i + 1} once its element is written; the
+ * consumer that takes it sets it to {@code i + capacity}, freeing it for
+ * the next round.  Producers and consumers claim indices by a CAS on the
+ * tail and the head, and read the sequence to tell whether the queue is
+ * full or empty, so neither side reads the other's counter except to
+ * confirm it.  Threads wait in the blocking methods according to a
+ * {@link WaitStrategy}.
+ *
+ * <p>The capacity is rounded up to a power of two, and must be at least
+ * two.  This queue does not permit null elements, and its iterator is a
+ * snapshot that does not support {@code remove}.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see SpscArrayQueue
+ * @see MpscArrayQueue
+ * @since 1.8
+ */
+public class MpmcArrayQueue<E> extends AbstractArrayQueue<E> {
+
+    /** The sequence numbers of the slots */
+    final long[] sequences;
+
+    /**
+     * Creates a queue with the given capacity, rounded up to a power of
+     * two, whose threads wait by parking.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         two or greater than 2<sup>30</sup>
+     */
+    public MpmcArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a queue with the given capacity, rounded up to a power of
+     * two, and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is less than
+     *         two or greater than 2<sup>30</sup>
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpmcArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        if (capacity < 2)  // the sequence of a slot could not tell full from empty
+            throw new IllegalArgumentException();
+        long[] seqs = new long[buffer.length];
+        for (int i = 0; i < seqs.length; ++i)
+            seqs[i] = i;
+        this.sequences = seqs;
+    }
+
+    /**
+     * Returns the address of the sequence of the given index.
+     */
+    private long sequenceOffset(long index) {
+        return ((index & mask) << LSHIFT) + LBASE;
+    }
+
+    /**
+     * Claims the next index to put, or returns -1 if the queue is full.
+     */
+    private long claimTail() {
+        final long[] seqs = this.sequences;
+        for (;;) {
+            long t = tail;
+            long seq = U.getLongVolatile(seqs, sequenceOffset(t));
+            if (seq == t) {
+                if (U.compareAndSwapLong(this, TAIL, t, t + 1))
+                    return t;
+            }
+            else if (seq - t < 0L &&                  // slot not yet freed
+                     t - buffer.length - head >= 0L)  // and not being freed
+                return -1L;
+        }
+    }
+
+    /**
+     * Claims the next index to take, or returns -1 if the queue is
+     * empty.
+     */
+    private long claimHead() {
+        final long[] seqs = this.sequences;
+        for (;;) {
+            long h = head;
+            long seq = U.getLongVolatile(seqs, sequenceOffset(h));
+            if (seq == h + 1) {
+                if (U.compareAndSwapLong(this, HEAD, h, h + 1))
+                    return h;
+            }
+            else if (seq - (h + 1) < 0L &&   // slot not yet written
+                     h - tail >= 0L)          // and not claimed
+                return -1L;
+        }
+    }
+
+    /**
+     * Writes the element of a claimed index to put.
+     */
+    private void publish(long t, Object e) {
+        U.putObject(buffer, slotOffset(t), e);
+        U.putOrderedLong(sequences, sequenceOffset(t), t + 1);
+    }
+
+    /**
+     * Reads and clears the element of a claimed index to take.
+     */
+    private Object release(long h) {
+        long offset = slotOffset(h);
+        Object e = U.getObject(buffer, offset);
+        U.putObject(buffer, offset, null);
+        U.putOrderedLong(sequences, sequenceOffset(h), h + buffer.length);
+        return e;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        long t = claimTail();
+        if (t < 0L)
+            return false;
+        publish(t, e);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = claimHead();
+        return (h < 0L) ? null : (E)release(h);
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or
+     * returns {@code null} if this queue is empty.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final long[] seqs = this.sequences;
+        for (;;) {
+            long h = head;
+            long seq = U.getLongVolatile(seqs, sequenceOffset(h));
+            if (seq == h + 1) {
+                Object e = U.getObjectVolatile(buffer, slotOffset(h));
+                if (head == h)
+                    return (E)e;
+            }
+            else if (seq - (h + 1) < 0L && h - tail >= 0L)
+                return null;
+        }
+    }
+
+    /**
+     * {@inheritDoc}  Each element is claimed separately, so elements
+     * taken by other consumers at the same time are interleaved with
+     * those of the batch.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> c, int limit) {
+        if (c == null) throw new NullPointerException();
+        int n = 0;
+        for (long h; n < limit && (h = claimHead()) >= 0L; ++n)
+            c.accept((E)release(h));
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}  Each slot is claimed separately, just after the
+     * supplier is called for its element.
+     */
+    public int fill(Supplier<? extends E> s, int limit) {
+        if (s == null) throw new NullPointerException();
+        int n = 0;
+        for (Object e; n < limit && tail - head < buffer.length; ++n) {
+            if ((e = s.get()) == null)
+                throw new NullPointerException();
+            long t;
+            for (int count = 0; (t = claimTail()) < 0L; ++count)
+                waitStrategy.idle(count);
+            publish(t, e);
+        }
+        return n;
+    }
+
+    // Unsafe mechanics
+    private static final long LBASE;
+    private static final int LSHIFT;
+    static {
+        LBASE = U.arrayBaseOffset(long[].class);
+        int scale = U.arrayIndexScale(long[].class);
+        if ((scale & (scale - 1)) != 0)
+            throw new Error("data type scale not a power of two");
+        LSHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+    }
+}
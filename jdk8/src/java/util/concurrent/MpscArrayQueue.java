@@ -0,0 +1,202 @@
+package java.util.concurrent;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by an array, for any number of producer threads and one consumer
+ * thread.  At any time, at most one thread may remove elements ({@code
+ * poll}, {@code take}, {@code peek}, {@code drain}, {@code drainTo},
+ * {@code remove()}, {@code clear}); the results of other uses are
+ * undefined.  The other methods may be called by any thread.
+ *
+ * <p>Producers claim a slot by a CAS on the tail and then write their
+ * element to it, so the consumer may find the slot at the head claimed
+ * but still empty, in which case {@code poll} waits for the element,
+ * while {@code drain} stops there.  To check that the queue is not
+ * full, producers compare the tail with a cached limit, reading the
+ * head only when the limit is reached.  Threads wait in the blocking
+ * methods according to a {@link WaitStrategy}.
+ *
+ * <p>The capacity is rounded up to a power of two.  This queue does not
+ * permit null elements, and its iterator is a snapshot that does not
+ * support {@code remove}.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see SpscArrayQueue
+ * @see MpmcArrayQueue
+ * @since 1.8
+ */
+public class MpscArrayQueue<E> extends AbstractArrayQueue<E> {
+
+    /** The tail index up to which producers may claim slots without reading head */
+    @sun.misc.Contended("limit") volatile long producerLimit;
+
+    /**
+     * Creates a queue with the given capacity, rounded up to a power of
+     * two, whose threads wait by parking.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or greater than 2<sup>30</sup>
+     */
+    public MpscArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a queue with the given capacity, rounded up to a power of
+     * two, and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or greater than 2<sup>30</sup>
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public MpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+        this.producerLimit = buffer.length;
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        long limit = producerLimit, t;
+        do {
+            t = tail;
+            if (t - limit >= 0L) {
+                if (t - (limit = head + buffer.length) >= 0L)
+                    return false;
+                producerLimit = limit;  // racing producers may lower it, which is only conservative
+            }
+        } while (!U.compareAndSwapLong(this, TAIL, t, t + 1));
+        U.putOrderedObject(buffer, slotOffset(t), e);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.  If a producer has claimed the slot
+     * at the head but not yet written its element, waits for it.  May
+     * only be called by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        final Object[] buffer = this.buffer;
+        long h = head;
+        long offset = slotOffset(h);
+        Object e = U.getObjectVolatile(buffer, offset);
+        if (e == null) {
+            if (tail == h)
+                return null;
+            while ((e = U.getObjectVolatile(buffer, offset)) == null)
+                Thread.yield();    // producer preempted between claim and write
+        }
+        U.putObject(buffer, offset, null);
+        U.putOrderedLong(this, HEAD, h + 1);
+        return (E)e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or
+     * returns {@code null} if this queue is empty.  May only be called
+     * by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        final Object[] buffer = this.buffer;
+        long h = head;
+        long offset = slotOffset(h);
+        Object e = U.getObjectVolatile(buffer, offset);
+        if (e == null && tail != h) {
+            while ((e = U.getObjectVolatile(buffer, offset)) == null)
+                Thread.yield();
+        }
+        return (E)e;
+    }
+
+    /**
+     * {@inheritDoc}  May only be called by the consumer.  Stops at a
+     * slot that has been claimed by a producer but not yet written.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> c, int limit) {
+        if (c == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        long h = head;
+        int n = 0;
+        for (Object e; n < limit; ++n) {
+            long offset = slotOffset(h);
+            if ((e = U.getObjectVolatile(buffer, offset)) == null)
+                break;
+            U.putObject(buffer, offset, null);
+            U.putOrderedLong(this, HEAD, ++h);
+            c.accept((E)e);
+        }
+        return n;
+    }
+
+    /**
+     * {@inheritDoc}  The elements for the room seen on entry are
+     * obtained first; their slots are then claimed by a single CAS, or
+     * by several if other producers claim slots meanwhile, and filled in
+     * order.
+     */
+    public int fill(Supplier<? extends E> s, int limit) {
+        if (s == null) throw new NullPointerException();
+        if (limit <= 0)
+            return 0;
+        long lim = producerLimit, t = tail;
+        if (lim - t < limit) {
+            if ((lim = head + buffer.length) - t <= 0L)
+                return 0;
+            producerLimit = lim;
+        }
+        int n = (int)Math.min(lim - t, (long)limit);
+        Object[] es = new Object[n];
+        int m = 0;
+        try {
+            for (Object e; m < n; es[m++] = e) {
+                if ((e = s.get()) == null)
+                    throw new NullPointerException();
+            }
+        } finally {
+            putAll(es, m);
+        }
+        return n;
+    }
+
+    /**
+     * Claims slots for, and writes, the first n of the given elements in
+     * order, waiting for room if other producers took it.
+     */
+    private void putAll(Object[] es, int n) {
+        final Object[] buffer = this.buffer;
+        long lim = producerLimit, t;
+        for (int i = 0, count = 0; i < n; ) {
+            t = tail;
+            if (t - lim >= 0L) {
+                if (t - (lim = head + buffer.length) >= 0L) {
+                    waitStrategy.idle(count++);
+                    continue;
+                }
+                producerLimit = lim;
+            }
+            int k = (int)Math.min(lim - t, (long)(n - i));
+            if (U.compareAndSwapLong(this, TAIL, t, t + k)) {
+                for (int j = 0; j < k; ++j)
+                    U.putOrderedObject(buffer, slotOffset(t + j), es[i + j]);
+                i += k;
+            }
+        }
+    }
+}
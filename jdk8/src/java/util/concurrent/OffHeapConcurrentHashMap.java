@@ -0,0 +1,1306 @@
+package java.util.concurrent;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.BiConsumer;
+
+import sun.nio.ch.DirectBuffer;
+
+/**
+ * A concurrent hash map that keeps its keys and values outside the Java
+ * heap.  Mappings are serialized by a pair of {@link Codec}s into
+ * records carved from fixed-size direct {@link ByteBuffer} slabs, and
+ * the hash table itself is a {@code long[]} of slab-relative record
+ * addresses, so the garbage collector sees a handful of primitive
+ * arrays however many entries the map holds.
+ *
+ * <p>Concurrency control follows {@link ConcurrentHashMap}: an empty bin
+ * is claimed by CAS, a non-empty one is updated while holding a lock
+ * for that bin, and the table is doubled cooperatively by
+ * {@code transfer}, with bins that have been moved marked by a
+ * forwarding sentinel.  There are no node objects to synchronize on, so
+ * bins are guarded by a fixed array of lock stripes indexed by bin.
+ * Retrievals take no locks.  Records are immutable once published
+ * (except for their chain link) and a replaced value is written to a
+ * fresh record; because a freed record may be reused at once, every
+ * record carries a sequence number that is bumped when it is freed, and
+ * readers validate it after copying a record out, retrying the lookup
+ * if it changed.  Unlike {@code ConcurrentHashMap}, bins are never
+ * converted to trees.
+ *
+ * <p>Records are allocated from power-of-two size classes; each slab
+ * belongs to one class and freed records go on that class's free list,
+ * so memory released by {@code remove} or {@code put} is reused
+ * without compaction.  The total size of the slabs is bounded by the
+ * {@code maxOffHeapBytes} given at construction; an insertion that
+ * needs a new slab beyond that bound throws
+ * {@link IllegalStateException}.  Slabs are obtained with
+ * {@link ByteBuffer#allocateDirect}, so they are accounted against
+ * {@code -XX:MaxDirectMemorySize} and reported by the {@code "direct"}
+ * {@link java.lang.management.BufferPoolMXBean} like any other direct
+ * buffer; {@link #offHeapBytes} reports this map's share.  Slab memory
+ * is returned when the map becomes unreachable or, eagerly, by
+ * {@link #close}.
+ *
+ * <p>Keys and values are compared by their encoded bytes, so a key
+ * codec must encode equal keys to identical bytes and unequal keys to
+ * different bytes, and keys' {@code hashCode} must be consistent with
+ * {@code equals}.  Like {@code ConcurrentHashMap}, this class does not
+ * allow {@code null} to be used as a key or value.  Every read decodes
+ * a fresh value object, so values are copies: mutating one does not
+ * change the map.
+ *
+ * @param <K> the type of keys maintained by this map
+ * @param <V> the type of mapped values
+ * @see ConcurrentHashMap
+ * @since 1.8
+ */
+public class OffHeapConcurrentHashMap<K,V> extends AbstractMap<K,V>
+    implements ConcurrentMap<K,V>, AutoCloseable {
+
+    /**
+     * Converts keys or values to and from the bytes stored off-heap.
+     *
+     * @param <T> the type of object encoded
+     */
+    public interface Codec<T> {
+        /**
+         * Returns the serialized form of the given non-null object.
+         *
+         * @param t the object to encode
+         * @return its encoded bytes
+         */
+        byte[] encode(T t);
+
+        /**
+         * Reconstructs an object from bytes produced by {@link #encode}.
+         *
+         * @param bytes the encoded bytes
+         * @return the decoded object
+         */
+        T decode(byte[] bytes);
+    }
+
+    /* ---------------- Constants -------------- */
+
+    /**
+     * The largest possible table capacity.
+     */
+    private static final int MAXIMUM_CAPACITY = 1 << 30;
+
+    /**
+     * The default initial table capacity.
+     */
+    private static final int DEFAULT_CAPACITY = 16;
+
+    /**
+     * The default slab size, in bytes.
+     */
+    static final int DEFAULT_SLAB_SIZE = 1 << 20;
+
+    /**
+     * Bounds on slab sizes.  A record may not be larger than a slab.
+     */
+    static final int MIN_SLAB_SIZE = 1 << 12;
+    static final int MAX_SLAB_SIZE = 1 << 30;
+
+    /**
+     * The largest number of slabs; a slab index must fit in the 15 bits
+     * left above the stamp in an address, and index 0 is unused so that
+     * no address is 0.
+     */
+    static final int MAX_SLABS = (1 << 15) - 1;
+
+    /**
+     * Minimum number of rebinnings per transfer step.
+     */
+    private static final int MIN_TRANSFER_STRIDE = 16;
+
+    /**
+     * The number of bits used for generation stamp in sizeCtl.
+     */
+    private static final int RESIZE_STAMP_BITS = 16;
+
+    /**
+     * The maximum number of threads that can help resize.
+     */
+    private static final int MAX_RESIZERS = (1 << (32 - RESIZE_STAMP_BITS)) - 1;
+
+    /**
+     * The bit shift for recording size stamp in sizeCtl.
+     */
+    private static final int RESIZE_STAMP_SHIFT = 32 - RESIZE_STAMP_BITS;
+
+    /**
+     * Bin value marking a bin that has been transferred; plays the part
+     * of ConcurrentHashMap's ForwardingNode.  The table to forward to
+     * is {@link Table#forward}.
+     */
+    static final long MOVED = -1L;
+
+    /** Number of CPUS, to place bounds on some sizings */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /*
+     * Record layout.  A record address packs the slab index (15 bits),
+     * the low 16 bits of the record's sequence number when the address
+     * was handed out, and the byte offset within the slab.
+     */
+    static final int SEQ    = 0;   // int: bumped whenever the record is freed
+    static final int HASH   = 4;   // int: spread hash of the key
+    static final int NEXT   = 8;   // long: next record in bin, or free list
+    static final int KLEN   = 16;  // int: key length
+    static final int VLEN   = 20;  // int: value length
+    static final int HEADER = 24;  // key bytes, then value bytes
+
+    /**
+     * The smallest record size class, as a shift.
+     */
+    static final int MIN_CHUNK_SHIFT = 5;
+
+    /* ---------------- Nested classes -------------- */
+
+    /**
+     * A hash table.  Stands in for ConcurrentHashMap's Node[] plus the
+     * ForwardingNode that points from it to its successor.
+     */
+    static final class Table {
+        final long[] bins;
+        volatile Table forward;   // set before any bin is marked MOVED
+        Table(int n) { bins = new long[n]; }
+    }
+
+    /**
+     * Records of one size, carved out of slabs dedicated to it.
+     */
+    static final class SizeClass {
+        final int chunkSize;
+        long free;                // address of first free record, or 0
+        int slab;                 // index of slab being carved, or 0
+        int top;                  // offset of next uncarved record
+        SizeClass(int chunkSize) { this.chunkSize = chunkSize; }
+    }
+
+    /* ---------------- Static utilities -------------- */
+
+    /**
+     * Spreads (XORs) higher bits of hash to lower and also forces top
+     * bit to 0.  See ConcurrentHashMap#spread.
+     */
+    static final int spread(int h) {
+        return (h ^ (h >>> 16)) & 0x7fffffff;
+    }
+
+    /**
+     * Returns a power of two table size for the given desired capacity.
+     */
+    private static final int tableSizeFor(int c) {
+        int n = c - 1;
+        n |= n >>> 1;
+        n |= n >>> 2;
+        n |= n >>> 4;
+        n |= n >>> 8;
+        n |= n >>> 16;
+        return (n < 0) ? 1 : (n >= MAXIMUM_CAPACITY) ? MAXIMUM_CAPACITY : n + 1;
+    }
+
+    /**
+     * Returns the stamp bits for resizing a table of size n.
+     * Must be negative when shifted left by RESIZE_STAMP_SHIFT.
+     */
+    static final int resizeStamp(int n) {
+        return Integer.numberOfLeadingZeros(n) | (1 << (RESIZE_STAMP_BITS - 1));
+    }
+
+    static final int slabIndex(long p)  { return (int) (p >>> 48); }
+    static final int stamp(long p)      { return (int) (p >>> 32) & 0xffff; }
+    static final int offset(long p)     { return (int) p; }
+
+    static final long address(int slab, int seq, int offset) {
+        return ((long) slab << 48) | ((long) (seq & 0xffff) << 32) |
+            (offset & 0xffffffffL);
+    }
+
+    /* ---------------- Table element access -------------- */
+
+    static final long tabAt(long[] tab, int i) {
+        return U.getLongVolatile(tab, ((long) i << ASHIFT) + ABASE);
+    }
+
+    static final boolean casTabAt(long[] tab, int i, long c, long v) {
+        return U.compareAndSwapLong(tab, ((long) i << ASHIFT) + ABASE, c, v);
+    }
+
+    static final void setTabAt(long[] tab, int i, long v) {
+        U.putLongVolatile(tab, ((long) i << ASHIFT) + ABASE, v);
+    }
+
+    /* ---------------- Fields -------------- */
+
+    /**
+     * The current table.  Replaced wholesale when a transfer finishes;
+     * null once the map has been closed.
+     */
+    transient volatile Table table;
+
+    /**
+     * The next table to use; non-null only while resizing.
+     */
+    private transient volatile Table nextTable;
+
+    /**
+     * Table initialization and resizing control, as in
+     * ConcurrentHashMap: when negative, the table is being resized;
+     * otherwise holds the element count at which to resize.
+     */
+    private transient volatile int sizeCtl;
+
+    /**
+     * The next table index (plus one) to split while resizing.
+     */
+    private transient volatile int transferIndex;
+
+    /**
+     * Mapping count.
+     */
+    private final LongAdder count = new LongAdder();
+
+    /**
+     * Bin lock stripes; bin i of any table is guarded by
+     * {@code locks[i & (locks.length - 1)]}.
+     */
+    private final Object[] locks;
+
+    private final Codec<K> keyCodec;
+    private final Codec<V> valueCodec;
+    final int slabSize;
+    final int maxSlabs;
+    final SizeClass[] classes;
+
+    /**
+     * Base addresses of the slabs, by index; slot 0 is unused.  Grown by
+     * copying under {@code buffers}' lock, so readers always see the
+     * address of any slab an address they hold refers to.
+     */
+    volatile long[] slabAddresses = new long[1];
+
+    /**
+     * The slab buffers, kept reachable so their memory stays reserved.
+     * Guarded by its own lock.
+     */
+    private final ArrayList<ByteBuffer> buffers = new ArrayList<>();
+
+    // views
+    private transient Set<Map.Entry<K,V>> entrySet;
+
+    /* ---------------- Public operations -------------- */
+
+    /**
+     * Creates a new, empty map with the default initial table size
+     * (16), 1 MiB slabs and no bound beyond the number of slabs an
+     * address can name (32 GiB).
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     */
+    public OffHeapConcurrentHashMap(Codec<K> keyCodec, Codec<V> valueCodec) {
+        this(keyCodec, valueCodec, DEFAULT_CAPACITY, DEFAULT_SLAB_SIZE,
+             (long) MAX_SLABS * DEFAULT_SLAB_SIZE);
+    }
+
+    /**
+     * Creates a new, empty map with an initial table size accommodating
+     * the specified number of elements without the need to dynamically
+     * resize, storing records in slabs of the given size and at most
+     * {@code maxOffHeapBytes} bytes of slabs in all.
+     *
+     * @param keyCodec the codec for keys
+     * @param valueCodec the codec for values
+     * @param initialCapacity the implementation performs internal
+     * sizing to accommodate this many elements.
+     * @param slabSize the size of each slab; a power of two between
+     * 4 KiB and 1 GiB, and the upper bound on the size of one record
+     * @param maxOffHeapBytes the upper bound on the total slab size;
+     * at least one slab and at most 32767 slabs
+     * @throws IllegalArgumentException if the initial capacity is
+     * negative or the slab parameters are out of range
+     * @throws NullPointerException if either codec is null
+     */
+    public OffHeapConcurrentHashMap(Codec<K> keyCodec, Codec<V> valueCodec,
+                                    int initialCapacity, int slabSize,
+                                    long maxOffHeapBytes) {
+        if (keyCodec == null || valueCodec == null)
+            throw new NullPointerException();
+        if (initialCapacity < 0 || slabSize < MIN_SLAB_SIZE ||
+            slabSize > MAX_SLAB_SIZE || (slabSize & (slabSize - 1)) != 0 ||
+            maxOffHeapBytes < slabSize ||
+            maxOffHeapBytes / slabSize > MAX_SLABS)
+            throw new IllegalArgumentException();
+        this.keyCodec = keyCodec;
+        this.valueCodec = valueCodec;
+        this.slabSize = slabSize;
+        this.maxSlabs = (int) (maxOffHeapBytes / slabSize);
+        int nc = Integer.numberOfTrailingZeros(slabSize) - MIN_CHUNK_SHIFT + 1;
+        SizeClass[] cs = new SizeClass[nc];
+        for (int c = 0; c < nc; ++c)
+            cs[c] = new SizeClass(1 << (c + MIN_CHUNK_SHIFT));
+        this.classes = cs;
+        Object[] ls = new Object[Math.min(tableSizeFor(NCPU << 6), 1 << 12)];
+        for (int i = 0; i < ls.length; ++i)
+            ls[i] = new Object();
+        this.locks = ls;
+        int n = (initialCapacity >= (MAXIMUM_CAPACITY >>> 1)) ?
+            MAXIMUM_CAPACITY :
+            tableSizeFor(initialCapacity + (initialCapacity >>> 1) + 1);
+        this.table = new Table(n);
+        this.sizeCtl = n - (n >>> 2);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public int size() {
+        long n = count.sum();
+        return ((n < 0L) ? 0 :
+                (n > (long)Integer.MAX_VALUE) ? Integer.MAX_VALUE :
+                (int)n);
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public boolean isEmpty() {
+        return count.sum() <= 0L; // ignore transient negative values
+    }
+
+    /**
+     * Returns the number of mappings.  This method should be used
+     * instead of {@link #size} because a map may contain more mappings
+     * than can be represented as an int.
+     *
+     * @return the number of mappings
+     */
+    public long mappingCount() {
+        long n = count.sum();
+        return (n < 0L) ? 0L : n; // ignore transient negative values
+    }
+
+    /**
+     * Returns the number of bytes of direct memory currently held by
+     * this map's slabs.  This is included in the totals reported for
+     * the {@code "direct"} buffer pool.
+     *
+     * @return the off-heap footprint of this map, in bytes
+     */
+    public long offHeapBytes() {
+        return (long) (slabAddresses.length - 1) * slabSize;
+    }
+
+    /**
+     * Returns the value to which the specified key is mapped,
+     * or {@code null} if this map contains no mapping for the key.
+     *
+     * @throws NullPointerException if the specified key is null
+     * @throws ClassCastException if the key is not of the type the key
+     *         codec accepts
+     */
+    public V get(Object key) {
+        @SuppressWarnings("unchecked") K k = (K) key;
+        byte[] v = find(spread(key.hashCode()), keyCodec.encode(k));
+        return (v == null) ? null : valueCodec.decode(v);
+    }
+
+    /**
+     * Tests if the specified object is a key in this table.
+     *
+     * @param  key possible key
+     * @return {@code true} if and only if the specified object
+     *         is a key in this table
+     * @throws NullPointerException if the specified key is null
+     */
+    public boolean containsKey(Object key) {
+        @SuppressWarnings("unchecked") K k = (K) key;
+        return find(spread(key.hashCode()), keyCodec.encode(k)) != null;
+    }
+
+    /**
+     * Maps the specified key to the specified value in this table.
+     * Neither the key nor the value can be null.
+     *
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key or value is null
+     * @throws IllegalStateException if storing the mapping would exceed
+     *         the off-heap bound
+     * @throws IllegalArgumentException if the encoded mapping does not
+     *         fit in one slab
+     */
+    public V put(K key, V value) {
+        return putVal(key, value, false);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V putIfAbsent(K key, V value) {
+        return putVal(key, value, true);
+    }
+
+    /**
+     * Removes the key (and its corresponding value) from this map.
+     * This method does nothing if the key is not in the map.
+     *
+     * @param  key the key that needs to be removed
+     * @return the previous value associated with {@code key}, or
+     *         {@code null} if there was no mapping for {@code key}
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public V remove(Object key) {
+        return replaceNode((K) key, null, null);
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if the specified key is null
+     */
+    @SuppressWarnings("unchecked")
+    public boolean remove(Object key, Object value) {
+        if (key == null)
+            throw new NullPointerException();
+        return value != null &&
+            replaceNode((K) key, null, valueCodec.encode((V) value)) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @throws NullPointerException if any of the arguments are null
+     */
+    public boolean replace(K key, V oldValue, V newValue) {
+        if (key == null || oldValue == null || newValue == null)
+            throw new NullPointerException();
+        return replaceNode(key, newValue, valueCodec.encode(oldValue)) != null;
+    }
+
+    /**
+     * {@inheritDoc}
+     *
+     * @return the previous value associated with the specified key,
+     *         or {@code null} if there was no mapping for the key
+     * @throws NullPointerException if the specified key or value is null
+     */
+    public V replace(K key, V value) {
+        if (key == null || value == null)
+            throw new NullPointerException();
+        return replaceNode(key, value, null);
+    }
+
+    /**
+     * Removes all of the mappings from this map.  The slabs are kept
+     * for reuse; see {@link #close}.
+     */
+    public void clear() {
+        long delta = 0L; // negative number of deletions
+        int i = 0;
+        Table t = liveTable();
+        while (i < t.bins.length) {
+            long[] tab = t.bins;
+            long f = tabAt(tab, i);
+            if (f == 0L)
+                ++i;
+            else if (f == MOVED) {
+                t = helpTransfer(t);
+                i = 0; // restart
+            }
+            else {
+                synchronized (lockFor(i)) {
+                    if (tabAt(tab, i) == f) {
+                        setTabAt(tab, i, 0L);
+                        for (long p = f, q; p != 0L; p = q) {
+                            q = nextOf(p);
+                            free(p);
+                            --delta;
+                        }
+                        ++i;
+                    }
+                }
+            }
+        }
+        if (delta != 0L)
+            count.add(delta);
+    }
+
+    /**
+     * Returns a {@link Set} view of the mappings contained in this map.
+     * The set is backed by the map, so removals through it are
+     * reflected in the map.  Its iterators are weakly consistent, and
+     * copy one bin at a time out of the table; the entries they return
+     * hold decoded copies of the key and value, and
+     * {@code setValue} writes through with {@code put}.
+     *
+     * @return the set view
+     */
+    public Set<Map.Entry<K,V>> entrySet() {
+        Set<Map.Entry<K,V>> es;
+        return (es = entrySet) != null ? es : (entrySet = new EntrySetView());
+    }
+
+    /**
+     * {@inheritDoc}
+     */
+    public void forEach(BiConsumer<? super K, ? super V> action) {
+        if (action == null) throw new NullPointerException();
+        for (Iterator<Map.Entry<K,V>> it = new EntryIterator(); it.hasNext(); ) {
+            Map.Entry<K,V> e = it.next();
+            action.accept(e.getKey(), e.getValue());
+        }
+    }
+
+    /**
+     * Releases the slabs' direct memory now rather than when the map is
+     * collected.  The map is unusable afterwards.  This method must not
+     * be called while other threads may still be using the map: a
+     * concurrent lookup could touch memory that has been freed.
+     */
+    public void close() {
+        synchronized (buffers) {
+            if (table == null)
+                return;
+            table = null;
+            slabAddresses = new long[1];
+            for (ByteBuffer b : buffers)
+                ((DirectBuffer) b).cleaner().clean();
+            buffers.clear();
+        }
+    }
+
+    /* ---------------- Implementations -------------- */
+
+    private Table liveTable() {
+        Table t;
+        if ((t = table) == null)
+            throw new IllegalStateException("map has been closed");
+        return t;
+    }
+
+    private Object lockFor(int i) {
+        Object[] ls = locks;
+        return ls[i & (ls.length - 1)];
+    }
+
+    private long base(long p) {
+        return slabAddresses[slabIndex(p)] + offset(p);
+    }
+
+    private long nextOf(long p) {
+        return U.getLongVolatile(null, base(p) + NEXT);
+    }
+
+    private int hashOf(long p) {
+        return U.getInt(base(p) + HASH);
+    }
+
+    /**
+     * Returns true if the key bytes at the given record base equal kb.
+     * Caller has checked the length.
+     */
+    private static boolean keyEquals(long a, byte[] kb) {
+        long k = a + HEADER;
+        int n = kb.length, i = 0;
+        for (; i + 8 <= n; i += 8) {
+            if (U.getLong(k + i) != U.getLong(kb, BYTE_ARRAY_BASE + i))
+                return false;
+        }
+        for (; i < n; ++i) {
+            if (U.getByte(k + i) != kb[i])
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Copies a record's value bytes to the heap.
+     */
+    private static byte[] valueBytes(long a) {
+        int kl = U.getInt(a + KLEN), vl = U.getInt(a + VLEN);
+        byte[] vb = new byte[vl];
+        U.copyMemory(null, a + HEADER + kl, vb, BYTE_ARRAY_BASE, vl);
+        return vb;
+    }
+
+    /**
+     * Copies a record's key bytes to the heap.
+     */
+    private static byte[] keyBytes(long a) {
+        int kl = U.getInt(a + KLEN);
+        byte[] kb = new byte[kl];
+        U.copyMemory(null, a + HEADER, kb, BYTE_ARRAY_BASE, kl);
+        return kb;
+    }
+
+    /**
+     * Returns true if the value bytes at the given record base equal vb.
+     */
+    private static boolean valueEquals(long a, byte[] vb) {
+        if (U.getInt(a + VLEN) != vb.length)
+            return false;
+        return Arrays.equals(valueBytes(a), vb);
+    }
+
+    /**
+     * Lock-free lookup returning a copy of the value bytes for the key,
+     * or null.  Each record is validated against its sequence number
+     * after it has been read; a mismatch means the record was freed (and
+     * perhaps reused) under us, so the lookup starts over.  Lengths are
+     * bounds-checked before use because a reused record may be
+     * half-written when we look at it.
+     */
+    private byte[] find(int h, byte[] kb) {
+        retry: for (;;) {
+            Table t = liveTable();
+            for (;;) {
+                long[] tab = t.bins;
+                long e = tabAt(tab, (tab.length - 1) & h);
+                if (e == MOVED) {
+                    t = t.forward;
+                    continue;
+                }
+                while (e != 0L) {
+                    long a = base(e);
+                    int seq = U.getIntVolatile(null, a + SEQ);
+                    long next = U.getLong(a + NEXT);
+                    byte[] vb = null;
+                    if (U.getInt(a + HASH) == h) {
+                        int kl = U.getInt(a + KLEN), vl = U.getInt(a + VLEN);
+                        if (kl == kb.length && vl >= 0 &&
+                            (long) HEADER + kl + vl <= slabSize - offset(e) &&
+                            keyEquals(a, kb)) {
+                            vb = new byte[vl];
+                            U.copyMemory(null, a + HEADER + kl,
+                                         vb, BYTE_ARRAY_BASE, vl);
+                        }
+                    }
+                    U.loadFence();
+                    if (U.getInt(a + SEQ) != seq || (seq & 0xffff) != stamp(e))
+                        continue retry;
+                    if (vb != null)
+                        return vb;
+                    e = next;
+                }
+                return null;
+            }
+        }
+    }
+
+    /** Implementation for put and putIfAbsent */
+    final V putVal(K key, V value, boolean onlyIfAbsent) {
+        if (key == null || value == null) throw new NullPointerException();
+        byte[] kb = keyCodec.encode(key), vb = valueCodec.encode(value);
+        int hash = spread(key.hashCode());
+        int binCount = 0;
+        for (Table t = liveTable();;) {
+            long[] tab = t.bins;
+            long f; int n = tab.length, i;
+            if ((f = tabAt(tab, i = (n - 1) & hash)) == 0L) {
+                long p = newRecord(hash, kb, vb, 0L, false);
+                if (casTabAt(tab, i, 0L, p))
+                    break;                   // no lock when adding to empty bin
+                free(p);
+            }
+            else if (f == MOVED)
+                t = helpTransfer(t);
+            else {
+                byte[] oldVal = null;
+                synchronized (lockFor(i)) {
+                    if (tabAt(tab, i) == f) {
+                        binCount = 1;
+                        for (long e = f, pred = 0L;; ++binCount) {
+                            long a = base(e), next = U.getLong(a + NEXT);
+                            if (U.getInt(a + HASH) == hash &&
+                                U.getInt(a + KLEN) == kb.length &&
+                                keyEquals(a, kb)) {
+                                oldVal = valueBytes(a);
+                                if (!onlyIfAbsent) {
+                                    long p = newRecord(hash, kb, vb, next, false);
+                                    if (pred == 0L)
+                                        setTabAt(tab, i, p);
+                                    else
+                                        U.putLongVolatile(null, base(pred) + NEXT, p);
+                                    free(e);
+                                }
+                                break;
+                            }
+                            pred = e;
+                            if ((e = next) == 0L) {
+                                U.putLongVolatile(null, base(pred) + NEXT,
+                                                  newRecord(hash, kb, vb, 0L, false));
+                                break;
+                            }
+                        }
+                    }
+                }
+                if (binCount != 0) {
+                    if (oldVal != null)
+                        return valueCodec.decode(oldVal);
+                    break;
+                }
+            }
+        }
+        addCount(1L, binCount);
+        return null;
+    }
+
+    /**
+     * Implementation for the four public remove/replace methods:
+     * Replaces the record's value with v, conditional upon its value
+     * bytes matching cv if non-null.  If v is null, delete.
+     */
+    final V replaceNode(K key, V value, byte[] cv) {
+        int hash = spread(key.hashCode());
+        byte[] kb = keyCodec.encode(key);
+        byte[] vb = (value == null) ? null : valueCodec.encode(value);
+        for (Table t = liveTable();;) {
+            long[] tab = t.bins;
+            long f; int n = tab.length, i;
+            if ((f = tabAt(tab, i = (n - 1) & hash)) == 0L)
+                break;
+            else if (f == MOVED)
+                t = helpTransfer(t);
+            else {
+                byte[] oldVal = null;
+                boolean validated = false;
+                synchronized (lockFor(i)) {
+                    if (tabAt(tab, i) == f) {
+                        validated = true;
+                        for (long e = f, pred = 0L;;) {
+                            long a = base(e), next = U.getLong(a + NEXT);
+                            if (U.getInt(a + HASH) == hash &&
+                                U.getInt(a + KLEN) == kb.length &&
+                                keyEquals(a, kb)) {
+                                if (cv == null || valueEquals(a, cv)) {
+                                    oldVal = valueBytes(a);
+                                    long r = (vb == null) ? next :
+                                        newRecord(hash, kb, vb, next, false);
+                                    if (pred == 0L)
+                                        setTabAt(tab, i, r);
+                                    else
+                                        U.putLongVolatile(null, base(pred) + NEXT, r);
+                                    free(e);
+                                }
+                                break;
+                            }
+                            pred = e;
+                            if ((e = next) == 0L)
+                                break;
+                        }
+                    }
+                }
+                if (validated) {
+                    if (oldVal != null) {
+                        if (value == null)
+                            count.add(-1L);
+                        return valueCodec.decode(oldVal);
+                    }
+                    break;
+                }
+            }
+        }
+        return null;
+    }
+
+    /* ---------------- Slab allocation -------------- */
+
+    /**
+     * Writes a new record and returns its address.  The record is not
+     * yet visible to other threads.
+     *
+     * @param mayExceed whether the off-heap bound may be overshot; true
+     * only while transferring, which must not fail halfway
+     */
+    private long newRecord(int hash, byte[] kb, byte[] vb, long next,
+                           boolean mayExceed) {
+        long p = allocate(HEADER + kb.length + vb.length, mayExceed);
+        long a = base(p);
+        U.putInt(a + HASH, hash);
+        U.putLong(a + NEXT, next);
+        U.putInt(a + KLEN, kb.length);
+        U.putInt(a + VLEN, vb.length);
+        U.copyMemory(kb, BYTE_ARRAY_BASE, null, a + HEADER, kb.length);
+        U.copyMemory(vb, BYTE_ARRAY_BASE, null, a + HEADER + kb.length,
+                     vb.length);
+        return p;
+    }
+
+    /**
+     * Copies the record at p into a fresh record linked to next.
+     */
+    private long copyRecord(long p, long next) {
+        long a = base(p);
+        int size = HEADER + U.getInt(a + KLEN) + U.getInt(a + VLEN);
+        long q = allocate(size, true);
+        long b = base(q);
+        U.copyMemory(null, a + HASH, null, b + HASH, size - HASH);
+        U.putLong(b + NEXT, next);
+        return q;
+    }
+
+    private SizeClass sizeClassFor(int size) {
+        if (size > slabSize || size < 0)
+            throw new IllegalArgumentException("record of " + size +
+                                               " bytes exceeds slab size");
+        int c = (size <= (1 << MIN_CHUNK_SHIFT)) ? 0 :
+            32 - Integer.numberOfLeadingZeros(size - 1) - MIN_CHUNK_SHIFT;
+        return classes[c];
+    }
+
+    /**
+     * Returns the address of a record of at least the given size,
+     * popping its class's free list or carving from its current slab.
+     */
+    private long allocate(int size, boolean mayExceed) {
+        SizeClass sc = sizeClassFor(size);
+        synchronized (sc) {
+            long p;
+            if ((p = sc.free) != 0L) {
+                sc.free = U.getLong(base(p) + NEXT);
+                return p;
+            }
+            if (sc.slab == 0 || sc.top > slabSize - sc.chunkSize) {
+                sc.slab = newSlab(mayExceed);
+                sc.top = 0;
+            }
+            int off = sc.top;
+            sc.top = off + sc.chunkSize;
+            return address(sc.slab, 0, off); // fresh slabs are zeroed
+        }
+    }
+
+    /**
+     * Bumps the record's sequence number, invalidating addresses held by
+     * readers, and pushes it on its class's free list.  The caller must
+     * already have unlinked it.
+     */
+    private void free(long p) {
+        long a = base(p);
+        int seq = U.getInt(a + SEQ) + 1;
+        U.putIntVolatile(null, a + SEQ, seq);
+        U.storeFence(); // order the bump before any reuse of the record
+        SizeClass sc = sizeClassFor(HEADER + U.getInt(a + KLEN) +
+                                    U.getInt(a + VLEN));
+        synchronized (sc) {
+            U.putLong(a + NEXT, sc.free);
+            sc.free = address(slabIndex(p), seq, offset(p));
+        }
+    }
+
+    /**
+     * Allocates a slab and returns its index.
+     */
+    private int newSlab(boolean mayExceed) {
+        synchronized (buffers) {
+            long[] bases = slabAddresses;
+            int n = bases.length;  // index of the new slab
+            if (table == null)
+                throw new IllegalStateException("map has been closed");
+            if (n > maxSlabs && (!mayExceed || n > MAX_SLABS))
+                throw new IllegalStateException("off-heap capacity of " +
+                                                (long) maxSlabs * slabSize +
+                                                " bytes exhausted");
+            ByteBuffer b = ByteBuffer.allocateDirect(slabSize);
+            buffers.add(b);
+            long[] nb = Arrays.copyOf(bases, n + 1);
+            nb[n] = ((DirectBuffer) b).address();
+            slabAddresses = nb;
+            return n;
+        }
+    }
+
+    /* ---------------- Resizing -------------- */
+
+    /**
+     * Adds to count, and if table is too small and not already
+     * resizing, initiates transfer. If already resizing, helps
+     * perform transfer if work is available.  Rechecks occupancy
+     * after a transfer to see if another resize is already needed
+     * because resizings are lagging additions.
+     *
+     * @param x the count to add
+     * @param check if <0, don't check resize
+     */
+    private final void addCount(long x, int check) {
+        count.add(x);
+        if (check >= 0) {
+            Table tab, nt; int n, sc;
+            long s = count.sum();
+            while (s >= (long)(sc = sizeCtl) && (tab = table) != null &&
+                   (n = tab.bins.length) < MAXIMUM_CAPACITY) {
+                int rs = resizeStamp(n) << RESIZE_STAMP_SHIFT;
+                if (sc < 0) {
+                    if (sc == rs + MAX_RESIZERS || sc == rs + 1 ||
+                        (nt = nextTable) == null || transferIndex <= 0)
+                        break;
+                    if (U.compareAndSwapInt(this, SIZECTL, sc, sc + 1))
+                        transfer(tab, nt);
+                }
+                else if (U.compareAndSwapInt(this, SIZECTL, sc, rs + 2))
+                    transfer(tab, null);
+                s = count.sum();
+            }
+        }
+    }
+
+    /**
+     * Helps transfer if a resize is in progress.
+     */
+    final Table helpTransfer(Table tab) {
+        Table nextTab; int sc;
+        if ((nextTab = tab.forward) != null) {
+            int rs = resizeStamp(tab.bins.length) << RESIZE_STAMP_SHIFT;
+            while (nextTab == nextTable && table == tab &&
+                   (sc = sizeCtl) < 0) {
+                if (sc == rs + MAX_RESIZERS || sc == rs + 1 ||
+                    transferIndex <= 0)
+                    break;
+                if (U.compareAndSwapInt(this, SIZECTL, sc, sc + 1)) {
+                    transfer(tab, nextTab);
+                    break;
+                }
+            }
+            return nextTab;
+        }
+        return liveTable();
+    }
+
+    /**
+     * Moves and/or copies the records in each bin to new table, as in
+     * ConcurrentHashMap#transfer.  The trailing run of records that all
+     * go to the same new bin is relinked as is; records ahead of it are
+     * copied, and the originals freed once the old bin is forwarded.
+     */
+    private final void transfer(Table tab, Table nextTab) {
+        long[] old = tab.bins;
+        int n = old.length, stride;
+        if ((stride = (NCPU > 1) ? (n >>> 3) / NCPU : n) < MIN_TRANSFER_STRIDE)
+            stride = MIN_TRANSFER_STRIDE; // subdivide range
+        if (nextTab == null) {            // initiating
+            try {
+                nextTab = new Table(n << 1);
+            } catch (Throwable ex) {      // try to cope with OOME
+                sizeCtl = Integer.MAX_VALUE;
+                return;
+            }
+            tab.forward = nextTab;
+            nextTable = nextTab;
+            transferIndex = n;
+        }
+        long[] nt = nextTab.bins;
+        int nextn = nt.length;
+        boolean advance = true;
+        boolean finishing = false; // to ensure sweep before committing nextTab
+        for (int i = 0, bound = 0;;) {
+            long f;
+            while (advance) {
+                int nextIndex, nextBound;
+                if (--i >= bound || finishing)
+                    advance = false;
+                else if ((nextIndex = transferIndex) <= 0) {
+                    i = -1;
+                    advance = false;
+                }
+                else if (U.compareAndSwapInt
+                         (this, TRANSFERINDEX, nextIndex,
+                          nextBound = (nextIndex > stride ?
+                                       nextIndex - stride : 0))) {
+                    bound = nextBound;
+                    i = nextIndex - 1;
+                    advance = false;
+                }
+            }
+            if (i < 0 || i >= n || i + n >= nextn) {
+                int sc;
+                if (finishing) {
+                    nextTable = null;
+                    table = nextTab;
+                    sizeCtl = (n << 1) - (n >>> 1);
+                    return;
+                }
+                if (U.compareAndSwapInt(this, SIZECTL, sc = sizeCtl, sc - 1)) {
+                    if ((sc - 2) != resizeStamp(n) << RESIZE_STAMP_SHIFT)
+                        return;
+                    finishing = advance = true;
+                    i = n; // recheck before commit
+                }
+            }
+            else if ((f = tabAt(old, i)) == 0L)
+                advance = casTabAt(old, i, 0L, MOVED);
+            else if (f == MOVED)
+                advance = true; // already processed
+            else {
+                synchronized (lockFor(i)) {
+                    if (tabAt(old, i) == f) {
+                        long ln, hn;
+                        int runBit = hashOf(f) & n;
+                        long lastRun = f;
+                        for (long p = nextOf(f); p != 0L; p = nextOf(p)) {
+                            int b = hashOf(p) & n;
+                            if (b != runBit) {
+                                runBit = b;
+                                lastRun = p;
+                            }
+                        }
+                        if (runBit == 0) {
+                            ln = lastRun;
+                            hn = 0L;
+                        }
+                        else {
+                            hn = lastRun;
+                            ln = 0L;
+                        }
+                        for (long p = f; p != lastRun; p = nextOf(p)) {
+                            if ((hashOf(p) & n) == 0)
+                                ln = copyRecord(p, ln);
+                            else
+                                hn = copyRecord(p, hn);
+                        }
+                        setTabAt(nt, i, ln);
+                        setTabAt(nt, i + n, hn);
+                        setTabAt(old, i, MOVED);
+                        for (long p = f, q; p != lastRun; p = q) {
+                            q = nextOf(p);
+                            free(p);
+                        }
+                        advance = true;
+                    }
+                }
+            }
+        }
+    }
+
+    /* ---------------- Views -------------- */
+
+    /**
+     * Appends the encoded keys and values of bin i of t to out, reading
+     * the bin under its lock and following forwarding to the two bins
+     * it was split into.
+     */
+    private void readBin(Table t, int i, ArrayList<byte[]> out) {
+        for (;;) {
+            long[] tab = t.bins;
+            long f = tabAt(tab, i);
+            if (f == 0L)
+                return;
+            if (f == MOVED) {
+                Table nt = t.forward;
+                readBin(nt, i, out);
+                readBin(nt, i + tab.length, out);
+                return;
+            }
+            synchronized (lockFor(i)) {
+                if (tabAt(tab, i) == f) {
+                    for (long p = f; p != 0L; p = nextOf(p)) {
+                        long a = base(p);
+                        out.add(keyBytes(a));
+                        out.add(valueBytes(a));
+                    }
+                    return;
+                }
+            }
+        }
+    }
+
+    final class EntryIterator implements Iterator<Map.Entry<K,V>> {
+        final Table base = liveTable();
+        final ArrayList<byte[]> batch = new ArrayList<>();
+        int index;          // next bin of base to read
+        int pos;            // next key in batch
+        K lastKey;
+
+        public boolean hasNext() {
+            while (pos >= batch.size()) {
+                if (index >= base.bins.length)
+                    return false;
+                batch.clear();
+                pos = 0;
+                readBin(base, index++, batch);
+            }
+            return true;
+        }
+
+        public Map.Entry<K,V> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            K k = keyCodec.decode(batch.get(pos));
+            V v = valueCodec.decode(batch.get(pos + 1));
+            pos += 2;
+            lastKey = k;
+            return new MapEntry(k, v);
+        }
+
+        public void remove() {
+            K k;
+            if ((k = lastKey) == null)
+                throw new IllegalStateException();
+            lastKey = null;
+            OffHeapConcurrentHashMap.this.remove(k);
+        }
+    }
+
+    /**
+     * Exported Entry for EntryIterator.
+     */
+    final class MapEntry implements Map.Entry<K,V> {
+        final K key;
+        V val;
+        MapEntry(K key, V val) {
+            this.key = key;
+            this.val = val;
+        }
+        public K getKey()        { return key; }
+        public V getValue()      { return val; }
+        public int hashCode()    { return key.hashCode() ^ val.hashCode(); }
+        public String toString() { return key + "=" + val; }
+
+        public boolean equals(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    (k == key || k.equals(key)) &&
+                    (v == val || v.equals(val)));
+        }
+
+        /**
+         * Sets our entry's value and writes through to the map.  The
+         * value to return is the one this entry last saw.
+         */
+        public V setValue(V value) {
+            if (value == null) throw new NullPointerException();
+            V v = val;
+            val = value;
+            put(key, value);
+            return v;
+        }
+    }
+
+    final class EntrySetView extends AbstractSet<Map.Entry<K,V>> {
+        public Iterator<Map.Entry<K,V>> iterator() { return new EntryIterator(); }
+        public int size()                           { return OffHeapConcurrentHashMap.this.size(); }
+        public boolean isEmpty()                    { return OffHeapConcurrentHashMap.this.isEmpty(); }
+        public void clear()                         { OffHeapConcurrentHashMap.this.clear(); }
+
+        public boolean contains(Object o) {
+            Object k, v, r; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (r = get(k)) != null &&
+                    (v = e.getValue()) != null &&
+                    (v == r || v.equals(r)));
+        }
+
+        public boolean remove(Object o) {
+            Object k, v; Map.Entry<?,?> e;
+            return ((o instanceof Map.Entry) &&
+                    (k = (e = (Map.Entry<?,?>)o).getKey()) != null &&
+                    (v = e.getValue()) != null &&
+                    OffHeapConcurrentHashMap.this.remove(k, v));
+        }
+    }
+
+    /* ---------------- Codecs -------------- */
+
+    /**
+     * Returns a codec storing strings as UTF-8.
+     *
+     * @return a UTF-8 string codec
+     */
+    public static Codec<String> utf8Codec() {
+        return Utf8Codec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec storing longs as eight big-endian bytes.
+     *
+     * @return a long codec
+     */
+    public static Codec<Long> longCodec() {
+        return LongCodec.INSTANCE;
+    }
+
+    /**
+     * Returns a codec storing ints as four big-endian bytes.
+     *
+     * @return an int codec
+     */
+    public static Codec<Integer> intCodec() {
+        return IntCodec.INSTANCE;
+    }
+
+    static final class Utf8Codec implements Codec<String> {
+        static final Utf8Codec INSTANCE = new Utf8Codec();
+        public byte[] encode(String s) { return s.getBytes(StandardCharsets.UTF_8); }
+        public String decode(byte[] b) { return new String(b, StandardCharsets.UTF_8); }
+    }
+
+    static final class LongCodec implements Codec<Long> {
+        static final LongCodec INSTANCE = new LongCodec();
+        public byte[] encode(Long v) {
+            return ByteBuffer.allocate(8).putLong(v).array();
+        }
+        public Long decode(byte[] b) {
+            return ByteBuffer.wrap(b).getLong();
+        }
+    }
+
+    static final class IntCodec implements Codec<Integer> {
+        static final IntCodec INSTANCE = new IntCodec();
+        public byte[] encode(Integer v) {
+            return ByteBuffer.allocate(4).putInt(v).array();
+        }
+        public Integer decode(byte[] b) {
+            return ByteBuffer.wrap(b).getInt();
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long SIZECTL;
+    private static final long TRANSFERINDEX;
+    private static final long ABASE;
+    private static final int ASHIFT;
+    private static final long BYTE_ARRAY_BASE;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            Class<?> k = OffHeapConcurrentHashMap.class;
+            SIZECTL = U.objectFieldOffset
+                (k.getDeclaredField("sizeCtl"));
+            TRANSFERINDEX = U.objectFieldOffset
+                (k.getDeclaredField("transferIndex"));
+            Class<?> ak = long[].class;
+            ABASE = U.arrayBaseOffset(ak);
+            int scale = U.arrayIndexScale(ak);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            BYTE_ARRAY_BASE = U.arrayBaseOffset(byte[].class);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
@@ -184,6 +184,10 @@ public class Semaphore implements java.io.Serializable {
             }
         }
 
+        protected final int tryAcquireSharedUnowned(int acquires) {
+            return nonfairTryAcquireShared(acquires);
+        }
+
         protected final boolean tryReleaseShared(int releases) {
             for (;;) {
                 int current = getState();
@@ -582,6 +586,71 @@ public class Semaphore implements java.io.Serializable {
         return sync.tryAcquireSharedNanos(permits, unit.toNanos(timeout));
     }
 
+    /**
+     * Acquires a permit from this semaphore without blocking, as
+     * {@link #acquireAsync(int) acquireAsync(1)} does.
+     *
+     * @return a future completed when the permit is acquired
+     * @since 1.8
+     */
+    public CompletableFuture<Void> acquireAsync() {
+        return sync.acquireSharedAsync(1);
+    }
+
+    /**
+     * Acquires the given number of permits from this semaphore without
+     * blocking.
+     *
+     * <p>If the permits are available and no thread is waiting for
+     * permits, they are taken at once and a completed future is
+     * returned.  Otherwise the request is queued in order with the
+     * threads waiting for permits, but without a thread of its own, and
+     * the returned future is completed by a thread of the {@linkplain
+     * ForkJoinPool#commonPool() common pool} once the permits are
+     * assigned to it, whatever the fairness setting.  No thread is
+     * blocked meanwhile, which makes this method suitable for bounding
+     * the concurrency of asynchronous tasks without starving the pool
+     * that runs them:
+     *
+     * <pre> {@code
+     * semaphore.acquireAsync(1)
+     *     .thenCompose(v -> call())
+     *     .whenComplete((r, ex) -> semaphore.release(1));}</pre>
+     *
+     * <p>Cancelling the future before the permits are assigned
+     * withdraws the request.
+     *
+     * @param permits the number of permits to acquire
+     * @return a future completed when the permits are acquired
+     * @throws IllegalArgumentException if {@code permits} is negative
+     * @since 1.8
+     */
+    public CompletableFuture<Void> acquireAsync(int permits) {
+        if (permits < 0) throw new IllegalArgumentException();
+        return sync.acquireSharedAsync(permits);
+    }
+
+    /**
+     * Acquires the given number of permits from this semaphore without
+     * blocking, as {@link #acquireAsync(int)} does, unless the given
+     * waiting time elapses first.  If the time is less than or equal to
+     * zero, the request is not queued.
+     *
+     * @param permits the number of permits to acquire
+     * @param timeout the maximum time to wait for the permits
+     * @param unit the time unit of the {@code timeout} argument
+     * @return a future completed with {@code true} when the permits are
+     *         acquired, or {@code false} if the waiting time elapsed
+     *         before
+     * @throws IllegalArgumentException if {@code permits} is negative
+     * @since 1.8
+     */
+    public CompletableFuture<Boolean> tryAcquireAsync(int permits, long timeout,
+                                                      TimeUnit unit) {
+        if (permits < 0) throw new IllegalArgumentException();
+        return sync.tryAcquireSharedNanosAsync(permits, unit.toNanos(timeout));
+    }
+
     /**
      * Releases the given number of permits, returning them to the semaphore.
      *
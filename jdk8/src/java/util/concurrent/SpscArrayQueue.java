@@ -0,0 +1,162 @@
+package java.util.concurrent;
+
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+
+/**
+ * A bounded lock-free {@linkplain BlockingQueue blocking queue} backed
+ * by an array, for one producer thread and one consumer thread.  At any
+ * time, at most one thread may insert elements ({@code offer}, {@code
+ * put}, {@code fill}, {@code add}) and at most one thread may remove them
+ * ({@code poll}, {@code take}, {@code peek}, {@code drain}, {@code
+ * drainTo}, {@code remove()}, {@code clear}); the results of other uses
+ * are undefined.  The other methods may be called by any thread.
+ *
+ * <p>Unlike {@link ArrayBlockingQueue}, there is no lock: the producer
+ * writes an element and then advances the tail with an ordered write,
+ * and the consumer reads it once it sees the new tail.  Each side also
+ * keeps a cached copy of the other side's counter and reads the shared
+ * one only when the cache says the queue is full or empty, so in steady
+ * state they rarely touch each other's cache lines.  Threads wait in
+ * the blocking methods according to a {@link WaitStrategy}.
+ *
+ * <p>The capacity is rounded up to a power of two.  This queue does not
+ * permit null elements, and its iterator is a snapshot that does not
+ * support {@code remove}.
+ *
+ * @param <E> the type of elements held in this queue
+ * @see MpscArrayQueue
+ * @see MpmcArrayQueue
+ * @since 1.8
+ */
+public class SpscArrayQueue<E> extends AbstractArrayQueue<E> {
+
+    /** The producer's copy of head */
+    @sun.misc.Contended("producer") long headCache;
+
+    /** The consumer's copy of tail */
+    @sun.misc.Contended("consumer") long tailCache;
+
+    /**
+     * Creates a queue with the given capacity, rounded up to a power of
+     * two, whose threads wait by parking.
+     *
+     * @param capacity the capacity of this queue
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or greater than 2<sup>30</sup>
+     */
+    public SpscArrayQueue(int capacity) {
+        this(capacity, WaitStrategy.PARK);
+    }
+
+    /**
+     * Creates a queue with the given capacity, rounded up to a power of
+     * two, and wait strategy.
+     *
+     * @param capacity the capacity of this queue
+     * @param waitStrategy how threads wait in the blocking methods
+     * @throws IllegalArgumentException if {@code capacity} is not
+     *         positive or greater than 2<sup>30</sup>
+     * @throws NullPointerException if {@code waitStrategy} is null
+     */
+    public SpscArrayQueue(int capacity, WaitStrategy waitStrategy) {
+        super(capacity, waitStrategy);
+    }
+
+    /**
+     * Inserts the specified element at the tail of this queue if it is
+     * possible to do so immediately without exceeding the queue's
+     * capacity, returning {@code true} upon success and {@code false} if
+     * this queue is full.  May only be called by the producer.
+     *
+     * @throws NullPointerException if the specified element is null
+     */
+    public boolean offer(E e) {
+        if (e == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        long t = tail;
+        if (t - headCache >= buffer.length &&
+            t - (headCache = head) >= buffer.length)
+            return false;
+        U.putOrderedObject(buffer, slotOffset(t), e);
+        U.putOrderedLong(this, TAIL, t + 1);
+        return true;
+    }
+
+    /**
+     * Retrieves and removes the head of this queue, or returns {@code
+     * null} if this queue is empty.  May only be called by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long h = head;
+        if (h - tailCache >= 0L && h - (tailCache = tail) >= 0L)
+            return null;
+        long offset = slotOffset(h);
+        E e = (E)U.getObject(buffer, offset);
+        U.putObject(buffer, offset, null);
+        U.putOrderedLong(this, HEAD, h + 1);
+        return e;
+    }
+
+    /**
+     * Retrieves, but does not remove, the head of this queue, or
+     * returns {@code null} if this queue is empty.  May only be called
+     * by the consumer.
+     */
+    @SuppressWarnings("unchecked")
+    public E peek() {
+        long h = head;
+        if (h - tailCache >= 0L && h - (tailCache = tail) >= 0L)
+            return null;
+        return (E)U.getObject(buffer, slotOffset(h));
+    }
+
+    /**
+     * {@inheritDoc}  May only be called by the consumer.  The head is
+     * advanced once per element, so the producer may reuse slots while
+     * the batch is being consumed.
+     */
+    @SuppressWarnings("unchecked")
+    public int drain(Consumer<? super E> c, int limit) {
+        if (c == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        long h = head;
+        long available = tailCache - h;
+        if (available < limit)
+            available = (tailCache = tail) - h;
+        int n = (int)Math.min(available, (long)limit);
+        for (int i = 0; i < n; ++i) {
+            long offset = slotOffset(h);
+            E e = (E)U.getObject(buffer, offset);
+            U.putObject(buffer, offset, null);
+            U.putOrderedLong(this, HEAD, ++h);
+            c.accept(e);
+        }
+        return (n < 0) ? 0 : n;
+    }
+
+    /**
+     * {@inheritDoc}  May only be called by the producer.  With a single
+     * producer, the supplier may also return null or throw: the elements
+     * obtained before are kept, and the exception is propagated, a null
+     * element causing a {@code NullPointerException}.
+     */
+    public int fill(Supplier<? extends E> s, int limit) {
+        if (s == null) throw new NullPointerException();
+        final Object[] buffer = this.buffer;
+        long t = tail;
+        long room = buffer.length - (t - headCache);
+        if (room < limit)
+            room = buffer.length - (t - (headCache = head));
+        int n = (int)Math.min(room, (long)limit);
+        for (int i = 0; i < n; ++i) {
+            E e = s.get();
+            if (e == null)
+                throw new NullPointerException();
+            U.putOrderedObject(buffer, slotOffset(t), e);
+            U.putOrderedLong(this, TAIL, ++t);
+        }
+        return (n < 0) ? 0 : n;
+    }
+}
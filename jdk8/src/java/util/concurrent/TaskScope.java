@@ -0,0 +1,482 @@
+package java.util.concurrent;
+
+import java.util.HashSet;
+import java.util.concurrent.locks.Condition;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * A scope for a group of concurrent subtasks, forked onto a supplied
+ * {@link ExecutorService}, whose lifetime is bounded by a block of
+ * code.  Unlike {@link ExecutorService#invokeAll}, a scope can stop
+ * early: once it is {@linkplain #shutdown shut down}, all its
+ * unfinished subtasks are cancelled, interrupting those that are
+ * running, and no further subtasks are started.  The pool threads
+ * working on the group are thus freed as soon as its outcome is known.
+ *
+ * <p>A scope is used by the thread that opened it, in a
+ * try-with-resources statement.  The owner {@link #fork}s subtasks,
+ * then {@linkplain #join joins}, possibly with a deadline, until all
+ * subtasks are complete or the scope is shut down.  {@link #close}
+ * shuts the scope down and waits for the threads still running its
+ * subtasks to return, so that no subtask outlives the block.
+ *
+ * <p>The policy of a scope is given by {@link #handleComplete}, which
+ * is invoked as each subtask completes and may shut the scope down.
+ * The base class never does; {@link ShutdownOnFailure} shuts down on
+ * the first subtask to fail, and {@link ShutdownOnSuccess} on the
+ * first to succeed.
+ *
+ * <p><b>Sample Usage.</b> Here is a scatter-gather of two queries
+ * that gives up on both as soon as one fails, or after a second:
+ * <pre> {@code
+ * Response handle(ExecutorService e)
+ *     throws InterruptedException, ExecutionException, TimeoutException {
+ *   try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure(e)) {
+ *     Future<User> user = scope.fork(() -> findUser());
+ *     Future<Order> order = scope.fork(() -> fetchOrder());
+ *     scope.join(1, TimeUnit.SECONDS).throwIfFailed();
+ *     return new Response(user.get(), order.get());
+ *   }
+ * }}</pre>
+ *
+ * @since 1.8
+ * @param <T> the result type of the subtasks
+ */
+public class TaskScope<T> implements AutoCloseable {
+
+    private final ExecutorService executor;
+
+    /** Guards all the following state. */
+    final ReentrantLock lock = new ReentrantLock();
+
+    /** Signalled when the scope is shut down or a count drops to zero. */
+    private final Condition termination = lock.newCondition();
+
+    /** The forked subtasks that are not yet complete. */
+    private final HashSet<Subtask<?>> subtasks = new HashSet<Subtask<?>>();
+
+    /** Number of threads inside the run method of a subtask. */
+    private int running;
+
+    private boolean shutdown;
+    private boolean closed;
+
+    /**
+     * FutureTask extension reporting its completion to the scope and
+     * tracking the threads that run it.
+     */
+    private final class Subtask<U extends T> extends FutureTask<U> {
+        Subtask(Callable<U> callable) { super(callable); }
+
+        public void run() {
+            lock.lock();
+            try {
+                ++running;
+            } finally {
+                lock.unlock();
+            }
+            try {
+                super.run();
+            } finally {
+                lock.lock();
+                try {
+                    if (--running == 0)
+                        termination.signalAll();
+                } finally {
+                    lock.unlock();
+                }
+            }
+        }
+
+        protected void done() { onDone(this); }
+    }
+
+    /**
+     * Creates a scope forking its subtasks onto the given executor.
+     *
+     * @param executor the executor running the subtasks
+     * @throws NullPointerException if executor is null
+     */
+    public TaskScope(ExecutorService executor) {
+        if (executor == null)
+            throw new NullPointerException();
+        this.executor = executor;
+    }
+
+    /**
+     * Starts a subtask executing the given task.  If the scope is
+     * already shut down, the subtask is cancelled without running.
+     *
+     * @param task the task
+     * @param <U> the result type of the task
+     * @return a Future representing the subtask
+     * @throws NullPointerException if task is null
+     * @throws IllegalStateException if the scope is closed
+     * @throws RejectedExecutionException if the executor rejects the
+     *         subtask
+     */
+    public <U extends T> Future<U> fork(Callable<U> task) {
+        if (task == null)
+            throw new NullPointerException();
+        Subtask<U> f = new Subtask<U>(task);
+        boolean start;
+        lock.lock();
+        try {
+            if (closed)
+                throw new IllegalStateException("scope is closed");
+            if (start = !shutdown)
+                subtasks.add(f);
+        } finally {
+            lock.unlock();
+        }
+        if (!start)
+            f.cancel(false);
+        else {
+            try {
+                executor.execute(f);
+            } catch (RejectedExecutionException ex) {
+                f.cancel(false);
+                throw ex;
+            }
+        }
+        return f;
+    }
+
+    /**
+     * Waits until all subtasks are complete or the scope is shut down.
+     *
+     * @return this scope
+     * @throws InterruptedException if interrupted while waiting
+     * @throws IllegalStateException if the scope is closed
+     */
+    public TaskScope<T> join() throws InterruptedException {
+        lock.lock();
+        try {
+            ensureOpen();
+            while (!shutdown && !subtasks.isEmpty())
+                termination.await();
+        } finally {
+            lock.unlock();
+        }
+        return this;
+    }
+
+    /**
+     * Waits until all subtasks are complete or the scope is shut down,
+     * for at most the given time.  If the deadline passes first, the
+     * scope is shut down.
+     *
+     * @param timeout the maximum time to wait
+     * @param unit the time unit of the timeout argument
+     * @return this scope
+     * @throws InterruptedException if interrupted while waiting
+     * @throws TimeoutException if the deadline passed; the scope has
+     *         then been shut down
+     * @throws IllegalStateException if the scope is closed
+     */
+    public TaskScope<T> join(long timeout, TimeUnit unit)
+        throws InterruptedException, TimeoutException {
+        long nanos = unit.toNanos(timeout);
+        boolean timedOut = false;
+        lock.lock();
+        try {
+            ensureOpen();
+            while (!shutdown && !subtasks.isEmpty()) {
+                if (nanos <= 0L) {
+                    timedOut = true;
+                    break;
+                }
+                nanos = termination.awaitNanos(nanos);
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (timedOut) {
+            shutdown();
+            throw new TimeoutException();
+        }
+        return this;
+    }
+
+    /**
+     * Shuts the scope down: cancels all unfinished subtasks,
+     * interrupting the threads running them, and causes later forks to
+     * be cancelled without running.  Wakes the owner if it is joining.
+     * Invoking this method on a scope already shut down has no effect.
+     */
+    public void shutdown() {
+        Future<?>[] unfinished;
+        lock.lock();
+        try {
+            if (shutdown)
+                return;
+            shutdown = true;
+            unfinished = subtasks.toArray(new Future<?>[0]);
+            termination.signalAll();
+        } finally {
+            lock.unlock();
+        }
+        for (Future<?> f : unfinished)
+            f.cancel(true);
+    }
+
+    /**
+     * Returns {@code true} if this scope has been shut down.
+     *
+     * @return {@code true} if this scope has been shut down
+     */
+    public boolean isShutdown() {
+        lock.lock();
+        try {
+            return shutdown;
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * Shuts the scope down and waits for the threads still running its
+     * subtasks to return from them.  Subtasks still queued in the
+     * executor are cancelled and return at once when dequeued.  If
+     * interrupted while waiting, this method continues to wait and
+     * then re-asserts the interrupt status.  Invoking this method on a
+     * closed scope has no effect.
+     */
+    public void close() {
+        shutdown();
+        boolean interrupted = false;
+        lock.lock();
+        try {
+            closed = true;
+            while (running > 0) {
+                try {
+                    termination.await();
+                } catch (InterruptedException ie) {
+                    interrupted = true;
+                }
+            }
+        } finally {
+            lock.unlock();
+        }
+        if (interrupted)
+            Thread.currentThread().interrupt();
+    }
+
+    /**
+     * Invoked in the thread completing a subtask, or cancelling it,
+     * before the owner can observe that the subtask is complete
+     * through {@link #join}.  The default implementation does nothing.
+     * Subclasses may override it to collect results or to shut the
+     * scope down.  Subtasks cancelled by the shutdown of the scope are
+     * not reported.
+     *
+     * @param subtask the completed subtask
+     */
+    protected void handleComplete(Future<? extends T> subtask) {
+    }
+
+    private void ensureOpen() {
+        if (closed)
+            throw new IllegalStateException("scope is closed");
+    }
+
+    /** Reports a completed subtask and removes it from the unfinished set. */
+    private void onDone(Subtask<?> f) {
+        boolean report;
+        lock.lock();
+        try {
+            report = !(shutdown && f.isCancelled());
+        } finally {
+            lock.unlock();
+        }
+        if (report) {
+            @SuppressWarnings("unchecked") Future<? extends T> t =
+                (Future<? extends T>) f;
+            handleComplete(t);
+        }
+        lock.lock();
+        try {
+            if (subtasks.remove(f) && subtasks.isEmpty())
+                termination.signalAll();
+        } finally {
+            lock.unlock();
+        }
+    }
+
+    /**
+     * A scope that shuts down when a subtask fails, that is completes
+     * abruptly with an exception, cancelling its siblings.
+     * {@link #throwIfFailed} then reports the first failure.
+     */
+    public static class ShutdownOnFailure extends TaskScope<Object> {
+        private Throwable firstException;
+
+        /**
+         * Creates a scope forking its subtasks onto the given executor.
+         *
+         * @param executor the executor running the subtasks
+         * @throws NullPointerException if executor is null
+         */
+        public ShutdownOnFailure(ExecutorService executor) {
+            super(executor);
+        }
+
+        protected void handleComplete(Future<?> subtask) {
+            if (subtask.isCancelled())
+                return;
+            Throwable ex = exceptionOf(subtask);
+            if (ex == null)
+                return;
+            lock.lock();
+            try {
+                if (firstException != null)
+                    return;
+                firstException = ex;
+            } finally {
+                lock.unlock();
+            }
+            shutdown();
+        }
+
+        public ShutdownOnFailure join() throws InterruptedException {
+            super.join();
+            return this;
+        }
+
+        public ShutdownOnFailure join(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+            super.join(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Returns the exception of the first subtask to fail, or
+         * {@code null} if none has failed.
+         *
+         * @return the first exception, or {@code null}
+         */
+        public Throwable exception() {
+            lock.lock();
+            try {
+                return firstException;
+            } finally {
+                lock.unlock();
+            }
+        }
+
+        /**
+         * Throws if a subtask has failed.
+         *
+         * @throws ExecutionException with the exception of the first
+         *         subtask to fail as its cause, if any has failed
+         */
+        public void throwIfFailed() throws ExecutionException {
+            Throwable ex = exception();
+            if (ex != null)
+                throw new ExecutionException(ex);
+        }
+    }
+
+    /**
+     * A scope that shuts down when a subtask succeeds, that is
+     * completes normally, cancelling its siblings.  {@link #result}
+     * then returns the result of the first subtask to succeed.
+     *
+     * @param <T> the result type of the subtasks
+     */
+    public static class ShutdownOnSuccess<T> extends TaskScope<T> {
+        private boolean succeeded;
+        private T firstResult;
+        private Throwable firstException;
+
+        /**
+         * Creates a scope forking its subtasks onto the given executor.
+         *
+         * @param executor the executor running the subtasks
+         * @throws NullPointerException if executor is null
+         */
+        public ShutdownOnSuccess(ExecutorService executor) {
+            super(executor);
+        }
+
+        protected void handleComplete(Future<? extends T> subtask) {
+            if (subtask.isCancelled())
+                return;
+            Throwable ex = exceptionOf(subtask);
+            lock.lock();
+            try {
+                if (succeeded)
+                    return;
+                if (ex != null) {
+                    if (firstException == null)
+                        firstException = ex;
+                    return;
+                }
+                succeeded = true;
+                firstResult = resultOf(subtask);
+            } finally {
+                lock.unlock();
+            }
+            shutdown();
+        }
+
+        public ShutdownOnSuccess<T> join() throws InterruptedException {
+            super.join();
+            return this;
+        }
+
+        public ShutdownOnSuccess<T> join(long timeout, TimeUnit unit)
+            throws InterruptedException, TimeoutException {
+            super.join(timeout, unit);
+            return this;
+        }
+
+        /**
+         * Returns the result of the first subtask to succeed.
+         *
+         * @return the first result
+         * @throws ExecutionException if no subtask succeeded but one
+         *         failed, with the exception of the first to fail as
+         *         its cause
+         * @throws IllegalStateException if no subtask has completed,
+         *         other than by cancellation
+         */
+        public T result() throws ExecutionException {
+            lock.lock();
+            try {
+                if (succeeded)
+                    return firstResult;
+                if (firstException != null)
+                    throw new ExecutionException(firstException);
+                throw new IllegalStateException("no subtask completed");
+            } finally {
+                lock.unlock();
+            }
+        }
+    }
+
+    /**
+     * Returns the exception of a completed, not cancelled, subtask, or
+     * null if it completed normally.
+     */
+    static Throwable exceptionOf(Future<?> f) {
+        try {
+            f.get();
+            return null;
+        } catch (ExecutionException ex) {
+            return ex.getCause();
+        } catch (InterruptedException ex) { // cannot block: complete
+            Thread.currentThread().interrupt();
+            return ex;
+        }
+    }
+
+    /** Returns the result of a subtask that completed normally. */
+    static <U> U resultOf(Future<U> f) {
+        try {
+            return f.get();
+        } catch (InterruptedException | ExecutionException ex) {
+            throw new IllegalStateException(ex); // cannot happen
+        }
+    }
+}
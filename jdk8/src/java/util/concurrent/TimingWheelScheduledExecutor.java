@@ -0,0 +1,843 @@
+package java.util.concurrent;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ScheduledExecutorService} that keeps its delayed tasks in a
+ * hierarchical hashed timing wheel rather than in a priority queue.
+ * It suits a very large number of pending timeouts that are mostly
+ * cancelled before they expire, such as per-request timeouts, where
+ * the single lock and the {@code O(log n)} insertion and removal of
+ * the {@link ScheduledThreadPoolExecutor} queue become the bottleneck.
+ *
+ * <p>Time is divided into ticks of a fixed duration, given when the
+ * executor is constructed.  Scheduling a task adds it to the bucket
+ * of its tick with a single CAS, without locking, and cancelling it
+ * only marks it, both in constant time.  A timer thread advances the
+ * wheel once per tick and hands all the tasks that expired in that
+ * tick to a fixed pool of worker threads in a few batches, rather than
+ * one by one.  A task may therefore run up to one tick later than its
+ * delay; a delay shorter than a tick is rounded up to the next tick,
+ * and a task scheduled with no delay is handed to the workers
+ * immediately.  The tasks of a batch run one after the other, so a
+ * task that blocks delays the rest of its batch.  The resolution
+ * should be chosen as coarse as the application allows: the timer
+ * thread wakes up once per tick even when there is nothing to do.
+ *
+ * <p>Cancelled tasks are not removed from their bucket right away,
+ * but they no longer count as pending.  They are dropped when their
+ * bucket is next drained, and the whole wheel is purged once more
+ * tasks were cancelled than are pending, so that cancelled tasks
+ * hold about as much memory as pending ones at most.  The purge is
+ * done by the timer thread, or by a thread that cancels a task; its
+ * cost is proportional to the number of cancellations it follows.
+ *
+ * <p>Tasks scheduled for the same tick run in no particular order.
+ * Successive executions of a periodic task do not overlap, as with
+ * {@code ScheduledThreadPoolExecutor}.
+ *
+ * <p>Upon {@link #shutdown}, periodic tasks are cancelled and the
+ * executor terminates once the remaining delayed tasks have run, which
+ * is the default policy of {@code ScheduledThreadPoolExecutor}.
+ *
+ * @see ScheduledThreadPoolExecutor
+ * @since 1.8
+ */
+public class TimingWheelScheduledExecutor extends AbstractExecutorService
+    implements ScheduledExecutorService {
+
+    /*
+     * The wheel has `levels` levels of `wheelSize` buckets each, level
+     * L covering ticks of wheelSize^L base ticks, so that the levels
+     * together span all non-negative long tick numbers.  Ticks are
+     * counted from startTime.  A bucket is a Treiber stack of Entry
+     * nodes, one per task, held in one array slot and pushed with a
+     * CAS; the timer thread takes a whole stack with a getAndSet.
+     *
+     * Field `tick` is the next tick to be processed.  To process tick
+     * t, the timer thread first sets tick to t + 1 and then drains, at
+     * each level L >= 1 whose period starts at t, the level-L bucket
+     * of t, and finally the level-0 bucket of t.  Each task whose
+     * deadline tick is at most t is fired; every other live task is
+     * inserted again relative to the new tick, which moves it to a
+     * lower level ("cascading").
+     *
+     * Insertion relative to tick c puts a task with deadline d in the
+     * lowest level L at which d is less than wheelSize level-L ticks
+     * ahead of c, so that its bucket is next drained at tick T, the
+     * start of d's level-L tick, with c <= T <= d.  A thread other
+     * than the timer reads tick, inserts, and then reads tick again.
+     * If it is now beyond T, the timer may have drained the bucket
+     * before the push, in which case the task would wait for a whole
+     * rotation; since tick is written before the bucket is drained,
+     * the second read cannot miss this.  The task is then also added
+     * to the rescued queue, which the timer drains on every tick.  A
+     * task may thus be reachable from two entries; firing CASes its
+     * status from WAITING to FIRED, so that only one of them runs it.
+     *
+     * Cancelled tasks are dropped whenever their bucket is drained.
+     * Since that may be much later for long delays, every bucket is
+     * also drained and refilled once the number of tasks cancelled
+     * since the last purge exceeds the number pending, so the cost of
+     * a purge is proportional to the cancellations.  The timer thread
+     * checks on every tick, and one in about a thousand cancellations
+     * also checks, since under load the timer thread may fall behind.
+     * Purging threads claim strides of buckets by decrementing
+     * purgeIndex, as ConcurrentHashMap transfers bins, and insert live
+     * tasks as any thread other than the timer does.
+     *
+     * The pending count holds the number of WAITING tasks.  After
+     * shutdown the timer thread cancels the periodic tasks, then exits
+     * once the count drops to zero, shutting down the worker pool.
+     * Adding a task increments the count before checking the run
+     * state, so that either the adding thread sees the shutdown and
+     * backs out, or the timer thread sees the task.
+     */
+
+    /** Run states */
+    private static final int RUNNING  = 0;
+    private static final int SHUTDOWN = 1;
+    private static final int STOP     = 2;
+
+    /** Task statuses */
+    static final int WAITING   = 0;
+    static final int FIRED     = 1;
+    static final int CANCELLED = 2;
+
+    /** The default tick duration, one millisecond. */
+    private static final long DEFAULT_TICK_NANOS = MILLISECONDS.toNanos(1);
+
+    /** The default number of buckets per level. */
+    private static final int DEFAULT_TICKS_PER_WHEEL = 512;
+
+    /** The largest number of buckets per level. */
+    private static final int MAXIMUM_TICKS_PER_WHEEL = 1 << 16;
+
+    /**
+     * The number of cancelled tasks below which the wheel is never
+     * purged.
+     */
+    private static final long PURGE_THRESHOLD = 1L << 16;
+
+    /**
+     * One in PURGE_CHECK_MASK + 1 cancellations, chosen at random,
+     * checks whether to purge the wheel.
+     */
+    private static final int PURGE_CHECK_MASK = (1 << 10) - 1;
+
+    /** The number of buckets a thread purges at a time. */
+    private static final int PURGE_STRIDE = 64;
+
+    /** The buckets, level by level. */
+    private final Entry[] wheel;
+
+    /** log2 of the number of buckets per level */
+    private final int bits;
+
+    /** The number of buckets per level, minus one */
+    private final int mask;
+
+    /** The number of levels */
+    private final int levels;
+
+    /** The duration of a tick in nanoseconds */
+    private final long tickNanos;
+
+    /** The nanoTime at which tick zero starts */
+    private final long startTime;
+
+    /** The next tick to be processed */
+    private volatile long tick;
+
+    /** The run state */
+    private volatile int runState;
+
+    /**
+     * The buckets [0, purgeIndex) remain to be purged, if nonzero.
+     */
+    private volatile int purgeIndex;
+
+    /** The number of WAITING tasks */
+    private final LongAdder pending = new LongAdder();
+
+    /** The number of tasks cancelled since the last purge */
+    private final LongAdder cancelled = new LongAdder();
+
+    /** Tasks that may have been pushed to a drained bucket */
+    private final ConcurrentLinkedQueue<TimerTask<?>> rescued =
+        new ConcurrentLinkedQueue<TimerTask<?>>();
+
+    /** The pool that runs expired tasks */
+    private final ThreadPoolExecutor workers;
+
+    /** The number of worker threads */
+    private final int parallelism;
+
+    /** The timer thread */
+    private final Thread timer;
+
+    /**
+     * Creates a new executor with the given number of worker threads
+     * and a tick of one millisecond.
+     *
+     * @param workerThreads the number of threads that run tasks
+     * @throws IllegalArgumentException if {@code workerThreads <= 0}
+     */
+    public TimingWheelScheduledExecutor(int workerThreads) {
+        this(workerThreads, DEFAULT_TICK_NANOS, NANOSECONDS,
+             DEFAULT_TICKS_PER_WHEEL, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new executor with the given number of worker threads
+     * and tick duration.
+     *
+     * @param workerThreads the number of threads that run tasks
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @throws IllegalArgumentException if {@code workerThreads <= 0}
+     *         or {@code tickDuration <= 0}
+     * @throws NullPointerException if {@code unit} is null
+     */
+    public TimingWheelScheduledExecutor(int workerThreads,
+                                        long tickDuration, TimeUnit unit) {
+        this(workerThreads, tickDuration, unit,
+             DEFAULT_TICKS_PER_WHEEL, Executors.defaultThreadFactory());
+    }
+
+    /**
+     * Creates a new executor with the given parameters.
+     *
+     * @param workerThreads the number of threads that run tasks
+     * @param tickDuration the duration of a tick
+     * @param unit the time unit of the {@code tickDuration} argument
+     * @param ticksPerWheel the number of buckets of each level of the
+     *        wheel, rounded up to a power of two
+     * @param threadFactory the factory to use to create the timer
+     *        thread and the worker threads
+     * @throws IllegalArgumentException if {@code workerThreads <= 0},
+     *         {@code tickDuration <= 0}, or {@code ticksPerWheel} is
+     *         less than 2 or greater than 65536
+     * @throws NullPointerException if {@code unit} or
+     *         {@code threadFactory} is null
+     */
+    public TimingWheelScheduledExecutor(int workerThreads,
+                                        long tickDuration, TimeUnit unit,
+                                        int ticksPerWheel,
+                                        ThreadFactory threadFactory) {
+        if (workerThreads <= 0 || tickDuration <= 0 ||
+            ticksPerWheel < 2 || ticksPerWheel > MAXIMUM_TICKS_PER_WHEEL)
+            throw new IllegalArgumentException();
+        if (unit == null || threadFactory == null)
+            throw new NullPointerException();
+        int b = 32 - Integer.numberOfLeadingZeros(ticksPerWheel - 1);
+        this.bits = b;
+        this.mask = (1 << b) - 1;
+        this.levels = (63 + b - 1) / b;
+        this.wheel = new Entry[levels << b];
+        this.tickNanos = Math.max(1L, unit.toNanos(tickDuration));
+        this.parallelism = workerThreads;
+        this.workers = new ThreadPoolExecutor(
+            workerThreads, workerThreads, 0L, NANOSECONDS,
+            new LinkedBlockingQueue<Runnable>(), threadFactory);
+        this.timer = threadFactory.newThread(new Runnable() {
+            public void run() { runTimer(); }
+        });
+        if (timer == null)
+            throw new NullPointerException();
+        this.startTime = System.nanoTime();
+        timer.start();
+    }
+
+    /**
+     * A task in a bucket.  Entries are owned by the bucket they are in,
+     * so the timer thread reuses them when cascading.
+     */
+    static final class Entry {
+        final TimerTask<?> task;
+        Entry next;
+        Entry(TimerTask<?> task) { this.task = task; }
+    }
+
+    private class TimerTask<V>
+            extends FutureTask<V> implements RunnableScheduledFuture<V> {
+
+        /** The time the task is enabled to execute in nanoTime units */
+        private volatile long time;
+
+        /**
+         * Period in nanoseconds for repeating tasks.  A positive
+         * value indicates fixed-rate execution.  A negative value
+         * indicates fixed-delay execution.  A value of 0 indicates a
+         * non-repeating task.
+         */
+        private final long period;
+
+        /** One of WAITING, FIRED and CANCELLED */
+        volatile int status;
+
+        TimerTask(Runnable r, V result, long ns, long period) {
+            super(r, result);
+            this.time = ns;
+            this.period = period;
+        }
+
+        TimerTask(Callable<V> callable, long ns) {
+            super(callable);
+            this.time = ns;
+            this.period = 0;
+        }
+
+        /** The tick at whose processing this task fires */
+        long deadline() {
+            long d = time - startTime;
+            return (d <= 0L) ? 0L : (d - 1L) / tickNanos + 1L;
+        }
+
+        public long getDelay(TimeUnit unit) {
+            return unit.convert(time - System.nanoTime(), NANOSECONDS);
+        }
+
+        public int compareTo(Delayed other) {
+            if (other == this) // compare zero if same object
+                return 0;
+            long diff = (other instanceof TimerTask) ?
+                time - ((TimerTask<?>)other).time :
+                getDelay(NANOSECONDS) - other.getDelay(NANOSECONDS);
+            return (diff < 0) ? -1 : (diff > 0) ? 1 : 0;
+        }
+
+        /**
+         * Returns {@code true} if this is a periodic (not a one-shot) action.
+         *
+         * @return {@code true} if periodic
+         */
+        public boolean isPeriodic() {
+            return period != 0;
+        }
+
+        /** Tries to take this task off the wheel to run it. */
+        boolean fire() {
+            if (status == WAITING &&
+                U.compareAndSwapInt(this, STATUS, WAITING, FIRED)) {
+                pending.decrement();
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Cancels the task, which then no longer counts as pending.
+         * Its entries are dropped when their buckets are next drained.
+         */
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            if (cancelled && status == WAITING &&
+                U.compareAndSwapInt(this, STATUS, WAITING, CANCELLED)) {
+                pending.decrement();
+                onCancel();
+            }
+            return cancelled;
+        }
+
+        /**
+         * Overrides FutureTask version so as to reschedule if periodic.
+         */
+        public void run() {
+            if (!isPeriodic())
+                super.run();
+            else if (runState != RUNNING)
+                super.cancel(false);
+            else if (super.runAndReset()) {
+                long p = period;
+                time = (p > 0) ? time + p : triggerTime(-p);
+                status = WAITING;
+                delayedExecute(this, true);
+            }
+        }
+    }
+
+    /**
+     * Runs a batch of expired tasks in a worker thread.
+     */
+    static final class Batch implements Runnable {
+        final TimerTask<?>[] tasks;
+        final int lo, hi;
+        Batch(TimerTask<?>[] tasks, int lo, int hi) {
+            this.tasks = tasks; this.lo = lo; this.hi = hi;
+        }
+        public void run() {
+            for (int i = lo; i < hi; ++i)
+                tasks[i].run();
+        }
+    }
+
+    /**
+     * Returns the trigger time of a delayed action.
+     */
+    private long triggerTime(long delay, TimeUnit unit) {
+        return triggerTime(unit.toNanos((delay < 0) ? 0 : delay));
+    }
+
+    /**
+     * Returns the trigger time of a delayed action, bounding the delay
+     * so that trigger times never overflow.
+     */
+    long triggerTime(long delay) {
+        return System.nanoTime() +
+            ((delay < (Long.MAX_VALUE >> 1)) ? delay : (Long.MAX_VALUE >> 1));
+    }
+
+    /**
+     * Adds a task to the wheel, or hands it to the workers if it has
+     * already expired.  If the executor is shut down, the task is
+     * cancelled, and rejected unless it is a periodic task being
+     * rescheduled.
+     */
+    void delayedExecute(TimerTask<?> task, boolean reexecute) {
+        pending.increment();
+        if (runState != RUNNING) {
+            task.cancel(false);
+            if (reexecute)
+                return;
+            throw new RejectedExecutionException();
+        }
+        if (task.time - System.nanoTime() <= 0L) {
+            if (task.fire())
+                workers.execute(task);
+        }
+        else
+            enqueue(new Entry(task));
+    }
+
+    /**
+     * Inserts an entry from a thread other than the timer thread, or
+     * hands its task to the workers if its tick was already processed.
+     */
+    private void enqueue(Entry e) {
+        TimerTask<?> task = e.task;
+        long c = tick;
+        if (task.deadline() < c) {
+            if (task.fire())
+                workers.execute(task);
+        }
+        else if (tick > insert(e, c))
+            rescued.offer(task);
+    }
+
+    /**
+     * Inserts an entry relative to tick {@code c}, which must not be
+     * after its deadline.
+     *
+     * @return the tick at which the bucket is next drained
+     */
+    private long insert(Entry e, long c) {
+        long d = e.task.deadline();
+        int l = 0, s = 0;
+        while (l < levels - 1 && (d >>> s) - (c >>> s) >= mask + 1) {
+            ++l;
+            s += bits;
+        }
+        push((l << bits) | (int)((d >>> s) & mask), e);
+        return (d >>> s) << s;
+    }
+
+    private void push(int i, Entry e) {
+        long off = ((long)i << ASHIFT) + ABASE;
+        Entry h;
+        do {
+            e.next = h = (Entry) U.getObjectVolatile(wheel, off);
+        } while (!U.compareAndSwapObject(wheel, off, h, e));
+    }
+
+    private Entry drain(int i) {
+        long off = ((long)i << ASHIFT) + ABASE;
+        return (U.getObjectVolatile(wheel, off) == null) ? null :
+            (Entry) U.getAndSetObject(wheel, off, null);
+    }
+
+    /**
+     * Counts a cancellation, and now and then checks whether to purge.
+     */
+    final void onCancel() {
+        cancelled.increment();
+        if ((ThreadLocalRandom.nextSecondarySeed() & PURGE_CHECK_MASK) == 0)
+            tryPurge(false);
+    }
+
+    /**
+     * Starts a purge if more tasks were cancelled since the last one
+     * than are pending, and takes part in the current purge.  Threads
+     * claim strides of buckets, highest first, so that a thread that
+     * is descheduled while purging holds up only its own stride.  Live
+     * tasks are inserted again as by {@link #enqueue}.
+     *
+     * @param all whether to keep claiming strides until the purge is
+     *        done, rather than to purge one stride
+     */
+    final void tryPurge(boolean all) {
+        int i = purgeIndex;
+        if (i == 0) {
+            long c = cancelled.sum();
+            if (c <= PURGE_THRESHOLD || c <= pending.sum() ||
+                !U.compareAndSwapInt(this, PURGEINDEX, 0, i = wheel.length))
+                return;
+            cancelled.add(-c);
+        }
+        for (int lo; i > 0; i = purgeIndex) {
+            if (!U.compareAndSwapInt(this, PURGEINDEX, i,
+                                     lo = Math.max(0, i - PURGE_STRIDE)))
+                continue;
+            for (int j = lo; j < i; ++j) {
+                Entry e = drain(j);
+                for (Entry next; e != null; e = next) {
+                    next = e.next;
+                    if (e.task.status == WAITING) {
+                        try {
+                            enqueue(e);
+                        } catch (RejectedExecutionException ignore) {
+                            // stopped concurrently
+                        }
+                    }
+                }
+            }
+            if (!all)
+                break;
+        }
+    }
+
+    /**
+     * The timer thread: advances the wheel one tick at a time, firing
+     * expired tasks, until the executor is stopped, or shut down with
+     * no pending tasks.
+     */
+    final void runTimer() {
+        ArrayList<TimerTask<?>> expired = new ArrayList<TimerTask<?>>();
+        boolean swept = false;
+        try {
+            for (long t = 0L;; ++t) {
+                int rs;
+                for (long w; (rs = runState) != STOP &&
+                         (w = startTime + t * tickNanos - System.nanoTime()) > 0L; )
+                    LockSupport.parkNanos(this, w);
+                if (rs == STOP)
+                    break;
+                if (rs == SHUTDOWN && !swept) {
+                    sweep(t, expired);
+                    swept = true;
+                }
+                else
+                    tryPurge(true);
+                tick = t + 1L;
+                for (int l = 1, s = bits;
+                     l < levels && (t & ((1L << s) - 1L)) == 0L;
+                     ++l, s += bits)
+                    advance(drain((l << bits) | (int)((t >>> s) & mask)),
+                            t, expired);
+                advance(drain((int)(t & mask)), t, expired);
+                for (TimerTask<?> task; (task = rescued.poll()) != null; ) {
+                    if (task.status == WAITING)
+                        advance(new Entry(task), t, expired);
+                }
+                if (!expired.isEmpty()) {
+                    handOff(expired);
+                    expired.clear();
+                }
+                if (rs == SHUTDOWN && pending.sum() == 0L)
+                    break;
+            }
+        } finally {
+            workers.shutdown();
+        }
+    }
+
+    /**
+     * Fires or reinserts the live tasks of a chain of entries drained
+     * while processing tick {@code t}.
+     */
+    private void advance(Entry e, long t, ArrayList<TimerTask<?>> expired) {
+        for (Entry next; e != null; e = next) {
+            next = e.next;
+            TimerTask<?> task = e.task;
+            if (task.status != WAITING)
+                continue;
+            if (task.deadline() <= t) {
+                if (task.fire())
+                    expired.add(task);
+            }
+            else
+                insert(e, t + 1L);
+        }
+    }
+
+    /**
+     * Cancels all periodic tasks upon shutdown, firing or reinserting
+     * the others, before tick {@code t} is processed.
+     */
+    private void sweep(long t, ArrayList<TimerTask<?>> expired) {
+        for (int i = 0; i < wheel.length; ++i) {
+            Entry e = drain(i);
+            for (Entry next; e != null; e = next) {
+                next = e.next;
+                if (e.task.isPeriodic())
+                    e.task.cancel(false);
+                else {
+                    e.next = null;
+                    advance(e, t - 1L, expired);
+                }
+            }
+        }
+        for (TimerTask<?> task; (task = rescued.poll()) != null; ) {
+            if (task.isPeriodic())
+                task.cancel(false);
+            else
+                advance(new Entry(task), t - 1L, expired);
+        }
+    }
+
+    /**
+     * Hands the tasks expired in one tick to the workers, as at most
+     * one batch per worker thread.
+     */
+    private void handOff(ArrayList<TimerTask<?>> expired) {
+        int n = expired.size();
+        try {
+            if (n == 1)
+                workers.execute(expired.get(0));
+            else {
+                TimerTask<?>[] tasks = expired.toArray(new TimerTask<?>[n]);
+                int batches = Math.min(n, parallelism);
+                for (int i = 1, lo = 0; i <= batches; ++i) {
+                    int hi = (int)((long)n * i / batches);
+                    workers.execute(new Batch(tasks, lo, hi));
+                    lo = hi;
+                }
+            }
+        } catch (RejectedExecutionException ignore) {
+            // stopped concurrently; the tasks never run, as after shutdownNow
+        }
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public ScheduledFuture<?> schedule(Runnable command,
+                                       long delay,
+                                       TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        TimerTask<Void> t = new TimerTask<Void>(command, null,
+                                                triggerTime(delay, unit), 0L);
+        delayedExecute(t, false);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <V> ScheduledFuture<V> schedule(Callable<V> callable,
+                                           long delay,
+                                           TimeUnit unit) {
+        if (callable == null || unit == null)
+            throw new NullPointerException();
+        TimerTask<V> t = new TimerTask<V>(callable,
+                                          triggerTime(delay, unit));
+        delayedExecute(t, false);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleAtFixedRate(Runnable command,
+                                                  long initialDelay,
+                                                  long period,
+                                                  TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (period <= 0)
+            throw new IllegalArgumentException();
+        TimerTask<Void> t =
+            new TimerTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(period));
+        delayedExecute(t, false);
+        return t;
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     * @throws IllegalArgumentException   {@inheritDoc}
+     */
+    public ScheduledFuture<?> scheduleWithFixedDelay(Runnable command,
+                                                     long initialDelay,
+                                                     long delay,
+                                                     TimeUnit unit) {
+        if (command == null || unit == null)
+            throw new NullPointerException();
+        if (delay <= 0)
+            throw new IllegalArgumentException();
+        TimerTask<Void> t =
+            new TimerTask<Void>(command, null,
+                                triggerTime(initialDelay, unit),
+                                unit.toNanos(-delay));
+        delayedExecute(t, false);
+        return t;
+    }
+
+    /**
+     * Executes {@code command} with zero required delay.
+     *
+     * @throws RejectedExecutionException if the executor is shut down
+     * @throws NullPointerException {@inheritDoc}
+     */
+    public void execute(Runnable command) {
+        schedule(command, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public Future<?> submit(Runnable task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Runnable task, T result) {
+        return schedule(Executors.callable(task, result), 0, NANOSECONDS);
+    }
+
+    /**
+     * @throws RejectedExecutionException {@inheritDoc}
+     * @throws NullPointerException       {@inheritDoc}
+     */
+    public <T> Future<T> submit(Callable<T> task) {
+        return schedule(task, 0, NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of tasks waiting for their delay to elapse,
+     * not counting cancelled tasks.  The value is only an estimate if
+     * tasks are concurrently scheduled, cancelled or expiring.
+     *
+     * @return the number of pending tasks
+     */
+    public long getPendingTaskCount() {
+        return pending.sum();
+    }
+
+    /**
+     * Initiates an orderly shutdown in which previously submitted
+     * delayed tasks still run when their delay elapses, but periodic
+     * tasks are cancelled and no new tasks are accepted.  Invocation
+     * has no additional effect if already shut down.
+     *
+     * <p>This method does not wait for previously submitted tasks to
+     * complete execution.  Use {@link #awaitTermination awaitTermination}
+     * to do that.
+     */
+    public void shutdown() {
+        if (runState == RUNNING)
+            U.compareAndSwapInt(this, RUNSTATE, RUNNING, SHUTDOWN);
+    }
+
+    /**
+     * Attempts to stop all actively executing tasks, halts the
+     * processing of waiting tasks, and returns a list of the tasks
+     * that were awaiting execution.  These tasks are drained (removed)
+     * from the wheel upon return from this method.
+     *
+     * <p>There are no guarantees beyond best-effort attempts to stop
+     * processing actively executing tasks.  This implementation
+     * interrupts the worker threads; any task that fails to respond
+     * to interrupts may never terminate.  Tasks expiring concurrently
+     * with this method may run.
+     *
+     * @return list of tasks that never commenced execution.
+     *         Each element of this list is a {@link ScheduledFuture}.
+     */
+    public List<Runnable> shutdownNow() {
+        runState = STOP;
+        LockSupport.unpark(timer);
+        List<Runnable> tasks = new ArrayList<Runnable>();
+        for (int i = 0; i < wheel.length; ++i) {
+            for (Entry e = drain(i); e != null; e = e.next) {
+                TimerTask<?> task = e.task;
+                if (U.compareAndSwapInt(task, STATUS, WAITING, CANCELLED)) {
+                    pending.decrement();
+                    tasks.add(task);
+                }
+            }
+        }
+        for (TimerTask<?> task; (task = rescued.poll()) != null; ) {
+            if (U.compareAndSwapInt(task, STATUS, WAITING, CANCELLED)) {
+                pending.decrement();
+                tasks.add(task);
+            }
+        }
+        for (Runnable r : workers.shutdownNow()) {
+            if (r instanceof Batch) {
+                Batch b = (Batch) r;
+                for (int i = b.lo; i < b.hi; ++i)
+                    tasks.add(b.tasks[i]);
+            }
+            else
+                tasks.add(r);
+        }
+        return tasks;
+    }
+
+    public boolean isShutdown() {
+        return runState != RUNNING;
+    }
+
+    public boolean isTerminated() {
+        return workers.isTerminated();
+    }
+
+    public boolean awaitTermination(long timeout, TimeUnit unit)
+        throws InterruptedException {
+        return workers.awaitTermination(timeout, unit);
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U;
+    private static final long RUNSTATE;
+    private static final long PURGEINDEX;
+    private static final long STATUS;
+    private static final long ABASE;
+    private static final int ASHIFT;
+
+    static {
+        try {
+            U = sun.misc.Unsafe.getUnsafe();
+            RUNSTATE = U.objectFieldOffset
+                (TimingWheelScheduledExecutor.class.getDeclaredField("runState"));
+            PURGEINDEX = U.objectFieldOffset
+                (TimingWheelScheduledExecutor.class.getDeclaredField("purgeIndex"));
+            STATUS = U.objectFieldOffset
+                (TimerTask.class.getDeclaredField("status"));
+            ABASE = U.arrayBaseOffset(Entry[].class);
+            int scale = U.arrayIndexScale(Entry[].class);
+            if ((scale & (scale - 1)) != 0)
+                throw new Error("data type scale not a power of two");
+            ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+        } catch (Exception e) {
+            throw new Error(e);
+        }
+    }
+}
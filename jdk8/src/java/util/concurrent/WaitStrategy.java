@@ -0,0 +1,61 @@
+package java.util.concurrent;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * How a thread waits in the blocking methods of the lock-free array
+ * queues {@link SpscArrayQueue}, {@link MpscArrayQueue} and {@link
+ * MpmcArrayQueue}.  These queues do not keep track of waiting threads,
+ * so a producer that finds the queue full, or a consumer that finds it
+ * empty, waits according to its strategy and then tries again.  The
+ * strategies trade the latency of noticing that the queue is ready
+ * against the processor time used while waiting.
+ *
+ * @since 1.8
+ */
+public enum WaitStrategy {
+    /**
+     * Retries at once.  The lowest latency, at the price of a
+     * processor per waiting thread.  Use it only when there are more
+     * processors than threads that may wait.
+     */
+    SPIN {
+        void idle(int count) { }
+    },
+    /**
+     * Retries after {@link Thread#yield}, so that other threads
+     * that are ready to run, such as the other side of the queue, may
+     * run first.
+     */
+    YIELD {
+        void idle(int count) {
+            Thread.yield();
+        }
+    },
+    /**
+     * Retries after {@link LockSupport#parkNanos}, for a time that
+     * doubles from one microsecond up to one millisecond as the thread
+     * keeps waiting.  The least processor time, but a thread that has
+     * waited long notices that the queue is ready up to a millisecond
+     * late.
+     */
+    PARK {
+        void idle(int count) {
+            LockSupport.parkNanos(MIN_PARK_NANOS << Math.min(count, MAX_PARK_SHIFT));
+        }
+    };
+
+    /** Park time of the first wait of PARK */
+    static final long MIN_PARK_NANOS = 1000L;
+
+    /** Log2 of the maximum park time of PARK, in units of MIN_PARK_NANOS */
+    static final int MAX_PARK_SHIFT = 10;
+
+    /**
+     * Waits once.
+     *
+     * @param count the number of times the caller has already waited
+     *        in the current operation
+     */
+    abstract void idle(int count);
+}
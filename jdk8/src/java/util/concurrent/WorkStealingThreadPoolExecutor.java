@@ -0,0 +1,786 @@
+package java.util.concurrent;
+
+import java.util.AbstractQueue;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * A {@link ThreadPoolExecutor} whose queued tasks are held in a set of
+ * lock-free queues instead of a single {@link BlockingQueue}.  With a
+ * {@link LinkedBlockingQueue}, every submission and every task taken
+ * by a worker goes through one of two locks, which limits the
+ * throughput of short tasks once many threads submit and run them.
+ * Here, tasks submitted by threads outside the pool go to one of
+ * several submission queues, chosen per thread as for the external
+ * submissions of a {@link ForkJoinPool}, and each worker thread has a
+ * queue of its own.  A worker takes tasks from its own queue first,
+ * then steals them from the submission queues and the queues of other
+ * workers, and parks only when it finds none.
+ *
+ * <p>In all other respects this class behaves as a {@code
+ * ThreadPoolExecutor} with an unbounded queue, or, if constructed with
+ * a {@code queueCapacity}, with a bounded one: threads are created up
+ * to the core pool size, then tasks are queued, and when the queue
+ * chosen for a task is full, threads are created up to the maximum pool
+ * size, after which tasks are passed to the {@link
+ * RejectedExecutionHandler}.  The keep-alive policy, the {@link
+ * #beforeExecute beforeExecute} and {@link #afterExecute afterExecute}
+ * hooks, {@link #shutdown}, {@link #shutdownNow}, {@link #remove} and
+ * {@link #purge} are those of {@code ThreadPoolExecutor}.
+ *
+ * <p>The queues are first-in-first-out, as are the steals from them,
+ * but there is no ordering among different queues: tasks submitted by
+ * different threads, or by the same thread through different
+ * submission queues, may start in any order.  {@link #getQueue} returns
+ * a view of all the queues, whose {@code size} and iterators are
+ * weakly consistent.
+ *
+ * <p><b>Submitter affinity.</b> When it is enabled, tasks submitted by
+ * a worker of this pool, such as the subtasks of a task, are pushed to
+ * that worker's own queue, without contention with other submitters.
+ * The worker runs them after its current task, while they are still in
+ * its cache, unless idle workers steal them first.  When it is not,
+ * they go to the submission queues as tasks submitted from other
+ * threads do.  The queue capacity is that of each queue, so with
+ * affinity enabled a worker that submits many tasks fills its own
+ * queue sooner.
+ *
+ * @since 1.8
+ */
+public class WorkStealingThreadPoolExecutor extends ThreadPoolExecutor {
+
+    /**
+     * Creates a new {@code WorkStealingThreadPoolExecutor} with the given
+     * initial parameters, unbounded queues, the default thread factory
+     * and the default rejected execution handler.  Since the queues are
+     * unbounded, the pool does not grow past {@code corePoolSize}
+     * threads.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code corePoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < corePoolSize}
+     */
+    public WorkStealingThreadPoolExecutor(int corePoolSize,
+                                          int maximumPoolSize,
+                                          long keepAliveTime,
+                                          TimeUnit unit) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit,
+             Integer.MAX_VALUE, false,
+             Executors.defaultThreadFactory(), new AbortPolicy());
+    }
+
+    /**
+     * Creates a new {@code WorkStealingThreadPoolExecutor} with the given
+     * initial parameters, unbounded queues and the default rejected
+     * execution handler.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code corePoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < corePoolSize}
+     * @throws NullPointerException if {@code threadFactory} is null
+     */
+    public WorkStealingThreadPoolExecutor(int corePoolSize,
+                                          int maximumPoolSize,
+                                          long keepAliveTime,
+                                          TimeUnit unit,
+                                          ThreadFactory threadFactory) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit,
+             Integer.MAX_VALUE, false, threadFactory, new AbortPolicy());
+    }
+
+    /**
+     * Creates a new {@code WorkStealingThreadPoolExecutor} with the given
+     * initial parameters, unbounded queues and the default thread
+     * factory.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param handler the handler to use when execution is blocked
+     *        because the executor has been shut down
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code corePoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < corePoolSize}
+     * @throws NullPointerException if {@code handler} is null
+     */
+    public WorkStealingThreadPoolExecutor(int corePoolSize,
+                                          int maximumPoolSize,
+                                          long keepAliveTime,
+                                          TimeUnit unit,
+                                          RejectedExecutionHandler handler) {
+        this(corePoolSize, maximumPoolSize, keepAliveTime, unit,
+             Integer.MAX_VALUE, false,
+             Executors.defaultThreadFactory(), handler);
+    }
+
+    /**
+     * Creates a new {@code WorkStealingThreadPoolExecutor} with the given
+     * initial parameters.
+     *
+     * @param corePoolSize the number of threads to keep in the pool, even
+     *        if they are idle, unless {@code allowCoreThreadTimeOut} is set
+     * @param maximumPoolSize the maximum number of threads to allow in the
+     *        pool
+     * @param keepAliveTime when the number of threads is greater than
+     *        the core, this is the maximum time that excess idle threads
+     *        will wait for new tasks before terminating.
+     * @param unit the time unit for the {@code keepAliveTime} argument
+     * @param queueCapacity the maximum number of tasks held by each of
+     *        the queues, or {@code Integer.MAX_VALUE} for unbounded
+     *        queues
+     * @param submitterAffinity if {@code true}, tasks submitted by a
+     *        worker thread of this pool are pushed to that worker's
+     *        own queue
+     * @param threadFactory the factory to use when the executor
+     *        creates a new thread
+     * @param handler the handler to use when execution is blocked
+     *        because the thread bounds and queue capacities are reached
+     * @throws IllegalArgumentException if one of the following holds:<br>
+     *         {@code corePoolSize < 0}<br>
+     *         {@code keepAliveTime < 0}<br>
+     *         {@code maximumPoolSize <= 0}<br>
+     *         {@code maximumPoolSize < corePoolSize}<br>
+     *         {@code queueCapacity <= 0}
+     * @throws NullPointerException if {@code threadFactory} or
+     *         {@code handler} is null
+     */
+    public WorkStealingThreadPoolExecutor(int corePoolSize,
+                                          int maximumPoolSize,
+                                          long keepAliveTime,
+                                          TimeUnit unit,
+                                          int queueCapacity,
+                                          boolean submitterAffinity,
+                                          ThreadFactory threadFactory,
+                                          RejectedExecutionHandler handler) {
+        super(corePoolSize, maximumPoolSize, keepAliveTime, unit,
+              new StealingQueue(queueCapacity, submitterAffinity),
+              threadFactory, handler);
+    }
+
+    /**
+     * Returns {@code true} if tasks submitted by a worker thread of this
+     * pool are pushed to that worker's own queue.
+     *
+     * @return {@code true} if submitter affinity is enabled
+     */
+    public boolean hasSubmitterAffinity() {
+        return ((StealingQueue)getQueue()).affinity;
+    }
+
+    /**
+     * Returns the approximate number of tasks taken by a worker from
+     * a queue other than its own.
+     *
+     * @return the number of steals
+     */
+    public long getStealCount() {
+        StealingQueue q = (StealingQueue)getQueue();
+        long count = 0L;
+        WorkQueue[] ws = q.workers;
+        for (WorkQueue w : ws)
+            count += w.steals;
+        return count;
+    }
+
+    /**
+     * Marks a slot of a queue whose task was removed.  Consumers skip
+     * over it, and clear it as they do with the tasks they take.
+     */
+    static final Runnable REMOVED = new Runnable() {
+        public void run() { }
+    };
+
+    /**
+     * A queue of tasks.  Submitters push tasks at the top and consumers
+     * take them at the base, as in the FIFO mode of the work queues of
+     * {@link ForkJoinPool}: the slot at the base is claimed by a CAS to
+     * null, after which the base is advanced.  A worker queue is only
+     * pushed by its owner, while pushes to a submission queue are
+     * guarded by the qlock spinlock.
+     */
+    static final class WorkQueue {
+
+        /**
+         * Capacity of the array when first allocated.  Must be a power
+         * of two.
+         */
+        static final int INITIAL_QUEUE_CAPACITY = 1 << 6;
+
+        /**
+         * Maximum size of the array.  Must be a power of two less than
+         * or equal to 1 << (31 - width of array entry) to ensure lack of
+         * wraparound of index calculations.
+         */
+        static final int MAXIMUM_QUEUE_CAPACITY = 1 << 26; // 64M
+
+        volatile int base;         // index of next slot to take
+        int top;                   // index of next slot to push
+        volatile Runnable[] array; // the elements (initially unallocated)
+        volatile int qlock;        // 1: locked, else 0
+        volatile Thread parker;    // owner while it waits for a task, else null
+        Thread owner;              // owning thread, or null if shared
+        long steals;               // number of tasks taken from other queues
+
+        /**
+         * Returns the approximate number of tasks in the queue,
+         * including removed ones not yet skipped.
+         */
+        final int queueSize() {
+            int n = base - top;       // non-owner callers must read base first
+            return (n >= 0) ? 0 : -n; // ignore transient negative
+        }
+
+        /**
+         * Pushes a task, unless it would make the queue hold more than
+         * capacity tasks.  Call only by the owner, or while holding
+         * the qlock.
+         *
+         * @return the number of tasks in the queue before the push,
+         * or -1 if the queue is full
+         */
+        final int push(Runnable task, int capacity) {
+            Runnable[] a = array;
+            int s = top, n = s - base;
+            if (n >= capacity)
+                return -1;
+            if (a == null || n >= a.length - 1) {
+                if ((a = growArray()) == null)
+                    return -1;
+            }
+            int j = ((a.length - 1) & s) << ASHIFT;
+            U.putOrderedObject(a, (long)j + ABASE, task);
+            U.putOrderedInt(this, QTOP, s + 1);
+            return n;
+        }
+
+        /**
+         * Initializes or doubles the capacity of the array.  Call only
+         * by the owner, or while holding the qlock.
+         *
+         * @return the new array, or null if at the maximum capacity
+         */
+        final Runnable[] growArray() {
+            Runnable[] oldA = array;
+            int size = oldA != null ? oldA.length << 1 : INITIAL_QUEUE_CAPACITY;
+            if (size > MAXIMUM_QUEUE_CAPACITY)
+                return null;
+            int oldMask, t, b;
+            Runnable[] a = array = new Runnable[size];
+            if (oldA != null && (oldMask = oldA.length - 1) >= 0 &&
+                (t = top) - (b = base) > 0) {
+                int mask = size - 1;
+                do { // emulate poll from old array, push to new array
+                    long oldj = ((long)(b & oldMask) << ASHIFT) + ABASE;
+                    long j    = ((long)(b &    mask) << ASHIFT) + ABASE;
+                    for (Runnable x;;) {   // retry if concurrently removed
+                        if ((x = (Runnable)U.getObjectVolatile(oldA, oldj)) == null)
+                            break;
+                        if (U.compareAndSwapObject(oldA, oldj, x, null)) {
+                            U.putObjectVolatile(a, j, x);
+                            break;
+                        }
+                    }
+                } while (++b != t);
+            }
+            return a;
+        }
+
+        /**
+         * Takes the task at the base, skipping removed ones.  May be
+         * called by any thread.
+         *
+         * @return the task, or null if the queue is empty
+         */
+        final Runnable poll() {
+            Runnable[] a; int b; Runnable t;
+            while ((b = base) - top < 0 && (a = array) != null) {
+                long j = ((long)((a.length - 1) & b) << ASHIFT) + ABASE;
+                t = (Runnable)U.getObjectVolatile(a, j);
+                if (base == b) {
+                    if (t != null) {
+                        if (U.compareAndSwapObject(a, j, t, null)) {
+                            base = b + 1;
+                            if (t != REMOVED) {
+                                skipRemoved();
+                                return t;
+                            }
+                        }
+                    }
+                    else if (b + 1 == top) // now empty
+                        break;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Returns the task at the base without taking it, or null if
+         * the queue is empty.
+         */
+        final Runnable peek() {
+            Runnable[] a = array; int m;
+            if (a == null || (m = a.length - 1) < 0)
+                return null;
+            for (int b = base, s = top; b - s < 0; ++b) {
+                Runnable t = (Runnable)U.getObjectVolatile
+                    (a, ((long)(m & b) << ASHIFT) + ABASE);
+                if (t != null && t != REMOVED)
+                    return t;
+            }
+            return null;
+        }
+
+        /**
+         * Clears removed tasks at the base, so that a queue whose
+         * tasks have all been taken or removed is seen as empty.
+         */
+        final void skipRemoved() {
+            Runnable[] a; int b;
+            while ((b = base) - top < 0 && (a = array) != null) {
+                long j = ((long)((a.length - 1) & b) << ASHIFT) + ABASE;
+                if (U.getObjectVolatile(a, j) != REMOVED || base != b)
+                    break;
+                if (U.compareAndSwapObject(a, j, REMOVED, null))
+                    base = b + 1;
+            }
+        }
+
+        /**
+         * Replaces the given task by REMOVED if it is in the queue.
+         */
+        final boolean remove(Object o) {
+            for (Runnable[] a; (a = array) != null; ) {
+                int m = a.length - 1;
+                for (int b = base, s = top; b - s < 0; ++b) {
+                    long j = ((long)(m & b) << ASHIFT) + ABASE;
+                    Object x = U.getObjectVolatile(a, j);
+                    if (x != null && x != REMOVED && o.equals(x) &&
+                        U.compareAndSwapObject(a, j, x, REMOVED)) {
+                        skipRemoved();
+                        return true;
+                    }
+                }
+                if (a == array)     // else resized while scanning
+                    break;
+            }
+            return false;
+        }
+
+        /**
+         * Adds the tasks in the queue, in order, to the given list.
+         */
+        final void snapshot(ArrayList<Runnable> list) {
+            Runnable[] a = array; int m;
+            if (a == null || (m = a.length - 1) < 0)
+                return;
+            for (int b = base, s = top; b - s < 0; ++b) {
+                Runnable t = (Runnable)U.getObjectVolatile
+                    (a, ((long)(m & b) << ASHIFT) + ABASE);
+                if (t != null && t != REMOVED)
+                    list.add(t);
+            }
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long QTOP;
+        private static final int  ABASE;
+        private static final int  ASHIFT;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                Class<?> k = WorkQueue.class;
+                Class<?> ak = Runnable[].class;
+                QTOP = U.objectFieldOffset
+                    (k.getDeclaredField("top"));
+                ABASE = U.arrayBaseOffset(ak);
+                int scale = U.arrayIndexScale(ak);
+                if ((scale & (scale - 1)) != 0)
+                    throw new Error("data type scale not a power of two");
+                ASHIFT = 31 - Integer.numberOfLeadingZeros(scale);
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+
+    /**
+     * The work queue of the executor: a BlockingQueue view of the
+     * submission queues and the worker queues.  A thread gets a worker
+     * queue the first time it polls or takes, which for a
+     * ThreadPoolExecutor means its workers; the queues of workers that
+     * have terminated are given to new ones.
+     *
+     * Idle workers park after setting the parker field of their queue
+     * and incrementing idleCount, then scanning all the queues once
+     * more.  Submitters that push a task to a queue holding at most
+     * one task read idleCount, and if it is positive, unpark one of
+     * the parked workers, which clears its parker field.  Either the
+     * submitter sees the worker as idle, or the worker sees the task.
+     * A worker that takes a task from a queue that still holds others
+     * unparks another one in turn, so that a burst of tasks spreads
+     * over the idle workers without a wakeup per push, as with the
+     * cascading signals of LinkedBlockingQueue.
+     */
+    static final class StealingQueue extends AbstractQueue<Runnable>
+        implements BlockingQueue<Runnable> {
+
+        final int capacity;
+        final boolean affinity;
+        final WorkQueue[] submissions;   // power of two length
+        volatile WorkQueue[] workers;    // copy-on-write, under lock of this
+        volatile int idleCount;          // number of parked workers
+        final ThreadLocal<WorkQueue> local = new ThreadLocal<WorkQueue>();
+
+        StealingQueue(int capacity, boolean affinity) {
+            if (capacity <= 0) throw new IllegalArgumentException();
+            this.capacity = capacity;
+            this.affinity = affinity;
+            int n = Runtime.getRuntime().availableProcessors();
+            int size = (n <= 1) ? 1 : Integer.highestOneBit(n - 1) << 1;
+            WorkQueue[] ss = new WorkQueue[size];
+            for (int i = 0; i < size; ++i)
+                ss[i] = new WorkQueue();
+            this.submissions = ss;
+            this.workers = new WorkQueue[0];
+        }
+
+        /**
+         * Returns the queue of the current thread, giving it one if it
+         * has none.
+         */
+        final WorkQueue registerWorker() {
+            WorkQueue w = local.get();
+            if (w == null) {
+                Thread t = Thread.currentThread();
+                synchronized (this) {
+                    WorkQueue[] ws = workers;
+                    for (WorkQueue q : ws) {
+                        if (!q.owner.isAlive()) {
+                            w = q;
+                            break;
+                        }
+                    }
+                    if (w == null) {
+                        int n = ws.length;
+                        WorkQueue[] nws = new WorkQueue[n + 1];
+                        System.arraycopy(ws, 0, nws, 0, n);
+                        nws[n] = w = new WorkQueue();
+                        workers = nws;
+                    }
+                    w.owner = t;
+                }
+                local.set(w);
+            }
+            return w;
+        }
+
+        public boolean offer(Runnable e) {
+            if (e == null) throw new NullPointerException();
+            WorkQueue w; int n;
+            if (affinity && (w = local.get()) != null) {
+                if ((n = w.push(e, capacity)) < 0)
+                    return false;
+                U.fullFence();
+            }
+            else {
+                WorkQueue[] ss = submissions;
+                int m = ss.length - 1;
+                int h = ThreadLocalRandom.getProbe();
+                if (h == 0) {
+                    ThreadLocalRandom.localInit();
+                    h = ThreadLocalRandom.getProbe();
+                }
+                for (;;) {
+                    WorkQueue q = ss[h & m];
+                    if (U.compareAndSwapInt(q, QLOCK, 0, 1)) {
+                        try {
+                            n = q.push(e, capacity);
+                        } finally {
+                            q.qlock = 0;
+                        }
+                        if (n < 0)
+                            return false;
+                        break;
+                    }
+                    h = ThreadLocalRandom.advanceProbe(h);
+                }
+            }
+            if (n <= 1 && idleCount > 0)
+                signalWork();
+            return true;
+        }
+
+        /**
+         * Unparks a parked worker, if there is one.
+         */
+        final void signalWork() {
+            WorkQueue[] ws = workers;
+            int n = ws.length;
+            if (n > 0) {
+                int r = ThreadLocalRandom.nextSecondarySeed() & Integer.MAX_VALUE;
+                for (int i = 0, k = r % n; i < n; ++i, k = (k + 1 == n) ? 0 : k + 1) {
+                    WorkQueue w = ws[k]; Thread p;
+                    if ((p = w.parker) != null &&
+                        U.compareAndSwapObject(w, PARKER, p, null)) {
+                        U.getAndAddInt(this, IDLE, -1);
+                        U.unpark(p);
+                        break;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Takes a task from the given worker queue, or else from the
+         * submission queues and other worker queues, starting at a
+         * random one.
+         */
+        final Runnable scan(WorkQueue w) {
+            Runnable t;
+            if ((t = w.poll()) != null)
+                return t;
+            WorkQueue[] ss = submissions, ws = workers;
+            int ns = ss.length, n = ns + ws.length;
+            int r = ThreadLocalRandom.nextSecondarySeed() & Integer.MAX_VALUE;
+            for (int i = 0, k = r % n; i < n; ++i, k = (k + 1 == n) ? 0 : k + 1) {
+                WorkQueue q = (k < ns) ? ss[k] : ws[k - ns];
+                if (q != w && (t = q.poll()) != null) {
+                    w.steals++;
+                    if (q.base - q.top < 0 && idleCount > 0)
+                        signalWork();
+                    return t;
+                }
+            }
+            return null;
+        }
+
+        /**
+         * Takes a task, parking while there is none.
+         *
+         * @param timed true if timed wait
+         * @param nanos the maximum time to wait, if timed
+         * @return the task, or null if timed out
+         */
+        final Runnable awaitWork(boolean timed, long nanos)
+            throws InterruptedException {
+            WorkQueue w = registerWorker();
+            final long deadline = timed ? System.nanoTime() + nanos : 0L;
+            Thread t = Thread.currentThread();
+            for (;;) {
+                Runnable r;
+                if ((r = scan(w)) != null)
+                    return r;
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                if (timed && (nanos = deadline - System.nanoTime()) <= 0L)
+                    return null;
+                w.parker = t;
+                U.getAndAddInt(this, IDLE, 1);
+                if ((r = scan(w)) == null && !t.isInterrupted()) {
+                    if (timed)
+                        LockSupport.parkNanos(this, nanos);
+                    else
+                        LockSupport.park(this);
+                }
+                if (w.parker == t && U.compareAndSwapObject(w, PARKER, t, null))
+                    U.getAndAddInt(this, IDLE, -1);
+                if (r != null)
+                    return r;
+            }
+        }
+
+        public Runnable take() throws InterruptedException {
+            return awaitWork(false, 0L);
+        }
+
+        public Runnable poll(long timeout, TimeUnit unit)
+            throws InterruptedException {
+            return awaitWork(true, unit.toNanos(timeout));
+        }
+
+        public Runnable poll() {
+            return scan(registerWorker());
+        }
+
+        public void put(Runnable e) throws InterruptedException {
+            while (!offer(e)) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                LockSupport.parkNanos(this, 1000L);
+            }
+        }
+
+        public boolean offer(Runnable e, long timeout, TimeUnit unit)
+            throws InterruptedException {
+            final long deadline = System.nanoTime() + unit.toNanos(timeout);
+            while (!offer(e)) {
+                if (Thread.interrupted())
+                    throw new InterruptedException();
+                if (deadline - System.nanoTime() <= 0L)
+                    return false;
+                LockSupport.parkNanos(this, 1000L);
+            }
+            return true;
+        }
+
+        public Runnable peek() {
+            Runnable t;
+            for (WorkQueue q : submissions)
+                if ((t = q.peek()) != null)
+                    return t;
+            for (WorkQueue q : workers)
+                if ((t = q.peek()) != null)
+                    return t;
+            return null;
+        }
+
+        public int size() {
+            long n = 0L;
+            for (WorkQueue q : submissions)
+                n += q.queueSize();
+            for (WorkQueue q : workers)
+                n += q.queueSize();
+            return (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+        }
+
+        public boolean isEmpty() {
+            for (WorkQueue q : submissions)
+                if (q.queueSize() > 0)
+                    return false;
+            for (WorkQueue q : workers)
+                if (q.queueSize() > 0)
+                    return false;
+            return true;
+        }
+
+        public int remainingCapacity() {
+            if (capacity == Integer.MAX_VALUE)
+                return Integer.MAX_VALUE;
+            long n = 0L;
+            for (WorkQueue q : submissions)
+                n += Math.max(0, capacity - q.queueSize());
+            for (WorkQueue q : workers)
+                n += Math.max(0, capacity - q.queueSize());
+            return (n >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int)n;
+        }
+
+        public boolean remove(Object o) {
+            if (o == null)
+                return false;
+            for (WorkQueue q : submissions)
+                if (q.remove(o))
+                    return true;
+            for (WorkQueue q : workers)
+                if (q.remove(o))
+                    return true;
+            return false;
+        }
+
+        public int drainTo(Collection<? super Runnable> c) {
+            return drainTo(c, Integer.MAX_VALUE);
+        }
+
+        public int drainTo(Collection<? super Runnable> c, int maxElements) {
+            if (c == null)
+                throw new NullPointerException();
+            if (c == this)
+                throw new IllegalArgumentException();
+            int n = 0;
+            for (WorkQueue q : submissions)
+                n = drainQueue(q, c, n, maxElements);
+            for (WorkQueue q : workers)
+                n = drainQueue(q, c, n, maxElements);
+            return n;
+        }
+
+        private static int drainQueue(WorkQueue q, Collection<? super Runnable> c,
+                                      int n, int maxElements) {
+            for (Runnable t; n < maxElements && (t = q.poll()) != null; ++n)
+                c.add(t);
+            return n;
+        }
+
+        /**
+         * Returns an iterator over a snapshot of the tasks in the
+         * queues.  Its {@code remove} removes the task from the queues
+         * if it is still there.
+         */
+        public Iterator<Runnable> iterator() {
+            final ArrayList<Runnable> list = new ArrayList<Runnable>();
+            for (WorkQueue q : submissions)
+                q.snapshot(list);
+            for (WorkQueue q : workers)
+                q.snapshot(list);
+            return new Iterator<Runnable>() {
+                int cursor;
+                Runnable lastRet;
+                public boolean hasNext() {
+                    return cursor < list.size();
+                }
+                public Runnable next() {
+                    if (cursor >= list.size())
+                        throw new NoSuchElementException();
+                    return lastRet = list.get(cursor++);
+                }
+                public void remove() {
+                    if (lastRet == null)
+                        throw new IllegalStateException();
+                    StealingQueue.this.remove(lastRet);
+                    lastRet = null;
+                }
+            };
+        }
+
+        // Unsafe mechanics
+        private static final sun.misc.Unsafe U;
+        private static final long IDLE;
+        private static final long QLOCK;
+        private static final long PARKER;
+        static {
+            try {
+                U = sun.misc.Unsafe.getUnsafe();
+                IDLE = U.objectFieldOffset
+                    (StealingQueue.class.getDeclaredField("idleCount"));
+                QLOCK = U.objectFieldOffset
+                    (WorkQueue.class.getDeclaredField("qlock"));
+                PARKER = U.objectFieldOffset
+                    (WorkQueue.class.getDeclaredField("parker"));
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+}
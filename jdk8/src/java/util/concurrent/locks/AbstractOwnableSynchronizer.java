@@ -63,6 +63,12 @@ public abstract class AbstractOwnableSynchronizer
      */
     private transient Thread exclusiveOwnerThread;
 
+    /**
+     * The contention statistics of this synchronizer, or {@code null}
+     * if it has not been profiled.
+     */
+    transient volatile ContentionProfiler.Stats contentionStats;
+
     /**
      * Sets the thread that currently owns exclusive access.
      * A {@code null} argument indicates that no thread owns access.
@@ -72,6 +78,8 @@ public abstract class AbstractOwnableSynchronizer
      */
     protected final void setExclusiveOwnerThread(Thread thread) {
         exclusiveOwnerThread = thread;
+        if (ContentionProfiler.enabled)
+            ContentionProfiler.ownerChanged(this, thread);
     }
 
     /**
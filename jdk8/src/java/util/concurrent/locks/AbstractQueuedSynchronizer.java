@@ -40,6 +40,11 @@ import sun.misc.Unsafe;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.Date;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -314,6 +319,8 @@ public abstract class AbstractQueuedSynchronizer
     private static final long tailOffset;
     private static final long waitStatusOffset;
     private static final long nextOffset;
+    private static final long runStateOffset;
+    private static final long spinDurationOffset;
 
     static {
         try {
@@ -327,6 +334,10 @@ public abstract class AbstractQueuedSynchronizer
                     (Node.class.getDeclaredField("waitStatus"));
             nextOffset = unsafe.objectFieldOffset
                     (Node.class.getDeclaredField("next"));
+            runStateOffset = unsafe.objectFieldOffset
+                    (AsyncNode.class.getDeclaredField("runState"));
+            spinDurationOffset = unsafe.objectFieldOffset
+                    (AbstractQueuedSynchronizer.class.getDeclaredField("spinDuration"));
 
         } catch (Exception ex) {
             throw new Error(ex);
@@ -351,6 +362,12 @@ public abstract class AbstractQueuedSynchronizer
      * The synchronization state.
      */
     private volatile int state;
+    /**
+     * The adaptive spin duration, in spin iterations; zero if adaptive
+     * spinning is disabled.  See class AdaptiveSpin.  Not serialized,
+     * so that a deserialized synchronizer starts with spinning disabled.
+     */
+    private transient int spinDuration;
 
     /**
      * Creates a new {@code AbstractQueuedSynchronizer} instance
@@ -599,7 +616,9 @@ public abstract class AbstractQueuedSynchronizer
                 if (t.waitStatus <= 0)
                     s = t;
         }
-        if (s != null)
+        if (s instanceof AsyncNode)
+            ((AsyncNode)s).signal();
+        else if (s != null)
             LockSupport.unpark(s.thread);
     }
 
@@ -746,6 +765,8 @@ public abstract class AbstractQueuedSynchronizer
      */
     // 入队逻辑? no?
     final boolean acquireQueued(final Node node, int arg) {
+        final long waitStart = ContentionProfiler.enabled ?
+            ContentionProfiler.beginWait(this) : 0L;
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -786,6 +807,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (waitStart != 0L)
+                ContentionProfiler.endWait(this, waitStart, !failed);
         }
     }
 
@@ -797,6 +820,8 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireInterruptibly(int arg)
             throws InterruptedException {
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final long waitStart = ContentionProfiler.enabled ?
+            ContentionProfiler.beginWait(this) : 0L;
         boolean failed = true;
         try {
             for (; ; ) {
@@ -814,6 +839,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (waitStart != 0L)
+                ContentionProfiler.endWait(this, waitStart, !failed);
         }
     }
 
@@ -832,6 +859,8 @@ public abstract class AbstractQueuedSynchronizer
         final long deadline = System.nanoTime() + nanosTimeout;
         // todo: 为什么要 add
         final Node node = addWaiter(Node.EXCLUSIVE);
+        final long waitStart = ContentionProfiler.enabled ?
+            ContentionProfiler.beginWait(this) : 0L;
         boolean failed = true;
         try {
             // 自旋
@@ -865,6 +894,8 @@ public abstract class AbstractQueuedSynchronizer
             // 如果失败,取消获取
             if (failed)
                 cancelAcquire(node);
+            if (waitStart != 0L)
+                ContentionProfiler.endWait(this, waitStart, !failed);
         }
     }
 
@@ -875,6 +906,8 @@ public abstract class AbstractQueuedSynchronizer
      */
     private void doAcquireShared(int arg) {
         final Node node = addWaiter(Node.SHARED);
+        final long waitStart = ContentionProfiler.enabled ?
+            ContentionProfiler.beginWait(this) : 0L;
         boolean failed = true;
         try {
             boolean interrupted = false;
@@ -898,6 +931,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (waitStart != 0L)
+                ContentionProfiler.endWait(this, waitStart, !failed);
         }
     }
 
@@ -909,6 +944,8 @@ public abstract class AbstractQueuedSynchronizer
     private void doAcquireSharedInterruptibly(int arg)
             throws InterruptedException {
         final Node node = addWaiter(Node.SHARED);
+        final long waitStart = ContentionProfiler.enabled ?
+            ContentionProfiler.beginWait(this) : 0L;
         boolean failed = true;
         try {
             for (; ; ) {
@@ -929,6 +966,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (waitStart != 0L)
+                ContentionProfiler.endWait(this, waitStart, !failed);
         }
     }
 
@@ -945,6 +984,8 @@ public abstract class AbstractQueuedSynchronizer
             return false;
         final long deadline = System.nanoTime() + nanosTimeout;
         final Node node = addWaiter(Node.SHARED);
+        final long waitStart = ContentionProfiler.enabled ?
+            ContentionProfiler.beginWait(this) : 0L;
         boolean failed = true;
         try {
             for (; ; ) {
@@ -970,6 +1011,8 @@ public abstract class AbstractQueuedSynchronizer
         } finally {
             if (failed)
                 cancelAcquire(node);
+            if (waitStart != 0L)
+                ContentionProfiler.endWait(this, waitStart, !failed);
         }
     }
 
@@ -1109,6 +1152,143 @@ public abstract class AbstractQueuedSynchronizer
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Attempts to acquire in exclusive mode on behalf of an
+     * asynchronous acquire, for no particular thread.  This method is
+     * invoked by {@link #acquireAsync} and {@link #tryAcquireNanosAsync},
+     * either in the calling thread when no thread is queued, or in the
+     * thread that makes the attempts of a queued asynchronous acquire
+     * once it reaches the front of the queue.
+     *
+     * <p>Unlike {@link #tryAcquire}, the calling thread must not be
+     * recorded as the owner, and the acquisition must be releasable by
+     * {@link #release} from any thread.  The ordering among queued
+     * acquires is kept by the callers, so implementations need not
+     * check for queued predecessors.
+     *
+     * <p>The default implementation throws {@link
+     * UnsupportedOperationException}.
+     *
+     * @param arg the acquire argument, as for {@link #tryAcquire}
+     * @return {@code true} if successful
+     * @throws UnsupportedOperationException if asynchronous exclusive
+     *         acquires are not supported
+     */
+    protected boolean tryAcquireUnowned(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Attempts to acquire in shared mode on behalf of an asynchronous
+     * acquire, for no particular thread, as {@link #tryAcquireUnowned}
+     * does in exclusive mode.  The acquisition must be releasable by
+     * {@link #releaseShared} from any thread.
+     *
+     * <p>The default implementation throws {@link
+     * UnsupportedOperationException}.
+     *
+     * @param arg the acquire argument, as for {@link #tryAcquireShared}
+     * @return a negative value on failure, otherwise as for {@link
+     *         #tryAcquireShared}
+     * @throws UnsupportedOperationException if asynchronous shared
+     *         acquires are not supported
+     */
+    protected int tryAcquireSharedUnowned(int arg) {
+        throw new UnsupportedOperationException();
+    }
+
+    // Adaptive spinning
+
+    /**
+     * Enables or disables adaptive spinning.  While it is enabled, a
+     * thread whose first {@link #tryAcquire} or {@link
+     * #tryAcquireShared} fails in one of the untimed acquire methods
+     * retries for a while before it is queued, backing off
+     * exponentially between attempts, and trying again as soon as the
+     * synchronization state changes.  How long it retries is learned
+     * per synchronizer from the outcome of previous spins, so that
+     * threads spin about as long as owners recently held the
+     * synchronizer, and hardly at all while they hold it longer than
+     * spinning is worth.  For very short critical sections this avoids
+     * most of the cost of parking and unparking; for long ones it
+     * wastes little CPU time.  On a uniprocessor, threads never spin.
+     *
+     * <p>Spinning retries {@code tryAcquire} regardless of queued
+     * threads, so it is only useful for synchronizers whose {@code
+     * tryAcquire} may barge, such as non-fair locks.  The setting is
+     * not serialized.
+     *
+     * @param enable {@code true} to enable adaptive spinning,
+     *        {@code false} to disable it
+     * @since 1.8
+     */
+    public final void setAdaptiveSpinning(boolean enable) {
+        for (int d;;) {
+            if (((d = spinDuration) > 0) == enable ||
+                unsafe.compareAndSwapInt(this, spinDurationOffset, d,
+                                         enable ? AdaptiveSpin.FLOOR_SPINS : 0))
+                return;
+        }
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @see #setAdaptiveSpinning
+     * @since 1.8
+     */
+    public final boolean isAdaptiveSpinning() {
+        return unsafe.getIntVolatile(this, spinDurationOffset) > 0;
+    }
+
+    /**
+     * Returns the current adaptive spin duration, the number of spin
+     * iterations a thread may spend retrying before it is queued.
+     * This method is designed for use in monitoring and tuning.
+     *
+     * @return the spin duration, zero if adaptive spinning is disabled
+     * @since 1.8
+     */
+    public final int getSpinDuration() {
+        int d = unsafe.getIntVolatile(this, spinDurationOffset);
+        return (d > 0) ? AdaptiveSpin.limit(d) : 0;
+    }
+
+    /**
+     * Retries acquiring for the adaptive spin duration, then adapts
+     * the duration to the outcome.  Call only after a failed
+     * tryAcquire or tryAcquireShared.
+     *
+     * @param arg the acquire argument
+     * @param shared true if in shared mode
+     * @return {@code true} if acquired
+     */
+    private boolean spinAcquire(int arg, boolean shared) {
+        int d, limit;
+        if ((d = spinDuration) <= 0 || (limit = AdaptiveSpin.limit(d)) <= 0)
+            return false;
+        boolean acquired = false;
+        for (int spins = 0, backoff = 1;;) {
+            int s = state;
+            for (int k = backoff; k > 0 && s == state; --k)
+                ;                               // wait for a release
+            spins += backoff;
+            if (shared ? tryAcquireShared(arg) >= 0 : tryAcquire(arg)) {
+                acquired = true;
+                break;
+            }
+            if (spins >= limit)
+                break;
+            if (backoff < AdaptiveSpin.MAX_BACKOFF)
+                backoff <<= 1;
+        }
+        unsafe.compareAndSwapInt(this, spinDurationOffset, d, acquired ?
+                                 AdaptiveSpin.succeeded(d) :
+                                 AdaptiveSpin.failed(d));
+        return acquired;
+    }
+
     // Queue inspection methods
 
     /**
@@ -1125,6 +1305,7 @@ public abstract class AbstractQueuedSynchronizer
      */
     public final void acquire(int arg) {
         if (!tryAcquire(arg) &&
+                (spinDuration == 0 || !spinAcquire(arg, false)) &&
                 acquireQueued(addWaiter(Node.EXCLUSIVE), arg))
             selfInterrupt();
     }
@@ -1147,7 +1328,8 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        if (!tryAcquire(arg))
+        if (!tryAcquire(arg) &&
+            (spinDuration == 0 || !spinAcquire(arg, false)))
             doAcquireInterruptibly(arg);
     }
 
@@ -1216,7 +1398,8 @@ public abstract class AbstractQueuedSynchronizer
      *            and can represent anything you like.
      */
     public final void acquireShared(int arg) {
-        if (tryAcquireShared(arg) < 0)
+        if (tryAcquireShared(arg) < 0 &&
+            (spinDuration == 0 || !spinAcquire(arg, true)))
             doAcquireShared(arg);
     }
 
@@ -1238,7 +1421,8 @@ public abstract class AbstractQueuedSynchronizer
             throws InterruptedException {
         if (Thread.interrupted())
             throw new InterruptedException();
-        if (tryAcquireShared(arg) < 0)
+        if (tryAcquireShared(arg) < 0 &&
+            (spinDuration == 0 || !spinAcquire(arg, true)))
             doAcquireSharedInterruptibly(arg);
     }
 
@@ -1286,6 +1470,159 @@ public abstract class AbstractQueuedSynchronizer
         return false;
     }
 
+    /**
+     * Acquires in exclusive mode without blocking, for no particular
+     * thread.  If no thread is queued and {@link #tryAcquireUnowned}
+     * succeeds, returns a completed future.  Otherwise the acquire is
+     * queued with a node that has no thread: when it reaches the front
+     * of the queue, the release that signals it hands it to the {@link
+     * ForkJoinPool#commonPool() common pool}, which invokes {@link
+     * #tryAcquireUnowned} on its behalf and completes the future on
+     * success, so that no thread is blocked while it waits.
+     * Asynchronous acquires never barge ahead of queued threads;
+     * whether threads may barge ahead of them depends on {@link
+     * #tryAcquire}.
+     *
+     * <p>Actions dependent on the returned future are performed by the
+     * calling thread or a common pool thread, after the acquisition,
+     * which must eventually be released by {@link #release} from any
+     * thread.  Cancelling or otherwise completing the future before the
+     * acquisition abandons it; an acquisition made while the future was
+     * being completed is released.
+     *
+     * @param arg the acquire argument.  This value is conveyed to
+     *        {@link #tryAcquireUnowned} but is otherwise uninterpreted
+     *        and can represent anything you like.
+     * @return a future completed with {@code null} upon acquisition
+     * @throws UnsupportedOperationException if asynchronous exclusive
+     *         acquires are not supported
+     * @since 1.8
+     */
+    public final CompletableFuture<Void> acquireAsync(int arg) {
+        if (!hasQueuedThreads() && tryAcquireUnowned(arg))
+            return CompletableFuture.completedFuture(null);
+        return enqueueAsync(Node.EXCLUSIVE, arg, null, -1L);
+    }
+
+    /**
+     * Acquires in exclusive mode without blocking, for no particular
+     * thread, as {@link #acquireAsync}, giving up if the given timeout
+     * elapses first.
+     *
+     * @param arg the acquire argument.  This value is conveyed to
+     *        {@link #tryAcquireUnowned} but is otherwise uninterpreted
+     *        and can represent anything you like.
+     * @param nanosTimeout the maximum number of nanoseconds to wait
+     * @return a future completed with {@code true} upon acquisition, or
+     *         {@code false} if the timeout elapsed first
+     * @throws UnsupportedOperationException if asynchronous exclusive
+     *         acquires are not supported
+     * @since 1.8
+     */
+    public final CompletableFuture<Boolean> tryAcquireNanosAsync(int arg,
+                                                                 long nanosTimeout) {
+        if (!hasQueuedThreads() && tryAcquireUnowned(arg))
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        if (nanosTimeout <= 0L)
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+        return enqueueAsync(Node.EXCLUSIVE, arg, Boolean.TRUE, nanosTimeout);
+    }
+
+    /**
+     * Acquires in shared mode without blocking, for no particular
+     * thread, as {@link #acquireAsync} does in exclusive mode.  The
+     * acquisition must eventually be released by {@link
+     * #releaseShared} from any thread.
+     *
+     * @param arg the acquire argument.  This value is conveyed to
+     *        {@link #tryAcquireSharedUnowned} but is otherwise
+     *        uninterpreted and can represent anything you like.
+     * @return a future completed with {@code null} upon acquisition
+     * @throws UnsupportedOperationException if asynchronous shared
+     *         acquires are not supported
+     * @since 1.8
+     */
+    public final CompletableFuture<Void> acquireSharedAsync(int arg) {
+        if (!hasQueuedThreads() && tryAcquireSharedUnowned(arg) >= 0)
+            return CompletableFuture.completedFuture(null);
+        return enqueueAsync(Node.SHARED, arg, null, -1L);
+    }
+
+    /**
+     * Acquires in shared mode without blocking, for no particular
+     * thread, as {@link #acquireSharedAsync}, giving up if the given
+     * timeout elapses first.
+     *
+     * @param arg the acquire argument.  This value is conveyed to
+     *        {@link #tryAcquireSharedUnowned} but is otherwise
+     *        uninterpreted and can represent anything you like.
+     * @param nanosTimeout the maximum number of nanoseconds to wait
+     * @return a future completed with {@code true} upon acquisition, or
+     *         {@code false} if the timeout elapsed first
+     * @throws UnsupportedOperationException if asynchronous shared
+     *         acquires are not supported
+     * @since 1.8
+     */
+    public final CompletableFuture<Boolean> tryAcquireSharedNanosAsync(int arg,
+                                                                       long nanosTimeout) {
+        if (!hasQueuedThreads() && tryAcquireSharedUnowned(arg) >= 0)
+            return CompletableFuture.completedFuture(Boolean.TRUE);
+        if (nanosTimeout <= 0L)
+            return CompletableFuture.completedFuture(Boolean.FALSE);
+        return enqueueAsync(Node.SHARED, arg, Boolean.TRUE, nanosTimeout);
+    }
+
+    /**
+     * Queues an asynchronous acquire, makes its first attempts as a
+     * thread would before parking, and arms its timeout, if any.
+     *
+     * @param value the value completing the future upon acquisition
+     * @param nanosTimeout the timeout, or negative if none
+     */
+    private <V> CompletableFuture<V> enqueueAsync(Node mode, int arg, V value,
+                                                  long nanosTimeout) {
+        AcquireFuture<V> f = new AcquireFuture<V>();
+        AsyncNode node = new AsyncNode(mode, arg, f, value);
+        f.node = node;
+        enq(node);
+        node.run();
+        if (nanosTimeout >= 0L && !f.isDone()) {
+            f.timeout = Delayer.delay(f, nanosTimeout);
+            if (f.isDone())
+                f.timeout.cancel(false);
+        }
+        return f;
+    }
+
+    /**
+     * Makes the acquire attempts of a queued asynchronous acquire, as
+     * the loops of the acquire methods do for threads.
+     *
+     * @return {@code true} if acquired, {@code false} if the node must
+     *         wait for a signal
+     */
+    private boolean acquireQueuedAsync(AsyncNode node) {
+        for (;;) {
+            final Node p = node.predecessor();
+            if (p == head) {
+                if (node.isShared()) {
+                    int r = tryAcquireSharedUnowned(node.arg);
+                    if (r >= 0) {
+                        setHeadAndPropagate(node, r);
+                        p.next = null; // help GC
+                        return true;
+                    }
+                } else if (tryAcquireUnowned(node.arg)) {
+                    setHead(node);
+                    p.next = null; // help GC
+                    return true;
+                }
+            }
+            if (shouldParkAfterFailedAcquire(p, node))
+                return false;
+        }
+    }
+
     /**
      * Queries whether any threads are waiting to acquire. Note that
      * because cancellations due to interrupts and timeouts may occur
@@ -1853,7 +2190,7 @@ public abstract class AbstractQueuedSynchronizer
      * expert group, for helpful ideas, discussions, and critiques
      * on the design of this class.
      */
-    static final class Node {
+    static class Node {
         /**
          * Marker to indicate a node is waiting in shared mode
          */
@@ -1999,6 +2336,185 @@ public abstract class AbstractQueuedSynchronizer
         }
     }
 
+    /**
+     * The wait node of an asynchronous acquire.  It has no thread:
+     * instead of unparking it, {@link #unparkSuccessor} signals it, and
+     * a common pool thread makes the acquire attempts on its behalf.
+     * The run state serializes these attempts, keeping a signal that
+     * arrives while they run, and their abandonment when the future is
+     * completed by other means.
+     */
+    final class AsyncNode extends Node implements Runnable {
+        static final int IDLE    = 0;   // waiting for a signal
+        static final int RUNNING = 1;   // attempts in progress
+        static final int RERUN   = 2;   // signalled while running
+        static final int DONE    = 3;   // acquired or abandoned
+
+        volatile int runState;
+        final int arg;
+        final AcquireFuture<?> future;
+        final Object value;
+
+        AsyncNode(Node mode, int arg, AcquireFuture<?> future, Object value) {
+            super(null, mode);
+            this.arg = arg;
+            this.future = future;
+            this.value = value;
+            this.runState = RUNNING;    // the enqueuing thread runs first
+        }
+
+        /**
+         * Requests acquire attempts, run in the common pool unless they
+         * are already running.
+         */
+        void signal() {
+            for (int s;;) {
+                if ((s = runState) == IDLE) {
+                    if (unsafe.compareAndSwapInt(this, runStateOffset, IDLE, RUNNING)) {
+                        ForkJoinPool.commonPool().execute(this);
+                        return;
+                    }
+                }
+                else if (s != RUNNING ||
+                         unsafe.compareAndSwapInt(this, runStateOffset, RUNNING, RERUN))
+                    return;
+            }
+        }
+
+        /**
+         * Removes this node from the queue if no attempts are running;
+         * otherwise they notice that the future is done.
+         */
+        void abandon() {
+            if (runState == IDLE &&
+                unsafe.compareAndSwapInt(this, runStateOffset, IDLE, DONE))
+                cancelAcquire(this);
+        }
+
+        public void run() {
+            for (;;) {
+                boolean acquired = false;
+                if (!future.isDone()) {
+                    try {
+                        acquired = acquireQueuedAsync(this);
+                    } catch (Throwable ex) {
+                        runState = DONE;
+                        cancelAcquire(this);
+                        future.fail(ex);
+                        return;
+                    }
+                }
+                if (acquired) {
+                    runState = DONE;
+                    if (!future.grant(value)) {     // completed meanwhile
+                        if (isShared())
+                            releaseShared(arg);
+                        else
+                            release(arg);
+                    }
+                    return;
+                }
+                if (future.isDone()) {
+                    runState = DONE;
+                    cancelAcquire(this);
+                    return;
+                }
+                if (unsafe.compareAndSwapInt(this, runStateOffset, RUNNING, IDLE)) {
+                    if (future.isDone())
+                        abandon();
+                    return;
+                }
+                runState = RUNNING;             // signalled meanwhile
+            }
+        }
+    }
+
+    /**
+     * The future of an asynchronous acquire, completed by its node upon
+     * acquisition.  Completing it by any other means, or by its
+     * timeout, which it runs, abandons the acquire.
+     */
+    static final class AcquireFuture<V> extends CompletableFuture<V>
+        implements Runnable {
+        AbstractQueuedSynchronizer.AsyncNode node;
+        volatile ScheduledFuture<?> timeout;
+
+        @SuppressWarnings("unchecked")
+        boolean grant(Object value) {
+            if (!super.complete((V)value))
+                return false;
+            ScheduledFuture<?> t = timeout;
+            if (t != null)
+                t.cancel(false);
+            return true;
+        }
+
+        void fail(Throwable ex) {
+            if (super.completeExceptionally(ex))
+                abandoned();
+        }
+
+        void abandoned() {
+            ScheduledFuture<?> t = timeout;
+            if (t != null)
+                t.cancel(false);
+            node.abandon();
+        }
+
+        /** Times out the acquire. */
+        @SuppressWarnings("unchecked")
+        public void run() {
+            if (super.complete((V)Boolean.FALSE))
+                node.abandon();
+        }
+
+        public boolean complete(V value) {
+            boolean done = super.complete(value);
+            if (done)
+                abandoned();
+            return done;
+        }
+
+        public boolean completeExceptionally(Throwable ex) {
+            boolean done = super.completeExceptionally(ex);
+            if (done)
+                abandoned();
+            return done;
+        }
+
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean done = super.cancel(mayInterruptIfRunning);
+            if (done)
+                abandoned();
+            return done;
+        }
+    }
+
+    /**
+     * Holder of the daemon thread timing out asynchronous acquires,
+     * started upon first use.
+     */
+    static final class Delayer {
+        static ScheduledFuture<?> delay(Runnable command, long nanos) {
+            return delayer.schedule(command, nanos, TimeUnit.NANOSECONDS);
+        }
+
+        static final class DaemonThreadFactory implements ThreadFactory {
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r);
+                t.setDaemon(true);
+                t.setName("AsyncAcquireDelayScheduler");
+                return t;
+            }
+        }
+
+        static final ScheduledThreadPoolExecutor delayer;
+        static {
+            (delayer = new ScheduledThreadPoolExecutor(
+                1, new DaemonThreadFactory())).setRemoveOnCancelPolicy(true);
+        }
+    }
+
     /**
      * Condition implementation for a {@link
      * AbstractQueuedSynchronizer} serving as the basis of a {@link
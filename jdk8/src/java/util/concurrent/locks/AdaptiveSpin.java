@@ -0,0 +1,66 @@
+package java.util.concurrent.locks;
+
+/**
+ * Spin duration control shared by the adaptive spinning modes of
+ * {@link AbstractQueuedSynchronizer} and {@link StampedLock}.
+ *
+ * <p>As for HotSpot's monitors, each lock keeps a spin duration, the
+ * number of spin iterations a thread finding the lock held spends
+ * retrying before it queues and parks.  A spin that acquires the lock
+ * raises the duration by a bonus, to at least a floor; a spin that
+ * fails lowers it by a penalty.  The duration thus follows the recent
+ * hold times of the lock: it grows while owners release within the
+ * duration, and shrinks towards a short probe while they hold longer
+ * than a thread can usefully spin.  The probe keeps spinning long
+ * enough to notice when hold times get short again.  Updates are racy;
+ * a lost update only delays the adaptation.
+ *
+ * <p>A duration of zero means that adaptive spinning is disabled.  On
+ * uniprocessors a spinning thread only delays the owner, so the limit
+ * of every duration is zero.
+ */
+final class AdaptiveSpin {
+
+    private AdaptiveSpin() {}
+
+    /** Number of CPUs, for spin control */
+    static final int NCPU = Runtime.getRuntime().availableProcessors();
+
+    /** Largest spin duration, in spin iterations. */
+    static final int MAX_SPINS = (NCPU > 1) ? 1 << 14 : 0;
+
+    /** Spins of a lock whose duration has decayed below them. */
+    static final int PROBE_SPINS = (NCPU > 1) ? 1 << 6 : 0;
+
+    /** Lowest duration after a successful spin. */
+    static final int FLOOR_SPINS = 1 << 10;
+
+    /** Increment of the duration after a successful spin. */
+    static final int BONUS = 1 << 8;
+
+    /** Decrement of the duration after a failed spin. */
+    static final int PENALTY = 1 << 9;
+
+    /** Longest backoff between two attempts, in spin iterations. */
+    static final int MAX_BACKOFF = 1 << 6;
+
+    /**
+     * Returns the number of spin iterations for a lock of the given
+     * (enabled, so positive) duration.
+     */
+    static int limit(int duration) {
+        return Math.min(MAX_SPINS, Math.max(PROBE_SPINS, duration));
+    }
+
+    /** Returns the duration following a successful spin. */
+    static int succeeded(int duration) {
+        int d = duration + BONUS;
+        return (d < FLOOR_SPINS) ? FLOOR_SPINS : (d > MAX_SPINS) ? MAX_SPINS : d;
+    }
+
+    /** Returns the duration following a failed spin; at least one. */
+    static int failed(int duration) {
+        int d = duration - PENALTY;
+        return (d < 1) ? 1 : d;
+    }
+}
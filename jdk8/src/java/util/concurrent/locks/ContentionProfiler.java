@@ -0,0 +1,406 @@
+package java.util.concurrent.locks;
+
+import java.lang.management.LockContentionInfo;
+import java.lang.management.LockContentionMXBean;
+import java.lang.management.ManagementPermission;
+import java.lang.ref.ReferenceQueue;
+import java.lang.ref.WeakReference;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.security.AccessController;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import javax.management.ObjectName;
+
+/**
+ * Opt-in contention profiling of the locks and synchronizers built on
+ * {@link AbstractQueuedSynchronizer}, such as {@link ReentrantLock},
+ * {@link ReentrantReadWriteLock} and {@link
+ * java.util.concurrent.Semaphore Semaphore}.
+ *
+ * <p>While profiling is {@linkplain #setEnabled enabled}, each
+ * synchronizer records the acquisitions that had to queue: their count,
+ * the cumulative, maximum and {@linkplain
+ * LockContentionInfo#getWaitTimeHistogram histogram} of their wait
+ * times, the acquisitions that timed out or were interrupted, and the
+ * most threads queued at once.  Once a synchronizer has been contended
+ * or {@linkplain #name named}, the time each owner holds it in exclusive
+ * mode is recorded too.  Synchronizers are identified by name, by
+ * default the simple name of the lock class and the identity hash code
+ * of its synchronizer, as in {@code ReentrantLock@1b6d3586}; locks given
+ * the same name are reported together.
+ *
+ * <p>Profiling is disabled unless the system property {@value
+ * #PROPERTY} is {@code true}, and may be switched at any time through
+ * this class or the {@link LockContentionMXBean}, which is registered
+ * with the platform MBeanServer.  While it is disabled, the only cost is
+ * the test of a static flag on entry to the queued acquire methods and
+ * when the exclusive owner changes; statistics are never allocated for
+ * synchronizers that are not contended.
+ *
+ * @since 1.8
+ */
+public final class ContentionProfiler {
+
+    private ContentionProfiler() {}
+
+    /** The system property that enables profiling at startup */
+    public static final String PROPERTY =
+        "java.util.concurrent.locks.contentionProfiling";
+
+    /** The number of buckets of the wait time histograms */
+    static final int HISTOGRAM_BUCKETS = 32;
+
+    /**
+     * Whether profiling is enabled; the single test made by the
+     * synchronizers when it is not.
+     */
+    static volatile boolean enabled =
+        AccessController.doPrivileged(
+            new sun.security.action.GetBooleanAction(PROPERTY));
+
+    /**
+     * The statistics of one synchronizer.  The counters of queued
+     * acquisitions are atomic since any number of threads may wait at
+     * once; the hold time fields are only written by the exclusive owner,
+     * under the protection of the synchronizer itself.
+     */
+    static final class Stats {
+        volatile String name;
+        final AtomicLong contended = new AtomicLong();
+        final AtomicLong failed = new AtomicLong();
+        final AtomicLong totalWait = new AtomicLong();
+        final AtomicLong maxWait = new AtomicLong();
+        final AtomicLongArray histogram = new AtomicLongArray(HISTOGRAM_BUCKETS);
+        final AtomicInteger queued = new AtomicInteger();
+        final AtomicInteger maxQueued = new AtomicInteger();
+        long ownedSince;    // 0 when not owned or not timed
+        long holds;
+        long totalHold;
+        long maxHold;
+
+        Stats(String name) { this.name = name; }
+
+        void reset() {
+            contended.set(0L);
+            failed.set(0L);
+            totalWait.set(0L);
+            maxWait.set(0L);
+            for (int i = 0; i < HISTOGRAM_BUCKETS; ++i)
+                histogram.set(i, 0L);
+            maxQueued.set(queued.get());
+            holds = totalHold = maxHold = 0L;
+        }
+    }
+
+    /**
+     * A registered synchronizer, weakly referenced so that profiling
+     * does not keep it reachable.
+     */
+    static final class StatsRef
+        extends WeakReference<AbstractOwnableSynchronizer> {
+        final Stats stats;
+        StatsRef(AbstractOwnableSynchronizer sync, Stats stats,
+                 ReferenceQueue<AbstractOwnableSynchronizer> queue) {
+            super(sync, queue);
+            this.stats = stats;
+        }
+    }
+
+    /** The synchronizers that have statistics */
+    private static final ConcurrentHashMap<StatsRef, Boolean> registry =
+        new ConcurrentHashMap<StatsRef, Boolean>();
+
+    /** The references of collected synchronizers */
+    private static final ReferenceQueue<AbstractOwnableSynchronizer> refQueue =
+        new ReferenceQueue<AbstractOwnableSynchronizer>();
+
+    /**
+     * Returns {@code true} if contention profiling is enabled.
+     *
+     * @return {@code true} if contention profiling is enabled
+     */
+    public static boolean isEnabled() {
+        return enabled;
+    }
+
+    /**
+     * Enables or disables contention profiling.  The statistics
+     * gathered so far are kept.
+     *
+     * @param on {@code true} to enable profiling
+     */
+    public static void setEnabled(boolean on) {
+        enabled = on;
+    }
+
+    /**
+     * Gives a name to the synchronizer of a lock, under which its
+     * statistics are reported from now on.  The lock may be a
+     * synchronizer itself, or an object holding one in a field, as do
+     * the locks and synchronizers of {@code java.util.concurrent}.  The
+     * read and write locks of a {@link ReentrantReadWriteLock} share the
+     * synchronizer of the lock.
+     *
+     * @param lock the lock
+     * @param name the name of the lock
+     * @param <L> the type of the lock
+     * @return the lock
+     * @throws NullPointerException if the lock or the name is null
+     * @throws IllegalArgumentException if the lock has no synchronizer
+     */
+    public static <L> L name(L lock, String name) {
+        if (name == null) throw new NullPointerException();
+        statsFor(synchronizerOf(lock)).name = name;
+        return lock;
+    }
+
+    /**
+     * Returns the names of the live synchronizers with statistics, in
+     * order.
+     *
+     * @return the names of the profiled locks
+     */
+    public static String[] getLockNames() {
+        expungeStaleEntries();
+        TreeSet<String> names = new TreeSet<String>();
+        for (StatsRef r : registry.keySet()) {
+            if (r.get() != null)
+                names.add(r.stats.name);
+        }
+        return names.toArray(new String[names.size()]);
+    }
+
+    /**
+     * Returns the statistics of the live synchronizers of the given
+     * name, combined, or {@code null} if there is none.
+     *
+     * @param name the name of the lock
+     * @return the contention statistics of the lock, or {@code null}
+     */
+    public static LockContentionInfo getLockContentionInfo(String name) {
+        if (name == null) throw new NullPointerException();
+        expungeStaleEntries();
+        int locks = 0, queued = 0, maxQueued = 0;
+        long contended = 0L, failed = 0L, totalWait = 0L, maxWait = 0L;
+        long holds = 0L, totalHold = 0L, maxHold = 0L;
+        long[] histogram = new long[HISTOGRAM_BUCKETS];
+        for (StatsRef r : registry.keySet()) {
+            Stats s = r.stats;
+            if (r.get() == null || !name.equals(s.name))
+                continue;
+            ++locks;
+            contended += s.contended.get();
+            failed += s.failed.get();
+            totalWait += s.totalWait.get();
+            maxWait = Math.max(maxWait, s.maxWait.get());
+            for (int i = 0; i < HISTOGRAM_BUCKETS; ++i)
+                histogram[i] += s.histogram.get(i);
+            queued += s.queued.get();
+            maxQueued = Math.max(maxQueued, s.maxQueued.get());
+            holds += s.holds;
+            totalHold += s.totalHold;
+            maxHold = Math.max(maxHold, s.maxHold);
+        }
+        if (locks == 0)
+            return null;
+        return new LockContentionInfo(name, locks, contended, failed,
+                                      totalWait, maxWait, histogram,
+                                      queued, maxQueued,
+                                      holds, totalHold, maxHold);
+    }
+
+    /**
+     * Clears the statistics of all synchronizers, keeping their names.
+     */
+    public static void reset() {
+        expungeStaleEntries();
+        for (StatsRef r : registry.keySet())
+            r.stats.reset();
+    }
+
+    /**
+     * Returns the platform MXBean of contention profiling.
+     *
+     * @return the {@code LockContentionMXBean}
+     */
+    public static LockContentionMXBean getMXBean() {
+        return MXBean.INSTANCE;
+    }
+
+    // Hooks of the synchronizers, called only while enabled
+
+    /**
+     * Records that a thread starts waiting in the queue of the given
+     * synchronizer, and returns the (nonzero) start time to pass to
+     * {@link #endWait}.
+     */
+    static long beginWait(AbstractOwnableSynchronizer sync) {
+        Stats s = statsFor(sync);
+        int q = s.queued.incrementAndGet();
+        for (int m; q > (m = s.maxQueued.get()) &&
+                 !s.maxQueued.compareAndSet(m, q); )
+            ;
+        long now = System.nanoTime();
+        return (now == 0L) ? 1L : now;
+    }
+
+    /**
+     * Records that a thread that called {@link #beginWait} stops
+     * waiting, having acquired or not.
+     */
+    static void endWait(AbstractOwnableSynchronizer sync, long start,
+                        boolean acquired) {
+        long wait = System.nanoTime() - start;
+        Stats s = sync.contentionStats;
+        s.queued.decrementAndGet();
+        if (!acquired) {
+            s.failed.incrementAndGet();
+            return;
+        }
+        s.contended.incrementAndGet();
+        s.totalWait.addAndGet(wait);
+        for (long m; wait > (m = s.maxWait.get()) &&
+                 !s.maxWait.compareAndSet(m, wait); )
+            ;
+        int bucket = 63 - Long.numberOfLeadingZeros(wait / 1000L);
+        s.histogram.incrementAndGet(
+            Math.max(0, Math.min(bucket, HISTOGRAM_BUCKETS - 1)));
+    }
+
+    /**
+     * Records a change of the exclusive owner of the given
+     * synchronizer, timing the hold if the synchronizer has statistics.
+     */
+    static void ownerChanged(AbstractOwnableSynchronizer sync, Thread owner) {
+        Stats s = sync.contentionStats;
+        if (s == null)
+            return;
+        long now = System.nanoTime();
+        if (owner != null)
+            s.ownedSince = (now == 0L) ? 1L : now;
+        else {
+            long since = s.ownedSince;
+            if (since != 0L) {
+                long held = now - since;
+                s.ownedSince = 0L;
+                ++s.holds;
+                s.totalHold += held;
+                if (held > s.maxHold)
+                    s.maxHold = held;
+            }
+        }
+    }
+
+    /**
+     * Returns the statistics of the given synchronizer, creating and
+     * registering them if needed.
+     */
+    static Stats statsFor(AbstractOwnableSynchronizer sync) {
+        Stats s = sync.contentionStats;
+        if (s == null) {
+            synchronized (registry) {
+                if ((s = sync.contentionStats) == null) {
+                    expungeStaleEntries();
+                    s = new Stats(defaultName(sync));
+                    registry.put(new StatsRef(sync, s, refQueue), Boolean.TRUE);
+                    sync.contentionStats = s;
+                }
+            }
+        }
+        return s;
+    }
+
+    /**
+     * Returns the default name of a synchronizer: the simple name of
+     * the outermost class of its class, usually the lock it implements,
+     * and its identity hash code.
+     */
+    static String defaultName(AbstractOwnableSynchronizer sync) {
+        String cn = sync.getClass().getName();
+        int dollar = cn.indexOf('$');
+        if (dollar >= 0)
+            cn = cn.substring(0, dollar);
+        return cn.substring(cn.lastIndexOf('.') + 1) + '@' +
+            Integer.toHexString(System.identityHashCode(sync));
+    }
+
+    /**
+     * Returns the synchronizer of a lock: the lock itself, or the
+     * first instance field holding a synchronizer.
+     */
+    static AbstractOwnableSynchronizer synchronizerOf(Object lock) {
+        if (lock instanceof AbstractOwnableSynchronizer)
+            return (AbstractOwnableSynchronizer)lock;
+        for (Class<?> c = lock.getClass(); c != Object.class;
+             c = c.getSuperclass()) {
+            for (Field f : c.getDeclaredFields()) {
+                if (!Modifier.isStatic(f.getModifiers()) &&
+                    AbstractOwnableSynchronizer.class.isAssignableFrom(f.getType())) {
+                    Object sync = U.getObject(lock, U.objectFieldOffset(f));
+                    if (sync != null)
+                        return (AbstractOwnableSynchronizer)sync;
+                }
+            }
+        }
+        throw new IllegalArgumentException(
+            "no synchronizer in " + lock.getClass().getName());
+    }
+
+    /**
+     * Removes the registrations of collected synchronizers.
+     */
+    private static void expungeStaleEntries() {
+        for (Object r; (r = refQueue.poll()) != null; )
+            registry.remove(r);
+    }
+
+    /**
+     * The platform MXBean, a thin view of the static methods.
+     */
+    static final class MXBean implements LockContentionMXBean {
+        static final MXBean INSTANCE = new MXBean();
+
+        public boolean isContentionProfilingEnabled() {
+            return isEnabled();
+        }
+
+        public void setContentionProfilingEnabled(boolean enable) {
+            checkControlAccess();
+            setEnabled(enable);
+        }
+
+        public String[] getLockNames() {
+            return ContentionProfiler.getLockNames();
+        }
+
+        public LockContentionInfo getLockContentionInfo(String name) {
+            return ContentionProfiler.getLockContentionInfo(name);
+        }
+
+        public void resetContentionStatistics() {
+            checkControlAccess();
+            reset();
+        }
+
+        public ObjectName getObjectName() {
+            try {
+                return new ObjectName(LockContentionMXBean.OBJECT_NAME);
+            } catch (javax.management.MalformedObjectNameException e) {
+                throw new IllegalArgumentException(e);
+            }
+        }
+
+        private static void checkControlAccess() {
+            SecurityManager sm = System.getSecurityManager();
+            if (sm != null)
+                sm.checkPermission(new ManagementPermission("control"));
+        }
+    }
+
+    // Unsafe mechanics
+    private static final sun.misc.Unsafe U = sun.misc.Unsafe.getUnsafe();
+}
@@ -34,6 +34,8 @@
  */
 
 package java.util.concurrent.locks;
+import java.util.concurrent.Fiber;
+import java.util.concurrent.ForkJoinPool;
 import sun.misc.Unsafe;
 
 /**
@@ -72,6 +74,14 @@ import sun.misc.Unsafe;
  * parameter is strongly encouraged. The normal argument to supply as
  * a {@code blocker} within a lock implementation is {@code this}.
  *
+ * <p>When the current thread is the carrier of a {@link Fiber}, the
+ * {@code park} methods block through {@link
+ * ForkJoinPool#managedBlock}, so that the pool keeps its target
+ * parallelism while the fiber is blocked.  The carrier itself stays
+ * blocked with the fiber; the pool compensates with another thread.  Parking with a blocker
+ * that is itself a {@link ForkJoinPool.ManagedBlocker} is taken to be
+ * done within {@code managedBlock} already, and blocks directly.
+ *
  * <p>These methods are designed to be used as tools for creating
  * higher-level synchronization utilities, and are not in themselves
  * useful for most concurrency control applications.  The {@code park}
@@ -172,7 +182,11 @@ public class LockSupport {
     public static void park(Object blocker) {
         Thread t = Thread.currentThread();
         setBlocker(t, blocker);
-        UNSAFE.park(false, 0L);
+        if (t instanceof Fiber.Carrier &&
+            !(blocker instanceof ForkJoinPool.ManagedBlocker))
+            carrierPark((Fiber.Carrier)t, false, 0L);
+        else
+            UNSAFE.park(false, 0L);
         setBlocker(t, null);
     }
 
@@ -212,8 +226,12 @@ public class LockSupport {
         if (nanos > 0) {
             Thread t = Thread.currentThread();
             setBlocker(t, blocker);
-            // 直接 park
-            UNSAFE.park(false, nanos);
+            // 直接 park, 除非是 Fiber 的载体线程
+            if (t instanceof Fiber.Carrier &&
+                !(blocker instanceof ForkJoinPool.ManagedBlocker))
+                carrierPark((Fiber.Carrier)t, false, nanos);
+            else
+                UNSAFE.park(false, nanos);
             setBlocker(t, null);
         }
     }
@@ -254,7 +272,11 @@ public class LockSupport {
     public static void parkUntil(Object blocker, long deadline) {
         Thread t = Thread.currentThread();
         setBlocker(t, blocker);
-        UNSAFE.park(true, deadline);
+        if (t instanceof Fiber.Carrier &&
+            !(blocker instanceof ForkJoinPool.ManagedBlocker))
+            carrierPark((Fiber.Carrier)t, true, deadline);
+        else
+            UNSAFE.park(true, deadline);
         setBlocker(t, null);
     }
 
@@ -302,7 +324,11 @@ public class LockSupport {
      * for example, the interrupt status of the thread upon return.
      */
     public static void park() {
-        UNSAFE.park(false, 0L);
+        Thread t = Thread.currentThread();
+        if (t instanceof Fiber.Carrier)
+            carrierPark((Fiber.Carrier)t, false, 0L);
+        else
+            UNSAFE.park(false, 0L);
     }
 
     /**
@@ -335,8 +361,13 @@ public class LockSupport {
      * @param nanos the maximum number of nanoseconds to wait
      */
     public static void parkNanos(long nanos) {
-        if (nanos > 0)
-            UNSAFE.park(false, nanos);
+        if (nanos > 0) {
+            Thread t = Thread.currentThread();
+            if (t instanceof Fiber.Carrier)
+                carrierPark((Fiber.Carrier)t, false, nanos);
+            else
+                UNSAFE.park(false, nanos);
+        }
     }
 
     /**
@@ -370,7 +401,52 @@ public class LockSupport {
      *        to wait until
      */
     public static void parkUntil(long deadline) {
-        UNSAFE.park(true, deadline);
+        Thread t = Thread.currentThread();
+        if (t instanceof Fiber.Carrier)
+            carrierPark((Fiber.Carrier)t, true, deadline);
+        else
+            UNSAFE.park(true, deadline);
+    }
+
+    /**
+     * Parks a fiber carrier within {@link ForkJoinPool#managedBlock},
+     * unless its pool is shut down, in which case it may not be able
+     * to compensate.
+     */
+    private static void carrierPark(Fiber.Carrier t, boolean absolute,
+                                    long time) {
+        ForkJoinPool p = t.getPool();
+        if (p.isShutdown())
+            UNSAFE.park(absolute, time);
+        else {
+            try {
+                ForkJoinPool.managedBlock(new CarrierParker(absolute, time));
+            } catch (InterruptedException cannotHappen) {
+                // CarrierParker.block does not throw
+            }
+        }
+    }
+
+    /**
+     * Parks once, as a ManagedBlocker.  Like park, it may return
+     * spuriously; callers recheck their condition.
+     */
+    static final class CarrierParker implements ForkJoinPool.ManagedBlocker {
+        final boolean absolute;
+        final long time;
+        boolean parked;
+        CarrierParker(boolean absolute, long time) {
+            this.absolute = absolute;
+            this.time = time;
+        }
+        public boolean block() {
+            UNSAFE.park(absolute, time);
+            parked = true;
+            return true;
+        }
+        public boolean isReleasable() {
+            return parked;
+        }
     }
 
     /**
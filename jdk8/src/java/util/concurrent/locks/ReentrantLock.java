@@ -36,6 +36,7 @@
 package java.util.concurrent.locks;
 
 import java.util.Collection;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 
 /**
@@ -305,13 +306,67 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync.tryAcquireNanos(1, unit.toNanos(timeout));
     }
 
+    /**
+     * Acquires the lock without blocking, for no particular thread.
+     *
+     * <p>If the lock is not held and no thread is waiting for it, it is
+     * acquired at once and a completed future is returned.  Otherwise
+     * the request is queued in order with the threads waiting for the
+     * lock, but without a thread of its own, and the returned future is
+     * completed by a thread of the {@linkplain
+     * java.util.concurrent.ForkJoinPool#commonPool() common pool} once
+     * the lock is granted to it.  No thread is blocked meanwhile.
+     *
+     * <p>The lock is then held by no thread: {@link #getOwner} returns
+     * {@code null}, and the hold is not reentrant.  It must be released
+     * by a single call to {@link #unlock} from any thread, typically in
+     * an action dependent on the future:
+     *
+     * <pre> {@code
+     * lock.lockAsync().thenRun(() -> {
+     *   try {
+     *     // ... method body
+     *   } finally {
+     *     lock.unlock();
+     *   }
+     * });}</pre>
+     *
+     * <p>Cancelling the future before the lock is granted withdraws the
+     * request.
+     *
+     * @return a future completed when the lock is acquired
+     * @since 1.8
+     */
+    public CompletableFuture<Void> lockAsync() {
+        return sync.acquireAsync(1);
+    }
+
+    /**
+     * Acquires the lock without blocking, for no particular thread, as
+     * {@link #lockAsync} does, unless the given waiting time elapses
+     * first.  If the time is less than or equal to zero, the request is
+     * not queued.
+     *
+     * @param timeout the time to wait for the lock
+     * @param unit    the time unit of the timeout argument
+     * @return a future completed with {@code true} when the lock is
+     * acquired, or {@code false} if the waiting time elapsed before
+     * @throws NullPointerException if the time unit is null
+     * @since 1.8
+     */
+    public CompletableFuture<Boolean> tryLockAsync(long timeout, TimeUnit unit) {
+        return sync.tryAcquireNanosAsync(1, unit.toNanos(timeout));
+    }
+
     /**
      * Attempts to release this lock.
      *
      * <p>If the current thread is the holder of this lock then the hold
      * count is decremented.  If the hold count is now zero then the lock
      * is released.  If the current thread is not the holder of this
-     * lock then {@link IllegalMonitorStateException} is thrown.
+     * lock then {@link IllegalMonitorStateException} is thrown, unless
+     * the lock is held by no thread after a {@link #lockAsync}, in which
+     * case it is released.
      *
      * @throws IllegalMonitorStateException if the current thread does not
      *                                      hold this lock
@@ -462,6 +517,47 @@ public class ReentrantLock implements Lock, java.io.Serializable {
         return sync instanceof FairSync;
     }
 
+    /**
+     * Enables or disables adaptive spinning.  While it is enabled, a
+     * thread that finds this lock held retries for a while before it
+     * is queued and parked, for a duration learned from how long the
+     * owners recently held it, as described for {@link
+     * AbstractQueuedSynchronizer#setAdaptiveSpinning}.  This avoids
+     * the latency of parking and unparking around very short critical
+     * sections.  It is disabled by default, and has no effect on a
+     * uniprocessor or for the timed {@code tryLock}.
+     *
+     * @param enable {@code true} to enable adaptive spinning,
+     *        {@code false} to disable it
+     * @since 1.8
+     */
+    public void setAdaptiveSpinning(boolean enable) {
+        sync.setAdaptiveSpinning(enable);
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @since 1.8
+     */
+    public boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+
+    /**
+     * Returns the number of spin iterations a thread currently spends
+     * retrying before it is queued.  This method is designed for use
+     * in monitoring and tuning.
+     *
+     * @return the current spin duration, zero if adaptive spinning
+     *         is disabled
+     * @since 1.8
+     */
+    public int getSpinDuration() {
+        return sync.getSpinDuration();
+    }
+
     /**
      * Returns the thread that currently owns this lock, or
      * {@code null} if not owned. When this method is called by a
@@ -612,15 +708,16 @@ public class ReentrantLock implements Lock, java.io.Serializable {
      * Returns a string identifying this lock, as well as its lock state.
      * The state, in brackets, includes either the String {@code "Unlocked"}
      * or the String {@code "Locked by"} followed by the
-     * {@linkplain Thread#getName name} of the owning thread.
+     * {@linkplain Thread#getName name} of the owning thread, or the
+     * String {@code "Locked"} if no thread owns it.
      *
      * @return a string identifying this lock, as well as its lock state
      */
     public String toString() {
         Thread o = sync.getOwner();
-        return super.toString() + ((o == null) ?
-                "[Unlocked]" :
-                "[Locked by thread " + o.getName() + "]");
+        return super.toString() + ((o != null) ?
+                "[Locked by thread " + o.getName() + "]" :
+                sync.isLocked() ? "[Locked]" : "[Unlocked]");
     }
 
     /**
@@ -631,6 +728,13 @@ public class ReentrantLock implements Lock, java.io.Serializable {
     abstract static class Sync extends AbstractQueuedSynchronizer {
         private static final long serialVersionUID = -5179523762034025860L;
 
+        /**
+         * Whether the lock is held by an asynchronous acquire, for no
+         * thread.  Written while holding the lock, before setting the
+         * state on release, so read after the state.
+         */
+        private transient boolean heldUnowned;
+
         /**
          * Performs {@link Lock#lock}. The main reason for subclassing
          * is to allow fast path for nonfair version.
@@ -663,17 +767,32 @@ public class ReentrantLock implements Lock, java.io.Serializable {
 
         protected final boolean tryRelease(int releases) {
             int c = getState() - releases;
-            if (Thread.currentThread() != getExclusiveOwnerThread())
+            if (Thread.currentThread() != getExclusiveOwnerThread() &&
+                !heldUnowned)
                 throw new IllegalMonitorStateException();
             boolean free = false;
             if (c == 0) {
                 free = true;
+                heldUnowned = false;
                 setExclusiveOwnerThread(null);
             }
             setState(c);
             return free;
         }
 
+        /**
+         * Acquires for an asynchronous lock request, for no thread.
+         * Both fair and nonfair locks only barge if the lock is free,
+         * AQS having checked for queued threads.
+         */
+        protected final boolean tryAcquireUnowned(int acquires) {
+            if (getState() == 0 && compareAndSetState(0, acquires)) {
+                heldUnowned = true;
+                return true;
+            }
+            return false;
+        }
+
         protected final boolean isHeldExclusively() {
             // While we must in general read state before owner,
             // we don't need to do so to check if current thread is owner
@@ -34,6 +34,7 @@
  */
 
 package java.util.concurrent.locks;
+import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.TimeUnit;
 import java.util.Collection;
 
@@ -245,6 +246,86 @@ public class ReentrantReadWriteLock
     public ReentrantReadWriteLock.WriteLock writeLock() { return writerLock; }
     public ReentrantReadWriteLock.ReadLock  readLock()  { return readerLock; }
 
+    /**
+     * Acquires the read lock without blocking, for no particular
+     * thread.
+     *
+     * <p>If the write lock is not held and no thread is waiting for the
+     * lock, the read lock is acquired at once and a completed future is
+     * returned.  Otherwise the request is queued in order with the
+     * threads waiting for the lock, but without a thread of its own, and
+     * the returned future is completed by a thread of the {@linkplain
+     * java.util.concurrent.ForkJoinPool#commonPool() common pool} once
+     * the read lock is granted to it.  No thread is blocked meanwhile.
+     *
+     * <p>The read lock is then held by no thread, and must be released
+     * by a call to {@link ReadLock#unlock} from any thread that does not
+     * itself hold the read lock.  Cancelling the future before the lock
+     * is granted withdraws the request.
+     *
+     * @return a future completed when the read lock is acquired
+     * @since 1.8
+     */
+    public CompletableFuture<Void> readLockAsync() {
+        return sync.acquireSharedAsync(1);
+    }
+
+    /**
+     * Acquires the read lock without blocking, for no particular
+     * thread, as {@link #readLockAsync} does, unless the given waiting
+     * time elapses first.
+     *
+     * @param timeout the time to wait for the read lock
+     * @param unit the time unit of the timeout argument
+     * @return a future completed with {@code true} when the read lock is
+     *         acquired, or {@code false} if the waiting time elapsed
+     *         before
+     * @throws NullPointerException if the time unit is null
+     * @since 1.8
+     */
+    public CompletableFuture<Boolean> tryReadLockAsync(long timeout, TimeUnit unit) {
+        return sync.tryAcquireSharedNanosAsync(1, unit.toNanos(timeout));
+    }
+
+    /**
+     * Acquires the write lock without blocking, for no particular
+     * thread.
+     *
+     * <p>If neither the read nor the write lock is held and no thread is
+     * waiting for the lock, the write lock is acquired at once and a
+     * completed future is returned.  Otherwise the request is queued as
+     * by {@link #readLockAsync}, and the returned future is completed
+     * once the write lock is granted to it.
+     *
+     * <p>The write lock is then held by no thread, and the hold is not
+     * reentrant.  It must be released by a single call to {@link
+     * WriteLock#unlock} from any thread.  Cancelling the future before
+     * the lock is granted withdraws the request.
+     *
+     * @return a future completed when the write lock is acquired
+     * @since 1.8
+     */
+    public CompletableFuture<Void> writeLockAsync() {
+        return sync.acquireAsync(1);
+    }
+
+    /**
+     * Acquires the write lock without blocking, for no particular
+     * thread, as {@link #writeLockAsync} does, unless the given waiting
+     * time elapses first.
+     *
+     * @param timeout the time to wait for the write lock
+     * @param unit the time unit of the timeout argument
+     * @return a future completed with {@code true} when the write lock is
+     *         acquired, or {@code false} if the waiting time elapsed
+     *         before
+     * @throws NullPointerException if the time unit is null
+     * @since 1.8
+     */
+    public CompletableFuture<Boolean> tryWriteLockAsync(long timeout, TimeUnit unit) {
+        return sync.tryAcquireNanosAsync(1, unit.toNanos(timeout));
+    }
+
     /**
      * Synchronization implementation for ReentrantReadWriteLock.
      * Subclassed into fair and nonfair versions.
@@ -297,6 +378,19 @@ public class ReentrantReadWriteLock
          */
         private transient ThreadLocalHoldCounter readHolds;
 
+        /**
+         * Whether the write lock is held by an asynchronous acquire, for
+         * no thread.  Written while holding the write lock, before
+         * setting the state on release, so read after the state.
+         */
+        private transient boolean heldUnowned;
+
+        /**
+         * The number of read locks held by asynchronous acquires, for no
+         * thread.  Updated by CAS.
+         */
+        private transient volatile int unownedReads;
+
         /**
          * The hold count of the last thread to successfully acquire
          * readLock. This saves ThreadLocal lookup in the common case
@@ -367,16 +461,64 @@ public class ReentrantReadWriteLock
          */
 
         protected final boolean tryRelease(int releases) {
-            if (!isHeldExclusively())
-                throw new IllegalMonitorStateException();
             int nextc = getState() - releases;
+            if (!isHeldExclusively() && !heldUnowned)
+                throw new IllegalMonitorStateException();
             boolean free = exclusiveCount(nextc) == 0;
-            if (free)
+            if (free) {
+                heldUnowned = false;
                 setExclusiveOwnerThread(null);
+            }
             setState(nextc);
             return free;
         }
 
+        /**
+         * Acquires the write lock for an asynchronous request, for no
+         * thread, if the lock is free.  AQS has checked for queued
+         * threads, so there is no queue policy to ask.
+         */
+        protected final boolean tryAcquireUnowned(int acquires) {
+            if (getState() == 0 && compareAndSetState(0, acquires)) {
+                heldUnowned = true;
+                return true;
+            }
+            return false;
+        }
+
+        /**
+         * Acquires a read lock for an asynchronous request, for no
+         * thread, unless the write lock is held.
+         */
+        protected final int tryAcquireSharedUnowned(int unused) {
+            for (;;) {
+                int c = getState();
+                if (exclusiveCount(c) != 0)
+                    return -1;
+                if (sharedCount(c) == MAX_COUNT)
+                    throw new Error("Maximum lock count exceeded");
+                if (compareAndSetState(c, c + SHARED_UNIT)) {
+                    for (int n; !UNSAFE.compareAndSwapInt
+                             (this, UNOWNED_READS, n = unownedReads, n + 1); )
+                        ;
+                    return 1;
+                }
+            }
+        }
+
+        /**
+         * Takes the release of a read lock by a thread that holds none
+         * as that of a read lock held for no thread, if there is one.
+         */
+        private boolean releaseUnownedRead() {
+            for (int n;;) {
+                if ((n = unownedReads) <= 0)
+                    return false;
+                if (UNSAFE.compareAndSwapInt(this, UNOWNED_READS, n, n - 1))
+                    return true;
+            }
+        }
+
         protected final boolean tryAcquire(int acquires) {
             /*
              * Walkthrough:
@@ -424,10 +566,11 @@ public class ReentrantReadWriteLock
                 int count = rh.count;
                 if (count <= 1) {
                     readHolds.remove();
-                    if (count <= 0)
+                    if (count <= 0 && !releaseUnownedRead())
                         throw unmatchedUnlockException();
                 }
-                --rh.count;
+                if (count > 0)
+                    --rh.count;
             }
             for (;;) {
                 int c = getState();
@@ -1232,6 +1375,48 @@ public class ReentrantReadWriteLock
         return sync instanceof FairSync;
     }
 
+    /**
+     * Enables or disables adaptive spinning.  While it is enabled, a
+     * thread that finds this lock held retries for a while before it
+     * is queued and parked, for a duration learned from how long the
+     * owners recently held it, as described for {@link
+     * AbstractQueuedSynchronizer#setAdaptiveSpinning}.  This avoids
+     * the latency of parking and unparking around very short critical
+     * sections.  It is disabled by default, and has no effect on a
+     * uniprocessor or for the timed {@code tryLock}.  Spinning
+     * applies to both the read lock and the write lock.
+     *
+     * @param enable {@code true} to enable adaptive spinning,
+     *        {@code false} to disable it
+     * @since 1.8
+     */
+    public void setAdaptiveSpinning(boolean enable) {
+        sync.setAdaptiveSpinning(enable);
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @since 1.8
+     */
+    public boolean isAdaptiveSpinning() {
+        return sync.isAdaptiveSpinning();
+    }
+
+    /**
+     * Returns the number of spin iterations a thread currently spends
+     * retrying before it is queued.  This method is designed for use
+     * in monitoring and tuning.
+     *
+     * @return the current spin duration, zero if adaptive spinning
+     *         is disabled
+     * @since 1.8
+     */
+    public int getSpinDuration() {
+        return sync.getSpinDuration();
+    }
+
     /**
      * Returns the thread that currently owns the write lock, or
      * {@code null} if not owned. When this method is called by a
@@ -1496,12 +1681,15 @@ public class ReentrantReadWriteLock
     // Unsafe mechanics
     private static final sun.misc.Unsafe UNSAFE;
     private static final long TID_OFFSET;
+    private static final long UNOWNED_READS;
     static {
         try {
             UNSAFE = sun.misc.Unsafe.getUnsafe();
             Class<?> tk = Thread.class;
             TID_OFFSET = UNSAFE.objectFieldOffset
                 (tk.getDeclaredField("tid"));
+            UNOWNED_READS = UNSAFE.objectFieldOffset
+                (Sync.class.getDeclaredField("unownedReads"));
         } catch (Exception e) {
             throw new Error(e);
         }
@@ -333,6 +333,8 @@ public class StampedLock implements java.io.Serializable {
     private transient volatile long state;
     /** extra reader count when state read count saturated */
     private transient int readerOverflow;
+    /** adaptive spin duration; zero if fixed SPINS. See AdaptiveSpin */
+    private transient int spinDuration;
 
     /**
      * Creates a new lock, initially in unlocked state.
@@ -784,6 +786,56 @@ public class StampedLock implements java.io.Serializable {
         return (int) readers;
     }
 
+    /**
+     * Enables or disables adaptive spinning.  By default, a thread
+     * that finds this lock held and no thread queued spins for a short
+     * fixed number of iterations before it is queued.  While adaptive
+     * spinning is enabled, it spins instead for a duration learned from
+     * how long the writers that recently had to wait for this lock
+     * kept waiting, as for the {@linkplain
+     * AbstractQueuedSynchronizer#setAdaptiveSpinning adaptive
+     * spinning} of {@link ReentrantLock}: longer while write locks are
+     * released quickly, hardly at all while they are held long.
+     * Readers waiting for a writer spin for the same duration.  On a
+     * uniprocessor, threads never spin.  The setting is not serialized.
+     *
+     * @param enable {@code true} to enable adaptive spinning,
+     *        {@code false} to disable it
+     * @since 1.8
+     */
+    public void setAdaptiveSpinning(boolean enable) {
+        for (int d;;) {
+            if (((d = spinDuration) > 0) == enable ||
+                U.compareAndSwapInt(this, SPINDURATION, d,
+                                    enable ? AdaptiveSpin.FLOOR_SPINS : 0))
+                return;
+        }
+    }
+
+    /**
+     * Returns {@code true} if adaptive spinning is enabled.
+     *
+     * @return {@code true} if adaptive spinning is enabled
+     * @since 1.8
+     */
+    public boolean isAdaptiveSpinning() {
+        return U.getIntVolatile(this, SPINDURATION) > 0;
+    }
+
+    /**
+     * Returns the number of spin iterations a thread currently spends
+     * retrying before it is queued, if adaptive spinning is enabled.
+     * This method is designed for use in monitoring and tuning.
+     *
+     * @return the current spin duration, zero if adaptive spinning
+     *         is disabled
+     * @since 1.8
+     */
+    public int getSpinDuration() {
+        int d = U.getIntVolatile(this, SPINDURATION);
+        return (d > 0) ? AdaptiveSpin.limit(d) : 0;
+    }
+
     /**
      * Returns {@code true} if the lock is currently held exclusively.
      *
@@ -1035,17 +1087,30 @@ public class StampedLock implements java.io.Serializable {
      */
     private long acquireWrite(boolean interruptible, long deadline) {
         WNode node = null, p;
+        int d = spinDuration;           // adapt only if spun with d > 0
+        boolean adapt = false;
         for (int spins = -1;;) { // spin while enqueuing
             long m, s, ns;
             if ((m = (s = state) & ABITS) == 0L) {
-                if (U.compareAndSwapLong(this, STATE, s, ns = s + WBIT))
+                if (U.compareAndSwapLong(this, STATE, s, ns = s + WBIT)) {
+                    if (adapt)
+                        U.compareAndSwapInt(this, SPINDURATION, d,
+                                            AdaptiveSpin.succeeded(d));
                     return ns;
+                }
+            }
+            else if (spins < 0) {
+                spins = (m == WBIT && wtail == whead) ?
+                    (d > 0 ? AdaptiveSpin.limit(d) : SPINS) : 0;
+                adapt = d > 0 && spins > 0;
             }
-            else if (spins < 0)
-                spins = (m == WBIT && wtail == whead) ? SPINS : 0;
             else if (spins > 0) {
-                if (LockSupport.nextSecondarySeed() >= 0)
-                    --spins;
+                if (LockSupport.nextSecondarySeed() >= 0 && --spins == 0 &&
+                    adapt) {
+                    adapt = false;
+                    U.compareAndSwapInt(this, SPINDURATION, d,
+                                        AdaptiveSpin.failed(d));
+                }
             }
             else if ((p = wtail) == null) { // initialize queue
                 WNode hd = new WNode(WMODE, null);
@@ -1156,7 +1221,8 @@ public class StampedLock implements java.io.Serializable {
                                 if ((nh == h && np == p) || (h = nh) != (p = np))
                                     break;
                             }
-                            spins = SPINS;
+                            int d = spinDuration;
+                            spins = (d > 0) ? AdaptiveSpin.limit(d) : SPINS;
                         }
                     }
                 }
@@ -1385,6 +1451,7 @@ public class StampedLock implements java.io.Serializable {
     private static final long WSTATUS;
     private static final long WCOWAIT;
     private static final long PARKBLOCKER;
+    private static final long SPINDURATION;
 
     static {
         try {
@@ -1397,6 +1464,8 @@ public class StampedLock implements java.io.Serializable {
                 (k.getDeclaredField("whead"));
             WTAIL = U.objectFieldOffset
                 (k.getDeclaredField("wtail"));
+            SPINDURATION = U.objectFieldOffset
+                (k.getDeclaredField("spinDuration"));
             WSTATUS = U.objectFieldOffset
                 (wk.getDeclaredField("status"));
             WNEXT = U.objectFieldOffset
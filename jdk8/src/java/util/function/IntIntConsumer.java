@@ -0,0 +1,26 @@
+package java.util.function;
+
+/**
+ * Represents an operation that accepts two {@code int}-valued
+ * arguments, and returns no result.  This is the {@code (int, int)}
+ * specialization of {@link BiConsumer}.  Unlike most other functional
+ * interfaces, {@code IntIntConsumer} is expected to operate via
+ * side-effects.
+ *
+ * <p>This is a <a href="package-summary.html">functional interface</a>
+ * whose functional method is {@link #accept(int, int)}.
+ *
+ * @see BiConsumer
+ * @since 1.8
+ */
+@FunctionalInterface
+public interface IntIntConsumer {
+
+    /**
+     * Performs this operation on the given arguments.
+     *
+     * @param left the first input argument
+     * @param right the second input argument
+     */
+    void accept(int left, int right);
+}
@@ -26,6 +26,9 @@ package java.util.stream;
 
 import java.util.Objects;
 import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.ForkJoinWorkerThread;
 import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
@@ -142,12 +145,36 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
 
     private Runnable sourceCloseAction;
 
+    /**
+     * Action releasing the resources held by lazily evaluated stateful
+     * operations, such as temporary files; only valid for the source stage.
+     */
+    private Runnable sourceReleaseAction;
+
     /**
      * True if pipeline is parallel, otherwise the pipeline is sequential; only
      * valid for the source stage.
      */
     private boolean parallel;
 
+    /**
+     * The pool parallel evaluation runs in, or null to run in the pool of the
+     * invoking thread or the common pool; only valid for the source stage.
+     */
+    private ForkJoinPool sourcePool;
+
+    /**
+     * The parallelism the source is split for, or zero for the common pool
+     * parallelism; only valid for the source stage.
+     */
+    private int sourceParallelism;
+
+    /**
+     * The metrics parallel evaluation records to, or null; only valid for the
+     * source stage.
+     */
+    private StreamMetrics sourceMetrics;
+
     /**
      * Constructor for the head of a stream pipeline.
      *
@@ -213,6 +240,33 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         this.depth = previousStage.depth + 1;
     }
 
+    /**
+     * Constructor for replacing the last stage of an existing pipeline by a
+     * stage fusing its operation with a further one.  The replaced stage is
+     * consumed and the new stage is linked to its upstream stage in its
+     * place, at the same depth.
+     *
+     * @param opFlags the operation flags for the fused operations of the new
+     * stage, described in {@link StreamOpFlag}
+     * @param replacedStage the last pipeline stage, taking elements of the
+     * same type as the new stage
+     */
+    AbstractPipeline(int opFlags, AbstractPipeline<E_IN, ?, ?> replacedStage) {
+        if (replacedStage.linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        replacedStage.linkedOrConsumed = true;
+        AbstractPipeline<?, ?, ?> previousStage = replacedStage.previousStage;
+        previousStage.nextStage = this;
+
+        this.previousStage = previousStage;
+        this.sourceOrOpFlags = opFlags & StreamOpFlag.OP_MASK;
+        this.combinedFlags = StreamOpFlag.combineOpFlags(opFlags, previousStage.combinedFlags);
+        this.sourceStage = previousStage.sourceStage;
+        if (opIsStateful())
+            sourceStage.sourceAnyStateful = true;
+        this.depth = replacedStage.depth;
+    }
+
 
     // Terminal evaluation methods
 
@@ -230,10 +284,85 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         linkedOrConsumed = true;
 
         return isParallel()
-               ? terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags()))
+               ? evaluateInPool(() -> terminalOp.evaluateParallel(this, sourceSpliterator(terminalOp.getOpFlags())))
                : terminalOp.evaluateSequential(this, sourceSpliterator(terminalOp.getOpFlags()));
     }
 
+    /**
+     * Runs a parallel evaluation in the pool the pipeline is bound to, unless
+     * already running in that pool, and records its elapsed time to the
+     * metrics of the pipeline, if any.
+     *
+     * @param evaluation the evaluation, including the preparation of the
+     *        source spliterator, which may evaluate stateful operations
+     * @param <R> the type of result
+     * @return the result
+     */
+    private <R> R evaluateInPool(Supplier<R> evaluation) {
+        ForkJoinPool pool = sourceStage.sourcePool;
+        StreamMetrics metrics = sourceStage.sourceMetrics;
+        long start = (metrics != null) ? System.nanoTime() : 0L;
+        try {
+            Thread t;
+            if (pool == null ||
+                ((t = Thread.currentThread()) instanceof ForkJoinWorkerThread &&
+                 ((ForkJoinWorkerThread) t).getPool() == pool))
+                return evaluation.get();
+            return pool.invoke(ForkJoinTask.adapt(() -> evaluation.get()));
+        } finally {
+            try {
+                releaseResources();
+            } finally {
+                if (metrics != null)
+                    metrics.recordEvaluation(System.nanoTime() - start);
+            }
+        }
+    }
+
+    /**
+     * Registers an action releasing resources that a stateful operation
+     * holds for the lazy parallel evaluation of this pipeline.  The action
+     * is run once, when the terminal operation completes or, if the
+     * pipeline is traversed through {@link #spliterator}, when the stream
+     * is closed.
+     *
+     * @param releaseAction the action releasing the resources
+     */
+    final void addReleaseAction(Runnable releaseAction) {
+        Runnable existingAction = sourceStage.sourceReleaseAction;
+        sourceStage.sourceReleaseAction =
+                (existingAction == null)
+                ? releaseAction
+                : Streams.composeWithExceptions(existingAction, releaseAction);
+    }
+
+    /**
+     * Binds this pipeline to the pool, parallelism and metrics of another
+     * pipeline, so that a nested pipeline which a stateful operation of that
+     * pipeline evaluates in parallel over its own spliterator is split and
+     * recorded the same way.  The nested evaluation is expected to run within
+     * the evaluation of the other pipeline, hence in its pool.
+     *
+     * @param pipeline the pipeline whose evaluation settings are copied
+     */
+    final void bindLike(AbstractPipeline<?, ?, ?> pipeline) {
+        AbstractPipeline<?, ?, ?> source = pipeline.sourceStage;
+        sourceStage.sourcePool = source.sourcePool;
+        sourceStage.sourceParallelism = source.sourceParallelism;
+        sourceStage.sourceMetrics = source.sourceMetrics;
+    }
+
+    /**
+     * Runs the release actions registered for this pipeline, if any.
+     */
+    private void releaseResources() {
+        Runnable releaseAction = sourceStage.sourceReleaseAction;
+        if (releaseAction != null) {
+            sourceStage.sourceReleaseAction = null;
+            releaseAction.run();
+        }
+    }
+
     /**
      * Collect the elements output from the pipeline stage.
      *
@@ -254,7 +383,10 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
             // upstream slice and upstream operations will not be included
             // in this slice
             depth = 0;
-            return opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator);
+            return evaluateInPool(() -> opEvaluateParallel(previousStage, previousStage.sourceSpliterator(0), generator));
+        }
+        else if (isParallel()) {
+            return evaluateInPool(() -> evaluate(sourceSpliterator(0), true, generator));
         }
         else {
             return evaluate(sourceSpliterator(0), true, generator);
@@ -296,6 +428,41 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         }
     }
 
+    /**
+     * Gets the source stage spliterator if this pipeline stage is the only
+     * intermediate stage of a sequential pipeline, so that a terminal
+     * operation may push the source elements through the operation of this
+     * stage without wrapping sinks.  The pipeline is consumed if this method
+     * returns a spliterator.
+     *
+     * @return the source stage spliterator, or {@code null} if the pipeline
+     *         is parallel or this stage does not directly follow the source
+     *         stage
+     */
+    @SuppressWarnings("unchecked")
+    final Spliterator<?> adjacentSourceSpliterator() {
+        if (previousStage != sourceStage || sourceStage.parallel)
+            return null;
+
+        if (linkedOrConsumed)
+            throw new IllegalStateException(MSG_STREAM_LINKED);
+        linkedOrConsumed = true;
+
+        if (sourceStage.sourceSpliterator != null) {
+            Spliterator<?> s = sourceStage.sourceSpliterator;
+            sourceStage.sourceSpliterator = null;
+            return s;
+        }
+        else if (sourceStage.sourceSupplier != null) {
+            Spliterator<?> s = (Spliterator<?>) sourceStage.sourceSupplier.get();
+            sourceStage.sourceSupplier = null;
+            return s;
+        }
+        else {
+            throw new IllegalStateException(MSG_CONSUMED);
+        }
+    }
+
     // BaseStream
 
     @Override
@@ -312,15 +479,38 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return (S) this;
     }
 
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S parallel(ForkJoinPool pool, int parallelism) {
+        Objects.requireNonNull(pool);
+        if (parallelism < 1)
+            throw new IllegalArgumentException();
+        sourceStage.parallel = true;
+        sourceStage.sourcePool = pool;
+        sourceStage.sourceParallelism = parallelism;
+        return (S) this;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public final S recordMetrics(StreamMetrics metrics) {
+        sourceStage.sourceMetrics = Objects.requireNonNull(metrics);
+        return (S) this;
+    }
+
     @Override
     public void close() {
         linkedOrConsumed = true;
         sourceSupplier = null;
         sourceSpliterator = null;
-        if (sourceStage.sourceCloseAction != null) {
-            Runnable closeAction = sourceStage.sourceCloseAction;
-            sourceStage.sourceCloseAction = null;
-            closeAction.run();
+        try {
+            releaseResources();
+        } finally {
+            if (sourceStage.sourceCloseAction != null) {
+                Runnable closeAction = sourceStage.sourceCloseAction;
+                sourceStage.sourceCloseAction = null;
+                closeAction.run();
+            }
         }
     }
 
@@ -504,6 +694,17 @@ abstract class AbstractPipeline<E_IN, E_OUT, S extends BaseStream<E_OUT, S>>
         return combinedFlags;
     }
 
+    @Override
+    final long getLeafTarget() {
+        int p = sourceStage.sourceParallelism;
+        return (p > 0) ? (long) p << 2 : AbstractTask.LEAF_TARGET;
+    }
+
+    @Override
+    final StreamMetrics getMetrics() {
+        return sourceStage.sourceMetrics;
+    }
+
     final boolean isOrdered() {
         return StreamOpFlag.ORDERED.isKnown(combinedFlags);
     }
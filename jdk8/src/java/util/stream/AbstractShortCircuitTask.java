@@ -112,6 +112,7 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
                 break;
             }
             if (sizeEstimate <= sizeThreshold || (ls = rs.trySplit()) == null) {
+                recordLeaf(helper, rs);
                 result = task.doLeaf();
                 break;
             }
@@ -130,6 +131,7 @@ abstract class AbstractShortCircuitTask<P_IN, P_OUT, R,
                 task = rightChild;
                 taskToFork = leftChild;
             }
+            recordSplit(helper);
             taskToFork.fork();
             sizeEstimate = rs.estimateSize();
         }
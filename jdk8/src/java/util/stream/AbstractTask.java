@@ -176,15 +176,35 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     protected abstract R doLeaf();
 
     /**
-     * Returns a suggested target leaf size based on the initial size estimate.
+     * Returns a suggested target leaf size based on the initial size estimate
+     * and the leaf task target of the pipeline.
      *
      * @return suggested target leaf size
      */
-    public static long suggestTargetSize(long sizeEstimate) {
-        long est = sizeEstimate / LEAF_TARGET;
+    static long suggestTargetSize(PipelineHelper<?> helper, long sizeEstimate) {
+        long est = sizeEstimate / helper.getLeafTarget();
         return est > 0L ? est : 1L;
     }
 
+    /**
+     * Records a split, forking a subtask, to the metrics of the pipeline, if
+     * any.
+     */
+    static void recordSplit(PipelineHelper<?> helper) {
+        StreamMetrics metrics = helper.getMetrics();
+        if (metrics != null)
+            metrics.recordSplit();
+    }
+
+    /**
+     * Records a leaf task to the metrics of the pipeline, if any.
+     */
+    static void recordLeaf(PipelineHelper<?> helper, Spliterator<?> spliterator) {
+        StreamMetrics metrics = helper.getMetrics();
+        if (metrics != null)
+            metrics.recordLeaf(spliterator.estimateSize());
+    }
+
     /**
      * Returns the targetSize, initializing it via the supplied
      * size estimate if not already initialized.
@@ -192,7 +212,7 @@ abstract class AbstractTask<P_IN, P_OUT, R,
     protected final long getTargetSize(long sizeEstimate) {
         long s;
         return ((s = targetSize) != 0 ? s :
-                (targetSize = suggestTargetSize(sizeEstimate)));
+                (targetSize = suggestTargetSize(helper, sizeEstimate)));
     }
 
     /**
@@ -310,9 +330,11 @@ abstract class AbstractTask<P_IN, P_OUT, R,
                 task = rightChild;
                 taskToFork = leftChild;
             }
+            recordSplit(helper);
             taskToFork.fork();
             sizeEstimate = rs.estimateSize();
         }
+        recordLeaf(helper, rs);
         task.setLocalResult(task.doLeaf());
         task.tryComplete();
     }
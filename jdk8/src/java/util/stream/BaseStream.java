@@ -31,6 +31,7 @@ import java.util.Collection;
 import java.util.Iterator;
 import java.util.Spliterator;
 import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
 import java.util.function.IntConsumer;
 import java.util.function.Predicate;
 
@@ -116,6 +117,63 @@ public interface BaseStream<T, S extends BaseStream<T, S>>
      */
     S parallel();
 
+    /**
+     * Returns an equivalent stream that is parallel and whose parallel
+     * evaluation runs in the given pool, splitting the source as though
+     * for the given parallelism, into about four leaf tasks per unit of
+     * parallelism.  A pipeline is otherwise evaluated in the pool of the
+     * thread invoking the terminal operation, or the
+     * {@linkplain ForkJoinPool#commonPool() common pool}, and split for
+     * the parallelism of the common pool; binding the pipelines of a
+     * tenant to a pool of its own isolates them from the parallel streams
+     * of other tenants.  Traversals through the {@link #iterator} or
+     * {@link #spliterator} of the stream do not use the pool.  A later
+     * call of {@link #sequential} makes the stream sequential, and so
+     * not evaluated in the pool.  May return itself.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param pool the pool running the parallel evaluation
+     * @param parallelism the parallelism the source is split for; the
+     *        parallelism of the pool is a natural choice
+     * @return a parallel stream bound to the pool
+     * @throws NullPointerException if the pool is null
+     * @throws IllegalArgumentException if parallelism is less than one
+     * @throws UnsupportedOperationException if this stream does not
+     *         support binding to a pool
+     * @since 1.8
+     */
+    default S parallel(ForkJoinPool pool, int parallelism) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns an equivalent stream that records its parallel evaluation
+     * to the given metrics.  May return itself.
+     *
+     * <p>This is an <a href="package-summary.html#StreamOps">intermediate
+     * operation</a>.
+     *
+     * @implSpec
+     * The default implementation throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param metrics the metrics to record to
+     * @return a stream recording to the metrics
+     * @throws NullPointerException if the metrics are null
+     * @throws UnsupportedOperationException if this stream does not
+     *         support metrics
+     * @since 1.8
+     */
+    default S recordMetrics(StreamMetrics metrics) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Returns an equivalent stream that is
      * <a href="package-summary.html#Ordering">unordered</a>.  May return
@@ -31,6 +31,7 @@ import java.util.Set;
 import java.util.function.BiConsumer;
 import java.util.function.BinaryOperator;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Supplier;
 
 /**
@@ -202,6 +203,27 @@ public interface Collector<T, A, R> {
      */
     Supplier<A> supplier();
 
+    /**
+     * A function that creates and returns a new mutable result container
+     * with room for the given number of input elements.  A reduction uses
+     * it, instead of {@link #supplier()}, if this collector is {@link
+     * Characteristics#PRESIZED PRESIZED} and the number of elements to be
+     * accumulated into the container is known.  The size is a hint: more
+     * or fewer elements may be accumulated.
+     *
+     * @implSpec
+     * The default implementation returns a function ignoring the size
+     * and invoking the function returned by {@link #supplier()}.
+     *
+     * @return a function which returns a new, mutable result container
+     *         for a given number of elements
+     * @since 1.8
+     */
+    default IntFunction<A> sizedSupplier() {
+        Supplier<A> supplier = supplier();
+        return size -> supplier.get();
+    }
+
     /**
      * A function that folds a value into a mutable result container.
      *
@@ -336,6 +358,17 @@ public interface Collector<T, A, R> {
          * can be elided.  If set, it must be the case that an unchecked cast
          * from A to R will succeed.
          */
-        IDENTITY_FINISH
+        IDENTITY_FINISH,
+
+        /**
+         * Indicates that the function returned by {@link
+         * Collector#sizedSupplier()} creates containers sized for the given
+         * number of elements, so that a reduction over a source of known
+         * size, such as a {@link java.util.Spliterator#SIZED SIZED} stream,
+         * can avoid growing them as elements are accumulated.
+         *
+         * @since 1.8
+         */
+        PRESIZED
     }
 }
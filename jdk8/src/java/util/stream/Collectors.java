@@ -31,13 +31,20 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Collections;
 import java.util.Comparator;
+import java.util.DoubleArrayList;
 import java.util.DoubleSummaryStatistics;
 import java.util.EnumSet;
 import java.util.HashMap;
 import java.util.HashSet;
+import java.util.IntArrayList;
+import java.util.IntHashMap;
+import java.util.IntIntHashMap;
 import java.util.IntSummaryStatistics;
 import java.util.Iterator;
 import java.util.List;
+import java.util.LongArrayList;
+import java.util.LongHashMap;
+import java.util.LongLongHashMap;
 import java.util.LongSummaryStatistics;
 import java.util.Map;
 import java.util.Objects;
@@ -51,6 +58,7 @@ import java.util.function.BiFunction;
 import java.util.function.BinaryOperator;
 import java.util.function.Consumer;
 import java.util.function.Function;
+import java.util.function.IntFunction;
 import java.util.function.Predicate;
 import java.util.function.Supplier;
 import java.util.function.ToDoubleFunction;
@@ -116,6 +124,11 @@ public final class Collectors {
             = Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.UNORDERED,
                                                      Collector.Characteristics.IDENTITY_FINISH));
     static final Set<Collector.Characteristics> CH_NOID = Collections.emptySet();
+    static final Set<Collector.Characteristics> CH_PRESIZED_ID
+            = Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.PRESIZED,
+                                                     Collector.Characteristics.IDENTITY_FINISH));
+    static final Set<Collector.Characteristics> CH_PRESIZED_NOID
+            = Collections.unmodifiableSet(EnumSet.of(Collector.Characteristics.PRESIZED));
 
     private Collectors() { }
 
@@ -146,23 +159,34 @@ public final class Collectors {
      */
     static class CollectorImpl<T, A, R> implements Collector<T, A, R> {
         private final Supplier<A> supplier;
+        private final IntFunction<A> sizedSupplier;
         private final BiConsumer<A, T> accumulator;
         private final BinaryOperator<A> combiner;
         private final Function<A, R> finisher;
         private final Set<Characteristics> characteristics;
 
         CollectorImpl(Supplier<A> supplier,
+                      IntFunction<A> sizedSupplier,
                       BiConsumer<A, T> accumulator,
                       BinaryOperator<A> combiner,
                       Function<A,R> finisher,
                       Set<Characteristics> characteristics) {
             this.supplier = supplier;
+            this.sizedSupplier = sizedSupplier;
             this.accumulator = accumulator;
             this.combiner = combiner;
             this.finisher = finisher;
             this.characteristics = characteristics;
         }
 
+        CollectorImpl(Supplier<A> supplier,
+                      BiConsumer<A, T> accumulator,
+                      BinaryOperator<A> combiner,
+                      Function<A,R> finisher,
+                      Set<Characteristics> characteristics) {
+            this(supplier, null, accumulator, combiner, finisher, characteristics);
+        }
+
         CollectorImpl(Supplier<A> supplier,
                       BiConsumer<A, T> accumulator,
                       BinaryOperator<A> combiner,
@@ -180,6 +204,11 @@ public final class Collectors {
             return supplier;
         }
 
+        @Override
+        public IntFunction<A> sizedSupplier() {
+            return (sizedSupplier != null) ? sizedSupplier : Collector.super.sizedSupplier();
+        }
+
         @Override
         public BinaryOperator<A> combiner() {
             return combiner;
@@ -227,9 +256,10 @@ public final class Collectors {
      */
     public static <T>
     Collector<T, ?, List<T>> toList() {
-        return new CollectorImpl<>((Supplier<List<T>>) ArrayList::new, List::add,
+        return new CollectorImpl<>((Supplier<List<T>>) ArrayList::new,
+                                   (IntFunction<List<T>>) ArrayList::new, List::add,
                                    (left, right) -> { left.addAll(right); return left; },
-                                   CH_ID);
+                                   castingIdentity(), CH_PRESIZED_ID);
     }
 
     /**
@@ -1534,6 +1564,391 @@ public final class Collectors {
                 (l, r) -> { l.combine(r); return l; }, CH_ID);
     }
 
+    /**
+     * Returns a {@code Collector} which applies an {@code int}-producing
+     * mapping function to each input element and accumulates the results
+     * into an {@code int[]}, in encounter order.  The values are held in an
+     * {@link IntArrayList} while collecting, so they are never boxed.
+     *
+     * <p>This is a {@link Collector.Characteristics#PRESIZED presized}
+     * Collector: collecting a {@code SIZED} stream creates a list of the
+     * size of the stream, or of each part of a parallel stream.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the value from an element
+     * @return a {@code Collector} which collects the values of all the input
+     * elements into an {@code int[]}, in encounter order
+     *
+     * @see #toLongArray(ToLongFunction)
+     * @see #toDoubleArray(ToDoubleFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, int[]> toIntArray(ToIntFunction<? super T> mapper) {
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<T, IntArrayList, int[]>(
+                IntArrayList::new, IntArrayList::new,
+                (l, t) -> l.add(mapper.applyAsInt(t)),
+                (left, right) -> { left.addAll(right); return left; },
+                IntArrayList::toArray, CH_PRESIZED_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} which applies a {@code long}-producing
+     * mapping function to each input element and accumulates the results
+     * into a {@code long[]}, in encounter order.  The values are held in a
+     * {@link LongArrayList} while collecting, so they are never boxed.
+     *
+     * <p>This is a {@link Collector.Characteristics#PRESIZED presized}
+     * Collector.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the value from an element
+     * @return a {@code Collector} which collects the values of all the input
+     * elements into a {@code long[]}, in encounter order
+     *
+     * @see #toIntArray(ToIntFunction)
+     * @see #toDoubleArray(ToDoubleFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, long[]> toLongArray(ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<T, LongArrayList, long[]>(
+                LongArrayList::new, LongArrayList::new,
+                (l, t) -> l.add(mapper.applyAsLong(t)),
+                (left, right) -> { left.addAll(right); return left; },
+                LongArrayList::toArray, CH_PRESIZED_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} which applies a {@code double}-producing
+     * mapping function to each input element and accumulates the results
+     * into a {@code double[]}, in encounter order.  The values are held in
+     * a {@link DoubleArrayList} while collecting, so they are never boxed.
+     *
+     * <p>This is a {@link Collector.Characteristics#PRESIZED presized}
+     * Collector.
+     *
+     * @param <T> the type of the input elements
+     * @param mapper a function extracting the value from an element
+     * @return a {@code Collector} which collects the values of all the input
+     * elements into a {@code double[]}, in encounter order
+     *
+     * @see #toIntArray(ToIntFunction)
+     * @see #toLongArray(ToLongFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, double[]> toDoubleArray(ToDoubleFunction<? super T> mapper) {
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<T, DoubleArrayList, double[]>(
+                DoubleArrayList::new, DoubleArrayList::new,
+                (l, t) -> l.add(mapper.applyAsDouble(t)),
+                (left, right) -> { left.addAll(right); return left; },
+                DoubleArrayList::toArray, CH_PRESIZED_NOID);
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to an
+     * {@code int} key and returning the results in an {@link IntHashMap}.
+     *
+     * @implSpec
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByInt(classifier, toList());
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, IntHashMap<List<T>>>
+    groupingByInt(ToIntFunction<? super T> classifier) {
+        return groupingByInt(classifier, toList());
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to an {@code int} key, and then performing a reduction
+     * operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.
+     *
+     * <p>Unlike {@link #groupingBy(Function, Collector)}, the keys are
+     * never boxed: the intermediate containers of the downstream collector
+     * are held in an {@link IntHashMap}, and looking up the container of an
+     * element allocates nothing.  Downstream collectors accumulating into
+     * primitive arrays, such as {@link #counting()}, {@link
+     * #summingLong(ToLongFunction)} or {@link
+     * #averagingDouble(ToDoubleFunction)}, then box only the result of each
+     * group.  For example, to compute the average salary by department
+     * number:
+     * <pre>{@code
+     *     IntHashMap<Double> averageByDept
+     *         = employees.stream().collect(groupingByInt(Employee::getDeptNo,
+     *                                                    averagingDouble(Employee::getSalary)));
+     * }</pre>
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function operates by merging the keys
+     * from one map into another.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByInt(ToIntFunction)
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @see #summingIntByInt(ToIntFunction, ToIntFunction)
+     * @since 1.8
+     */
+    public static <T, A, D>
+    Collector<T, ?, IntHashMap<D>> groupingByInt(ToIntFunction<? super T> classifier,
+                                                 Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        BiConsumer<IntHashMap<A>, T> accumulator = (m, t) -> {
+            int key = classifier.applyAsInt(t);
+            A container = m.get(key);
+            if (container == null)
+                m.put(key, container = downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<IntHashMap<A>> merger = (m1, m2) -> {
+            m2.forEach((k, v) -> {
+                A container = m1.putIfAbsent(k, v);
+                if (container != null)
+                    m1.put(k, downstreamCombiner.apply(container, v));
+            });
+            return m1;
+        };
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(IntHashMap::new, accumulator, merger, CH_ID);
+        }
+        else {
+            @SuppressWarnings("unchecked")
+            Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+            Function<IntHashMap<A>, IntHashMap<D>> finisher = intermediate -> {
+                // Replacing the value of a key is not a structural modification
+                intermediate.forEach((k, v) -> intermediate.put(k, downstreamFinisher.apply(v)));
+                @SuppressWarnings("unchecked")
+                IntHashMap<D> castResult = (IntHashMap<D>) intermediate;
+                return castResult;
+            };
+            return new CollectorImpl<>(IntHashMap::new, accumulator, merger, finisher, CH_NOID);
+        }
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a "group by" operation on
+     * input elements of type {@code T}, grouping elements according to a
+     * {@code long} key and returning the results in a {@link LongHashMap}.
+     *
+     * @implSpec
+     * This produces a result similar to:
+     * <pre>{@code
+     *     groupingByLong(classifier, toList());
+     * }</pre>
+     *
+     * @param <T> the type of the input elements
+     * @param classifier the classifier function mapping input elements to keys
+     * @return a {@code Collector} implementing the group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction, Collector)
+     * @since 1.8
+     */
+    public static <T> Collector<T, ?, LongHashMap<List<T>>>
+    groupingByLong(ToLongFunction<? super T> classifier) {
+        return groupingByLong(classifier, toList());
+    }
+
+    /**
+     * Returns a {@code Collector} implementing a cascaded "group by"
+     * operation on input elements of type {@code T}, grouping elements
+     * according to a {@code long} key, and then performing a reduction
+     * operation on the values associated with a given key using the
+     * specified downstream {@code Collector}.  The keys are never boxed, as
+     * for {@link #groupingByInt(ToIntFunction, Collector)}.
+     *
+     * @implNote
+     * The returned {@code Collector} is not concurrent.  For parallel stream
+     * pipelines, the {@code combiner} function operates by merging the keys
+     * from one map into another.
+     *
+     * @param <T> the type of the input elements
+     * @param <A> the intermediate accumulation type of the downstream collector
+     * @param <D> the result type of the downstream reduction
+     * @param classifier a classifier function mapping input elements to keys
+     * @param downstream a {@code Collector} implementing the downstream reduction
+     * @return a {@code Collector} implementing the cascaded group-by operation
+     *
+     * @see #groupingByLong(ToLongFunction)
+     * @see #groupingByInt(ToIntFunction, Collector)
+     * @see #summingLongByLong(ToLongFunction, ToLongFunction)
+     * @since 1.8
+     */
+    public static <T, A, D>
+    Collector<T, ?, LongHashMap<D>> groupingByLong(ToLongFunction<? super T> classifier,
+                                                   Collector<? super T, A, D> downstream) {
+        Objects.requireNonNull(classifier);
+        Supplier<A> downstreamSupplier = downstream.supplier();
+        BiConsumer<A, ? super T> downstreamAccumulator = downstream.accumulator();
+        BinaryOperator<A> downstreamCombiner = downstream.combiner();
+        BiConsumer<LongHashMap<A>, T> accumulator = (m, t) -> {
+            long key = classifier.applyAsLong(t);
+            A container = m.get(key);
+            if (container == null)
+                m.put(key, container = downstreamSupplier.get());
+            downstreamAccumulator.accept(container, t);
+        };
+        BinaryOperator<LongHashMap<A>> merger = (m1, m2) -> {
+            m2.forEach((k, v) -> {
+                A container = m1.putIfAbsent(k, v);
+                if (container != null)
+                    m1.put(k, downstreamCombiner.apply(container, v));
+            });
+            return m1;
+        };
+
+        if (downstream.characteristics().contains(Collector.Characteristics.IDENTITY_FINISH)) {
+            return new CollectorImpl<>(LongHashMap::new, accumulator, merger, CH_ID);
+        }
+        else {
+            @SuppressWarnings("unchecked")
+            Function<A, A> downstreamFinisher = (Function<A, A>) downstream.finisher();
+            Function<LongHashMap<A>, LongHashMap<D>> finisher = intermediate -> {
+                intermediate.forEach((k, v) -> intermediate.put(k, downstreamFinisher.apply(v)));
+                @SuppressWarnings("unchecked")
+                LongHashMap<D> castResult = (LongHashMap<D>) intermediate;
+                return castResult;
+            };
+            return new CollectorImpl<>(LongHashMap::new, accumulator, merger, finisher, CH_NOID);
+        }
+    }
+
+    /**
+     * Returns a {@code Collector} counting the input elements by an
+     * {@code int} key.  The counts are held directly in the value array of
+     * an {@link IntIntHashMap}, so counting an element allocates nothing.
+     *
+     * <p>This is the primitive form of {@code groupingBy(classifier,
+     * counting())}.  The count of a key must not exceed
+     * {@code Integer.MAX_VALUE}; use {@link #countingByLong(ToLongFunction)}
+     * otherwise.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a {@code Collector} counting the input elements by key
+     *
+     * @see #summingIntByInt(ToIntFunction, ToIntFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, IntIntHashMap> countingByInt(ToIntFunction<? super T> classifier) {
+        Objects.requireNonNull(classifier);
+        return new CollectorImpl<T, IntIntHashMap, IntIntHashMap>(
+                IntIntHashMap::new,
+                (m, t) -> m.addTo(classifier.applyAsInt(t), 1),
+                (m1, m2) -> { m2.forEach(m1::addTo); return m1; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} counting the input elements by a
+     * {@code long} key.  The counts are held directly in the value array of
+     * a {@link LongLongHashMap}, so counting an element allocates nothing.
+     *
+     * <p>This is the primitive form of {@code groupingBy(classifier,
+     * counting())}.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @return a {@code Collector} counting the input elements by key
+     *
+     * @see #summingLongByLong(ToLongFunction, ToLongFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> countingByLong(ToLongFunction<? super T> classifier) {
+        Objects.requireNonNull(classifier);
+        return new CollectorImpl<T, LongLongHashMap, LongLongHashMap>(
+                LongLongHashMap::new,
+                (m, t) -> m.addTo(classifier.applyAsLong(t), 1L),
+                (m1, m2) -> { m2.forEach(m1::addTo); return m1; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} summing an integer-valued function of the
+     * input elements by an {@code int} key.  The sums are held directly in
+     * the value array of an {@link IntIntHashMap}.  If no elements have a
+     * given key, the key is absent.
+     *
+     * <p>This is the primitive form of {@code groupingBy(classifier,
+     * summingInt(mapper))}; the sums overflow silently, as for {@link
+     * #summingInt(ToIntFunction)}.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} summing the property by key
+     *
+     * @see #countingByInt(ToIntFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, IntIntHashMap> summingIntByInt(ToIntFunction<? super T> classifier,
+                                                   ToIntFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<T, IntIntHashMap, IntIntHashMap>(
+                IntIntHashMap::new,
+                (m, t) -> m.addTo(classifier.applyAsInt(t), mapper.applyAsInt(t)),
+                (m1, m2) -> { m2.forEach(m1::addTo); return m1; },
+                CH_ID);
+    }
+
+    /**
+     * Returns a {@code Collector} summing a long-valued function of the
+     * input elements by a {@code long} key.  The sums are held directly in
+     * the value array of a {@link LongLongHashMap}.  If no elements have a
+     * given key, the key is absent.
+     *
+     * <p>This is the primitive form of {@code groupingBy(classifier,
+     * summingLong(mapper))}.
+     *
+     * @param <T> the type of the input elements
+     * @param classifier a classifier function mapping input elements to keys
+     * @param mapper a function extracting the property to be summed
+     * @return a {@code Collector} summing the property by key
+     *
+     * @see #countingByLong(ToLongFunction)
+     * @since 1.8
+     */
+    public static <T>
+    Collector<T, ?, LongLongHashMap> summingLongByLong(ToLongFunction<? super T> classifier,
+                                                       ToLongFunction<? super T> mapper) {
+        Objects.requireNonNull(classifier);
+        Objects.requireNonNull(mapper);
+        return new CollectorImpl<T, LongLongHashMap, LongLongHashMap>(
+                LongLongHashMap::new,
+                (m, t) -> m.addTo(classifier.applyAsLong(t), mapper.applyAsLong(t)),
+                (m1, m2) -> { m2.forEach(m1::addTo); return m1; },
+                CH_ID);
+    }
+
     /**
      * Implementation class used by partitioningBy.
      */
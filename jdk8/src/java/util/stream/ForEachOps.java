@@ -280,7 +280,7 @@ final class ForEachOps {
             Spliterator<S> rightSplit = spliterator, leftSplit;
             long sizeEstimate = rightSplit.estimateSize(), sizeThreshold;
             if ((sizeThreshold = targetSize) == 0L)
-                targetSize = sizeThreshold = AbstractTask.suggestTargetSize(sizeEstimate);
+                targetSize = sizeThreshold = AbstractTask.suggestTargetSize(helper, sizeEstimate);
             boolean isShortCircuit = StreamOpFlag.SHORT_CIRCUIT.isKnown(helper.getStreamAndOpFlags());
             boolean forkRight = false;
             Sink<S> taskSink = sink;
@@ -288,6 +288,7 @@ final class ForEachOps {
             while (!isShortCircuit || !taskSink.cancellationRequested()) {
                 if (sizeEstimate <= sizeThreshold ||
                     (leftSplit = rightSplit.trySplit()) == null) {
+                    AbstractTask.recordLeaf(helper, rightSplit);
                     task.helper.copyInto(taskSink, rightSplit);
                     break;
                 }
@@ -304,6 +305,7 @@ final class ForEachOps {
                     forkRight = true;
                     taskToFork = leftTask;
                 }
+                AbstractTask.recordSplit(helper);
                 taskToFork.fork();
                 sizeEstimate = rightSplit.estimateSize();
             }
@@ -376,7 +378,7 @@ final class ForEachOps {
             super(null);
             this.helper = helper;
             this.spliterator = spliterator;
-            this.targetSize = AbstractTask.suggestTargetSize(spliterator.estimateSize());
+            this.targetSize = AbstractTask.suggestTargetSize(helper, spliterator.estimateSize());
             // Size map to avoid concurrent re-sizes
             this.completionMap = new ConcurrentHashMap<>(Math.max(16, AbstractTask.LEAF_TARGET << 1));
             this.action = action;
@@ -458,8 +460,10 @@ final class ForEachOps {
                     task = rightChild;
                     taskToFork = leftChild;
                 }
+                AbstractTask.recordSplit(task.helper);
                 taskToFork.fork();
             }
+            AbstractTask.recordLeaf(task.helper, rightSplit);
 
             /*
              * Task's pending count is either 0 or 1.  If 1 then the completion
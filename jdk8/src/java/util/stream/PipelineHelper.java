@@ -200,4 +200,20 @@ abstract class PipelineHelper<P_OUT> {
     abstract<P_IN> Node<P_OUT> evaluate(Spliterator<P_IN> spliterator,
                                         boolean flatten,
                                         IntFunction<P_OUT[]> generator);
+
+    /**
+     * Returns the target number of leaf tasks for the parallel evaluation of
+     * the pipeline.
+     *
+     * @return the leaf task target, four per unit of the parallelism the
+     *         pipeline is bound to, or of the common pool parallelism
+     */
+    abstract long getLeafTarget();
+
+    /**
+     * Returns the metrics the parallel evaluation of the pipeline records to.
+     *
+     * @return the metrics, or {@code null} if the pipeline records none
+     */
+    abstract StreamMetrics getMetrics();
 }
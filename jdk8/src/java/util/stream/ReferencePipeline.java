@@ -24,8 +24,10 @@
  */
 package java.util.stream;
 
+import java.util.Arrays;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -94,6 +96,17 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         super(upstream, opFlags);
     }
 
+    /**
+     * Constructor for replacing the last stage of an existing pipeline by a
+     * stage fusing a further operation into it.
+     *
+     * @param opFlags the operation flags for the fused operations
+     * @param replaced the last stage, to be replaced
+     */
+    ReferencePipeline(int opFlags, AbstractPipeline<P_IN, ?, ?> replaced) {
+        super(opFlags, replaced);
+    }
+
     // Shape-specific methods
 
     @Override
@@ -159,42 +172,13 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     @Override
     public final Stream<P_OUT> filter(Predicate<? super P_OUT> predicate) {
         Objects.requireNonNull(predicate);
-        return new StatelessOp<P_OUT, P_OUT>(this, StreamShape.REFERENCE,
-                                     StreamOpFlag.NOT_SIZED) {
-            @Override
-            Sink<P_OUT> opWrapSink(int flags, Sink<P_OUT> sink) {
-                return new Sink.ChainedReference<P_OUT, P_OUT>(sink) {
-                    @Override
-                    public void begin(long size) {
-                        downstream.begin(-1);
-                    }
-
-                    @Override
-                    public void accept(P_OUT u) {
-                        if (predicate.test(u))
-                            downstream.accept(u);
-                    }
-                };
-            }
-        };
+        return fuse(Fusion.FILTER, predicate, StreamOpFlag.NOT_SIZED);
     }
 
     @Override
-    @SuppressWarnings("unchecked")
     public final <R> Stream<R> map(Function<? super P_OUT, ? extends R> mapper) {
         Objects.requireNonNull(mapper);
-        return new StatelessOp<P_OUT, R>(this, StreamShape.REFERENCE,
-                                     StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT) {
-            @Override
-            Sink<P_OUT> opWrapSink(int flags, Sink<R> sink) {
-                return new Sink.ChainedReference<P_OUT, R>(sink) {
-                    @Override
-                    public void accept(P_OUT u) {
-                        downstream.accept(mapper.apply(u));
-                    }
-                };
-            }
-        };
+        return fuse(Fusion.MAP, mapper, StreamOpFlag.NOT_SORTED | StreamOpFlag.NOT_DISTINCT);
     }
 
     @Override
@@ -362,19 +346,27 @@ abstract class ReferencePipeline<P_IN, P_OUT>
     @Override
     public final Stream<P_OUT> peek(Consumer<? super P_OUT> action) {
         Objects.requireNonNull(action);
-        return new StatelessOp<P_OUT, P_OUT>(this, StreamShape.REFERENCE,
-                                     0) {
-            @Override
-            Sink<P_OUT> opWrapSink(int flags, Sink<P_OUT> sink) {
-                return new Sink.ChainedReference<P_OUT, P_OUT>(sink) {
-                    @Override
-                    public void accept(P_OUT u) {
-                        action.accept(u);
-                        downstream.accept(u);
-                    }
-                };
-            }
-        };
+        return fuse(Fusion.PEEK, action, 0);
+    }
+
+    /**
+     * Appends a map, filter or peek step to the pipeline.  If this stage is
+     * itself a stage of such steps, the step is fused into it: a single
+     * stage, and so a single sink, replaces this one.
+     *
+     * @param kind the kind of the step
+     * @param fn the function, predicate or action of the step
+     * @param opFlags the operation flags of the step
+     * @param <R> the type of elements produced by the step
+     * @return the new stream
+     */
+    @SuppressWarnings("unchecked")
+    private <R> Stream<R> fuse(byte kind, Object fn, int opFlags) {
+        if (this instanceof FusedOp) {
+            FusedOp<P_IN, P_OUT> fused = (FusedOp<P_IN, P_OUT>) this;
+            return new FusedOp<P_IN, R>(fused, fused.fusion.append(kind, fn, opFlags));
+        }
+        return new FusedOp<P_OUT, R>(this, Fusion.of(kind, fn, opFlags));
     }
 
     // Stateful intermediate operations from Stream
@@ -394,6 +386,26 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         return SortedOps.makeRef(this, comparator);
     }
 
+    @Override
+    public final Stream<P_OUT> sorted(Comparator<? super P_OUT> comparator, int maxInMemory) {
+        return SortedOps.makeRef(this, comparator, maxInMemory);
+    }
+
+    @Override
+    public final Stream<List<P_OUT>> chunk(int size) {
+        return WindowOps.makeWindows(this, size, size, true);
+    }
+
+    @Override
+    public final Stream<List<P_OUT>> windowed(int size, int step) {
+        return WindowOps.makeWindows(this, size, step, false);
+    }
+
+    @Override
+    public final <K> Stream<List<P_OUT>> groupAdjacent(Function<? super P_OUT, ? extends K> classifier) {
+        return WindowOps.makeGroups(this, classifier);
+    }
+
     @Override
     public final Stream<P_OUT> limit(long maxSize) {
         if (maxSize < 0)
@@ -625,6 +637,244 @@ abstract class ReferencePipeline<P_IN, P_OUT>
         }
     }
 
+    /**
+     * A stateless intermediate stage of a Stream applying a fused sequence
+     * of map, filter and peek steps with a single sink.  Each such step
+     * appended to a fused stage replaces it by a stage with one more step,
+     * so that a chain of these operations evaluates like a hand-written loop
+     * body rather than through a sink per operation.  A sequential pipeline
+     * whose only intermediate stage is fused pushes its source elements
+     * through the steps directly, without wrapping sinks, for
+     * {@code forEach} and {@code forEachOrdered}.
+     *
+     * @param <E_IN> type of elements in the upstream source
+     * @param <E_OUT> type of elements in produced by this stage
+     * @since 1.8
+     */
+    static final class FusedOp<E_IN, E_OUT> extends ReferencePipeline<E_IN, E_OUT> {
+        final Fusion fusion;
+
+        /**
+         * Construct a new Stream by appending the fused steps to an existing
+         * stream.
+         *
+         * @param upstream The upstream pipeline stage
+         * @param fusion The fused steps
+         */
+        FusedOp(AbstractPipeline<?, E_IN, ?> upstream, Fusion fusion) {
+            super(upstream, fusion.opFlags);
+            this.fusion = fusion;
+        }
+
+        /**
+         * Construct a new Stream by replacing a fused stage, the last of an
+         * existing stream, with one applying further steps.
+         *
+         * @param replaced The fused stage to replace
+         * @param fusion The steps of the replaced stage followed by the
+         *        further ones
+         */
+        FusedOp(FusedOp<E_IN, ?> replaced, Fusion fusion) {
+            super(fusion.opFlags, replaced);
+            this.fusion = fusion;
+        }
+
+        @Override
+        boolean opIsStateful() {
+            return false;
+        }
+
+        @Override
+        Sink<E_IN> opWrapSink(int flags, Sink<E_OUT> sink) {
+            final Fusion.Step steps = fusion.steps();
+            return new Sink.ChainedReference<E_IN, E_OUT>(sink) {
+                @Override
+                public void begin(long size) {
+                    downstream.begin(fusion.filters ? -1 : size);
+                }
+
+                @Override
+                @SuppressWarnings("unchecked")
+                public void accept(E_IN u) {
+                    Object t = steps.apply(u);
+                    if (t != Fusion.NONE)
+                        downstream.accept((E_OUT) t);
+                }
+            };
+        }
+
+        // Optimized sequential terminal operations for the first stage
+
+        @Override
+        public void forEach(Consumer<? super E_OUT> action) {
+            Spliterator<?> s = adjacentSourceSpliterator();
+            if (s != null)
+                s.forEachRemaining(new FusedConsumer<E_OUT>(fusion, action));
+            else
+                super.forEach(action);
+        }
+
+        @Override
+        public void forEachOrdered(Consumer<? super E_OUT> action) {
+            Spliterator<?> s = adjacentSourceSpliterator();
+            if (s != null)
+                s.forEachRemaining(new FusedConsumer<E_OUT>(fusion, action));
+            else
+                super.forEachOrdered(action);
+        }
+    }
+
+    /**
+     * Consumer applying fused steps to the source elements of a sequential
+     * pipeline and passing those not filtered out to a terminal action.
+     */
+    static final class FusedConsumer<T> implements Consumer<Object> {
+        private final Fusion.Step steps;
+        private final Consumer<? super T> action;
+
+        FusedConsumer(Fusion fusion, Consumer<? super T> action) {
+            this.steps = fusion.steps();
+            this.action = Objects.requireNonNull(action);
+        }
+
+        @Override
+        @SuppressWarnings("unchecked")
+        public void accept(Object u) {
+            Object t = steps.apply(u);
+            if (t != Fusion.NONE)
+                action.accept((T) t);
+        }
+    }
+
+    /**
+     * An immutable sequence of map, filter and peek steps, with the combined
+     * operation flags of the steps.  A sequence belongs to the pipeline
+     * stage built with it; nothing is shared or cached across pipelines, so
+     * that the functions of the steps are reachable only while the pipeline
+     * is.  The linked steps are created when the stage is evaluated, so the
+     * sequences of the stages it replaced only hold their functions.
+     */
+    static final class Fusion {
+        static final byte MAP = 0, FILTER = 1, PEEK = 2;
+
+        /** Result of {@link Step#apply} for an element filtered out. */
+        static final Object NONE = new Object();
+
+        final Object[] fns;
+        final byte[] kinds;
+        final int opFlags;
+
+        /** True if a step filters, so the output size is unknown. */
+        final boolean filters;
+
+        /** The steps, linked for application on first use. */
+        private Step first;
+
+        private Fusion(Object[] fns, byte[] kinds, int opFlags) {
+            this.fns = fns;
+            this.kinds = kinds;
+            this.opFlags = opFlags;
+            boolean f = false;
+            for (byte k : kinds)
+                f |= (k == FILTER);
+            this.filters = f;
+        }
+
+        /** Returns a sequence of the single given step. */
+        static Fusion of(byte kind, Object fn, int opFlags) {
+            return new Fusion(new Object[] { fn }, new byte[] { kind }, opFlags);
+        }
+
+        /** Returns the sequence of these steps followed by the given one. */
+        Fusion append(byte kind, Object fn, int stepOpFlags) {
+            int n = fns.length;
+            Object[] fs = Arrays.copyOf(fns, n + 1);
+            byte[] ks = Arrays.copyOf(kinds, n + 1);
+            fs[n] = fn;
+            ks[n] = kind;
+            return new Fusion(fs, ks, StreamOpFlag.combineOpFlags(stepOpFlags, opFlags));
+        }
+
+        /**
+         * Returns the steps, linked for application.  Racing threads may
+         * each link them; the steps are immutable, so either result may be
+         * used.
+         */
+        Step steps() {
+            Step s = first;
+            if (s == null)
+                first = s = link(fns, kinds);
+            return s;
+        }
+
+        /** Links the steps, last first, ahead of the end of the sequence. */
+        @SuppressWarnings("unchecked")
+        private static Step link(Object[] fns, byte[] kinds) {
+            Step s = End.INSTANCE;
+            for (int i = fns.length - 1; i >= 0; --i) {
+                switch (kinds[i]) {
+                    case MAP:
+                        s = new MapStep((Function<Object, Object>) fns[i], s);
+                        break;
+                    case FILTER:
+                        s = new FilterStep((Predicate<Object>) fns[i], s);
+                        break;
+                    default:
+                        s = new PeekStep((Consumer<Object>) fns[i], s);
+                }
+            }
+            return s;
+        }
+
+        /** A step of a sequence, applying itself and the steps after it. */
+        abstract static class Step {
+            /**
+             * Applies the steps to an element.
+             *
+             * @return the mapped element, or {@link #NONE} if filtered out
+             */
+            abstract Object apply(Object t);
+        }
+
+        static final class End extends Step {
+            static final End INSTANCE = new End();
+            Object apply(Object t) { return t; }
+        }
+
+        static final class MapStep extends Step {
+            final Function<Object, Object> mapper;
+            final Step next;
+            MapStep(Function<Object, Object> mapper, Step next) {
+                this.mapper = mapper;
+                this.next = next;
+            }
+            Object apply(Object t) { return next.apply(mapper.apply(t)); }
+        }
+
+        static final class FilterStep extends Step {
+            final Predicate<Object> predicate;
+            final Step next;
+            FilterStep(Predicate<Object> predicate, Step next) {
+                this.predicate = predicate;
+                this.next = next;
+            }
+            Object apply(Object t) { return predicate.test(t) ? next.apply(t) : NONE; }
+        }
+
+        static final class PeekStep extends Step {
+            final Consumer<Object> action;
+            final Step next;
+            PeekStep(Consumer<Object> action, Step next) {
+                this.action = action;
+                this.next = next;
+            }
+            Object apply(Object t) {
+                action.accept(t);
+                return next.apply(t);
+            }
+        }
+    }
+
     /**
      * Base class for a stateful intermediate stage of a Stream.
      *
@@ -24,13 +24,33 @@
  */
 package java.util.stream;
 
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.ObjectStreamClass;
+import java.io.OutputStream;
+import java.io.UncheckedIOException;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
 import java.util.Objects;
+import java.util.PriorityQueue;
 import java.util.Spliterator;
+import java.util.Spliterators;
 import java.util.function.IntFunction;
 
+import sun.misc.Cleaner;
+
 
 /**
  * Factory methods for transforming streams into sorted streams.
@@ -63,6 +83,24 @@ final class SortedOps {
         return new OfRef<>(upstream, comparator);
     }
 
+    /**
+     * Appends a "sorted" operation to the provided stream, holding at most
+     * {@code maxInMemory} elements in memory and spilling sorted runs of
+     * elements to temporary files beyond that.
+     *
+     * @param <T> the type of both input and output elements
+     * @param upstream a reference stream with element type T
+     * @param comparator the comparator to order elements by
+     * @param maxInMemory the maximum number of elements held in memory
+     */
+    static <T> Stream<T> makeRef(AbstractPipeline<?, T, ?> upstream,
+                                Comparator<? super T> comparator,
+                                int maxInMemory) {
+        if (maxInMemory <= 0)
+            throw new IllegalArgumentException("maxInMemory: " + maxInMemory);
+        return new OfRef<>(upstream, comparator, maxInMemory);
+    }
+
     /**
      * Appends a "sorted" operation to the provided stream.
      *
@@ -102,6 +140,11 @@ final class SortedOps {
          */
         private final boolean isNaturalSort;
         private final Comparator<? super T> comparator;
+        /**
+         * Maximum number of elements held in memory, Integer.MAX_VALUE
+         * if the sort is not bounded
+         */
+        private final int maxInMemory;
 
         /**
          * Sort using natural order of {@literal <T>} which must be
@@ -115,6 +158,7 @@ final class SortedOps {
             @SuppressWarnings("unchecked")
             Comparator<? super T> comp = (Comparator<? super T>) Comparator.naturalOrder();
             this.comparator = comp;
+            this.maxInMemory = Integer.MAX_VALUE;
         }
 
         /**
@@ -123,10 +167,23 @@ final class SortedOps {
          * @param comparator The comparator to be used to evaluate ordering.
          */
         OfRef(AbstractPipeline<?, T, ?> upstream, Comparator<? super T> comparator) {
+            this(upstream, comparator, Integer.MAX_VALUE);
+        }
+
+        /**
+         * Sort using the provided comparator, spilling to temporary files
+         * beyond the given number of elements.
+         *
+         * @param comparator The comparator to be used to evaluate ordering.
+         * @param maxInMemory The maximum number of elements held in memory.
+         */
+        OfRef(AbstractPipeline<?, T, ?> upstream, Comparator<? super T> comparator,
+              int maxInMemory) {
             super(upstream, StreamShape.REFERENCE,
                   StreamOpFlag.IS_ORDERED | StreamOpFlag.NOT_SORTED);
             this.isNaturalSort = false;
             this.comparator = Objects.requireNonNull(comparator);
+            this.maxInMemory = maxInMemory;
         }
 
         @Override
@@ -137,6 +194,8 @@ final class SortedOps {
             // also naturally sorted then this is a no-op
             if (StreamOpFlag.SORTED.isKnown(flags) && isNaturalSort)
                 return sink;
+            else if (maxInMemory < Integer.MAX_VALUE)
+                return new SpillingRefSortingSink<>(sink, comparator, maxInMemory);
             else if (StreamOpFlag.SIZED.isKnown(flags))
                 return new SizedRefSortingSink<>(sink, comparator);
             else
@@ -152,6 +211,14 @@ final class SortedOps {
             if (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()) && isNaturalSort) {
                 return helper.evaluate(spliterator, false, generator);
             }
+            else if (maxInMemory < Integer.MAX_VALUE) {
+                // Spill and merge sequentially, as buffering the input of a
+                // parallel sort would not bound the memory held
+                Node.Builder<T> builder = Nodes.builder(-1, generator);
+                helper.wrapAndCopyInto(new SpillingRefSortingSink<>(builder, comparator, maxInMemory),
+                                       spliterator);
+                return builder.build();
+            }
             else {
                 // @@@ Weak two-pass parallel implementation; parallel collect, parallel sort
                 T[] flattenedData = helper.evaluate(spliterator, true, generator).asArray(generator);
@@ -159,6 +226,28 @@ final class SortedOps {
                 return Nodes.node(flattenedData);
             }
         }
+
+        @Override
+        public <P_IN> Spliterator<T> opEvaluateParallelLazy(PipelineHelper<T> helper,
+                                                            Spliterator<P_IN> spliterator) {
+            if (maxInMemory == Integer.MAX_VALUE
+                || (StreamOpFlag.SORTED.isKnown(helper.getStreamAndOpFlags()) && isNaturalSort))
+                return super.opEvaluateParallelLazy(helper, spliterator);
+            // Merge the runs lazily, as downstream operations pull elements
+            RunSorter<T> sorter = new RunSorter<>(comparator, maxInMemory);
+            try {
+                helper.wrapAndCopyInto((Sink<T>) sorter::add, spliterator);
+            }
+            catch (RuntimeException | Error e) {
+                sorter.close();
+                throw e;
+            }
+            RunSorter.Merge<T> merge = sorter.merge();
+            // Delete the runs when the terminal operation completes, or when
+            // the stream is closed if it is traversed through its spliterator
+            ((AbstractPipeline<?, ?, ?>) helper).addReleaseAction(merge::close);
+            return Spliterators.spliterator(merge, sorter.count(), Spliterator.ORDERED);
+        }
     }
 
     /**
@@ -405,6 +494,328 @@ final class SortedOps {
         }
     }
 
+    /**
+     * {@link Sink} for implementing sort on reference streams, holding at
+     * most a given number of elements in memory.
+     */
+    private static final class SpillingRefSortingSink<T> extends AbstractRefSortingSink<T> {
+        private final int maxInMemory;
+        private RunSorter<T> sorter;
+
+        SpillingRefSortingSink(Sink<? super T> sink, Comparator<? super T> comparator,
+                               int maxInMemory) {
+            super(sink, comparator);
+            this.maxInMemory = maxInMemory;
+        }
+
+        @Override
+        public void begin(long size) {
+            sorter = new RunSorter<>(comparator, maxInMemory);
+        }
+
+        @Override
+        public void end() {
+            try (RunSorter.Merge<T> merge = sorter.merge()) {
+                downstream.begin(sorter.count());
+                if (!cancellationWasRequested) {
+                    merge.forEachRemaining(downstream);
+                }
+                else {
+                    while (merge.hasNext() && !downstream.cancellationRequested())
+                        downstream.accept(merge.next());
+                }
+            }
+            downstream.end();
+            sorter = null;
+        }
+
+        @Override
+        public void accept(T t) {
+            sorter.add(t);
+        }
+    }
+
+    /**
+     * Sorter holding at most a given number of elements in memory.  When
+     * that many elements are buffered, they are sorted and written to a
+     * temporary file with object serialization, forming a run; the runs and
+     * the last buffer are then merged, ties going to the earlier run so
+     * that the sort is stable.  The elements must be serializable if the
+     * sorter spills.  Temporary files are deleted as soon as the merge is
+     * exhausted or closed, or the sorter is closed; failing that, once the
+     * sorter and its merge are unreachable, by a {@link Cleaner}, such as
+     * when the pipeline fails or is abandoned before the merge ends.
+     */
+    static final class RunSorter<T> {
+        /** Number of objects written between resets of the output stream */
+        private static final int RESET_INTERVAL = 1 << 10;
+
+        private final Comparator<? super T> comparator;
+        private final int maxInMemory;
+        private ArrayList<T> buffer = new ArrayList<>();
+        private final Runs runs = new Runs();
+        private final ArrayList<Integer> sizes = new ArrayList<>();
+        /** Deletes the runs, created with the first one */
+        private Cleaner cleaner;
+        /** Classes written to runs, resolved without a class loader lookup */
+        private final HashMap<String, Class<?>> classes = new HashMap<>();
+        private long count;
+
+        RunSorter(Comparator<? super T> comparator, int maxInMemory) {
+            this.comparator = comparator;
+            this.maxInMemory = maxInMemory;
+        }
+
+        void add(T t) {
+            buffer.add(t);
+            ++count;
+            if (buffer.size() >= maxInMemory)
+                spill();
+        }
+
+        long count() {
+            return count;
+        }
+
+        private void spill() {
+            buffer.sort(comparator);
+            if (cleaner == null)
+                cleaner = Cleaner.create(this, runs);
+            File file = null;
+            try {
+                file = File.createTempFile("sorted", ".run");
+                runs.files.add(file);
+                try (RunOutputStream out = new RunOutputStream(
+                         new BufferedOutputStream(new FileOutputStream(file)))) {
+                    int n = 0;
+                    for (T t : buffer) {
+                        out.writeObject(t);
+                        if (++n % RESET_INTERVAL == 0)
+                            out.reset();
+                    }
+                }
+            }
+            catch (IOException e) {
+                close();
+                throw new UncheckedIOException(e);
+            }
+            sizes.add(buffer.size());
+            buffer.clear();
+        }
+
+        /**
+         * Deletes the runs written, for a sorter whose elements will not be
+         * merged.
+         */
+        void close() {
+            if (cleaner != null)
+                cleaner.clean();
+        }
+
+        /**
+         * Returns an iterator over the elements added, in sorted order.
+         * It must be closed unless it is exhausted.
+         */
+        Merge<T> merge() {
+            buffer.sort(comparator);
+            Merge<T> merge = new Merge<>(comparator, this, cleaner);
+            try {
+                for (int i = 0; i < sizes.size(); i++) {
+                    FileInputStream in = new FileInputStream(runs.files.get(i));
+                    runs.streams.add(in);
+                    merge.add(new Run<>(i, new RunInputStream(new BufferedInputStream(in)), sizes.get(i)));
+                }
+            }
+            catch (IOException e) {
+                merge.close();
+                throw new UncheckedIOException(e);
+            }
+            catch (RuntimeException | Error e) {
+                merge.close();
+                throw e;
+            }
+            merge.add(new Run<>(merge.open.size(), buffer));
+            buffer = null;
+            return merge;
+        }
+
+        /**
+         * The temporary files of a sorter and the streams reading them;
+         * the action of its cleaner, so it refers to neither the sorter nor
+         * its merge.
+         */
+        static final class Runs implements Runnable {
+            final ArrayList<File> files = new ArrayList<>();
+            final ArrayList<InputStream> streams = new ArrayList<>();
+
+            @Override
+            public void run() {
+                for (InputStream in : streams) {
+                    try {
+                        in.close();
+                    }
+                    catch (IOException ignore) {
+                    }
+                }
+                streams.clear();
+                for (File file : files)
+                    file.delete();
+                files.clear();
+            }
+        }
+
+        /** Object output stream recording the classes it writes. */
+        private final class RunOutputStream extends ObjectOutputStream {
+            RunOutputStream(OutputStream out) throws IOException {
+                super(out);
+            }
+
+            @Override
+            protected void annotateClass(Class<?> cl) {
+                classes.put(cl.getName(), cl);
+            }
+
+            @Override
+            protected void annotateProxyClass(Class<?> cl) {
+                classes.put(cl.getName(), cl);
+            }
+        }
+
+        /** Object input stream resolving the classes recorded on output. */
+        private final class RunInputStream extends ObjectInputStream {
+            RunInputStream(InputStream in) throws IOException {
+                super(in);
+            }
+
+            @Override
+            protected Class<?> resolveClass(ObjectStreamClass desc)
+                    throws IOException, ClassNotFoundException {
+                Class<?> cl = classes.get(desc.getName());
+                return (cl != null) ? cl : super.resolveClass(desc);
+            }
+        }
+
+        /** A sorted run, read from a file or from the last buffer. */
+        static final class Run<T> {
+            final int index;
+            private final ObjectInputStream in;
+            private final List<T> list;
+            private int remaining;
+            T head;
+
+            Run(int index, ObjectInputStream in, int size) {
+                this.index = index;
+                this.in = in;
+                this.list = null;
+                this.remaining = size;
+            }
+
+            Run(int index, List<T> list) {
+                this.index = index;
+                this.in = null;
+                this.list = list;
+                this.remaining = list.size();
+            }
+
+            /** Reads the next element into head, returning false at the end. */
+            @SuppressWarnings("unchecked")
+            boolean advance() {
+                if (remaining == 0) {
+                    head = null;
+                    close();
+                    return false;
+                }
+                if (in == null)
+                    head = list.get(list.size() - remaining);
+                else {
+                    try {
+                        head = (T) in.readObject();
+                    }
+                    catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                    catch (ClassNotFoundException e) {
+                        // Classes written were recorded by the sorter
+                        throw new InternalError(e);
+                    }
+                }
+                --remaining;
+                return true;
+            }
+
+            void close() {
+                if (in != null) {
+                    try {
+                        in.close();
+                    }
+                    catch (IOException ignore) {
+                    }
+                }
+            }
+        }
+
+        /** Iterator merging sorted runs. */
+        static final class Merge<T> implements Iterator<T>, AutoCloseable {
+            final PriorityQueue<Run<T>> runs;
+            final ArrayList<Run<T>> open = new ArrayList<>();
+            /** The sorter, kept reachable until the runs are deleted */
+            private Object sorter;
+            /** Deletes the runs, or null if the sorter did not spill */
+            private Cleaner cleaner;
+
+            Merge(Comparator<? super T> comparator, Object sorter, Cleaner cleaner) {
+                this.sorter = sorter;
+                this.cleaner = cleaner;
+                Comparator<Run<T>> byHead = (a, b) -> comparator.compare(a.head, b.head);
+                this.runs = new PriorityQueue<>(byHead.thenComparingInt(r -> r.index));
+            }
+
+            void add(Run<T> run) {
+                open.add(run);
+                if (run.advance())
+                    runs.add(run);
+            }
+
+            @Override
+            public boolean hasNext() {
+                if (runs.isEmpty()) {
+                    close();
+                    return false;
+                }
+                return true;
+            }
+
+            @Override
+            public T next() {
+                Run<T> run = runs.poll();
+                if (run == null)
+                    throw new NoSuchElementException();
+                T t = run.head;
+                try {
+                    if (run.advance())
+                        runs.add(run);
+                }
+                catch (RuntimeException | Error e) {
+                    close();
+                    throw e;
+                }
+                return t;
+            }
+
+            @Override
+            public void close() {
+                runs.clear();
+                open.clear();
+                if (cleaner != null) {
+                    // Closes the streams of the runs and deletes their files
+                    cleaner.clean();
+                    cleaner = null;
+                }
+                sorter = null;
+            }
+        }
+    }
+
     /**
      * Abstract {@link Sink} for implementing sort on int streams.
      */
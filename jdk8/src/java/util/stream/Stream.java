@@ -31,6 +31,7 @@ import java.util.Arrays;
 import java.util.Collection;
 import java.util.Comparator;
 import java.util.Iterator;
+import java.util.List;
 import java.util.Objects;
 import java.util.Optional;
 import java.util.Spliterator;
@@ -391,6 +392,132 @@ public interface Stream<T> extends BaseStream<T, Stream<T>> {
      */
     Stream<T> sorted(Comparator<? super T> comparator);
 
+    /**
+     * Returns a stream consisting of the elements of this stream, sorted
+     * according to the provided {@code Comparator}, holding at most
+     * {@code maxInMemory} elements in memory.  Beyond that, sorted runs of
+     * elements are written to temporary files with object serialization,
+     * and merged as the sorted elements are consumed.
+     *
+     * <p>The sort is stable.  The temporary files are deleted once the
+     * sorted elements are exhausted, or when the terminal operation
+     * completes, such as a short-circuiting one that does not consume all
+     * of them.  If the stream is instead traversed through its {@link
+     * #iterator} or {@link #spliterator}, they are deleted when the stream
+     * is {@linkplain #close closed}; failing that, some time after the
+     * stream and its iterator become unreachable.  Input elements are
+     * spilled by a single thread, even in a parallel pipeline.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.
+     *
+     * @implSpec
+     * The default implementation throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param comparator a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   {@code Comparator} to be used to compare stream elements
+     * @param maxInMemory the maximum number of elements held in memory
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code maxInMemory} is not positive
+     * @throws java.io.UncheckedIOException when the terminal operation is
+     *         executed, if writing or reading a run fails, including when
+     *         an element is not serializable
+     * @throws UnsupportedOperationException if this stream does not
+     *         support spilling
+     * @since 1.8
+     */
+    default Stream<T> sorted(Comparator<? super T> comparator, int maxInMemory) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a stream of lists of {@code size} consecutive elements of
+     * this stream, in encounter order; the last list holds the remaining
+     * elements and may be shorter.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  At most one list is buffered at a time.
+     *
+     * @apiNote
+     * Chunks batch the elements of a stream for an operation on many of
+     * them, such as a batched database insert:
+     * <pre>{@code
+     *     rows.chunk(500).forEach(dao::insertAll);
+     * }</pre>
+     *
+     * @implSpec
+     * The default implementation throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param size the number of elements of a chunk
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} is not positive
+     * @throws UnsupportedOperationException if this stream does not
+     *         support chunks
+     * @since 1.8
+     */
+    default Stream<List<T>> chunk(int size) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a stream of the windows of {@code size} consecutive elements
+     * of this stream, in encounter order, the first element of each window
+     * being {@code step} elements after the first element of the previous
+     * window.  Windows overlap if {@code step < size}, and elements between
+     * windows are dropped if {@code step > size}.  Trailing elements not
+     * forming a whole window are dropped.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  At most one window is buffered at a
+     * time.  If this stream is {@link Spliterator#SUBSIZED}, a parallel
+     * evaluation splits at window boundaries.
+     *
+     * @implSpec
+     * The default implementation throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param size the number of elements of a window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @return the new stream
+     * @throws IllegalArgumentException if {@code size} or {@code step} is
+     *         not positive
+     * @throws UnsupportedOperationException if this stream does not
+     *         support windows
+     * @since 1.8
+     */
+    default Stream<List<T>> windowed(int size, int step) {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Returns a stream of the runs of adjacent elements of this stream
+     * whose keys, computed by the classifier, are {@linkplain
+     * Objects#equals(Object, Object) equal}, in encounter order.
+     *
+     * <p>This is a <a href="package-summary.html#StreamOps">stateful
+     * intermediate operation</a>.  At most one run is buffered at a time.
+     *
+     * @implSpec
+     * The default implementation throws {@code
+     * UnsupportedOperationException}.
+     *
+     * @param <K> the type of keys
+     * @param classifier a <a href="package-summary.html#NonInterference">non-interfering</a>,
+     *                   <a href="package-summary.html#Statelessness">stateless</a>
+     *                   function computing the key of an element
+     * @return the new stream
+     * @throws UnsupportedOperationException if this stream does not
+     *         support grouping
+     * @since 1.8
+     */
+    default <K> Stream<List<T>> groupAdjacent(Function<? super T, ? extends K> classifier) {
+        throw new UnsupportedOperationException();
+    }
+
     /**
      * Returns a stream consisting of the elements of this stream, additionally
      * performing the provided action on each element as elements are consumed
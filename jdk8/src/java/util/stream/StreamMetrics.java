@@ -0,0 +1,147 @@
+package java.util.stream;
+
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the parallel evaluations of the stream pipelines that
+ * {@linkplain BaseStream#recordMetrics record} to it: the number of
+ * evaluations and their total elapsed time, the number of times a task
+ * split its part of the source and forked a subtask, and the number and
+ * sizes of the leaf tasks, which traverse their part sequentially.
+ *
+ * <p>Metrics are thread-safe, so that one instance may be shared by all
+ * the pipelines of, for example, a tenant of a server, whose parallel
+ * streams are {@linkplain BaseStream#parallel(java.util.concurrent.ForkJoinPool, int)
+ * bound} to a pool of their own.  Sequential evaluations are not
+ * recorded.  The sizes of leaf tasks are the size estimates of their
+ * spliterators, which are exact for sources that are {@link
+ * java.util.Spliterator#SUBSIZED}; leaves of unknown size are counted
+ * but add no elements.  The counters are read without stopping
+ * concurrent evaluations, so a reading taken during an evaluation may
+ * be inconsistent.
+ *
+ * @since 1.8
+ */
+public final class StreamMetrics {
+    private final LongAdder evaluations = new LongAdder();
+    private final LongAdder nanos = new LongAdder();
+    private final LongAdder splits = new LongAdder();
+    private final LongAdder leaves = new LongAdder();
+    private final LongAdder leafElements = new LongAdder();
+    private final LongAccumulator maxLeafSize = new LongAccumulator(Math::max, 0L);
+
+    /**
+     * Creates metrics with all counters zero.
+     */
+    public StreamMetrics() {
+    }
+
+    /** Records a parallel evaluation taking the given time. */
+    void recordEvaluation(long elapsedNanos) {
+        evaluations.increment();
+        nanos.add(elapsedNanos);
+    }
+
+    /** Records a split of the part of a task, forking a subtask. */
+    void recordSplit() {
+        splits.increment();
+    }
+
+    /** Records a leaf task of the given estimated size. */
+    void recordLeaf(long sizeEstimate) {
+        leaves.increment();
+        if (sizeEstimate >= 0L && sizeEstimate < Long.MAX_VALUE) {
+            leafElements.add(sizeEstimate);
+            maxLeafSize.accumulate(sizeEstimate);
+        }
+    }
+
+    /**
+     * Returns the number of parallel evaluations recorded.
+     *
+     * @return the number of evaluations
+     */
+    public long getEvaluationCount() {
+        return evaluations.sum();
+    }
+
+    /**
+     * Returns the total elapsed time of the evaluations recorded, from
+     * the start of the terminal operation, including any wait for the
+     * pool, to its completion.
+     *
+     * @param unit the unit of the result
+     * @return the total elapsed time, in the given unit
+     */
+    public long getElapsedTime(TimeUnit unit) {
+        return unit.convert(nanos.sum(), TimeUnit.NANOSECONDS);
+    }
+
+    /**
+     * Returns the number of splits recorded.  Each split forks one
+     * subtask, so this is also the number of tasks forked.
+     *
+     * @return the number of splits
+     */
+    public long getSplitCount() {
+        return splits.sum();
+    }
+
+    /**
+     * Returns the number of leaf tasks recorded.
+     *
+     * @return the number of leaf tasks
+     */
+    public long getLeafCount() {
+        return leaves.sum();
+    }
+
+    /**
+     * Returns the total size of the leaf tasks of known size.
+     *
+     * @return the number of elements of the leaf tasks
+     */
+    public long getLeafElementCount() {
+        return leafElements.sum();
+    }
+
+    /**
+     * Returns the size of the largest leaf task recorded.
+     *
+     * @return the largest leaf size, or zero if none was recorded
+     */
+    public long getMaxLeafSize() {
+        return maxLeafSize.get();
+    }
+
+    /**
+     * Resets all counters to zero.  This method is effective only if
+     * no evaluations are in progress.
+     */
+    public void reset() {
+        evaluations.reset();
+        nanos.reset();
+        splits.reset();
+        leaves.reset();
+        leafElements.reset();
+        maxLeafSize.reset();
+    }
+
+    /**
+     * Returns a string identifying these metrics and listing their
+     * counters.
+     *
+     * @return a string identifying these metrics and their counters
+     */
+    public String toString() {
+        return super.toString() +
+            "[evaluations = " + getEvaluationCount() +
+            ", elapsed = " + getElapsedTime(TimeUnit.MICROSECONDS) + "us" +
+            ", splits = " + getSplitCount() +
+            ", leaves = " + getLeafCount() +
+            ", leaf elements = " + getLeafElementCount() +
+            ", max leaf size = " + getMaxLeafSize() + "]";
+    }
+}
@@ -0,0 +1,457 @@
+package java.util.stream;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Objects;
+import java.util.Spliterator;
+import java.util.function.Consumer;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+
+/**
+ * Factory methods for operations grouping consecutive elements of a stream
+ * into lists: chunks of a fixed size, sliding windows, and runs of adjacent
+ * elements with equal keys.
+ *
+ * <p>Sequentially, the groups are built incrementally as elements are pushed
+ * through the sink of the operation, which holds at most one group, so that
+ * the input is never materialized.  In parallel, the groups are described by
+ * a lazy spliterator over the upstream spliterator.  If that is
+ * {@link Spliterator#SUBSIZED}, chunks and windows are split at window
+ * boundaries, the left part copying the few elements its last window needs
+ * from the right part; otherwise, and for runs, which may span any split,
+ * splitting hands off batches of groups in encounter order.
+ *
+ * @since 1.8
+ */
+final class WindowOps {
+
+    private WindowOps() { }
+
+    /** Operation flags of the grouping operations. */
+    private static final int FLAGS = StreamOpFlag.NOT_SORTED |
+                                     StreamOpFlag.NOT_DISTINCT |
+                                     StreamOpFlag.NOT_SIZED;
+
+    /** Initial increment of the number of groups in a batch. */
+    static final int BATCH_UNIT = 1 << 4;
+
+    /** Maximum number of groups in a batch. */
+    static final int MAX_BATCH = 1 << 10;
+
+    /**
+     * Appends a windowing operation to the provided stream.
+     *
+     * @param <T> the type of elements of the upstream stream
+     * @param upstream a reference stream with element type T
+     * @param size the number of elements of a window
+     * @param step the distance between the first elements of consecutive
+     *        windows
+     * @param partial whether a last window of less than {@code size}
+     *        elements is produced; only if {@code size == step}
+     */
+    static <T> Stream<List<T>> makeWindows(AbstractPipeline<?, T, ?> upstream,
+                                           int size, int step, boolean partial) {
+        if (size <= 0 || step <= 0)
+            throw new IllegalArgumentException();
+        assert !partial || size == step;
+        return new ReferencePipeline.StatefulOp<T, List<T>>(upstream, StreamShape.REFERENCE, FLAGS) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new WindowSink<>(sink, size, step, partial);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            <P_IN> Spliterator<List<T>> opEvaluateParallelLazy(PipelineHelper<List<T>> helper,
+                                                               Spliterator<P_IN> spliterator) {
+                Spliterator<T> s = ((PipelineHelper<T>) (PipelineHelper<?>) helper).wrapSpliterator(spliterator);
+                return new WindowSpliterator<>(s, size, step, partial);
+            }
+
+            @Override
+            <P_IN> Node<List<T>> opEvaluateParallel(PipelineHelper<List<T>> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<List<T>[]> generator) {
+                return toNode(helper, opEvaluateParallelLazy(helper, spliterator), generator);
+            }
+        };
+    }
+
+    /**
+     * Appends an operation grouping runs of adjacent elements with equal keys
+     * to the provided stream.
+     *
+     * @param <T> the type of elements of the upstream stream
+     * @param <K> the type of keys
+     * @param upstream a reference stream with element type T
+     * @param classifier the function computing the key of an element
+     */
+    static <T, K> Stream<List<T>> makeGroups(AbstractPipeline<?, T, ?> upstream,
+                                             Function<? super T, ? extends K> classifier) {
+        Objects.requireNonNull(classifier);
+        return new ReferencePipeline.StatefulOp<T, List<T>>(upstream, StreamShape.REFERENCE, FLAGS) {
+            @Override
+            Sink<T> opWrapSink(int flags, Sink<List<T>> sink) {
+                return new GroupSink<T, K>(sink, classifier);
+            }
+
+            @Override
+            @SuppressWarnings("unchecked")
+            <P_IN> Spliterator<List<T>> opEvaluateParallelLazy(PipelineHelper<List<T>> helper,
+                                                               Spliterator<P_IN> spliterator) {
+                Spliterator<T> s = ((PipelineHelper<T>) (PipelineHelper<?>) helper).wrapSpliterator(spliterator);
+                return new GroupSpliterator<T, K>(s, classifier);
+            }
+
+            @Override
+            <P_IN> Node<List<T>> opEvaluateParallel(PipelineHelper<List<T>> helper,
+                                                    Spliterator<P_IN> spliterator,
+                                                    IntFunction<List<T>[]> generator) {
+                return toNode(helper, opEvaluateParallelLazy(helper, spliterator), generator);
+            }
+        };
+    }
+
+    /**
+     * Collects the groups described by a lazy spliterator into a node, in
+     * parallel, splitting with the leaf target of the pipeline being
+     * evaluated and recording to its metrics, if any.
+     */
+    private static <T> Node<List<T>> toNode(PipelineHelper<List<T>> helper,
+                                             Spliterator<List<T>> groups,
+                                             IntFunction<List<T>[]> generator) {
+        ReferencePipeline.Head<List<T>, List<T>> nested =
+                new ReferencePipeline.Head<>(groups, StreamOpFlag.fromCharacteristics(groups), true);
+        nested.bindLike((AbstractPipeline<?, ?, ?>) helper);
+        return nested.evaluate(groups, true, generator);
+    }
+
+    /**
+     * {@link Sink} producing windows of {@code size} elements, starting every
+     * {@code step} elements.
+     */
+    private static final class WindowSink<T> extends Sink.ChainedReference<T, List<T>> {
+        private final int size, step;
+        private final boolean partial;
+        private ArrayList<T> window;
+        private long skip;
+
+        WindowSink(Sink<? super List<T>> downstream, int size, int step, boolean partial) {
+            super(downstream);
+            this.size = size;
+            this.step = step;
+            this.partial = partial;
+        }
+
+        @Override
+        public void begin(long size) {
+            window = new ArrayList<>(Math.min(this.size, 1 << 10));
+            skip = 0L;
+            downstream.begin(size < 0L ? -1L : countWindows(size, this.size, step, partial));
+        }
+
+        @Override
+        public void accept(T t) {
+            if (skip > 0L) {
+                --skip;
+                return;
+            }
+            window.add(t);
+            if (window.size() == size) {
+                ArrayList<T> w = window;
+                if (step < size)
+                    window = new ArrayList<>(w.subList(step, size));
+                else {
+                    window = new ArrayList<>(Math.min(size, 1 << 10));
+                    skip = step - size;
+                }
+                downstream.accept(w);
+            }
+        }
+
+        @Override
+        public void end() {
+            if (partial && !window.isEmpty() && !downstream.cancellationRequested())
+                downstream.accept(window);
+            window = null;
+            downstream.end();
+        }
+    }
+
+    /**
+     * {@link Sink} producing runs of adjacent elements with equal keys.
+     */
+    private static final class GroupSink<T, K> extends Sink.ChainedReference<T, List<T>> {
+        private final Function<? super T, ? extends K> classifier;
+        private ArrayList<T> group;
+        private K key;
+
+        GroupSink(Sink<? super List<T>> downstream, Function<? super T, ? extends K> classifier) {
+            super(downstream);
+            this.classifier = classifier;
+        }
+
+        @Override
+        public void begin(long size) {
+            downstream.begin(-1);
+        }
+
+        @Override
+        public void accept(T t) {
+            K k = classifier.apply(t);
+            if (group != null && Objects.equals(k, key)) {
+                group.add(t);
+                return;
+            }
+            ArrayList<T> g = group;
+            group = new ArrayList<>();
+            group.add(t);
+            key = k;
+            if (g != null)
+                downstream.accept(g);
+        }
+
+        @Override
+        public void end() {
+            if (group != null && !downstream.cancellationRequested())
+                downstream.accept(group);
+            group = null;
+            key = null;
+            downstream.end();
+        }
+    }
+
+    /**
+     * Returns the number of windows of a sequence of {@code n} elements.
+     */
+    static long countWindows(long n, int size, int step, boolean partial) {
+        if (partial)
+            return (n + size - 1) / size;
+        return (n >= size) ? (n - size) / step + 1 : 0L;
+    }
+
+    /**
+     * Base of the lazy spliterators of groups, splitting by handing off
+     * batches of groups of increasing size.
+     */
+    abstract static class BatchingSpliterator<T> implements Spliterator<List<T>> {
+        private int batch;
+
+        /** Returns a spliterator of the next batch of groups, or null. */
+        final Spliterator<List<T>> splitBatch() {
+            int n = Math.min(batch + BATCH_UNIT, MAX_BATCH);
+            ArrayList<List<T>> buf = new ArrayList<>(n);
+            while (buf.size() < n && tryAdvance(buf::add)) { }
+            if (buf.isEmpty())
+                return null;
+            batch = buf.size();
+            return buf.spliterator();
+        }
+
+        @Override
+        public Comparator<? super List<T>> getComparator() {
+            throw new IllegalStateException();
+        }
+    }
+
+    /**
+     * Spliterator of windows over a sequence of elements made of a prefix
+     * list, the elements of a spliterator and a suffix list.  The lists hold
+     * the elements carried over from one window to the next, and the
+     * elements copied to the left part when splitting.
+     */
+    static final class WindowSpliterator<T> extends BatchingSpliterator<T>
+            implements Consumer<T> {
+        private final int size, step;
+        private final boolean partial;
+        private final Spliterator<T> s;
+        private List<T> prefix;     // elements before those of s
+        private int prefixIndex;
+        private List<T> suffix;     // elements after those of s
+        private int suffixIndex;
+        private long skip;          // elements to drop before the next window
+        private T current;          // element read by accept
+
+        WindowSpliterator(Spliterator<T> s, int size, int step, boolean partial) {
+            this(s, size, step, partial, null, null, 0L);
+        }
+
+        private WindowSpliterator(Spliterator<T> s, int size, int step, boolean partial,
+                                  List<T> prefix, List<T> suffix, long skip) {
+            this.s = s;
+            this.size = size;
+            this.step = step;
+            this.partial = partial;
+            this.prefix = prefix;
+            this.suffix = suffix;
+            this.skip = skip;
+        }
+
+        @Override
+        public void accept(T t) {
+            current = t;
+        }
+
+        /** Reads the next element into current, returning false at the end. */
+        private boolean advance() {
+            if (prefix != null) {
+                if (prefixIndex < prefix.size()) {
+                    current = prefix.get(prefixIndex++);
+                    return true;
+                }
+                prefix = null;
+            }
+            if (s.tryAdvance(this))
+                return true;
+            if (suffix != null && suffixIndex < suffix.size()) {
+                current = suffix.get(suffixIndex++);
+                return true;
+            }
+            return false;
+        }
+
+        private List<T> remainingPrefix() {
+            return (prefix == null) ? new ArrayList<T>()
+                                    : new ArrayList<T>(prefix.subList(prefixIndex, prefix.size()));
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            Objects.requireNonNull(action);
+            for (; skip > 0L; --skip) {
+                if (!advance())
+                    return false;
+            }
+            ArrayList<T> w = new ArrayList<>(Math.min(size, 1 << 10));
+            while (w.size() < size && advance())
+                w.add(current);
+            current = null;
+            if (w.size() < size && (!partial || w.isEmpty()))
+                return false;
+            if (step < size && w.size() == size) {
+                ArrayList<T> carry = new ArrayList<>(w.subList(step, size));
+                carry.addAll(remainingPrefix());
+                prefix = carry;
+                prefixIndex = 0;
+            }
+            else
+                skip = step - size;
+            action.accept(w);
+            return true;
+        }
+
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            if (!s.hasCharacteristics(Spliterator.SUBSIZED))
+                return splitBatch();
+            Spliterator<T> p = s.trySplit();
+            if (p == null)
+                return null;
+            // The left part holds the prefix and p, less the skipped elements
+            List<T> leftPrefix = remainingPrefix();
+            long n = leftPrefix.size() + p.getExactSizeIfKnown() - skip;
+            long starts = (n <= 0L) ? 0L : (n + step - 1) / step;
+            long extra = (starts == 0L) ? 0L : (starts - 1) * step + size - n;
+            long rightSkip = starts * step - n;
+            // Copy the elements completing the last window of the left part
+            prefix = null;
+            ArrayList<T> copied = new ArrayList<>();
+            while (copied.size() < extra && advance())
+                copied.add(current);
+            current = null;
+            WindowSpliterator<T> left =
+                new WindowSpliterator<>(p, size, step, partial, leftPrefix, copied, skip);
+            if (rightSkip < copied.size()) {
+                prefix = new ArrayList<>(copied.subList((int) rightSkip, copied.size()));
+                prefixIndex = 0;
+                skip = 0L;
+            }
+            else
+                skip = rightSkip - copied.size();
+            return left;
+        }
+
+        @Override
+        public long estimateSize() {
+            long n = s.estimateSize();
+            if (n == Long.MAX_VALUE)
+                return n;
+            n += (prefix == null ? 0 : prefix.size() - prefixIndex) +
+                 (suffix == null ? 0 : suffix.size() - suffixIndex) - skip;
+            return countWindows(Math.max(n, 0L), size, step, partial);
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL |
+                   (s.characteristics() & (Spliterator.SIZED | Spliterator.SUBSIZED));
+        }
+    }
+
+    /**
+     * Spliterator of runs of adjacent elements with equal keys.
+     */
+    static final class GroupSpliterator<T, K> extends BatchingSpliterator<T>
+            implements Consumer<T> {
+        private final Spliterator<T> s;
+        private final Function<? super T, ? extends K> classifier;
+        private boolean hasNext;    // whether next holds the first of a group
+        private T next;
+        private T current;          // element read by accept
+
+        GroupSpliterator(Spliterator<T> s, Function<? super T, ? extends K> classifier) {
+            this.s = s;
+            this.classifier = classifier;
+        }
+
+        @Override
+        public void accept(T t) {
+            current = t;
+        }
+
+        @Override
+        public boolean tryAdvance(Consumer<? super List<T>> action) {
+            Objects.requireNonNull(action);
+            if (!hasNext) {
+                if (!s.tryAdvance(this))
+                    return false;
+                next = current;
+            }
+            ArrayList<T> group = new ArrayList<>();
+            group.add(next);
+            K key = classifier.apply(next);
+            hasNext = false;
+            while (s.tryAdvance(this)) {
+                if (Objects.equals(classifier.apply(current), key))
+                    group.add(current);
+                else {
+                    next = current;
+                    hasNext = true;
+                    break;
+                }
+            }
+            if (!hasNext)
+                next = null;
+            current = null;
+            action.accept(group);
+            return true;
+        }
+
+        @Override
+        public Spliterator<List<T>> trySplit() {
+            return splitBatch();
+        }
+
+        @Override
+        public long estimateSize() {
+            return s.estimateSize();
+        }
+
+        @Override
+        public int characteristics() {
+            return Spliterator.ORDERED | Spliterator.NONNULL;
+        }
+    }
+}
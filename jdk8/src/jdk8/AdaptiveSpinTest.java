@@ -0,0 +1,145 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+import java.util.concurrent.locks.StampedLock;
+
+/**
+ * 自适应自旋: 打开之后第一次 tryAcquire 失败的线程先自旋重试一段时间再排队 park,
+ * 自旋时长按锁记录, 自旋拿到锁就加长, 没拿到就缩短 (和 HotSpot 的 monitor 一样), 所以跟着最近的持有时间走.
+ * 单核机器上从不自旋, getSpinDuration 为 0.
+ *
+ * @date 2026/10/19 03:50
+ */
+public class AdaptiveSpinTest {
+
+    private static final boolean MP = Runtime.getRuntime().availableProcessors() > 1;
+
+    private static void race(int threads, Runnable body) throws InterruptedException {
+        List<Thread> list = new ArrayList<>();
+        for (int i = 0; i < threads; i++) {
+            Thread t = new Thread(body);
+            t.start();
+            list.add(t);
+        }
+        for (Thread t : list)
+            t.join();
+    }
+
+    @Test
+    public void reentrantLock() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        Assert.assertFalse(lock.isAdaptiveSpinning());
+        Assert.assertEquals(0, lock.getSpinDuration());
+        lock.setAdaptiveSpinning(true);
+        Assert.assertTrue(lock.isAdaptiveSpinning());
+        Assert.assertEquals(MP, lock.getSpinDuration() > 0);
+
+        int[] counter = {0};
+        race(4, () -> {
+            for (int i = 0; i < 50_000; i++) {
+                lock.lock();
+                try {
+                    counter[0]++;
+                } finally {
+                    lock.unlock();
+                }
+            }
+        });
+        Assert.assertEquals(200_000, counter[0]);
+
+        // 持有很久的锁: 自旋都失败, 时长缩短
+        if (MP) {
+            int before = lock.getSpinDuration();
+            lock.lock();
+            Thread waiter = new Thread(() -> {
+                for (int i = 0; i < 20; i++) {
+                    lock.lock();
+                    lock.unlock();
+                }
+            });
+            waiter.start();
+            Thread.sleep(50);
+            lock.unlock();
+            waiter.join();
+            Assert.assertTrue(lock.getSpinDuration() <= before);
+        }
+        lock.setAdaptiveSpinning(false);
+        Assert.assertEquals(0, lock.getSpinDuration());
+    }
+
+    @Test
+    public void readWriteAndStampedLock() throws Exception {
+        ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+        rw.setAdaptiveSpinning(true);
+        long[] value = {0};
+        race(4, () -> {
+            for (int i = 0; i < 20_000; i++) {
+                if ((i & 3) == 0) {
+                    rw.writeLock().lock();
+                    value[0]++;
+                    rw.writeLock().unlock();
+                } else {
+                    rw.readLock().lock();
+                    Assert.assertTrue(value[0] >= 0);
+                    rw.readLock().unlock();
+                }
+            }
+        });
+        Assert.assertEquals(20_000, value[0]);
+        Assert.assertEquals(0, rw.getReadLockCount());
+
+        StampedLock sl = new StampedLock();
+        Assert.assertFalse(sl.isAdaptiveSpinning());
+        sl.setAdaptiveSpinning(true);
+        Assert.assertTrue(sl.isAdaptiveSpinning());
+        long[] counter = {0};
+        race(4, () -> {
+            for (int i = 0; i < 50_000; i++) {
+                long stamp = sl.writeLock();
+                counter[0]++;
+                sl.unlockWrite(stamp);
+                stamp = sl.readLock();
+                sl.unlockRead(stamp);
+            }
+        });
+        Assert.assertEquals(200_000, counter[0]);
+        Assert.assertFalse(sl.isWriteLocked());
+        sl.setAdaptiveSpinning(false);
+        Assert.assertEquals(0, sl.getSpinDuration());
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T copy(T o) throws Exception {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(o);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            return (T) in.readObject();
+        }
+    }
+
+    @Test
+    public void notSerialized() throws Exception {
+        // 自旋时长是运行时状态, 不进序列化形式, 反序列化出来的锁从关闭自旋开始
+        ReentrantLock lock = new ReentrantLock();
+        lock.setAdaptiveSpinning(true);
+        Assert.assertFalse(copy(lock).isAdaptiveSpinning());
+        ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+        rw.setAdaptiveSpinning(true);
+        Assert.assertFalse(copy(rw).isAdaptiveSpinning());
+        StampedLock sl = new StampedLock();
+        sl.setAdaptiveSpinning(true);
+        Assert.assertFalse(copy(sl).isAdaptiveSpinning());
+    }
+}
@@ -0,0 +1,180 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.info.ClassLayout;
+import org.openjdk.jol.info.FieldLayout;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Iterator;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.MpmcArrayQueue;
+import java.util.concurrent.MpscArrayQueue;
+import java.util.concurrent.SpscArrayQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.WaitStrategy;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+/**
+ * 有界无锁数组队列: SPSC (一个生产者一个消费者), MPSC (多生产者一个消费者), MPMC (多对多).
+ * head / tail 用 @Contended 隔开在不同的缓存行, 阻塞方法按 WaitStrategy 自旋 / yield / park 之后重试.
+ *
+ * @date 2026/10/19 00:50
+ */
+public class ArrayQueueTest {
+
+    private static final int N = 200_000;
+
+    /**
+     * producers 个线程各 put 1..N, consumers 个线程 take 到总数为止, 校验和要相等
+     */
+    private static void transfer(BlockingQueue<Integer> queue, int producers, int consumers) throws Exception {
+        AtomicLong sum = new AtomicLong();
+        AtomicInteger taken = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int p = 0; p < producers; p++)
+            threads.add(new Thread(() -> {
+                try {
+                    for (int i = 1; i <= N; i++)
+                        queue.put(i);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        int total = producers * N;
+        for (int c = 0; c < consumers; c++)
+            threads.add(new Thread(() -> {
+                try {
+                    long local = 0;
+                    while (taken.getAndIncrement() < total)
+                        local += queue.take();
+                    sum.addAndGet(local);
+                } catch (InterruptedException e) {
+                    throw new AssertionError(e);
+                }
+            }));
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join(30_000);
+        Assert.assertEquals((long) producers * N * (N + 1) / 2, sum.get());
+        Assert.assertTrue(queue.isEmpty());
+    }
+
+    @Test
+    public void transferWithEachWaitStrategy() throws Exception {
+        // 忙等要求每个线程都有自己的 CPU, 否则等待的线程会占满整个时间片
+        boolean spin = Runtime.getRuntime().availableProcessors() >= 6;
+        for (WaitStrategy w : WaitStrategy.values()) {
+            if (w == WaitStrategy.SPIN && !spin)
+                continue;
+            transfer(new SpscArrayQueue<>(64, w), 1, 1);
+            transfer(new MpscArrayQueue<>(64, w), 3, 1);
+            transfer(new MpmcArrayQueue<>(64, w), 3, 3);
+        }
+    }
+
+    @Test
+    public void boundedWithBatchOperations() throws Exception {
+        List<BlockingQueue<Integer>> queues = Arrays.asList(
+                new SpscArrayQueue<>(100), new MpscArrayQueue<>(100), new MpmcArrayQueue<>(100));
+        for (BlockingQueue<Integer> q : queues) {
+            // 容量取整到 2 的幂
+            Assert.assertEquals(128, q.remainingCapacity());
+            for (int i = 0; i < 128; i++)
+                Assert.assertTrue(q.offer(i));
+            Assert.assertFalse(q.offer(128));
+            Assert.assertFalse(q.offer(128, 1, TimeUnit.MILLISECONDS));
+            Assert.assertEquals(128, q.size());
+            Assert.assertEquals(Integer.valueOf(0), q.peek());
+
+            List<Integer> out = new ArrayList<>();
+            AtomicInteger next = new AtomicInteger(128);
+            if (q instanceof SpscArrayQueue) {
+                SpscArrayQueue<Integer> s = (SpscArrayQueue<Integer>) q;
+                Assert.assertEquals(100, s.drain(out::add, 100));
+                Assert.assertEquals(100, s.fill(next::getAndIncrement, 1000));
+                Assert.assertEquals(128, s.drain(out::add, 1000));
+            } else if (q instanceof MpscArrayQueue) {
+                MpscArrayQueue<Integer> s = (MpscArrayQueue<Integer>) q;
+                Assert.assertEquals(100, s.drain(out::add, 100));
+                Assert.assertEquals(100, s.fill(next::getAndIncrement, 1000));
+                Assert.assertEquals(128, s.drain(out::add, 1000));
+            } else {
+                MpmcArrayQueue<Integer> s = (MpmcArrayQueue<Integer>) q;
+                Assert.assertEquals(100, s.drain(out::add, 100));
+                Assert.assertEquals(100, s.fill(next::getAndIncrement, 1000));
+                Assert.assertEquals(128, s.drain(out::add, 1000));
+            }
+            Assert.assertEquals(228, out.size());
+            for (int i = 0; i < out.size(); i++)
+                Assert.assertEquals(Integer.valueOf(i), out.get(i));
+            Assert.assertNull(q.poll());
+            Assert.assertNull(q.poll(1, TimeUnit.MILLISECONDS));
+
+            q.addAll(Arrays.asList(1, 2, 3));
+            Assert.assertEquals("[1, 2, 3]", q.toString());
+            List<Integer> drained = new ArrayList<>();
+            Assert.assertEquals(3, q.drainTo(drained));
+            Assert.assertEquals(Arrays.asList(1, 2, 3), drained);
+        }
+    }
+
+    private static int fill(BlockingQueue<Integer> q, Supplier<Integer> s, int limit) {
+        if (q instanceof SpscArrayQueue)
+            return ((SpscArrayQueue<Integer>) q).fill(s, limit);
+        if (q instanceof MpscArrayQueue)
+            return ((MpscArrayQueue<Integer>) q).fill(s, limit);
+        return ((MpmcArrayQueue<Integer>) q).fill(s, limit);
+    }
+
+    @Test
+    public void fillWithFailingSupplier() throws Exception {
+        for (int round = 0; round < 2; round++) {
+            List<BlockingQueue<Integer>> queues = Arrays.asList(
+                    new SpscArrayQueue<>(8), new MpscArrayQueue<>(8), new MpmcArrayQueue<>(8));
+            for (BlockingQueue<Integer> q : queues) {
+                // supplier 返回 null 或者抛异常: 之前取到的元素放进队列, 不会留下被占住却没写的槽
+                Iterator<Integer> it = Arrays.asList(1, 2, null).iterator();
+                boolean nullElement = round == 0;
+                Supplier<Integer> s = () -> {
+                    Integer e = it.next();
+                    if (e == null && !nullElement)
+                        throw new IllegalStateException();
+                    return e;
+                };
+                try {
+                    fill(q, s, 5);
+                    Assert.fail();
+                } catch (NullPointerException | IllegalStateException expected) {
+                    Assert.assertEquals(nullElement, expected instanceof NullPointerException);
+                }
+                Assert.assertEquals(2, q.size());
+                Assert.assertEquals(Integer.valueOf(1), q.poll());
+                Assert.assertEquals(Integer.valueOf(2), q.poll());
+                Assert.assertNull(q.poll());
+                Assert.assertTrue(q.offer(3));
+                Assert.assertEquals(Integer.valueOf(3), q.poll(1, TimeUnit.SECONDS));
+            }
+        }
+    }
+
+    @Test
+    public void headAndTailOnDifferentCacheLines() {
+        // 队列类是从启动类路径加载的, @Contended 不需要 -XX:-RestrictContended
+        for (Class<?> k : new Class<?>[]{SpscArrayQueue.class, MpscArrayQueue.class, MpmcArrayQueue.class}) {
+            long head = -1, tail = -1;
+            for (FieldLayout f : ClassLayout.parseClass(k).fields()) {
+                if (f.name().equals("head"))
+                    head = f.offset();
+                else if (f.name().equals("tail"))
+                    tail = f.offset();
+            }
+            Assert.assertTrue(Math.abs(head - tail) >= 64);
+        }
+    }
+}
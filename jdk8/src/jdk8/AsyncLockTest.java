@@ -0,0 +1,149 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 异步获取锁: lockAsync / acquireAsync / readLockAsync / writeLockAsync 返回 CompletableFuture.
+ * 请求作为没有线程的结点排进 AQS 队列, 轮到它时由释放锁的线程交给 commonPool 代为获取并完成 future,
+ * 等待期间不占线程. 异步获取的锁不属于任何线程, 可以由任意线程 unlock.
+ *
+ * @date 2026/10/19 02:20
+ */
+public class AsyncLockTest {
+
+    @Test
+    public void grantedInQueueOrder() throws Exception {
+        ReentrantLock lock = new ReentrantLock(true);
+        // 空闲时立即完成, 由别的线程释放
+        CompletableFuture<Void> first = lock.lockAsync();
+        Assert.assertTrue(first.isDone());
+        Assert.assertFalse(lock.isHeldByCurrentThread());
+        Assert.assertTrue(lock.isLocked());
+        Thread other = new Thread(lock::unlock);
+        other.start();
+        other.join();
+        Assert.assertFalse(lock.isLocked());
+
+        List<Integer> order = new CopyOnWriteArrayList<>();
+        lock.lock();
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            int id = i;
+            futures.add(lock.lockAsync().thenRun(() -> {
+                order.add(id);
+                lock.unlock();
+            }));
+        }
+        // 取消排在中间的请求, 它的位置被跳过
+        CompletableFuture<Void> cancelled = lock.lockAsync();
+        futures.add(lock.lockAsync().thenRun(() -> {
+            order.add(6);
+            lock.unlock();
+        }));
+        Assert.assertTrue(cancelled.cancel(false));
+        Assert.assertFalse(futures.get(0).isDone());
+        lock.unlock();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4, 6), order);
+        Assert.assertFalse(lock.isLocked());
+        Assert.assertFalse(lock.hasQueuedThreads());
+    }
+
+    @Test
+    public void timeoutAndMutualExclusion() throws Exception {
+        ReentrantLock lock = new ReentrantLock();
+        lock.lock();
+        CompletableFuture<Boolean> timed = lock.tryLockAsync(20, TimeUnit.MILLISECONDS);
+        Assert.assertFalse(timed.get(10, TimeUnit.SECONDS));
+        Assert.assertFalse(lock.tryLockAsync(0, TimeUnit.SECONDS).get());
+        lock.unlock();
+        Assert.assertTrue(lock.tryLockAsync(0, TimeUnit.SECONDS).get());
+        lock.unlock();
+
+        // 异步请求和阻塞的线程混在一起, 计数不会丢
+        int[] counter = {0};
+        List<CompletableFuture<Void>> futures = new ArrayList<>();
+        Thread[] threads = new Thread[4];
+        for (int t = 0; t < threads.length; t++) {
+            threads[t] = new Thread(() -> {
+                for (int i = 0; i < 2000; i++) {
+                    lock.lock();
+                    try {
+                        counter[0]++;
+                    } finally {
+                        lock.unlock();
+                    }
+                }
+            });
+            threads[t].start();
+        }
+        for (int i = 0; i < 8000; i++)
+            futures.add(lock.lockAsync().thenRun(() -> {
+                try {
+                    counter[0]++;
+                } finally {
+                    lock.unlock();
+                }
+            }));
+        for (Thread t : threads)
+            t.join();
+        CompletableFuture.allOf(futures.toArray(new CompletableFuture<?>[0])).get(30, TimeUnit.SECONDS);
+        lock.lock();
+        Assert.assertEquals(16000, counter[0]);
+        lock.unlock();
+    }
+
+    @Test
+    public void semaphoreAndReadWriteLock() throws Exception {
+        Semaphore semaphore = new Semaphore(1, true);
+        semaphore.acquire();
+        CompletableFuture<Void> two = semaphore.acquireAsync(2);
+        CompletableFuture<Void> one = semaphore.acquireAsync();
+        semaphore.release();
+        // 公平: 要两个许可的请求在前面, 一个许可不够, 后面的也不能插队
+        Assert.assertFalse(two.isDone());
+        Assert.assertFalse(one.isDone());
+        semaphore.release(2);
+        CompletableFuture.allOf(two, one).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(0, semaphore.availablePermits());
+        Assert.assertFalse(semaphore.tryAcquireAsync(1, 10, TimeUnit.MILLISECONDS).get());
+
+        ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+        rw.writeLock().lock();
+        List<CompletableFuture<Void>> readers = new ArrayList<>();
+        for (int i = 0; i < 3; i++)
+            readers.add(rw.readLockAsync());
+        CompletableFuture<Void> writer = rw.writeLockAsync();
+        rw.writeLock().unlock();
+        // 读请求依次传播, 都拿到读锁; 写请求等它们释放
+        CompletableFuture.allOf(readers.toArray(new CompletableFuture<?>[0])).get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(3, rw.getReadLockCount());
+        Assert.assertFalse(writer.isDone());
+        for (int i = 0; i < 3; i++)
+            rw.readLock().unlock();
+        writer.get(10, TimeUnit.SECONDS);
+        Assert.assertTrue(rw.isWriteLocked());
+        Assert.assertFalse(rw.isWriteLockedByCurrentThread());
+        Assert.assertFalse(rw.tryReadLockAsync(10, TimeUnit.MILLISECONDS).get());
+        rw.writeLock().unlock();
+        Assert.assertTrue(rw.tryReadLockAsync(0, TimeUnit.SECONDS).get());
+        rw.readLock().unlock();
+        Assert.assertEquals(0, rw.getReadLockCount());
+        try {
+            rw.readLock().unlock();
+            Assert.fail();
+        } catch (IllegalMonitorStateException expected) {
+        }
+    }
+}
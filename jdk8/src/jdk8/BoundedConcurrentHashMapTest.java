@@ -0,0 +1,155 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.concurrent.BoundedConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 有界缓存: 容量上限, W-TinyLFU 对热点 key 的保留, 过期, 以及命中统计.
+ *
+ * @date 2026/10/18 15:40
+ */
+public class BoundedConcurrentHashMapTest {
+
+    @Test
+    public void sizeIsBounded() {
+        BoundedConcurrentHashMap<Integer, Integer> cache = BoundedConcurrentHashMap.<Integer, Integer>builder()
+                .maximumSize(1000)
+                .build();
+        for (int i = 0; i < 100_000; i++)
+            cache.put(i, i);
+        cache.cleanUp();
+        Assert.assertEquals(1000, cache.size());
+        Assert.assertEquals(1000, cache.weightedSize());
+        Assert.assertEquals(99_000, cache.evictionCount());
+    }
+
+    @Test
+    public void weightIsBounded() {
+        BoundedConcurrentHashMap<Integer, String> cache = BoundedConcurrentHashMap.<Integer, String>builder()
+                .maximumWeight(10_000, (k, v) -> v.length())
+                .build();
+        for (int i = 0; i < 10_000; i++)
+            cache.put(i, new String(new char[i % 100]));
+        cache.cleanUp();
+        Assert.assertTrue(cache.weightedSize() <= 10_000);
+        long sum = 0;
+        for (String v : cache.values())
+            sum += v.length();
+        Assert.assertEquals(sum, cache.weightedSize());
+    }
+
+    @Test
+    public void frequentKeysSurviveScan() {
+        BoundedConcurrentHashMap<Integer, Integer> cache = BoundedConcurrentHashMap.<Integer, Integer>builder()
+                .maximumSize(100)
+                .build();
+        // 0..49 是热点, 被反复访问; 之后一次性扫描大量冷 key, LRU 会把热点全部挤掉
+        for (int round = 0; round < 20; round++) {
+            for (int i = 0; i < 50; i++) {
+                if (cache.get(i) == null)
+                    cache.put(i, i);
+            }
+            cache.cleanUp();
+        }
+        for (int i = 1000; i < 3000; i++)
+            cache.put(i, i);
+        cache.cleanUp();
+        int retained = 0;
+        for (int i = 0; i < 50; i++) {
+            if (cache.containsKey(i))
+                retained++;
+        }
+        Assert.assertTrue("retained " + retained, retained >= 45);
+    }
+
+    @Test
+    public void entriesExpireAfterWrite() throws InterruptedException {
+        BoundedConcurrentHashMap<String, String> cache = BoundedConcurrentHashMap.<String, String>builder()
+                .expireAfterWrite(50, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put("a", "1");
+        Assert.assertEquals("1", cache.get("a"));
+        Thread.sleep(100);
+        Assert.assertNull(cache.get("a"));
+        Assert.assertFalse(cache.containsKey("a"));
+        Assert.assertNull(cache.putIfAbsent("a", "2"));
+        Assert.assertEquals("2", cache.get("a"));
+        Thread.sleep(100);
+        cache.cleanUp();
+        Assert.assertEquals(0, cache.size());
+        Assert.assertEquals(2, cache.evictionCount());
+    }
+
+    @Test
+    public void readsExtendAccessExpiry() throws InterruptedException {
+        BoundedConcurrentHashMap<String, String> cache = BoundedConcurrentHashMap.<String, String>builder()
+                .expireAfterAccess(200, TimeUnit.MILLISECONDS)
+                .build();
+        cache.put("a", "1");
+        cache.put("b", "2");
+        for (int i = 0; i < 5; i++) {
+            Thread.sleep(60);
+            Assert.assertEquals("1", cache.get("a"));
+        }
+        cache.cleanUp();
+        Assert.assertTrue(cache.containsKey("a"));
+        Assert.assertFalse(cache.containsKey("b"));
+    }
+
+    @Test
+    public void statsCountHitsAndMisses() {
+        BoundedConcurrentHashMap<Integer, Integer> cache = BoundedConcurrentHashMap.<Integer, Integer>builder()
+                .maximumSize(10)
+                .build();
+        cache.put(1, 1);
+        cache.get(1);
+        cache.get(1);
+        cache.get(2);
+        Assert.assertEquals(2, cache.hitCount());
+        Assert.assertEquals(1, cache.missCount());
+    }
+
+    @Test
+    public void concurrentAccessStaysBounded() throws Exception {
+        int threads = 8;
+        BoundedConcurrentHashMap<Integer, Integer> cache = BoundedConcurrentHashMap.<Integer, Integer>builder()
+                .maximumSize(500)
+                .build();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < 200_000; i++) {
+                        int key = random.nextInt(5000);
+                        switch (random.nextInt(4)) {
+                            case 0: cache.put(key, key); break;
+                            case 1: cache.remove(key); break;
+                            default:
+                                Integer v = cache.get(key);
+                                if (v != null && v != key)
+                                    throw new AssertionError(key + "=" + v);
+                        }
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        cache.cleanUp();
+        Assert.assertTrue(cache.size() <= 500);
+        Assert.assertEquals(cache.size(), cache.weightedSize());
+    }
+}
@@ -0,0 +1,151 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.stream.Collectors;
+
+/**
+ * CompletableFuture 的批量组合: allOfList / anyOfN / collect 不再两两建 BiRelay 树,
+ * 而是每个未完成的 future 上挂一个小的 Arrival, 共用一个计数器, 最后一个到达的线程按列表顺序收集结果.
+ * fuse() 把连续的同步 thenApply / thenAccept / thenRun 合成一个 completion 和一个 future.
+ *
+ * @date 2026/10/19 02:50
+ */
+public class CompletableFutureGatherTest {
+
+    private static List<CompletableFuture<Integer>> futures(int n) {
+        List<CompletableFuture<Integer>> cfs = new ArrayList<>();
+        for (int i = 0; i < n; i++)
+            cfs.add(new CompletableFuture<>());
+        return cfs;
+    }
+
+    @Test
+    public void allOfListAndCollect() throws Exception {
+        List<CompletableFuture<Integer>> cfs = futures(5);
+        cfs.get(2).complete(2);
+        CompletableFuture<List<Integer>> all = CompletableFuture.allOfList(cfs);
+        CompletableFuture<Integer> sum = CompletableFuture.collect(cfs, Collectors.summingInt(i -> i));
+        // 倒序完成, 结果仍然按列表顺序
+        for (int i = 4; i >= 0; i--) {
+            Assert.assertFalse(all.isDone());
+            cfs.get(i).complete(i);
+        }
+        Assert.assertEquals(Arrays.asList(0, 1, 2, 3, 4), all.get());
+        Assert.assertEquals(10, (int) sum.get());
+        Assert.assertEquals(Collections.emptyList(), CompletableFuture.allOfList(new ArrayList<>()).get());
+
+        // 任何一个异常立即失败, 不等其它的
+        cfs = futures(3);
+        all = CompletableFuture.allOfList(cfs);
+        IllegalStateException ex = new IllegalStateException();
+        cfs.get(1).completeExceptionally(ex);
+        Assert.assertTrue(all.isCompletedExceptionally());
+        try {
+            all.join();
+            Assert.fail();
+        } catch (CompletionException e) {
+            Assert.assertSame(ex, e.getCause());
+        }
+        // 剩下的 Arrival 已经失效, 源完成时弹出丢弃
+        cfs.get(0).complete(0);
+        Assert.assertEquals(0, cfs.get(0).getNumberOfDependents());
+
+        // collector 抛异常
+        cfs = futures(1);
+        CompletableFuture<Object> bad = CompletableFuture.collect(cfs, Collectors.reducing(null, (a, b) -> {
+            throw new ArithmeticException();
+        }));
+        cfs.get(0).complete(1);
+        Assert.assertTrue(bad.isCompletedExceptionally());
+    }
+
+    @Test
+    public void anyOfN() throws Exception {
+        List<CompletableFuture<Integer>> cfs = futures(5);
+        CompletableFuture<List<Integer>> two = CompletableFuture.anyOfN(2, cfs);
+        cfs.get(4).complete(4);
+        cfs.get(0).completeExceptionally(new RuntimeException());
+        Assert.assertFalse(two.isDone());
+        cfs.get(1).complete(1);
+        Assert.assertEquals(Arrays.asList(1, 4), two.get());
+
+        // 5 个里要 4 个, 失败 2 个就不可能了
+        cfs = futures(5);
+        CompletableFuture<List<Integer>> four = CompletableFuture.anyOfN(4, cfs);
+        cfs.get(0).completeExceptionally(new RuntimeException());
+        Assert.assertFalse(four.isDone());
+        cfs.get(3).completeExceptionally(new IllegalStateException());
+        Assert.assertTrue(four.isCompletedExceptionally());
+
+        Assert.assertEquals(Collections.emptyList(), CompletableFuture.anyOfN(0, cfs).get());
+        try {
+            CompletableFuture.anyOfN(6, cfs);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void concurrentArrivals() throws Exception {
+        for (int round = 0; round < 20; round++) {
+            List<CompletableFuture<Integer>> cfs = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                int v = i;
+                cfs.add(CompletableFuture.supplyAsync(() -> v));
+            }
+            List<Integer> results = CompletableFuture.allOfList(cfs).get(10, TimeUnit.SECONDS);
+            for (int i = 0; i < 1000; i++)
+                Assert.assertEquals(i, (int) results.get(i));
+        }
+    }
+
+    @Test
+    public void fusedStages() throws Exception {
+        CompletableFuture<Integer> source = new CompletableFuture<>();
+        AtomicInteger seen = new AtomicInteger();
+        CompletableFuture<String> fused = source.fuse()
+                .thenApply(i -> i + 1)
+                .thenApply(i -> i * 2)
+                .thenApply(String::valueOf)
+                .toCompletableFuture();
+        CompletableFuture<Void> accepted = source.fuse()
+                .thenApply(i -> i + 1)
+                .thenAccept(seen::set)
+                .thenRun(seen::incrementAndGet)
+                .toCompletableFuture();
+        Assert.assertEquals(2, source.getNumberOfDependents());
+        source.complete(4);
+        Assert.assertEquals("10", fused.get());
+        Assert.assertNull(accepted.get());
+        Assert.assertEquals(6, seen.get());
+
+        // 已经完成的源直接在当前线程执行; 中间抛异常跳过后面的动作
+        CompletableFuture<Integer> failed = CompletableFuture.completedFuture(1).fuse()
+                .thenApply(i -> i / 0)
+                .thenApply(i -> {
+                    seen.set(-1);
+                    return i;
+                })
+                .toCompletableFuture();
+        Assert.assertTrue(failed.isCompletedExceptionally());
+        Assert.assertEquals(6, seen.get());
+
+        CompletableFuture.FusedStage<Integer> stage = source.fuse();
+        Assert.assertSame(source.get(), stage.toCompletableFuture().get());
+        try {
+            stage.thenApply(i -> i);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+    }
+}
@@ -0,0 +1,100 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentFrequencyCounter;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * 并发计数: 多线程计数 (少数热点 key 会膨胀成 LongAdder) 结果要精确,
+ * 以及和 ConcurrentHashMap<K, LongAdder> 的内存占用对比.
+ *
+ * @date 2026/10/18 19:40
+ */
+public class ConcurrentFrequencyCounterTest {
+
+    @Test
+    public void concurrentCountsAreExact() throws Exception {
+        int threads = 8, ops = 200_000, keys = 50_000;
+        ConcurrentFrequencyCounter<Integer> counter = new ConcurrentFrequencyCounter<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            new Thread(() -> {
+                try {
+                    // 一半的操作落在 4 个热点 key 上, 其余均匀分布, 边计数边扩容
+                    for (int i = 0; i < ops; i++)
+                        counter.increment((i & 1) == 0 ? i & 3 : i % keys);
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        Map<Integer, Long> expected = new HashMap<>();
+        for (int i = 0; i < ops; i++)
+            expected.merge((i & 1) == 0 ? i & 3 : i % keys, (long) threads, Long::sum);
+        Assert.assertEquals(expected, counter.snapshot());
+        Assert.assertEquals((long) threads * ops, counter.sum());
+        Assert.assertEquals(expected.size(), counter.size());
+        for (int k = 0; k < 4; k++)
+            Assert.assertEquals(expected.get(k).longValue(), counter.count(k));
+        Assert.assertEquals(0, counter.count(-1));
+    }
+
+    @Test
+    public void topKAndDecay() {
+        ConcurrentFrequencyCounter<String> counter = new ConcurrentFrequencyCounter<>();
+        for (int i = 0; i < 10_000; i++)
+            counter.add("key-" + i, i % 100);
+        counter.add("hot", 1_000);
+        List<Map.Entry<String, Long>> top = counter.topK(3);
+        Assert.assertEquals(3, top.size());
+        Assert.assertEquals("hot", top.get(0).getKey());
+        Assert.assertEquals(1_000L, top.get(0).getValue().longValue());
+        Assert.assertEquals(99L, top.get(1).getValue().longValue());
+        Assert.assertEquals(99L, top.get(2).getValue().longValue());
+        // 计数减半, 0 和 1 的 key 被丢掉
+        counter.decay();
+        Assert.assertEquals(1 + 10_000 - 200, counter.size());
+        Assert.assertEquals(500L, counter.count("hot"));
+        Assert.assertEquals(49L, counter.count("key-99"));
+        Assert.assertEquals(0L, counter.count("key-101"));
+        counter.clear();
+        Assert.assertTrue(counter.isEmpty());
+        counter.increment("hot");
+        Assert.assertEquals(1L, counter.count("hot"));
+    }
+
+    @Test
+    public void footprintAgainstLongAdderMap() {
+        int n = 200_000;
+        ConcurrentHashMap<Long, LongAdder> adders = new ConcurrentHashMap<>();
+        ConcurrentFrequencyCounter<Long> counter = new ConcurrentFrequencyCounter<>();
+        Long[] keys = new Long[n];
+        for (int i = 0; i < n; i++) {
+            keys[i] = (long) i << 16;
+            adders.computeIfAbsent(keys[i], k -> new LongAdder()).increment();
+            counter.increment(keys[i]);
+        }
+        // key 对象两边共享, 只比较结构本身
+        long keyBytes = GraphLayout.parseInstance((Object) keys).totalSize();
+        long adderBytes = GraphLayout.parseInstance(adders, keys).totalSize() - keyBytes;
+        long counterBytes = GraphLayout.parseInstance(counter, keys).totalSize() - keyBytes;
+        System.out.println("ConcurrentHashMap<Long,LongAdder>: " + adderBytes + " bytes, ConcurrentFrequencyCounter: " + counterBytes + " bytes");
+        // 每个 key 一个引用槽加一个 long 槽, 按装载因子摊下来约 20~30 字节; Node + LongAdder 约 70 字节
+        Assert.assertTrue(counterBytes * 2 < adderBytes);
+    }
+}
@@ -0,0 +1,100 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.channels.Pipe;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.Fiber;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+
+/**
+ * Fiber: 跑在载体线程池里的 ForkJoinTask. 载体线程通过 LockSupport park 时会经由 managedBlock
+ * 告诉线程池, 线程池唤醒或补充一个载体, 所以阻塞的 fiber 不会占满 parallelism 导致死锁.
+ * JDK 8 没法保存栈, 阻塞中的 fiber 不会被卸载, 仍然占着一个线程, 线程池另起一个线程补偿; 所以并不减少线程数.
+ *
+ * @date 2026/10/18 23:30
+ */
+public class FiberTest {
+
+    @Test
+    public void blockedFibersDoNotStarveTheProducer() throws Exception {
+        // 200 个 fiber 先阻塞在 take() 上, 之后提交的生产者仍然能运行
+        ForkJoinPool carriers = Fiber.newCarrierPool(2);
+        BlockingQueue<Integer> queue = new LinkedBlockingQueue<>();
+        List<Fiber<Integer>> consumers = new ArrayList<>();
+        for (int i = 0; i < 200; i++)
+            consumers.add(Fiber.start(carriers, queue::take));
+        Fiber<Void> producer = Fiber.start(carriers, () -> {
+            for (int i = 0; i < 200; i++)
+                queue.put(i);
+            return null;
+        });
+        producer.get(10, TimeUnit.SECONDS);
+        long sum = 0;
+        for (Fiber<Integer> f : consumers)
+            sum += f.get(10, TimeUnit.SECONDS);
+        Assert.assertEquals(199 * 200 / 2, sum);
+        carriers.shutdown();
+        Assert.assertTrue(carriers.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void currentSleepAndLocks() throws Exception {
+        ForkJoinPool carriers = Fiber.newCarrierPool(1);
+        Assert.assertNull(Fiber.current());
+        ReentrantLock lock = new ReentrantLock();
+        lock.lock();
+        // 唯一的载体在等锁, 第二个 fiber 仍然能跑
+        Fiber<Boolean> waiter = Fiber.start(carriers, () -> {
+            lock.lock();
+            try {
+                return Fiber.current() != null;
+            } finally {
+                lock.unlock();
+            }
+        });
+        Fiber<Long> sleeper = Fiber.start(carriers, () -> {
+            long start = System.nanoTime();
+            Fiber.sleep(20, TimeUnit.MILLISECONDS);
+            return System.nanoTime() - start;
+        });
+        Assert.assertTrue(sleeper.get(5, TimeUnit.SECONDS) >= TimeUnit.MILLISECONDS.toNanos(20));
+        Assert.assertFalse(waiter.isDone());
+        lock.unlock();
+        Assert.assertTrue(waiter.get(5, TimeUnit.SECONDS));
+        carriers.shutdown();
+    }
+
+    @Test
+    public void blockingChannelReads() throws Exception {
+        // 阻塞的 NIO 读不经过 LockSupport, 用 Fiber.blocking 包起来
+        ForkJoinPool carriers = Fiber.newCarrierPool(1);
+        Pipe pipe = Pipe.open();
+        Fiber<Integer> reader = Fiber.start(carriers, () -> {
+            ByteBuffer buf = ByteBuffer.allocate(4);
+            while (buf.hasRemaining())
+                Fiber.blocking(() -> pipe.source().read(buf));
+            buf.flip();
+            return buf.getInt();
+        });
+        Fiber<Void> writer = Fiber.start(carriers, () -> {
+            ByteBuffer buf = ByteBuffer.allocate(4);
+            buf.putInt(42).flip();
+            while (buf.hasRemaining())
+                pipe.sink().write(buf);
+            return null;
+        });
+        writer.get(5, TimeUnit.SECONDS);
+        Assert.assertEquals(Integer.valueOf(42), reader.get(5, TimeUnit.SECONDS));
+        pipe.source().close();
+        pipe.sink().close();
+        carriers.shutdown();
+    }
+}
@@ -0,0 +1,172 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Assume;
+import org.junit.Test;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.io.UncheckedIOException;
+import java.nio.charset.Charset;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.List;
+import java.util.Random;
+import java.util.Spliterator;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Files.lines 对 UTF-8 / ISO-8859-1 / US-ASCII 把文件映射到内存 (FileChannel.map), 在中点附近的换行处切分,
+ * 每一行在消费的时候才解码; 并行流可以在多个核上扫描同一个文件. 结果必须和 BufferedReader.readLine 一样:
+ * 行结束符是 \n, \r 或 \r\n, 最后一行可以没有结束符.
+ *
+ * @date 2026/10/19 06:50
+ */
+public class FilesLinesTest {
+
+    private static List<String> readerLines(byte[] bytes, Charset cs) {
+        return new BufferedReader(new InputStreamReader(new ByteArrayInputStream(bytes), cs))
+                .lines().collect(Collectors.toList());
+    }
+
+    private static void check(byte[] bytes, Charset cs) throws IOException {
+        Path path = Files.createTempFile("lines", ".txt");
+        try {
+            Files.write(path, bytes);
+            List<String> expected = readerLines(bytes, cs);
+            try (Stream<String> lines = Files.lines(path, cs)) {
+                Assert.assertEquals(expected, lines.collect(Collectors.toList()));
+            }
+            try (Stream<String> lines = Files.lines(path, cs)) {
+                Assert.assertEquals(expected, lines.parallel().collect(Collectors.toList()));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void terminators() throws IOException {
+        String[] texts = {"", "a", "\n", "\r", "\r\n", "\n\n", "\r\r\n\n", "a\nb", "a\nb\n", "a\r\nb\rc\n\rd",
+                "中文\n", "x\r\n中\r文\rend", "line without terminator"};
+        for (String text : texts) {
+            check(text.getBytes(StandardCharsets.UTF_8), StandardCharsets.UTF_8);
+            check(text.getBytes(StandardCharsets.ISO_8859_1), StandardCharsets.ISO_8859_1);
+        }
+        check(new byte[]{'a', (byte) 0xe9, '\n', (byte) 0xff}, StandardCharsets.ISO_8859_1);
+    }
+
+    @Test
+    public void parallelSplitsOnLines() throws IOException {
+        Random random = new Random(7);
+        String[] seps = {"\n", "\r\n", "\r"};
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 50_000; i++) {
+            sb.append(i).append(random.nextBoolean() ? " é中" : "");
+            for (int j = random.nextInt(20); j > 0; j--)
+                sb.append((char) ('a' + random.nextInt(26)));
+            sb.append(seps[random.nextInt(seps.length)]);
+        }
+        byte[] bytes = sb.toString().getBytes(StandardCharsets.UTF_8);
+        check(bytes, StandardCharsets.UTF_8);
+
+        Path path = Files.createTempFile("lines", ".txt");
+        try {
+            Files.write(path, bytes);
+            try (Stream<String> lines = Files.lines(path)) {
+                Spliterator<String> right = lines.spliterator();
+                Spliterator<String> left = right.trySplit();
+                Assert.assertNotNull(left);
+                Assert.assertTrue(right.hasCharacteristics(Spliterator.ORDERED));
+                long[] count = new long[1];
+                left.forEachRemaining(s -> count[0]++);
+                right.forEachRemaining(s -> count[0]++);
+                Assert.assertEquals(readerLines(bytes, StandardCharsets.UTF_8).size(), count[0]);
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    private static boolean mapped(Path path) throws IOException {
+        Path maps = Paths.get("/proc/self/maps");
+        return Files.readAllLines(maps).stream().anyMatch(l -> l.endsWith(path.toString()));
+    }
+
+    @Test
+    public void closeUnmaps() throws IOException {
+        // 没读完就关闭流: 映射的窗口马上解除, 不用等 GC, 之后可以安全地删除或截断文件
+        Assume.assumeTrue(Files.isReadable(Paths.get("/proc/self/maps")));
+        Path path = Files.createTempFile("lines", ".txt");
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 10_000; i++)
+                sb.append(i).append('\n');
+            Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+            try (Stream<String> lines = Files.lines(path)) {
+                Spliterator<String> right = lines.spliterator();
+                Spliterator<String> left = right.trySplit();
+                Assert.assertTrue(left.tryAdvance(s -> Assert.assertEquals("0", s)));
+                Assert.assertTrue(right.tryAdvance(s -> { }));
+                Assert.assertTrue(mapped(path));
+            }
+            Assert.assertFalse(mapped(path));
+            // 读完的窗口在最后一行读出来时就解除映射
+            try (Stream<String> lines = Files.lines(path)) {
+                Assert.assertEquals(10_000, lines.count());
+                Assert.assertFalse(mapped(path));
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void closeWhileParallelReading() throws IOException {
+        // 并行流的终止操作抛异常时, 别的工作线程可能还在读映射的窗口, 这时关闭流不能解除它们正在读的窗口,
+        // 否则访问已经解除映射的内存会让 JVM 崩溃; 它们在那些线程读完 (或者读到一半失败) 后解除
+        Path path = Files.createTempFile("lines", ".txt");
+        try {
+            StringBuilder sb = new StringBuilder();
+            for (int i = 0; i < 200_000; i++)
+                sb.append(i).append('\n');
+            Files.write(path, sb.toString().getBytes(StandardCharsets.UTF_8));
+            for (int round = 0; round < 20; round++) {
+                try (Stream<String> lines = Files.lines(path).parallel()) {
+                    lines.mapToInt(Integer::parseInt).map(i -> 100 / (i % 50_000 - 25_000)).sum();
+                    Assert.fail();
+                } catch (ArithmeticException expected) {
+                }
+            }
+            ForkJoinPool.commonPool().awaitQuiescence(10, TimeUnit.SECONDS);
+            if (Files.isReadable(Paths.get("/proc/self/maps")))
+                Assert.assertFalse(mapped(path));
+        } finally {
+            Files.delete(path);
+        }
+    }
+
+    @Test
+    public void malformedInput() throws IOException {
+        Path path = Files.createTempFile("lines", ".txt");
+        try {
+            Files.write(path, new byte[]{'o', 'k', '\n', (byte) 0xc3, '\n'});
+            for (Charset cs : new Charset[]{StandardCharsets.UTF_8, StandardCharsets.US_ASCII}) {
+                try (Stream<String> lines = Files.lines(path, cs)) {
+                    lines.count();
+                    Assert.fail();
+                } catch (UncheckedIOException expected) {
+                }
+            }
+        } finally {
+            Files.delete(path);
+        }
+    }
+}
@@ -0,0 +1,136 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CpuTopology;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.RecursiveTask;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.LongStream;
+
+/**
+ * 按 CPU 拓扑 (NUMA 节点) 分组的 ForkJoinPool: 工作线程均匀放到各节点,
+ * 节点 i 占用下标 k 满足 (k >>> 1) % 节点数 == i 的共享队列和工作队列, 找任务时先偷本节点的队列,
+ * 偷别的节点的次数由 getRemoteStealCount 统计. 线程绑核由工厂返回的线程在 onStart 里按 getNode() 自己做.
+ *
+ * @date 2026/10/19 03:20
+ */
+public class ForkJoinTopologyTest {
+
+    @Test
+    public void cpuLists() {
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3, 8, 10, 11}, CpuTopology.parseCpuList("0-3,8,10-11\n"));
+        Assert.assertArrayEquals(new int[0], CpuTopology.parseCpuList(""));
+        Assert.assertNull(CpuTopology.parseCpuList("3-1"));
+        Assert.assertNull(CpuTopology.parseCpuList("a"));
+
+        CpuTopology topology = CpuTopology.of(new int[]{3, 2, 1, 0}, new int[]{4, 5, 6, 7, 9});
+        Assert.assertEquals(2, topology.getNodeCount());
+        Assert.assertEquals(9, topology.getCpuCount());
+        Assert.assertArrayEquals(new int[]{0, 1, 2, 3}, topology.getCpus(0));
+        Assert.assertEquals(1, topology.getNode(9));
+        Assert.assertEquals(-1, topology.getNode(8));
+        Assert.assertEquals("CpuTopology[node0=0-3, node1=4-7,9]", topology.toString());
+        try {
+            CpuTopology.of(new int[]{0, 1}, new int[]{1});
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+
+        // 本机的拓扑至少有一个节点, 每个 CPU 只属于一个节点
+        CpuTopology system = CpuTopology.system();
+        Assert.assertTrue(system.getNodeCount() >= 1);
+        Assert.assertEquals(system.getCpus(0)[0], system.getCpus(system.getNode(system.getCpus(0)[0]))[0]);
+    }
+
+    static final class Sum extends RecursiveTask<Long> {
+        final long lo, hi;
+        final Set<Integer> nodes;
+
+        Sum(long lo, long hi, Set<Integer> nodes) {
+            this.lo = lo;
+            this.hi = hi;
+            this.nodes = nodes;
+        }
+
+        @Override
+        protected Long compute() {
+            Thread t = Thread.currentThread();
+            if (t instanceof ForkJoinWorkerThread)
+                nodes.add(((ForkJoinWorkerThread) t).getNode());
+            if (hi - lo <= 1000) {
+                long s = 0;
+                for (long i = lo; i < hi; i++)
+                    s += i;
+                return s;
+            }
+            long mid = (lo + hi) >>> 1;
+            Sum left = new Sum(lo, mid, nodes);
+            left.fork();
+            return new Sum(mid, hi, nodes).compute() + left.join();
+        }
+    }
+
+    @Test
+    public void workersSpreadOverNodes() throws Exception {
+        CpuTopology topology = CpuTopology.of(new int[]{0, 1}, new int[]{2, 3}, new int[]{4, 5});
+        ForkJoinPool pool = new ForkJoinPool(6, ForkJoinPool.defaultForkJoinWorkerThreadFactory,
+                null, false, topology);
+        try {
+            Assert.assertSame(topology, pool.getTopology());
+            Set<Integer> nodes = ConcurrentHashMap.newKeySet();
+            for (int round = 0; round < 20; round++)
+                Assert.assertEquals(LongStream.range(0, 1_000_000).sum(),
+                        (long) pool.invoke(new Sum(0, 1_000_000, nodes)));
+            Assert.assertFalse(nodes.isEmpty());
+            // 并行流在池里运行时也用池的工作线程
+            Assert.assertEquals(499_999_500_000L,
+                    (long) pool.submit(() -> LongStream.range(0, 1_000_000).parallel().sum()).get());
+            Assert.assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+            long steals = pool.getStealCount();
+            Assert.assertTrue(steals > 0);
+            Assert.assertTrue(pool.getRemoteStealCount() <= steals);
+            Assert.assertEquals(steals - pool.getRemoteStealCount(), pool.getLocalStealCount());
+            // 六个线程三个节点, 每个节点两个; 工作线程的下标对应它所在的节点
+            int[] perNode = new int[3];
+            Set<ForkJoinWorkerThread> threads = ConcurrentHashMap.newKeySet();
+            for (int i = 0; i < 200; i++)
+                pool.submit(() -> {
+                    // awaitQuiescence 的调用者也会帮着执行
+                    if (Thread.currentThread() instanceof ForkJoinWorkerThread)
+                        threads.add((ForkJoinWorkerThread) Thread.currentThread());
+                    try {
+                        Thread.sleep(1);
+                    } catch (InterruptedException e) {
+                        throw new AssertionError(e);
+                    }
+                });
+            Assert.assertTrue(pool.awaitQuiescence(10, TimeUnit.SECONDS));
+            for (ForkJoinWorkerThread w : threads) {
+                Assert.assertEquals(w.getPoolIndex() % 3, w.getNode());
+                perNode[w.getNode()]++;
+            }
+            Assert.assertEquals(threads.size(), Arrays.stream(perNode).sum());
+            for (int n : perNode)
+                Assert.assertTrue(n <= 2);
+        } finally {
+            pool.shutdown();
+        }
+
+        // 没有拓扑的池不统计远程偷取
+        ForkJoinPool plain = new ForkJoinPool(2);
+        try {
+            plain.invoke(new Sum(0, 100_000, ConcurrentHashMap.newKeySet()));
+            Assert.assertNull(plain.getTopology());
+            Assert.assertEquals(0, plain.getRemoteStealCount());
+            Assert.assertEquals(plain.getStealCount(), plain.getLocalStealCount());
+        } finally {
+            plain.shutdown();
+        }
+    }
+}
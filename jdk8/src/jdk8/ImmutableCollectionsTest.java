@@ -0,0 +1,149 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Collections.listOf / setOf / mapOf: 和 HashMap + unmodifiableMap 比较对象图大小和 get() 耗时.
+ * java.util 下新增的类需要用本仓库的源码编译后 -Xbootclasspath/p 加载.
+ *
+ * @date 2026/10/18 16:30
+ */
+public class ImmutableCollectionsTest {
+
+    @Test
+    public void behavesLikeHashMap() {
+        for (int n = 0; n <= 20; n++) {
+            Map<String, Integer> expected = new HashMap<>();
+            for (int i = 0; i < n; i++)
+                expected.put("key" + i, i);
+            Map<String, Integer> map = Collections.mapCopyOf(expected);
+            Assert.assertEquals(expected, map);
+            Assert.assertEquals(map, expected);
+            Assert.assertEquals(expected.hashCode(), map.hashCode());
+            Assert.assertEquals(expected.keySet(), map.keySet());
+            Assert.assertNull(map.get("missing"));
+            Assert.assertEquals(-1, (int) map.getOrDefault("missing", -1));
+
+            Set<String> set = Collections.setCopyOf(expected.keySet());
+            Assert.assertEquals(expected.keySet(), set);
+            Assert.assertEquals(expected.keySet().hashCode(), set.hashCode());
+            Assert.assertEquals(n, new HashSet<>(set).size());
+        }
+        List<String> list = Collections.listOf("a", "b", "c");
+        Assert.assertEquals(java.util.Arrays.asList("a", "b", "c"), list);
+        Assert.assertEquals(java.util.Arrays.asList("b"), list.subList(1, 2));
+        Assert.assertEquals(2, list.lastIndexOf("c"));
+    }
+
+    @Test
+    public void nullHostileAndImmutable() {
+        Map<String, String> map = Collections.mapOf("a", "1", "b", "2");
+        expect(NullPointerException.class, () -> map.get(null));
+        expect(NullPointerException.class, () -> map.containsKey(null));
+        expect(NullPointerException.class, () -> Collections.mapOf("a", null));
+        expect(NullPointerException.class, () -> Collections.listOf("a", null, "c"));
+        expect(IllegalArgumentException.class, () -> Collections.mapOf("a", "1", "a", "2"));
+        expect(IllegalArgumentException.class, () -> Collections.setOf("x", "y", "x"));
+        expect(UnsupportedOperationException.class, () -> map.put("c", "3"));
+        expect(UnsupportedOperationException.class, () -> map.remove("zzz"));
+        expect(UnsupportedOperationException.class, () -> Collections.listOf("a").add("b"));
+        expect(UnsupportedOperationException.class, () -> Collections.setOf().clear());
+    }
+
+    @Test
+    public void serializationRoundTrip() throws Exception {
+        Object[] values = {
+                Collections.listOf(), Collections.listOf(1), Collections.listOf(1, 2, 3),
+                Collections.setOf("x"), Collections.setOf("x", "y", "z"),
+                Collections.mapOf(), Collections.mapOf(1, "a"), Collections.mapOf(1, "a", 2, "b"),
+                Collections.mapOf(1, "a", 2, "b", 3, "c")
+        };
+        for (Object value : values) {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+                out.writeObject(value);
+            }
+            try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+                Object copy = in.readObject();
+                Assert.assertEquals(value, copy);
+                Assert.assertEquals(value.getClass(), copy.getClass());
+            }
+        }
+    }
+
+    @Test
+    public void footprint() {
+        // 典型的小配置 map: 1, 2, 8 个 entry
+        for (int n : new int[]{1, 2, 8}) {
+            Map<String, String> source = new HashMap<>();
+            for (int i = 0; i < n; i++)
+                source.put(("k" + i).intern(), ("v" + i).intern());
+            Map<String, String> wrapped = Collections.unmodifiableMap(new HashMap<>(source));
+            Map<String, String> compact = Collections.mapCopyOf(source);
+            // 只统计集合本身, 减掉共享的 key/value 字符串
+            GraphLayout contents = GraphLayout.parseInstance(source.keySet().toArray(), source.values().toArray());
+            long wrappedSize = GraphLayout.parseInstance(wrapped).subtract(contents).totalSize();
+            long compactSize = GraphLayout.parseInstance(compact).subtract(contents).totalSize();
+            System.out.println(n + " entries: unmodifiableMap(HashMap) " + wrappedSize
+                    + " bytes, mapCopyOf " + compactSize + " bytes");
+            Assert.assertTrue(compactSize * 2 < wrappedSize);
+        }
+    }
+
+    /**
+     * 粗略的 get() 耗时对比, 精确数字用 benchmarks 模块的 JMH 跑.
+     */
+    public static void main(String[] args) {
+        for (int n : new int[]{1, 2, 8, 64}) {
+            Map<String, Integer> source = new HashMap<>();
+            String[] keys = new String[n];
+            for (int i = 0; i < n; i++) {
+                keys[i] = "key" + i;
+                source.put(keys[i], i);
+            }
+            Map<String, Integer> hashMap = new HashMap<>(source);
+            Map<String, Integer> wrapped = Collections.unmodifiableMap(new HashMap<>(source));
+            Map<String, Integer> compact = Collections.mapCopyOf(source);
+            for (int round = 0; round < 5; round++) {
+                System.out.printf("n=%-3d HashMap %5.2f ns  unmodifiableMap %5.2f ns  mapCopyOf %5.2f ns%n", n,
+                        timeGets(hashMap, keys), timeGets(wrapped, keys), timeGets(compact, keys));
+            }
+        }
+    }
+
+    private static double timeGets(Map<String, Integer> map, String[] keys) {
+        int ops = 20_000_000;
+        long sum = 0;
+        long start = System.nanoTime();
+        for (int i = 0; i < ops; i++)
+            sum += map.get(keys[i % keys.length]);
+        long elapsed = System.nanoTime() - start;
+        if (sum == 42)
+            System.out.println();
+        return (double) elapsed / ops;
+    }
+
+    private static void expect(Class<? extends Throwable> type, Runnable action) {
+        try {
+            action.run();
+        } catch (Throwable e) {
+            if (type.isInstance(e))
+                return;
+            throw new AssertionError("expected " + type.getSimpleName() + " but got " + e, e);
+        }
+        Assert.fail("expected " + type.getSimpleName());
+    }
+}
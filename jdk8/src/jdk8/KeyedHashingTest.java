@@ -0,0 +1,118 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+import sun.misc.Hashing;
+
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * String key 的带种子哈希: "Aa" 和 "BB" 的 hashCode 相同, 拼接出来的 2^n 个字符串全部碰撞,
+ * 打开 -Djdk.map.keyedHashing=true 后每个 map 有自己的随机种子, 这些 key 不再落在同一个桶里.
+ * 测试 JVM 没有开这个属性, 这里用反射给单个 map 设置种子.
+ *
+ * @date 2026/10/18 20:30
+ */
+public class KeyedHashingTest {
+
+    private static List<String> collidingKeys(int bits) {
+        List<String> keys = new ArrayList<>();
+        keys.add("");
+        for (int b = 0; b < bits; b++) {
+            List<String> next = new ArrayList<>(keys.size() * 2);
+            for (String s : keys) {
+                next.add(s + "Aa");
+                next.add(s + "BB");
+            }
+            keys = next;
+        }
+        return keys;
+    }
+
+    private static void setSeed(Object map, Class<?> type, int seed) throws Exception {
+        Field f = type.getDeclaredField("hashSeed");
+        f.setAccessible(true);
+        f.setInt(map, seed);
+    }
+
+    /** 统计 table 里树化的桶数 */
+    private static int treeBins(Object map, Class<?> type) throws Exception {
+        Field f = type.getDeclaredField("table");
+        f.setAccessible(true);
+        int n = 0;
+        for (Object bin : (Object[]) f.get(map)) {
+            if (bin != null && bin.getClass().getSimpleName().startsWith("Tree"))
+                n++;
+        }
+        return n;
+    }
+
+    @Test
+    public void keyedHashSeparatesCollidingStrings() {
+        List<String> keys = collidingKeys(10);
+        Assert.assertEquals(1, keys.stream().mapToInt(String::hashCode).distinct().count());
+        int seed = Hashing.randomHashSeed();
+        Set<Integer> hashes = new HashSet<>();
+        for (String k : keys)
+            hashes.add(Hashing.stringHash32(k, seed));
+        // 1024 个 32 位哈希, 几乎不可能有重复
+        Assert.assertTrue(hashes.size() >= keys.size() - 1);
+        Assert.assertEquals(Hashing.stringHash32("Aa", seed), Hashing.stringHash32(new String("Aa"), seed));
+        Assert.assertNotEquals(Hashing.stringHash32("AaBB", seed), Hashing.stringHash32("AaBB", seed + 1));
+        // 长度不同但内容前缀相同的 (包括尾部不足 4 个 char 的部分) 也要区分
+        Set<Integer> prefixes = new HashSet<>();
+        String s = "";
+        for (int i = 0; i < 12; i++, s += "\0")
+            prefixes.add(Hashing.stringHash32(s, seed));
+        Assert.assertEquals(12, prefixes.size());
+    }
+
+    @Test
+    public void hashMapWithSeedAvoidsTreeBins() throws Exception {
+        List<String> keys = collidingKeys(12);
+        HashMap<String, Integer> plain = new HashMap<>();
+        LinkedHashMap<String, Integer> keyed = new LinkedHashMap<>();
+        setSeed(keyed, HashMap.class, Hashing.randomHashSeed());
+        for (int i = 0; i < keys.size(); i++) {
+            plain.put(keys.get(i), i);
+            keyed.put(keys.get(i), i);
+        }
+        keyed.put(null, -1);
+        keyed.put("plain", -2);
+        Assert.assertEquals(1, treeBins(plain, HashMap.class));
+        Assert.assertEquals(0, treeBins(keyed, HashMap.class));
+        for (int i = 0; i < keys.size(); i++)
+            Assert.assertEquals(Integer.valueOf(i), keyed.get(keys.get(i)));
+        Assert.assertEquals(Integer.valueOf(-1), keyed.get(null));
+        // LinkedHashMap 的插入顺序不受影响
+        Assert.assertEquals(keys.get(0), keyed.keySet().iterator().next());
+        keyed.keySet().removeAll(keys.subList(0, 100));
+        Assert.assertEquals(keys.size() - 100 + 2, keyed.size());
+        Map<String, Integer> copy = new HashMap<>(keyed);
+        Assert.assertEquals(copy, keyed);
+    }
+
+    @Test
+    public void concurrentHashMapWithSeed() throws Exception {
+        List<String> keys = collidingKeys(12);
+        ConcurrentHashMap<String, Integer> keyed = new ConcurrentHashMap<>();
+        setSeed(keyed, ConcurrentHashMap.class, Hashing.randomHashSeed());
+        keys.parallelStream().forEach(k -> keyed.merge(k, 1, Integer::sum));
+        keys.parallelStream().forEach(k -> keyed.merge(k, 1, Integer::sum));
+        Assert.assertEquals(0, treeBins(keyed, ConcurrentHashMap.class));
+        Assert.assertEquals(keys.size(), keyed.size());
+        for (String k : keys)
+            Assert.assertEquals(Integer.valueOf(2), keyed.get(k));
+        Assert.assertNull(keyed.get("AaAa-"));
+        Assert.assertEquals(Integer.valueOf(2), keyed.remove(keys.get(7)));
+        Assert.assertFalse(keyed.containsKey(keys.get(7)));
+    }
+}
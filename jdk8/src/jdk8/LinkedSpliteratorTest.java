@@ -0,0 +1,79 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.ConcurrentModificationException;
+import java.util.LinkedHashMap;
+import java.util.LinkedHashSet;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Spliterator;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+
+/**
+ * LinkedHashMap 的视图和 LinkedList 的 spliterator: 按倍增的批次把前缀拷到数组里切分,
+ * 剩下的部分大小也是精确的, 所以并行流保持顺序并且各段大小均衡.
+ *
+ * @date 2026/10/18 21:20
+ */
+public class LinkedSpliteratorTest {
+
+    private static final int N = 100_000;
+
+    private static LinkedHashMap<Integer, String> map() {
+        LinkedHashMap<Integer, String> map = new LinkedHashMap<>();
+        // 插入顺序和 hash 顺序不同
+        for (int i = N; i > 0; i--)
+            map.put(i * 31, "v" + i);
+        return map;
+    }
+
+    @Test
+    public void parallelStreamsKeepInsertionOrder() {
+        LinkedHashMap<Integer, String> map = map();
+        List<Integer> keys = new ArrayList<>(map.keySet());
+        Assert.assertEquals(keys, map.keySet().parallelStream().collect(Collectors.toList()));
+        Assert.assertEquals(new ArrayList<>(map.values()),
+                map.values().parallelStream().collect(Collectors.toList()));
+        Assert.assertEquals(keys, map.entrySet().parallelStream().map(Map.Entry::getKey).collect(Collectors.toList()));
+        LinkedHashSet<Integer> set = new LinkedHashSet<>(keys);
+        Assert.assertEquals(keys, set.parallelStream().collect(Collectors.toList()));
+        LinkedList<Integer> list = new LinkedList<>(keys);
+        Assert.assertEquals(keys, list.parallelStream().map(k -> k).collect(Collectors.toList()));
+        Assert.assertEquals(keys.stream().mapToLong(k -> k).sum(),
+                list.parallelStream().mapToLong(k -> k).sum());
+    }
+
+    @Test
+    public void splitsGrowGeometricallyAndStaySized() {
+        LinkedList<Integer> list = IntStream.range(0, N).boxed().collect(Collectors.toCollection(LinkedList::new));
+        for (Spliterator<?> s : new Spliterator<?>[]{list.spliterator(), map().keySet().spliterator()}) {
+            Assert.assertTrue(s.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED | Spliterator.ORDERED));
+            long remaining = N;
+            List<Long> batches = new ArrayList<>();
+            Spliterator<?> prefix;
+            while ((prefix = s.trySplit()) != null) {
+                Assert.assertTrue(prefix.hasCharacteristics(Spliterator.SIZED | Spliterator.SUBSIZED));
+                batches.add(prefix.getExactSizeIfKnown());
+                remaining -= prefix.getExactSizeIfKnown();
+                Assert.assertEquals(remaining, s.getExactSizeIfKnown());
+            }
+            // 1024, 2048, ... 直到不超过剩余的一半, 小于 2048 时整个拷走
+            Assert.assertEquals(Long.valueOf(1024), batches.get(0));
+            Assert.assertEquals(Long.valueOf(2048), batches.get(1));
+            Assert.assertEquals(0, remaining);
+            Assert.assertTrue(batches.size() < 20);
+        }
+    }
+
+    @Test(expected = ConcurrentModificationException.class)
+    public void failFast() {
+        LinkedHashMap<Integer, String> map = map();
+        Spliterator<Integer> s = map.keySet().spliterator();
+        s.tryAdvance(k -> map.remove(k));
+    }
+}
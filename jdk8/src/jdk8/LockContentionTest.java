@@ -0,0 +1,172 @@
+package jdk8;
+
+import org.junit.After;
+import org.junit.Assert;
+import org.junit.Before;
+import org.junit.Test;
+
+import javax.management.JMX;
+import javax.management.ObjectName;
+import java.lang.management.LockContentionInfo;
+import java.lang.management.LockContentionMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ContentionProfiler;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * AQS 竞争统计: 打开 ContentionProfiler 之后, 排队获取的次数 / 等待时间 (总和, 最大值, 2 的幂微秒直方图) /
+ * 失败次数 / 排队线程数高水位 / 独占持有时间按锁的名字记录, 通过平台 MXBean 查询.
+ * 关闭时 AQS 只多一次静态字段判断.
+ *
+ * @date 2026/10/19 01:40
+ */
+public class LockContentionTest {
+
+    @Before
+    public void enable() {
+        ContentionProfiler.setEnabled(true);
+    }
+
+    @After
+    public void disable() {
+        ContentionProfiler.setEnabled(false);
+    }
+
+    private static List<Thread> startWaiters(int n, Runnable r) {
+        List<Thread> threads = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            Thread t = new Thread(r);
+            t.start();
+            threads.add(t);
+        }
+        return threads;
+    }
+
+    @Test
+    public void contendedReentrantLock() throws Exception {
+        ReentrantLock lock = ContentionProfiler.name(new ReentrantLock(), "test.reentrant");
+        lock.lock();
+        List<Thread> waiters = startWaiters(3, () -> {
+            lock.lock();
+            lock.unlock();
+        });
+        while (lock.getQueueLength() < 3)
+            Thread.sleep(1);
+        Thread.sleep(20);
+        lock.unlock();
+        for (Thread t : waiters)
+            t.join();
+        // 持有着锁时 tryLock 超时算一次失败
+        lock.lock();
+        Thread timedOut = new Thread(() -> {
+            try {
+                Assert.assertFalse(lock.tryLock(5, TimeUnit.MILLISECONDS));
+            } catch (InterruptedException e) {
+                throw new AssertionError(e);
+            }
+        });
+        timedOut.start();
+        timedOut.join();
+        lock.unlock();
+
+        LockContentionInfo info = ContentionProfiler.getLockContentionInfo("test.reentrant");
+        Assert.assertEquals(1, info.getLockCount());
+        Assert.assertEquals(3, info.getContendedCount());
+        Assert.assertEquals(1, info.getFailedCount());
+        Assert.assertEquals(0, info.getQueueLength());
+        Assert.assertEquals(3, info.getMaxQueueLength());
+        Assert.assertTrue(info.getMaxWaitTime() >= TimeUnit.MILLISECONDS.toNanos(20));
+        Assert.assertTrue(info.getTotalWaitTime() >= info.getMaxWaitTime());
+        Assert.assertEquals(3, Arrays.stream(info.getWaitTimeHistogram()).sum());
+        // 主线程两次加锁 + 3 个等待者; 第一次加锁在命名之后所以也计时了
+        Assert.assertEquals(5, info.getHoldCount());
+        Assert.assertTrue(info.getMaxHoldTime() >= TimeUnit.MILLISECONDS.toNanos(20));
+
+        ContentionProfiler.reset();
+        Assert.assertEquals(0, ContentionProfiler.getLockContentionInfo("test.reentrant").getContendedCount());
+    }
+
+    @Test
+    public void sharedModeAndCombinedNames() throws Exception {
+        // 信号量和读写锁都是通过字段里的 AQS 找到的, 同名的锁合并统计
+        Semaphore a = ContentionProfiler.name(new Semaphore(0), "test.permits");
+        Semaphore b = ContentionProfiler.name(new Semaphore(0), "test.permits");
+        List<Thread> waiters = startWaiters(2, () -> a.acquireUninterruptibly());
+        waiters.addAll(startWaiters(1, () -> b.acquireUninterruptibly()));
+        while (a.getQueueLength() < 2 || b.getQueueLength() < 1)
+            Thread.sleep(1);
+        a.release(2);
+        b.release();
+        for (Thread t : waiters)
+            t.join();
+        LockContentionInfo info = ContentionProfiler.getLockContentionInfo("test.permits");
+        Assert.assertEquals(2, info.getLockCount());
+        Assert.assertEquals(3, info.getContendedCount());
+        Assert.assertEquals(2, info.getMaxQueueLength());
+        Assert.assertEquals(0, info.getHoldCount());
+
+        ReentrantReadWriteLock rw = new ReentrantReadWriteLock();
+        ContentionProfiler.name(rw.readLock(), "test.rw");
+        rw.writeLock().lock();
+        Thread reader = startWaiters(1, () -> {
+            rw.readLock().lock();
+            rw.readLock().unlock();
+        }).get(0);
+        while (!rw.hasQueuedThreads())
+            Thread.sleep(1);
+        rw.writeLock().unlock();
+        reader.join();
+        info = ContentionProfiler.getLockContentionInfo("test.rw");
+        Assert.assertEquals(1, info.getContendedCount());
+        Assert.assertEquals(1, info.getHoldCount());
+        Assert.assertTrue(Arrays.asList(ContentionProfiler.getLockNames()).containsAll(
+                Arrays.asList("test.permits", "test.rw")));
+        Assert.assertNull(ContentionProfiler.getLockContentionInfo("test.absent"));
+    }
+
+    @Test
+    public void platformMXBean() throws Exception {
+        LockContentionMXBean bean = ManagementFactory.getPlatformMXBean(LockContentionMXBean.class);
+        Assert.assertTrue(bean.isContentionProfilingEnabled());
+        ReentrantLock lock = ContentionProfiler.name(new ReentrantLock(), "test.jmx");
+        lock.lock();
+        Thread waiter = startWaiters(1, () -> {
+            lock.lock();
+            lock.unlock();
+        }).get(0);
+        while (!lock.hasQueuedThreads())
+            Thread.sleep(1);
+        lock.unlock();
+        waiter.join();
+
+        // 通过平台 MBeanServer 的代理查询, LockContentionInfo 经 CompositeData 往返
+        ObjectName name = new ObjectName(LockContentionMXBean.OBJECT_NAME);
+        LockContentionMXBean proxy = JMX.newMXBeanProxy(
+                ManagementFactory.getPlatformMBeanServer(), name, LockContentionMXBean.class);
+        LockContentionInfo info = proxy.getLockContentionInfo("test.jmx");
+        Assert.assertEquals("test.jmx", info.getName());
+        Assert.assertEquals(1, info.getContendedCount());
+        Assert.assertEquals(32, info.getWaitTimeHistogram().length);
+        Assert.assertTrue(Arrays.asList(proxy.getLockNames()).contains("test.jmx"));
+
+        // 关闭之后不再记录
+        proxy.setContentionProfilingEnabled(false);
+        Assert.assertFalse(ContentionProfiler.isEnabled());
+        lock.lock();
+        waiter = startWaiters(1, () -> {
+            lock.lock();
+            lock.unlock();
+        }).get(0);
+        while (!lock.hasQueuedThreads())
+            Thread.sleep(1);
+        lock.unlock();
+        waiter.join();
+        Assert.assertEquals(1, proxy.getLockContentionInfo("test.jmx").getContendedCount());
+    }
+}
@@ -0,0 +1,120 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.lang.management.BufferPoolMXBean;
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.OffHeapConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 堆外 map: 多线程读写 + 扩容时和 ConcurrentHashMap 的结果一致, 并且占用能在 direct 缓冲池里看到.
+ *
+ * @date 2026/10/18 14:05
+ */
+public class OffHeapConcurrentHashMapTest {
+
+    @Test
+    public void singleThreadMatchesHashMap() {
+        try (OffHeapConcurrentHashMap<Long, String> map = new OffHeapConcurrentHashMap<>(
+                OffHeapConcurrentHashMap.longCodec(), OffHeapConcurrentHashMap.utf8Codec())) {
+            Map<Long, String> expected = new HashMap<>();
+            for (long i = 0; i < 20_000; i++) {
+                String v = "value-" + i;
+                Assert.assertNull(map.put(i, v));
+                expected.put(i, v);
+            }
+            for (long i = 0; i < 20_000; i += 3) {
+                Assert.assertEquals(expected.remove(i), map.remove(i));
+            }
+            for (long i = 1; i < 20_000; i += 3) {
+                String v = "replaced-" + i;
+                Assert.assertEquals(expected.put(i, v), map.put(i, v));
+            }
+            Assert.assertFalse(map.replace(2L, "nope", "x"));
+            Assert.assertTrue(map.replace(2L, "value-2", "yes"));
+            expected.put(2L, "yes");
+            Assert.assertEquals(expected.size(), map.size());
+            Assert.assertEquals(expected, new HashMap<>(map));
+            map.clear();
+            Assert.assertTrue(map.isEmpty());
+            Assert.assertNull(map.get(2L));
+        }
+    }
+
+    @Test
+    public void concurrentUpdatesDuringResize() throws Exception {
+        int threads = 8, keys = 4096, ops = 100_000;
+        OffHeapConcurrentHashMap<Integer, Long> map = new OffHeapConcurrentHashMap<>(
+                OffHeapConcurrentHashMap.intCodec(), OffHeapConcurrentHashMap.longCodec());
+        // 每个线程只写自己的 key 段, 结束后和各自的期望值比较
+        ConcurrentHashMap<Integer, Long> expected = new ConcurrentHashMap<>();
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            new Thread(() -> {
+                try {
+                    ThreadLocalRandom random = ThreadLocalRandom.current();
+                    for (int i = 0; i < ops; i++) {
+                        int key = id * keys + random.nextInt(keys);
+                        long value = random.nextLong();
+                        if (random.nextInt(4) == 0) {
+                            Assert.assertEquals(expected.remove(key), map.remove(key));
+                        } else {
+                            expected.put(key, value);
+                            map.put(key, value);
+                        }
+                        // 读其他线程的 key 只要求不抛异常, 值要么不存在要么是 long
+                        map.get(random.nextInt(threads * keys));
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        Assert.assertEquals(expected.size(), map.size());
+        Assert.assertEquals(expected, new HashMap<>(map));
+        map.close();
+    }
+
+    @Test
+    public void offHeapUsageIsVisibleInDirectPool() {
+        BufferPoolMXBean direct = null;
+        for (BufferPoolMXBean pool : ManagementFactory.getPlatformMXBeans(BufferPoolMXBean.class)) {
+            if ("direct".equals(pool.getName()))
+                direct = pool;
+        }
+        Assert.assertNotNull(direct);
+        long before = direct.getMemoryUsed();
+        OffHeapConcurrentHashMap<Long, Long> map = new OffHeapConcurrentHashMap<>(
+                OffHeapConcurrentHashMap.longCodec(), OffHeapConcurrentHashMap.longCodec(),
+                16, 1 << 16, 1 << 20);
+        for (long i = 0; i < 10_000; i++)
+            map.put(i, i);
+        Assert.assertTrue(map.offHeapBytes() > 0);
+        Assert.assertEquals(before + map.offHeapBytes(), direct.getMemoryUsed());
+        map.close();
+        Assert.assertEquals(before, direct.getMemoryUsed());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void boundedSlabsRejectOverflow() {
+        OffHeapConcurrentHashMap<Long, String> map = new OffHeapConcurrentHashMap<>(
+                OffHeapConcurrentHashMap.longCodec(), OffHeapConcurrentHashMap.utf8Codec(),
+                16, 1 << 12, 1 << 14);
+        for (long i = 0; ; i++)
+            map.put(i, "0123456789");
+    }
+}
@@ -0,0 +1,131 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.ConcurrentModificationException;
+import java.util.DoubleArrayList;
+import java.util.IntArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.LongArrayList;
+import java.util.Random;
+
+/**
+ * 原始类型的 ArrayList: 元素直接存在 int[] / long[] / double[] 里, 用 JOL 对比 ArrayList<Integer> 的大小,
+ * 再检查 stream、排序和 List 视图的行为和 ArrayList 一致.
+ *
+ * @date 2026/10/18 22:10
+ */
+public class PrimitiveArrayListTest {
+
+    private static final int N = 100_000;
+
+    @Test
+    public void footprint() {
+        ArrayList<Integer> boxed = new ArrayList<>();
+        IntArrayList ints = new IntArrayList();
+        ArrayList<Double> boxedDoubles = new ArrayList<>();
+        DoubleArrayList doubles = new DoubleArrayList();
+        for (int i = 0; i < N; i++) {
+            // 超出 Integer 缓存的范围, 每个元素一个 Integer 对象
+            boxed.add(i + 1000);
+            ints.add(i + 1000);
+            boxedDoubles.add(i * 0.5);
+            doubles.add(i * 0.5);
+        }
+        long intBoxed = GraphLayout.parseInstance(boxed).totalSize();
+        long intPrimitive = GraphLayout.parseInstance(ints).totalSize();
+        long doubleBoxed = GraphLayout.parseInstance(boxedDoubles).totalSize();
+        long doublePrimitive = GraphLayout.parseInstance(doubles).totalSize();
+        System.out.println("ArrayList<Integer>: " + intBoxed + " bytes, IntArrayList: " + intPrimitive + " bytes");
+        System.out.println("ArrayList<Double>: " + doubleBoxed + " bytes, DoubleArrayList: " + doublePrimitive + " bytes");
+        // 每个元素: ArrayList 有引用(4) + Integer(16), IntArrayList 只有 4 字节
+        Assert.assertTrue(intPrimitive * 4 < intBoxed);
+        // 引用(4) + Double(16) 对 8 字节
+        Assert.assertTrue(doublePrimitive * 2 < doubleBoxed);
+    }
+
+    @Test
+    public void bulkAddSortAndStream() {
+        Random random = new Random(7);
+        long[] a = random.longs(N).toArray();
+        LongArrayList list = new LongArrayList(0);
+        list.addAll(a, 0, N / 2);
+        list.addAll(a, N / 2, N - N / 2);
+        Assert.assertEquals(N, list.size());
+        Assert.assertArrayEquals(a, list.toArray());
+        Assert.assertEquals(Arrays.stream(a).sum(), list.stream().sum());
+        Assert.assertEquals(Arrays.stream(a).sum(), list.parallelStream().sum());
+
+        list.sort();
+        Arrays.sort(a);
+        Assert.assertArrayEquals(a, list.toArray());
+        Assert.assertEquals(N / 3, list.binarySearch(a[N / 3]));
+
+        IntArrayList ints = new IntArrayList(new int[]{5, 1, 4, 1, 3});
+        ints.add(0, 9);
+        ints.removeIf(x -> x == 1);
+        ints.replaceAll(x -> x * 10);
+        Assert.assertEquals("[90, 50, 40, 30]", ints.toString());
+        Assert.assertArrayEquals(new int[]{90, 50, 40, 30}, ints.stream().toArray());
+
+        DoubleArrayList doubles = new DoubleArrayList(new double[]{Double.NaN, 0.0, -0.0, 1.5});
+        doubles.sort();
+        Assert.assertEquals("[-0.0, 0.0, 1.5, NaN]", doubles.toString());
+        Assert.assertEquals(3, doubles.indexOf(Double.NaN));
+        Assert.assertEquals(0, doubles.indexOf(-0.0));
+    }
+
+    @Test
+    public void listViewBehavesLikeArrayList() throws Exception {
+        IntArrayList list = new IntArrayList();
+        List<Integer> view = list.asList();
+        List<Integer> expected = new ArrayList<>();
+        Random random = new Random(11);
+        for (int i = 0; i < 1000; i++) {
+            int v = random.nextInt(100);
+            view.add(v);
+            expected.add(v);
+        }
+        view.removeAll(Arrays.asList(3, 5, 7));
+        expected.removeAll(Arrays.asList(3, 5, 7));
+        view.subList(10, 20).clear();
+        expected.subList(10, 20).clear();
+        Assert.assertEquals(expected, view);
+        Assert.assertEquals(expected.hashCode(), view.hashCode());
+        Assert.assertEquals(expected.hashCode(), list.hashCode());
+        Assert.assertEquals(expected.indexOf(42), view.indexOf(42));
+        Assert.assertFalse(view.contains("42"));
+
+        view.sort(null);
+        expected.sort(null);
+        Assert.assertEquals(expected, view);
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        try (ObjectOutputStream out = new ObjectOutputStream(bytes)) {
+            out.writeObject(list);
+        }
+        try (ObjectInputStream in = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray()))) {
+            Assert.assertEquals(list, in.readObject());
+        }
+        Assert.assertEquals(list, list.clone());
+
+        Iterator<Integer> it = view.iterator();
+        it.next();
+        list.add(1);
+        try {
+            it.next();
+            Assert.fail();
+        } catch (ConcurrentModificationException expectedException) {
+            // 直接修改原始列表, 视图的迭代器也能发现
+        }
+    }
+}
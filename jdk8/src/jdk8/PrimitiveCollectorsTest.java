@@ -0,0 +1,128 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.IntHashMap;
+import java.util.IntIntHashMap;
+import java.util.List;
+import java.util.LongHashMap;
+import java.util.LongLongHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.function.BiConsumer;
+import java.util.function.BinaryOperator;
+import java.util.function.Function;
+import java.util.function.IntFunction;
+import java.util.function.Supplier;
+import java.util.stream.Collector;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+
+/**
+ * 不装箱的收集器: groupingByInt / groupingByLong 用 IntHashMap / LongHashMap 按原始类型的 key 分组,
+ * countingByInt / summingLongByLong 等把计数和求和直接存在 IntIntHashMap / LongLongHashMap 的值数组里,
+ * toIntArray / toLongArray / toDoubleArray 用 IntArrayList 这些原始类型的列表收集.
+ * Characteristics.PRESIZED 的收集器在流是 SIZED 的时候, 由 ReduceOps 按元素个数预先分配容器 (sizedSupplier).
+ *
+ * @date 2026/10/19 06:20
+ */
+public class PrimitiveCollectorsTest {
+
+    @Test
+    public void groupingByPrimitiveKeys() {
+        for (boolean parallel : new boolean[]{false, true}) {
+            IntStream s = IntStream.range(0, 10_000);
+            List<Integer> list = (parallel ? s.parallel() : s).boxed().collect(Collectors.toList());
+
+            Map<Integer, Long> expected = list.stream().collect(Collectors.groupingBy(i -> i % 7, Collectors.counting()));
+            IntHashMap<Long> counts = (parallel ? list.parallelStream() : list.stream())
+                    .collect(Collectors.groupingByInt(i -> i % 7, Collectors.counting()));
+            Assert.assertEquals(expected, counts.asMap());
+
+            IntIntHashMap intCounts = (parallel ? list.parallelStream() : list.stream()).collect(Collectors.countingByInt(i -> i % 7));
+            Assert.assertEquals(7, intCounts.size());
+            for (int k = 0; k < 7; k++)
+                Assert.assertEquals((long) expected.get(k), intCounts.get(k));
+
+            // 负数和 0 也是合法的 key
+            IntHashMap<List<Integer>> groups = (parallel ? list.parallelStream() : list.stream())
+                    .collect(Collectors.groupingByInt(i -> i % 3 - 1));
+            Assert.assertEquals(Arrays.asList(-1, 0, 1), groups.asMap().keySet().stream().sorted().collect(Collectors.toList()));
+            Assert.assertEquals(list.stream().filter(i -> i % 3 == 0).collect(Collectors.toList()), groups.get(-1));
+
+            LongHashMap<Double> averages = (parallel ? list.parallelStream() : list.stream())
+                    .collect(Collectors.groupingByLong(i -> i / 1000L, Collectors.averagingInt(i -> i)));
+            Assert.assertEquals(10, averages.size());
+            Assert.assertEquals(2499.5, averages.get(2L), 0.0);
+
+            LongLongHashMap sums = (parallel ? list.parallelStream() : list.stream())
+                    .collect(Collectors.summingLongByLong(i -> i & 1, i -> i));
+            Assert.assertEquals(24_995_000L, sums.get(0L));
+            Assert.assertEquals(25_000_000L, sums.get(1L));
+            Assert.assertEquals(5000L, ((parallel ? list.parallelStream() : list.stream())
+                    .collect(Collectors.countingByLong(i -> i & 1))).get(1L));
+            IntIntHashMap intSums = (parallel ? list.parallelStream() : list.stream())
+                    .collect(Collectors.summingIntByInt(i -> i % 2, i -> 1));
+            Assert.assertEquals(5000, intSums.get(0));
+        }
+    }
+
+    @Test
+    public void primitiveArrays() {
+        List<Integer> list = IntStream.range(0, 1000).boxed().collect(Collectors.toList());
+        int[] expected = IntStream.range(0, 1000).toArray();
+        Assert.assertArrayEquals(expected, list.stream().collect(Collectors.toIntArray(i -> i)));
+        Assert.assertArrayEquals(expected, list.parallelStream().collect(Collectors.toIntArray(i -> i)));
+        Assert.assertArrayEquals(LongStream.range(0, 500).toArray(),
+                list.parallelStream().filter(i -> i < 500).collect(Collectors.toLongArray(i -> i)));
+        Assert.assertArrayEquals(new double[]{0.5, 1.5},
+                list.stream().limit(2).collect(Collectors.toDoubleArray(i -> i + 0.5)), 0.0);
+        Assert.assertEquals(0, list.stream().filter(i -> i < 0).collect(Collectors.toIntArray(i -> i)).length);
+    }
+
+    @Test
+    public void presizedContainers() {
+        int[] sizes = new int[2];
+        Collector<Integer, ?, int[]> c = Collectors.toIntArray(i -> i);
+        Assert.assertTrue(c.characteristics().contains(Collector.Characteristics.PRESIZED));
+        Assert.assertTrue(Collectors.toList().characteristics().contains(Collector.Characteristics.PRESIZED));
+
+        // SIZED 的流用 sizedSupplier 创建容器, 不是 SIZED 的用 supplier
+        Collector<Integer, int[], int[]> probe = new Collector<Integer, int[], int[]>() {
+            public Supplier<int[]> supplier() {
+                return () -> { sizes[1]++; return new int[1]; };
+            }
+            public IntFunction<int[]> sizedSupplier() {
+                return n -> { sizes[0] = n; return new int[1]; };
+            }
+            public BiConsumer<int[], Integer> accumulator() {
+                return (a, i) -> a[0]++;
+            }
+            public BinaryOperator<int[]> combiner() {
+                return (a, b) -> { a[0] += b[0]; return a; };
+            }
+            public Function<int[], int[]> finisher() {
+                return a -> a;
+            }
+            public Set<Characteristics> characteristics() {
+                return EnumSet.of(Characteristics.PRESIZED, Characteristics.IDENTITY_FINISH);
+            }
+        };
+        List<Integer> list = IntStream.range(0, 123).boxed().collect(Collectors.toList());
+        Assert.assertEquals(123, list.stream().map(i -> i + 1).collect(probe)[0]);
+        Assert.assertEquals(123, sizes[0]);
+        Assert.assertEquals(0, sizes[1]);
+        Assert.assertEquals(61, list.stream().filter(i -> i % 2 == 1).collect(probe)[0]);
+        Assert.assertEquals(1, sizes[1]);
+
+        // 默认的 sizedSupplier 忽略大小, 调用 supplier
+        Collector<Integer, ?, List<Integer>> plain = Collector.of(ArrayList::new, List::add,
+                (a, b) -> { a.addAll(b); return a; });
+        Assert.assertTrue(plain.sizedSupplier().apply(10) instanceof ArrayList);
+    }
+}
@@ -0,0 +1,92 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+import org.openjdk.jol.info.GraphLayout;
+
+import java.util.HashMap;
+import java.util.IntHashMap;
+import java.util.IntIntHashMap;
+import java.util.LongHashMap;
+import java.util.LongLongHashMap;
+import java.util.Map;
+
+/**
+ * 用 JOL 统计整个对象图的大小, 对比原始类型 key 的开放寻址表和 HashMap.
+ * java.util 下新增的类需要用本仓库的源码编译后 -Xbootclasspath/p 加载.
+ *
+ * @date 2026/10/18 10:20
+ */
+public class PrimitiveHashMapTest {
+
+    private static final int N = 100_000;
+
+    @Test
+    public void intKeyFootprint() {
+        Object value = new Object();
+        HashMap<Integer, Object> hashMap = new HashMap<>();
+        IntHashMap<Object> intHashMap = new IntHashMap<>();
+        for (int i = 0; i < N; i++) {
+            hashMap.put(i * 7, value);
+            intHashMap.put(i * 7, value);
+        }
+        long boxed = GraphLayout.parseInstance(hashMap, value).totalSize();
+        long primitive = GraphLayout.parseInstance(intHashMap, value).totalSize();
+        System.out.println("HashMap<Integer,Object>: " + boxed + " bytes, IntHashMap: " + primitive + " bytes");
+        // 每个 entry: HashMap 有 Node(32) + Integer(16) + table 引用; IntHashMap 只有两个数组的槽位
+        Assert.assertTrue(primitive * 2 < boxed);
+    }
+
+    @Test
+    public void longKeyFootprint() {
+        Object value = new Object();
+        HashMap<Long, Object> hashMap = new HashMap<>();
+        LongHashMap<Object> longHashMap = new LongHashMap<>();
+        for (long i = 0; i < N; i++) {
+            hashMap.put(i << 20, value);
+            longHashMap.put(i << 20, value);
+        }
+        long boxed = GraphLayout.parseInstance(hashMap, value).totalSize();
+        long primitive = GraphLayout.parseInstance(longHashMap, value).totalSize();
+        System.out.println("HashMap<Long,Object>: " + boxed + " bytes, LongHashMap: " + primitive + " bytes");
+        Assert.assertTrue(primitive < boxed);
+    }
+
+    @Test
+    public void primitiveValueFootprint() {
+        HashMap<Integer, Integer> intMap = new HashMap<>();
+        IntIntHashMap intIntMap = new IntIntHashMap();
+        HashMap<Long, Long> longMap = new HashMap<>();
+        LongLongHashMap longLongMap = new LongLongHashMap();
+        for (int i = 0; i < N; i++) {
+            intMap.put(i, i + 1000);
+            intIntMap.put(i, i + 1000);
+            longMap.put((long) i, (long) i + 1000);
+            longLongMap.put(i, i + 1000);
+        }
+        long intBoxed = GraphLayout.parseInstance(intMap).totalSize();
+        long intPrimitive = GraphLayout.parseInstance(intIntMap).totalSize();
+        long longBoxed = GraphLayout.parseInstance(longMap).totalSize();
+        long longPrimitive = GraphLayout.parseInstance(longLongMap).totalSize();
+        System.out.println("HashMap<Integer,Integer>: " + intBoxed + " bytes, IntIntHashMap: " + intPrimitive + " bytes");
+        System.out.println("HashMap<Long,Long>: " + longBoxed + " bytes, LongLongHashMap: " + longPrimitive + " bytes");
+        Assert.assertTrue(intPrimitive * 3 < intBoxed);
+        Assert.assertTrue(longPrimitive * 2 < longBoxed);
+    }
+
+    @Test
+    public void mapViewMatchesHashMap() {
+        IntHashMap<String> map = new IntHashMap<>(4);
+        Map<Integer, String> expected = new HashMap<>();
+        for (int i = -50; i < 50; i++) {
+            map.put(i, "v" + i);
+            expected.put(i, "v" + i);
+        }
+        // 迭代器删除会触发 backward shift, 所有剩下的 key 都必须还能访问到
+        map.asMap().entrySet().removeIf(e -> (e.getKey() & 1) == 0);
+        expected.entrySet().removeIf(e -> (e.getKey() & 1) == 0);
+        Assert.assertEquals(expected, map.asMap());
+        Assert.assertNull(map.get(0));
+        Assert.assertEquals("v-1", map.get(-1));
+    }
+}
@@ -0,0 +1,142 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.AbstractMap;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicReference;
+
+/**
+ * 有序批量导入: TreeMap 直接建平衡树, ConcurrentSkipListMap 空表时一次性发布链表并行建索引层.
+ * 结果要和逐个 put / merge 的完全一致.
+ *
+ * @date 2026/10/18 15:40
+ */
+public class SortedBulkLoadTest {
+
+    private static List<Map.Entry<Integer, Integer>> sorted(int from, int n, int step) {
+        List<Map.Entry<Integer, Integer>> list = new ArrayList<>(n);
+        for (int i = 0; i < n; i++)
+            list.add(new AbstractMap.SimpleEntry<>(from + i * step, i));
+        return list;
+    }
+
+    @Test
+    public void treeMapPutAndMergeMatchOneByOne() {
+        for (int existing : new int[]{0, 10, 50_000}) {
+            TreeMap<Integer, Integer> map = new TreeMap<>();
+            TreeMap<Integer, Integer> expected = new TreeMap<>();
+            for (Map.Entry<Integer, Integer> e : sorted(1, existing, 3)) {
+                map.put(e.getKey(), e.getValue());
+                expected.put(e.getKey(), e.getValue());
+            }
+            List<Map.Entry<Integer, Integer>> in = sorted(0, 100_000, 2);
+            map.putAllSorted(in.spliterator());
+            for (Map.Entry<Integer, Integer> e : in)
+                expected.put(e.getKey(), e.getValue());
+            Assert.assertEquals(expected, map);
+            // 结果为 null 的键会被删掉
+            map.mergeAllSorted(in.spliterator(), (a, b) -> (a & 1) == 0 ? null : a + b);
+            for (Map.Entry<Integer, Integer> e : in)
+                expected.merge(e.getKey(), e.getValue(), (a, b) -> (a & 1) == 0 ? null : a + b);
+            Assert.assertEquals(expected, map);
+            Assert.assertEquals(expected.firstKey(), map.firstKey());
+            Assert.assertEquals(expected.lastKey(), map.lastKey());
+            Assert.assertEquals(expected.headMap(777), map.headMap(777));
+        }
+    }
+
+    @Test
+    public void outOfOrderInputLeavesMapUnchanged() {
+        List<Map.Entry<Integer, Integer>> in = sorted(0, 1000, 1);
+        in.add(new AbstractMap.SimpleEntry<>(500, 0));
+        TreeMap<Integer, Integer> treeMap = new TreeMap<>();
+        treeMap.put(-1, -1);
+        ConcurrentSkipListMap<Integer, Integer> skipListMap = new ConcurrentSkipListMap<>();
+        try {
+            treeMap.putAllSorted(in.spliterator());
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        try {
+            skipListMap.putAllSorted(in.spliterator());
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+        Assert.assertEquals(1, treeMap.size());
+        Assert.assertTrue(skipListMap.isEmpty());
+    }
+
+    @Test
+    public void skipListBulkLoadThenConcurrentUpdates() throws Exception {
+        int n = 200_000;
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        map.putAllSorted(sorted(0, n, 2).spliterator());
+        Assert.assertEquals(n, map.size());
+        Assert.assertEquals(Integer.valueOf(0), map.firstKey());
+        Assert.assertEquals(Integer.valueOf(2 * (n - 1)), map.lastKey());
+        for (int k = 0; k < 2 * n; k += 97) {
+            Assert.assertEquals((k & 1) == 0 ? Integer.valueOf(k / 2) : null, map.get(k));
+            Assert.assertEquals(Integer.valueOf(k & ~1), map.floorKey(k));
+        }
+        // 索引层建好之后并发插入奇数 key / 删除偶数 key, 最后每个 key 都要能找到
+        int threads = 4;
+        AtomicReference<Throwable> failure = new AtomicReference<>();
+        CountDownLatch done = new CountDownLatch(threads);
+        for (int t = 0; t < threads; t++) {
+            final int id = t;
+            new Thread(() -> {
+                try {
+                    for (int k = 2 * id + 1; k < 2 * n; k += 2 * threads) {
+                        map.put(k, -k);
+                        if ((k & 7) == 1)
+                            map.remove(k - 1);
+                    }
+                } catch (Throwable e) {
+                    failure.compareAndSet(null, e);
+                } finally {
+                    done.countDown();
+                }
+            }).start();
+        }
+        done.await();
+        if (failure.get() != null)
+            throw new AssertionError(failure.get());
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (int k = 0; k < 2 * n; k++) {
+            if ((k & 1) == 1)
+                expected.put(k, -k);
+            else if (((k + 1) & 7) != 1)
+                expected.put(k, k / 2);
+        }
+        Assert.assertEquals(expected, map);
+        for (int i = 0; i < 1000; i++) {
+            int k = ThreadLocalRandom.current().nextInt(2 * n);
+            Assert.assertEquals(expected.get(k), map.get(k));
+            Assert.assertEquals(expected.ceilingKey(k), map.ceilingKey(k));
+        }
+    }
+
+    @Test
+    public void skipListMergeIntoNonEmptyMap() {
+        ConcurrentSkipListMap<Integer, Integer> map = new ConcurrentSkipListMap<>();
+        TreeMap<Integer, Integer> expected = new TreeMap<>();
+        for (Map.Entry<Integer, Integer> e : sorted(0, 5000, 3)) {
+            map.put(e.getKey(), e.getValue());
+            expected.put(e.getKey(), e.getValue());
+        }
+        ConcurrentSkipListMap<Integer, Integer> other = new ConcurrentSkipListMap<>();
+        other.putAllSorted(sorted(0, 5000, 2).spliterator());
+        map.mergeAllSorted(other.entrySet().spliterator(), Integer::sum);
+        for (Map.Entry<Integer, Integer> e : other.entrySet())
+            expected.merge(e.getKey(), e.getValue(), Integer::sum);
+        Assert.assertEquals(expected, map);
+    }
+}
@@ -0,0 +1,97 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Optional;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 流水线算子融合: 连续的 map / filter / peek 合成一个阶段, 只包一层 Sink, 每个元素按顺序过一遍所有步骤;
+ * 顺序流里这个阶段直接跟在源后面时, forEach 不再包 Sink, 直接把源的元素推过这些步骤.
+ * 合成的步骤序列属于各自的流水线, 不在流水线之间缓存, 所以不会一直引用用户的 lambda, 也不受之前建过的流水线影响.
+ * 语义和逐个阶段串起来完全一样.
+ *
+ * @date 2026/10/19 04:50
+ */
+public class StreamFusionTest {
+
+    private static final List<Integer> NUMBERS = Arrays.asList(1, 2, 3, 4, 5, 6, 7, 8, 9, 10);
+
+    @Test
+    public void fusedStepsKeepPerElementOrder() {
+        List<String> trace = new ArrayList<>();
+        List<String> result = NUMBERS.stream()
+                .peek(i -> trace.add("peek " + i))
+                .filter(i -> i % 2 == 0)
+                .map(i -> i * 10)
+                .filter(i -> i > 20)
+                .map(String::valueOf)
+                .collect(Collectors.toList());
+        Assert.assertEquals(Arrays.asList("40", "60", "80", "100"), result);
+        Assert.assertEquals(10, trace.size());
+        Assert.assertEquals("peek 1", trace.get(0));
+
+        // 短路: findFirst 之后不再处理元素
+        trace.clear();
+        Optional<Integer> first = NUMBERS.stream().peek(i -> trace.add("p" + i)).map(i -> i * i).filter(i -> i > 10)
+                .findFirst();
+        Assert.assertEquals(16, (int) first.get());
+        Assert.assertEquals(Arrays.asList("p1", "p2", "p3", "p4"), trace);
+
+        // 没有 filter 时大小已知, toArray 和 count 一样正确
+        Assert.assertArrayEquals(new Object[]{2, 4, 6}, Stream.of(1, 2, 3).map(i -> i * 2).toArray());
+        Assert.assertEquals(5, NUMBERS.stream().map(i -> -i).filter(i -> i < -5).count());
+
+        // 融合阶段后面再接有状态操作和并行
+        Assert.assertEquals(Arrays.asList(100, 81, 64),
+                NUMBERS.stream().map(i -> i * i).sorted((a, b) -> b - a).limit(3).collect(Collectors.toList()));
+        Assert.assertEquals(IntStream.rangeClosed(1, 100_000).filter(i -> i % 3 == 0).asLongStream().sum(),
+                IntStream.rangeClosed(1, 100_000).boxed().parallel().filter(i -> i % 3 == 0).map(Integer::longValue)
+                        .mapToLong(Long::longValue).sum());
+    }
+
+    @Test
+    public void forEachBypassesSinks() {
+        List<Integer> out = new ArrayList<>();
+        NUMBERS.stream().filter(i -> i > 7).map(i -> i + 100).forEach(out::add);
+        Assert.assertEquals(Arrays.asList(108, 109, 110), out);
+        out.clear();
+        NUMBERS.stream().skip(8).map(i -> i + 100).forEachOrdered(out::add);
+        Assert.assertEquals(Arrays.asList(109, 110), out);
+    }
+
+    @Test
+    public void replacedStagesAreConsumed() {
+        Stream<Integer> mapped = NUMBERS.stream().map(i -> i + 1);
+        Stream<Integer> filtered = mapped.filter(i -> i > 5);
+        try {
+            mapped.forEach(i -> {
+            });
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        try {
+            mapped.map(i -> i);
+            Assert.fail();
+        } catch (IllegalStateException expected) {
+        }
+        Assert.assertEquals(6, filtered.count());
+
+        // 同一段代码反复建的流水线, lambda 捕获的值每次不同: 每条流水线用自己的步骤, 不会拿到上一次的
+        for (int k = 2; k <= 4; k++) {
+            int divisor = k;
+            List<String> expected = new ArrayList<>();
+            for (int i : NUMBERS)
+                if (i % divisor == 0)
+                    expected.add(String.valueOf(i * divisor));
+            Assert.assertEquals(expected, NUMBERS.stream().filter(i -> i % divisor == 0)
+                    .map(i -> String.valueOf(i * divisor)).collect(Collectors.toList()));
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinWorkerThread;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.LongStream;
+import java.util.stream.StreamMetrics;
+
+/**
+ * 并行流绑定到指定的 ForkJoinPool: parallel(pool, parallelism) 让终止操作在这个池里执行,
+ * 按 parallelism 切分 (每个并行度大约四个叶子任务), 不再用公共池和公共池的并行度.
+ * recordMetrics 记录并行求值的次数, 耗时, 切分 (fork) 次数, 叶子任务的个数和大小; 一个 StreamMetrics 可以给一个租户的所有流共用.
+ *
+ * @date 2026/10/19 05:20
+ */
+public class StreamPoolTest {
+
+    @Test
+    public void runsInBoundPool() throws Exception {
+        ForkJoinPool pool = new ForkJoinPool(2);
+        try {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < 10_000; i++)
+                list.add(i);
+            Set<ForkJoinPool> pools = ConcurrentHashMap.newKeySet();
+            Set<Thread> others = ConcurrentHashMap.newKeySet();
+            Thread caller = Thread.currentThread();
+            long sum = list.stream().parallel(pool, 2).peek(i -> {
+                Thread t = Thread.currentThread();
+                if (t instanceof ForkJoinWorkerThread)
+                    pools.add(((ForkJoinWorkerThread) t).getPool());
+                else
+                    others.add(t);
+            }).mapToLong(Integer::longValue).sum();
+            Assert.assertEquals(49_995_000L, sum);
+            Assert.assertEquals(1, pools.size());
+            Assert.assertSame(pool, pools.iterator().next());
+            Assert.assertFalse(others.contains(caller));
+
+            // 有状态操作 (sorted) 的分段求值也在池里
+            List<Integer> sorted = list.stream().parallel(pool, 2).map(i -> -i).sorted()
+                    .peek(i -> Assert.assertTrue(Thread.currentThread() instanceof ForkJoinWorkerThread))
+                    .limit(3).collect(Collectors.toList());
+            Assert.assertEquals(-9_999, (int) sorted.get(0));
+            Assert.assertEquals(3, IntStream.range(0, 1000).parallel(pool, 2).filter(i -> i % 3 == 0).toArray()[1]);
+
+            // 异常原样抛给调用者
+            try {
+                IntStream.range(0, 100).parallel(pool, 2).map(i -> 10 / (i - 50)).sum();
+                Assert.fail();
+            } catch (ArithmeticException expected) {
+            }
+
+            try {
+                IntStream.range(0, 1).parallel(pool, 0);
+                Assert.fail();
+            } catch (IllegalArgumentException expected) {
+            }
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void parallelismLimitsLeafTasks() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            StreamMetrics narrow = new StreamMetrics(), wide = new StreamMetrics();
+            long expected = LongStream.range(0, 1 << 16).sum();
+            Assert.assertEquals(expected, LongStream.range(0, 1 << 16).parallel(pool, 1).recordMetrics(narrow).sum());
+            Assert.assertEquals(expected, LongStream.range(0, 1 << 16).parallel(pool, 16).recordMetrics(wide).sum());
+
+            // 并行度 1: 叶子目标大小是 n / 4, 对半切分得到 4 个叶子, 3 次切分
+            Assert.assertEquals(4, narrow.getLeafCount());
+            Assert.assertEquals(3, narrow.getSplitCount());
+            Assert.assertEquals(1 << 14, narrow.getMaxLeafSize());
+            Assert.assertEquals(64, wide.getLeafCount());
+            Assert.assertEquals(1 << 16, wide.getLeafElementCount());
+            Assert.assertEquals(1, wide.getEvaluationCount());
+            Assert.assertTrue(wide.getElapsedTime(TimeUnit.NANOSECONDS) > 0);
+
+            // 顺序求值不记录, 多个流共用一个 StreamMetrics
+            LongStream.range(0, 1000).recordMetrics(narrow).sum();
+            IntStream.range(0, 1000).boxed().parallel(pool, 1).recordMetrics(narrow).forEach(i -> {
+            });
+            Assert.assertEquals(2, narrow.getEvaluationCount());
+            Assert.assertEquals(8, narrow.getLeafCount());
+            narrow.reset();
+            Assert.assertEquals(0, narrow.getLeafCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+
+    @Test
+    public void windowsFollowBoundPool() {
+        ForkJoinPool pool = new ForkJoinPool(4);
+        try {
+            List<Integer> list = new ArrayList<>();
+            for (int i = 0; i < 1 << 12; i++)
+                list.add(i);
+            // 分组操作后面直接 toArray 时, 分组结果用同一个池, 同样的并行度收集, 记到同一个 StreamMetrics
+            StreamMetrics metrics = new StreamMetrics();
+            Object[] chunks = list.stream().parallel(pool, 1).recordMetrics(metrics).chunk(16).toArray();
+            Assert.assertEquals(1 << 8, chunks.length);
+            Assert.assertEquals(list.subList(16, 32), chunks[1]);
+            Assert.assertEquals(1, metrics.getEvaluationCount());
+            Assert.assertEquals(4, metrics.getLeafCount());
+            Assert.assertEquals(1 << 8, metrics.getLeafElementCount());
+        } finally {
+            pool.shutdown();
+        }
+    }
+}
@@ -0,0 +1,157 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.Serializable;
+import java.io.UncheckedIOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
+import java.util.stream.Stream;
+
+/**
+ * 分组类的中间操作: chunk(n) 按 n 个一组分批, windowed(size, step) 滑动窗口, groupAdjacent(key) 把相邻且 key 相等的元素分成一组.
+ * 顺序求值时在 Sink.accept 里增量地组装, 任何时候只缓冲一组; 并行时源是 SUBSIZED 就按窗口边界切分, 否则按批切分, 结果和顺序求值一样.
+ * sorted(comparator, maxInMemory) 超过内存预算就把排好序的一段 (run) 序列化写到临时文件, 最后多路归并, 排序是稳定的.
+ *
+ * @date 2026/10/19 05:50
+ */
+public class StreamWindowTest {
+
+    private static List<Integer> range(int n) {
+        return IntStream.range(0, n).boxed().collect(Collectors.toList());
+    }
+
+    @Test
+    public void sequentialWindows() {
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(3, 4, 5), Arrays.asList(6, 7, 8), Arrays.asList(9)),
+                range(10).stream().chunk(3).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0, 1, 2), Arrays.asList(1, 2, 3), Arrays.asList(2, 3, 4)),
+                range(5).stream().windowed(3, 1).collect(Collectors.toList()));
+        // step 大于 size, 窗口之间的元素被丢掉, 凑不满的尾部也丢掉
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(3, 4), Arrays.asList(6, 7)),
+                range(9).stream().windowed(2, 3).collect(Collectors.toList()));
+        Assert.assertEquals(0, range(2).stream().windowed(3, 1).count());
+        Assert.assertEquals(0, Stream.empty().chunk(3).count());
+
+        // 无限流短路
+        Assert.assertEquals(Arrays.asList(Arrays.asList(0, 1), Arrays.asList(2, 3), Arrays.asList(4, 5)),
+                Stream.iterate(0, i -> i + 1).chunk(2).limit(3).collect(Collectors.toList()));
+
+        Assert.assertEquals(Arrays.asList(Arrays.asList(1, 1), Arrays.asList(2), Arrays.asList(1), Arrays.asList(3, 3, 3)),
+                Stream.of(1, 1, 2, 1, 3, 3, 3).groupAdjacent(i -> i).collect(Collectors.toList()));
+        Assert.assertEquals(Arrays.asList(Arrays.asList("a", null, "b"), Arrays.asList("cc")),
+                Stream.of("a", null, "b", "cc").groupAdjacent(s -> s == null ? 1 : s.length()).collect(Collectors.toList()));
+
+        try {
+            Stream.of(1).windowed(1, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException expected) {
+        }
+    }
+
+    @Test
+    public void parallelMatchesSequential() {
+        int[][] shapes = {{1, 1}, {3, 3}, {7, 7}, {3, 1}, {5, 2}, {2, 5}, {64, 3}};
+        for (int n : new int[]{0, 1, 5, 100, 1000, 10_007}) {
+            List<Integer> list = range(n);
+            for (int[] shape : shapes) {
+                int size = shape[0], step = shape[1];
+                List<List<Integer>> expected = list.stream().windowed(size, step).collect(Collectors.toList());
+                // SUBSIZED 的源按窗口边界切分
+                Assert.assertEquals(expected, list.parallelStream().windowed(size, step).collect(Collectors.toList()));
+                Assert.assertEquals(expected, Arrays.asList(list.parallelStream().windowed(size, step).toArray()));
+                // filter 之后不再 SIZED, 按批切分
+                Assert.assertEquals(expected, list.parallelStream().filter(i -> true).windowed(size, step).collect(Collectors.toList()));
+                Assert.assertEquals(expected.size(), list.parallelStream().windowed(size, step).count());
+                if (size == step) {
+                    List<List<Integer>> chunks = list.stream().chunk(size).collect(Collectors.toList());
+                    Assert.assertEquals(chunks, list.parallelStream().chunk(size).collect(Collectors.toList()));
+                    Assert.assertEquals(list.stream().skip(1).chunk(size).collect(Collectors.toList()),
+                            list.parallelStream().skip(1).chunk(size).collect(Collectors.toList()));
+                }
+            }
+            List<List<Integer>> groups = list.stream().groupAdjacent(i -> i / 7).collect(Collectors.toList());
+            Assert.assertEquals(groups, list.parallelStream().groupAdjacent(i -> i / 7).collect(Collectors.toList()));
+        }
+    }
+
+    static final class Item implements Serializable {
+        final int key, seq;
+
+        Item(int key, int seq) {
+            this.key = key;
+            this.seq = seq;
+        }
+    }
+
+    @Test
+    public void spillingSort() {
+        Random random = new Random(42);
+        List<Integer> data = random.ints(20_000, 0, 1000).boxed().collect(Collectors.toList());
+        List<Integer> expected = data.stream().sorted().collect(Collectors.toList());
+        Comparator<Integer> natural = Comparator.naturalOrder();
+        Assert.assertEquals(expected, data.stream().sorted(natural, 1000).collect(Collectors.toList()));
+        Assert.assertEquals(expected, data.parallelStream().sorted(natural, 1000).collect(Collectors.toList()));
+        Assert.assertEquals(expected, Arrays.asList(data.parallelStream().sorted(natural, 1000).toArray()));
+        Assert.assertEquals(expected.subList(0, 10), data.stream().sorted(natural, 777).limit(10).collect(Collectors.toList()));
+        // 没超过预算就不落盘
+        Assert.assertEquals(expected, data.stream().sorted(natural, 1 << 20).collect(Collectors.toList()));
+
+        // 稳定: key 相等的按原来的顺序; 测试类自己的类在 ForkJoin 线程里也能反序列化
+        List<Item> items = new ArrayList<>();
+        for (int i = 0; i < 5000; i++)
+            items.add(new Item(random.nextInt(10), i));
+        for (boolean parallel : new boolean[]{false, true}) {
+            Stream<Item> s = parallel ? items.parallelStream() : items.stream();
+            List<Item> sorted = s.sorted(Comparator.comparingInt(it -> it.key), 300).collect(Collectors.toList());
+            Assert.assertEquals(items.size(), sorted.size());
+            for (int i = 1; i < sorted.size(); i++) {
+                Item a = sorted.get(i - 1), b = sorted.get(i);
+                Assert.assertTrue(a.key < b.key || (a.key == b.key && a.seq < b.seq));
+            }
+        }
+
+        try {
+            Stream.generate(Object::new).limit(10).sorted(Comparator.comparing(Object::hashCode), 4).count();
+            Assert.fail();
+        } catch (UncheckedIOException expected2) {
+        }
+        try {
+            Stream.of(1).sorted(natural, 0);
+            Assert.fail();
+        } catch (IllegalArgumentException expected2) {
+        }
+    }
+
+    private static int runFiles() {
+        String[] names = new File(System.getProperty("java.io.tmpdir")).list((dir, name) -> name.startsWith("sorted") && name.endsWith(".run"));
+        return names == null ? 0 : names.length;
+    }
+
+    @Test
+    public void spillingSortDeletesRuns() {
+        List<Integer> data = new Random(1).ints(10_000).boxed().collect(Collectors.toList());
+        Comparator<Integer> natural = Comparator.naturalOrder();
+        int before = runFiles();
+        // 并行的短路操作只取前几个元素, 终端操作结束时就删掉临时文件
+        Assert.assertEquals(data.stream().min(natural), data.parallelStream().sorted(natural, 100).findFirst());
+        Assert.assertEquals(3, data.parallelStream().sorted(natural, 100).limit(3).count());
+        Assert.assertEquals(before, runFiles());
+
+        // 通过 iterator 遍历的流在 close 时删掉
+        try (Stream<Integer> s = data.parallelStream().sorted(natural, 100)) {
+            Iterator<Integer> it = s.iterator();
+            Assert.assertEquals(data.stream().min(natural).get(), it.next());
+            Assert.assertTrue(runFiles() > before);
+        }
+        Assert.assertEquals(before, runFiles());
+    }
+}
@@ -0,0 +1,126 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TaskScope;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 结构化并发: TaskScope 把一组子任务 fork 到任意 ExecutorService 上, join 等它们结束或者 scope 被 shutdown,
+ * shutdown 时用 FutureTask.cancel(true) 取消 (中断) 还没结束的兄弟任务, close 等所有还在跑子任务的线程返回.
+ * ShutdownOnFailure 第一个失败时 shutdown, ShutdownOnSuccess 第一个成功时 shutdown; join 可以带超时, 超时也 shutdown.
+ *
+ * @date 2026/10/19 04:20
+ */
+public class TaskScopeTest {
+
+    @Test
+    public void shutdownOnFailureCancelsSiblings() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            AtomicInteger interrupted = new AtomicInteger();
+            Future<String> slow;
+            try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure(pool)) {
+                slow = scope.fork(() -> {
+                    try {
+                        Thread.sleep(60_000);
+                    } catch (InterruptedException e) {
+                        interrupted.incrementAndGet();
+                        throw e;
+                    }
+                    return "slow";
+                });
+                scope.fork(() -> {
+                    throw new IOException("boom");
+                });
+                long start = System.nanoTime();
+                scope.join();
+                Assert.assertTrue(System.nanoTime() - start < TimeUnit.SECONDS.toNanos(10));
+                Assert.assertTrue(scope.isShutdown());
+                Assert.assertTrue(scope.exception() instanceof IOException);
+                try {
+                    scope.throwIfFailed();
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertEquals("boom", e.getCause().getMessage());
+                }
+                // shutdown 之后 fork 的任务不会运行
+                Assert.assertTrue(scope.fork(() -> "late").isCancelled());
+            }
+            // close 返回时被取消的任务已经结束
+            Assert.assertTrue(slow.isCancelled());
+            Assert.assertEquals(1, interrupted.get());
+
+            // 全部成功
+            try (TaskScope.ShutdownOnFailure scope = new TaskScope.ShutdownOnFailure(pool)) {
+                Future<Integer> a = scope.fork(() -> 1);
+                Future<String> b = scope.fork(() -> "b");
+                scope.join().throwIfFailed();
+                Assert.assertFalse(scope.isShutdown());
+                Assert.assertEquals(1, (int) a.get());
+                Assert.assertEquals("b", b.get());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    @Test
+    public void shutdownOnSuccessAndDeadline() throws Exception {
+        ExecutorService pool = Executors.newFixedThreadPool(4);
+        try {
+            try (TaskScope.ShutdownOnSuccess<String> scope = new TaskScope.ShutdownOnSuccess<>(pool)) {
+                scope.fork(() -> {
+                    throw new IllegalStateException();
+                });
+                Future<String> slow = scope.fork(() -> {
+                    Thread.sleep(60_000);
+                    return "slow";
+                });
+                scope.fork(() -> "fast");
+                Assert.assertEquals("fast", scope.join().result());
+                scope.close();
+                Assert.assertTrue(slow.isCancelled());
+            }
+            try (TaskScope.ShutdownOnSuccess<String> scope = new TaskScope.ShutdownOnSuccess<>(pool)) {
+                scope.fork(() -> {
+                    throw new IllegalStateException("only");
+                });
+                try {
+                    scope.join().result();
+                    Assert.fail();
+                } catch (ExecutionException e) {
+                    Assert.assertEquals("only", e.getCause().getMessage());
+                }
+            }
+
+            // 超时: scope 被 shutdown, 正在跑的子任务被中断
+            CountDownLatch started = new CountDownLatch(1);
+            try (TaskScope<Object> scope = new TaskScope<>(pool)) {
+                Future<Object> stuck = scope.fork(() -> {
+                    started.countDown();
+                    return new CountDownLatch(1).await(60, TimeUnit.SECONDS);
+                });
+                started.await();
+                try {
+                    scope.join(50, TimeUnit.MILLISECONDS);
+                    Assert.fail();
+                } catch (TimeoutException expected) {
+                }
+                Assert.assertTrue(scope.isShutdown());
+                Assert.assertTrue(stuck.isCancelled());
+            }
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+}
@@ -0,0 +1,96 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimingWheelScheduledExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 时间轮调度器: 任务按 tick 放进分层的桶里, 插入和取消都是 O(1),
+ * 到期的任务每个 tick 批量交给工作线程. 任务不会早于延迟执行, 最多晚一个 tick 左右.
+ *
+ * @date 2026/10/18 22:50
+ */
+public class TimingWheelSchedulerTest {
+
+    @Test
+    public void tasksRunAfterTheirDelay() throws Exception {
+        // tick 1ms, 每层 8 个桶: 几十毫秒的延迟就要经过好几层
+        TimingWheelScheduledExecutor executor =
+                new TimingWheelScheduledExecutor(2, 1, TimeUnit.MILLISECONDS, 8, Thread::new);
+        int n = 2000;
+        CountDownLatch done = new CountDownLatch(n);
+        AtomicInteger early = new AtomicInteger();
+        AtomicLong maxLate = new AtomicLong();
+        for (int i = 0; i < n; i++) {
+            long delay = TimeUnit.MILLISECONDS.toNanos(i % 200);
+            long due = System.nanoTime() + delay;
+            executor.schedule(() -> {
+                long late = System.nanoTime() - due;
+                if (late < 0)
+                    early.incrementAndGet();
+                maxLate.accumulateAndGet(late, Math::max);
+                done.countDown();
+            }, delay, TimeUnit.NANOSECONDS);
+        }
+        Assert.assertTrue(done.await(10, TimeUnit.SECONDS));
+        Assert.assertEquals(0, early.get());
+        System.out.println("max lateness: " + TimeUnit.NANOSECONDS.toMicros(maxLate.get()) + " us");
+        Assert.assertEquals(Integer.valueOf(42), executor.schedule(() -> 42, 5, TimeUnit.MILLISECONDS).get());
+        Assert.assertEquals(0, executor.getPendingTaskCount());
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void cancelledTasksDoNotRun() throws Exception {
+        TimingWheelScheduledExecutor executor = new TimingWheelScheduledExecutor(1);
+        AtomicInteger ran = new AtomicInteger();
+        List<ScheduledFuture<?>> futures = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++)
+            futures.add(executor.schedule(ran::incrementAndGet, 1000 + i % 100, TimeUnit.MILLISECONDS));
+        Assert.assertEquals(100_000, executor.getPendingTaskCount());
+        for (int i = 0; i < futures.size(); i += 2)
+            Assert.assertTrue(futures.get(i).cancel(false));
+        Assert.assertEquals(50_000, executor.getPendingTaskCount());
+        // shutdown 之后已有的延迟任务照常执行, 新任务被拒绝
+        executor.shutdown();
+        try {
+            executor.schedule(ran::incrementAndGet, 1, TimeUnit.MILLISECONDS);
+            Assert.fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        Assert.assertTrue(executor.awaitTermination(10, TimeUnit.SECONDS));
+        Assert.assertEquals(50_000, ran.get());
+        for (int i = 0; i < futures.size(); i++)
+            Assert.assertEquals(i % 2 == 0, futures.get(i).isCancelled());
+    }
+
+    @Test
+    public void periodicTasksAndShutdownNow() throws Exception {
+        TimingWheelScheduledExecutor executor = new TimingWheelScheduledExecutor(2);
+        CountDownLatch fixedRate = new CountDownLatch(20);
+        CountDownLatch fixedDelay = new CountDownLatch(10);
+        ScheduledFuture<?> rate = executor.scheduleAtFixedRate(fixedRate::countDown, 0, 2, TimeUnit.MILLISECONDS);
+        ScheduledFuture<?> delay = executor.scheduleWithFixedDelay(fixedDelay::countDown, 1, 3, TimeUnit.MILLISECONDS);
+        Assert.assertTrue(fixedRate.await(5, TimeUnit.SECONDS));
+        Assert.assertTrue(fixedDelay.await(5, TimeUnit.SECONDS));
+        Assert.assertFalse(rate.isDone());
+        rate.cancel(false);
+        executor.schedule(() -> { }, 1, TimeUnit.HOURS);
+        List<Runnable> waiting = executor.shutdownNow();
+        // 还在等待的: 一小时后的任务, 以及(如果此刻没在执行)固定延迟的周期任务
+        Assert.assertTrue(waiting.size() >= 1 && waiting.size() <= 2);
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+        Assert.assertTrue(executor.isTerminated());
+        Assert.assertFalse(delay.isDone() && !delay.isCancelled());
+    }
+}
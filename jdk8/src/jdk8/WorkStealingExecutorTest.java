@@ -0,0 +1,143 @@
+package jdk8;
+
+import org.junit.Assert;
+import org.junit.Test;
+
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.WorkStealingThreadPoolExecutor;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * WorkStealingThreadPoolExecutor: ThreadPoolExecutor 的子类, 等待的任务放在多个无锁队列里
+ * (外部线程用的提交队列 + 每个工作线程一个), 空闲的工作线程从别的队列偷任务.
+ * 核心/最大线程数, 拒绝策略, beforeExecute/afterExecute, shutdown 的语义都和 ThreadPoolExecutor 一样.
+ *
+ * @date 2026/10/18 23:55
+ */
+public class WorkStealingExecutorTest {
+
+    @Test
+    public void everyTaskRunsOnceWithHooks() throws Exception {
+        AtomicInteger before = new AtomicInteger();
+        AtomicInteger after = new AtomicInteger();
+        WorkStealingThreadPoolExecutor executor =
+                new WorkStealingThreadPoolExecutor(4, 4, 0, TimeUnit.SECONDS) {
+                    @Override
+                    protected void beforeExecute(Thread t, Runnable r) {
+                        before.incrementAndGet();
+                    }
+
+                    @Override
+                    protected void afterExecute(Runnable r, Throwable t) {
+                        after.incrementAndGet();
+                    }
+                };
+        int submitters = 4, n = 50_000;
+        AtomicLong sum = new AtomicLong();
+        Thread[] threads = new Thread[submitters];
+        for (int s = 0; s < submitters; s++) {
+            threads[s] = new Thread(() -> {
+                for (int i = 1; i <= n; i++) {
+                    long v = i;
+                    executor.execute(() -> sum.addAndGet(v));
+                }
+            });
+            threads[s].start();
+        }
+        for (Thread t : threads)
+            t.join();
+        // shutdown 之后队列里剩下的任务照常执行, 新任务被拒绝
+        executor.shutdown();
+        try {
+            executor.execute(() -> { });
+            Assert.fail();
+        } catch (RejectedExecutionException expected) {
+        }
+        Assert.assertTrue(executor.awaitTermination(20, TimeUnit.SECONDS));
+        Assert.assertEquals((long) submitters * n * (n + 1) / 2, sum.get());
+        Assert.assertEquals(submitters * n, before.get());
+        Assert.assertEquals(submitters * n, after.get());
+        Assert.assertEquals(submitters * n, executor.getCompletedTaskCount());
+        Assert.assertTrue(executor.getQueue().isEmpty());
+    }
+
+    @Test
+    public void affinityKeepsSubtasksLocal() throws Exception {
+        WorkStealingThreadPoolExecutor executor = new WorkStealingThreadPoolExecutor(
+                2, 2, 0, TimeUnit.SECONDS, Integer.MAX_VALUE, true,
+                Executors.defaultThreadFactory(), new ThreadPoolExecutor.AbortPolicy());
+        Assert.assertTrue(executor.hasSubmitterAffinity());
+        int fanOut = 1000;
+        CountDownLatch done = new CountDownLatch(10 * fanOut);
+        for (int i = 0; i < 10; i++)
+            executor.execute(() -> {
+                // 工作线程提交的子任务进自己的队列
+                for (int j = 0; j < fanOut; j++)
+                    executor.execute(done::countDown);
+            });
+        Assert.assertTrue(done.await(20, TimeUnit.SECONDS));
+        Future<Integer> f = executor.submit(() -> 42);
+        Assert.assertEquals(Integer.valueOf(42), f.get());
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+    }
+
+    @Test
+    public void boundedQueuesGrowToMaximumThenReject() throws Exception {
+        // 每个队列最多 2 个任务: 核心线程 1 个, 队列满了再加到 2 个线程, 之后交给 CallerRunsPolicy
+        CountDownLatch release = new CountDownLatch(1);
+        WorkStealingThreadPoolExecutor executor = new WorkStealingThreadPoolExecutor(
+                1, 2, 1, TimeUnit.SECONDS, 2, false,
+                Executors.defaultThreadFactory(), new ThreadPoolExecutor.CallerRunsPolicy());
+        AtomicInteger callerRuns = new AtomicInteger();
+        Thread caller = Thread.currentThread();
+        Runnable blocked = () -> {
+            try {
+                release.await();
+            } catch (InterruptedException ignore) {
+            }
+        };
+        executor.execute(blocked);
+        executor.execute(blocked);
+        executor.execute(blocked);
+        Assert.assertEquals(1, executor.getPoolSize());
+        executor.execute(blocked);
+        Assert.assertEquals(2, executor.getPoolSize());
+        executor.execute(() -> {
+            if (Thread.currentThread() == caller)
+                callerRuns.incrementAndGet();
+        });
+        Assert.assertEquals(1, callerRuns.get());
+        Assert.assertEquals(2, executor.getQueue().size());
+
+        release.countDown();
+        executor.shutdown();
+        Assert.assertTrue(executor.awaitTermination(5, TimeUnit.SECONDS));
+
+        // remove 和 shutdownNow 取出还在排队的任务
+        Runnable queued = () -> { };
+        WorkStealingThreadPoolExecutor another = new WorkStealingThreadPoolExecutor(1, 1, 0, TimeUnit.SECONDS);
+        CountDownLatch hold = new CountDownLatch(1);
+        another.execute(() -> {
+            try {
+                hold.await();
+            } catch (InterruptedException ignore) {
+            }
+        });
+        another.execute(queued);
+        for (int i = 0; i < 9; i++)
+            another.execute(() -> { });
+        Assert.assertTrue(another.remove(queued));
+        Assert.assertFalse(another.remove(queued));
+        List<Runnable> pending = another.shutdownNow();
+        Assert.assertEquals(9, pending.size());
+        Assert.assertTrue(another.awaitTermination(5, TimeUnit.SECONDS));
+    }
+}
@@ -0,0 +1,141 @@
+package sun.misc;
+
+import java.security.AccessController;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Keyed hashing of {@code String} keys for the hash-based collections.
+ *
+ * <p>{@code String.hashCode()} is a fixed function, so an attacker who
+ * controls the keys of a map can choose many keys with equal hash codes
+ * and degrade every lookup among them.  When the system property
+ * {@code jdk.map.keyedHashing} is {@code true}, each new
+ * {@link java.util.HashMap}, {@link java.util.LinkedHashMap},
+ * {@link java.util.HashSet} and
+ * {@link java.util.concurrent.ConcurrentHashMap} draws a random seed
+ * and hashes its {@code String} keys with SipHash-1-3 keyed by that
+ * seed instead.  Colliding keys then have to be found separately for
+ * every map, without ever seeing its seed.
+ *
+ * <p>The keyed hash is not cached in the {@code String}, since it
+ * differs per map; it is computed on every lookup, four characters at
+ * a time.
+ */
+public final class Hashing {
+
+    private Hashing() {
+        throw new Error("No instances");
+    }
+
+    private static class Holder {
+        /**
+         * Whether new maps use keyed hashing, from the system property
+         * {@code jdk.map.keyedHashing}.  Read only once the VM is
+         * booted, since maps are created before system properties are.
+         */
+        static final boolean KEYED_HASHING = Boolean.parseBoolean(
+            AccessController.doPrivileged(
+                new sun.security.action.GetPropertyAction(
+                    "jdk.map.keyedHashing")));
+    }
+
+    /**
+     * Returns the hash seed for a new map: zero, meaning that the map
+     * uses {@code String.hashCode()}, unless keyed hashing is enabled.
+     *
+     * @return zero, or a random non-zero seed
+     */
+    public static int newHashSeed() {
+        if (!VM.isBooted() || !Holder.KEYED_HASHING)
+            return 0;
+        return randomHashSeed();
+    }
+
+    /**
+     * Returns a random non-zero hash seed.
+     *
+     * @return a random non-zero seed
+     */
+    public static int randomHashSeed() {
+        int seed;
+        while ((seed = ThreadLocalRandom.current().nextInt()) == 0)
+            ;
+        return seed;
+    }
+
+    /**
+     * Returns the SipHash-1-3 of the characters of the given string,
+     * keyed by the given seed and folded to 32 bits.  The 128-bit
+     * SipHash key is derived from the seed by two rounds of the
+     * SplitMix64 finalizer.
+     *
+     * @param s the string
+     * @param seed the seed
+     * @return the keyed hash of the string
+     */
+    public static int stringHash32(String s, int seed) {
+        Unsafe U = Strings.U;
+        char[] value = (char[]) U.getObject(s, Strings.VALUE);
+        long k0 = mix64(seed * 0x9E3779B97F4A7C15L);
+        long k1 = mix64(k0 + 0x9E3779B97F4A7C15L);
+        long v0 = k0 ^ 0x736f6d6570736575L;
+        long v1 = k1 ^ 0x646f72616e646f6dL;
+        long v2 = k0 ^ 0x6c7967656e657261L;
+        long v3 = k1 ^ 0x7465646279746573L;
+        int len = value.length, end = len & ~3, i = 0;
+        for (long off = Strings.CHAR_BASE; i < end; i += 4, off += 8) {
+            long m = U.getLong(value, off);     // four chars, host order
+            v3 ^= m;
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+            v0 ^= m;
+        }
+        long b = (long) len << 57;              // byte length mod 256, top byte
+        for (int shift = 0; i < len; ++i, shift += 16)
+            b |= (long) value[i] << shift;
+        v3 ^= b;
+        v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+        v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+        v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+        v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        v0 ^= b;
+        v2 ^= 0xff;
+        for (int r = 0; r < 3; ++r) {
+            v0 += v1; v1 = Long.rotateLeft(v1, 13); v1 ^= v0; v0 = Long.rotateLeft(v0, 32);
+            v2 += v3; v3 = Long.rotateLeft(v3, 16); v3 ^= v2;
+            v0 += v3; v3 = Long.rotateLeft(v3, 21); v3 ^= v0;
+            v2 += v1; v1 = Long.rotateLeft(v1, 17); v1 ^= v2; v2 = Long.rotateLeft(v2, 32);
+        }
+        long h = v0 ^ v1 ^ v2 ^ v3;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    /** The SplitMix64 finalizer */
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+
+    /**
+     * Unsafe access to the characters of strings; a separate class, so
+     * that maps created while the VM boots do not initialize it.
+     */
+    private static final class Strings {
+        static final Unsafe U;
+        static final long VALUE;
+        static final long CHAR_BASE;
+
+        static {
+            try {
+                U = Unsafe.getUnsafe();
+                VALUE = U.objectFieldOffset(String.class.getDeclaredField("value"));
+                CHAR_BASE = U.arrayBaseOffset(char[].class);
+            } catch (Exception e) {
+                throw new Error(e);
+            }
+        }
+    }
+}